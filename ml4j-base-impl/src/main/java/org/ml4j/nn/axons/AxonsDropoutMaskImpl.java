@@ -14,6 +14,8 @@
 package org.ml4j.nn.axons;
 
 import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.random.RandomMatrices;
 
 /**
  * Default implementation of AxonsDropoutMask
@@ -31,6 +33,21 @@ public class AxonsDropoutMaskImpl implements AxonsDropoutMask {
 		this.type = type;
 	}
 
+	/**
+	 * Creates a mask whose values are 1, keeping the corresponding input, with the keep probability and
+	 * 0 otherwise. The mask is generated in bulk by the MatrixFactory where it supports this.
+	 * 
+	 * @param matrixFactory   The factory of the mask.
+	 * @param rows            The number of rows of the mask.
+	 * @param columns         The number of columns of the mask.
+	 * @param keepProbability The probability of each input being kept.
+	 * @param type            The type of the mask.
+	 */
+	public AxonsDropoutMaskImpl(MatrixFactory matrixFactory, int rows, int columns, float keepProbability,
+			AxonsDropoutMaskType type) {
+		this(RandomMatrices.createBernoulliMask(matrixFactory, rows, columns, keepProbability), type);
+	}
+
 	@Override
 	public Matrix getDropoutMask() {
 		return dropoutMask;
@@ -4,6 +4,7 @@ import org.ml4j.FloatModifier;
 import org.ml4j.FloatPredicate;
 import org.ml4j.Matrix;
 import org.ml4j.MatrixFactory;
+import org.ml4j.images.Im2colWorkspace;
 import org.ml4j.images.Image;
 import org.ml4j.images.Images;
 import org.ml4j.images.MultiChannelImages;
@@ -187,6 +188,40 @@ public class ImageNeuronsActivationImpl implements ImageNeuronsActivation {
 				config.getStrideHeight(), config.getStrideWidth());
 	}
 
+	/**
+	 * Exports the im2col matrix of these images into a buffer of the workspace for the layer, to be
+	 * released to the workspace once the matrix is no longer needed.
+	 * 
+	 * @param matrixFactory The factory of the im2col matrix.
+	 * @param config        The configuration of the layer, which identifies its buffers.
+	 * @param workspace     The workspace.
+	 * @return The im2col matrix.
+	 */
+	public Matrix im2ColConv(MatrixFactory matrixFactory, Axons3DConfig config, Im2colWorkspace workspace) {
+		Images imageWithPadding = getImages().softDup();
+		imageWithPadding.setPaddingHeight(config.getPaddingHeight());
+		imageWithPadding.setPaddingWidth(config.getPaddingWidth());
+		return workspace.im2colConvExport(config, imageWithPadding, matrixFactory, config.getFilterHeight(),
+				config.getFilterWidth(), config.getStrideHeight(), config.getStrideWidth());
+	}
+
+	/**
+	 * Exports the pooling im2col matrix of these images into a buffer of the workspace for the layer, to
+	 * be released to the workspace once the matrix is no longer needed.
+	 * 
+	 * @param matrixFactory The factory of the im2col matrix.
+	 * @param config        The configuration of the layer, which identifies its buffers.
+	 * @param workspace     The workspace.
+	 * @return The im2col matrix.
+	 */
+	public Matrix im2ColPool(MatrixFactory matrixFactory, Axons3DConfig config, Im2colWorkspace workspace) {
+		Images imageWithPadding = getImages().softDup();
+		imageWithPadding.setPaddingHeight(config.getPaddingHeight());
+		imageWithPadding.setPaddingWidth(config.getPaddingWidth());
+		return workspace.im2colPoolExport(config, imageWithPadding, matrixFactory, config.getFilterHeight(),
+				config.getFilterWidth(), config.getStrideHeight(), config.getStrideWidth());
+	}
+
 	@Override
 	public ImageNeuronsActivationFormat getFormat() {
 		return format;
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.axons;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.random.ParallelRandom;
+import org.ml4j.random.RandomMatrices;
+
+/**
+ * Checks the masks generated from a keep probability by AxonsDropoutMaskImpl.
+ *
+ * @author Michael Lavelle
+ */
+public class AxonsDropoutMaskImplTest {
+
+	private static final long SEED = 1;
+
+	@Test
+	public void testMaskFromKeepProbability() {
+		for (AxonsDropoutMaskType type : AxonsDropoutMaskType.values()) {
+			JBlasRowMajorMatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+			matrixFactory.setParallelRandom(new ParallelRandom(SEED));
+			AxonsDropoutMaskImpl dropoutMask = new AxonsDropoutMaskImpl(matrixFactory, 200, 150, 0.8f, type);
+
+			Matrix mask = dropoutMask.getDropoutMask();
+			Assert.assertEquals(type, dropoutMask.getType());
+			Assert.assertEquals(200, mask.getRows());
+			Assert.assertEquals(150, mask.getColumns());
+			for (int i = 0; i < mask.getLength(); i++) {
+				Assert.assertTrue(mask.get(i) == 0f || mask.get(i) == 1f);
+			}
+			Assert.assertEquals(0.8f, mask.sum() / mask.getLength(), 0.01f);
+
+			// The mask is that generated by RandomMatrices for the same seed
+			JBlasRowMajorMatrixFactory expectedMatrixFactory = new JBlasRowMajorMatrixFactory();
+			expectedMatrixFactory.setParallelRandom(new ParallelRandom(SEED));
+			Assert.assertArrayEquals(
+					RandomMatrices.createBernoulliMask(expectedMatrixFactory, 200, 150, 0.8f).getRowByRowArray(),
+					mask.getRowByRowArray(), 0f);
+		}
+	}
+}
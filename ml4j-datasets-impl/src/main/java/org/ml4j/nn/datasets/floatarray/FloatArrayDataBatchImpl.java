@@ -23,6 +23,7 @@ import org.ml4j.nn.neurons.NeuronsActivation;
 import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
 import org.ml4j.nn.neurons.NeuronsActivationImpl;
 import org.ml4j.nn.neurons.format.NeuronsActivationFormat;
+import org.ml4j.sparse.CsrMatrixFactory;
 
 import com.codepoetics.protonpack.StreamUtils;
 
@@ -95,4 +96,24 @@ public class FloatArrayDataBatchImpl extends DataBatchImpl<float[]> implements F
 
 	}
 
+	/**
+	 * Creates a NeuronsActivation backed by a sparse matrix, for batches whose values are mostly zero -
+	 * such as one-hot inputs or labels.
+	 * 
+	 * @param csrMatrixFactory The factory of the sparse matrix.
+	 * @param format           The format of the activation.
+	 * @return The NeuronsActivation.
+	 */
+	public NeuronsActivation toSparseNeuronsActivation(CsrMatrixFactory csrMatrixFactory,
+			NeuronsActivationFormat<?> format) {
+		float[][] examples = stream().toArray(float[][]::new);
+		if (format.getFeatureOrientation() == NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET) {
+			Matrix dataMatrix = csrMatrixFactory.createCsrMatrixFromColumns(examples);
+			return new NeuronsActivationImpl(new Neurons(featureCount, false), dataMatrix, format);
+		} else {
+			Matrix dataMatrix = csrMatrixFactory.createCsrMatrixFromRows(examples);
+			return new NeuronsActivationImpl(new Neurons(featureCount, false), dataMatrix, format);
+		}
+	}
+
 }
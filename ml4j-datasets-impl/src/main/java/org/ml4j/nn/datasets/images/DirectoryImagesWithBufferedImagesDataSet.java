@@ -112,7 +112,7 @@ public class DirectoryImagesWithBufferedImagesDataSet extends LabeledDataSetImpl
 				int width = rescaleWidth != null ? rescaleWidth : bufferedImage.getWidth();
 				int height = rescaleHeight != null ? rescaleHeight : bufferedImage.getHeight();
 				BufferedImageFeatureExtractor mapper = new BufferedImageFeatureExtractor(width, height);
-				return new LabeledDataImpl<>(new MultiChannelImage(mapper.getFeatures(bufferedImage), 3, width, height, 0, 0), 
+				return new LabeledDataImpl<>(new MultiChannelImage(mapper.getFeatures(bufferedImage), 3, height, width, 0, 0), 
 						bufferedImage);
 
 			} else {
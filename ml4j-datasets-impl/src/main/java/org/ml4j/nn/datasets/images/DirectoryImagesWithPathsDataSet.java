@@ -87,7 +87,7 @@ public class DirectoryImagesWithPathsDataSet extends LabeledDataSetImpl<Supplier
 				int width = rescaleWidth != null ? rescaleWidth : bufferedImage.getWidth();
 				int height = rescaleHeight != null ? rescaleHeight : bufferedImage.getHeight();
 				BufferedImageFeatureExtractor mapper = new BufferedImageFeatureExtractor(width, height);
-				return new MultiChannelImage(mapper.getFeatures(bufferedImage), 3, width, height, 0, 0);
+				return new MultiChannelImage(mapper.getFeatures(bufferedImage), 3, height, width, 0, 0);
 
 			} else {
 				throw new IllegalArgumentException("Unable to read file" + path);
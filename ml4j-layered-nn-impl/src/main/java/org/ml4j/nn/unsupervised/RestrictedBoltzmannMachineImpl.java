@@ -30,6 +30,7 @@ import org.ml4j.nn.neurons.Neurons;
 import org.ml4j.nn.neurons.NeuronsActivation;
 import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
 import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.ml4j.views.MatrixViews;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -128,14 +129,11 @@ public class RestrictedBoltzmannMachineImpl implements RestrictedBoltzmannMachin
 				int numberOfBatches = (numberOfTrainingElements - 1) / miniBatchSize + 1;
 				for (int batchIndex = 0; batchIndex < numberOfBatches; batchIndex++) {
 					int startColumnIndex = batchIndex * miniBatchSize;
-					int endColumnIndex = Math.min(startColumnIndex + miniBatchSize - 1, numberOfTrainingElements - 1);
-					int[] colIndexes = new int[endColumnIndex - startColumnIndex + 1];
-					for (int c = startColumnIndex; c <= endColumnIndex; c++) {
-						colIndexes[c - startColumnIndex] = c;
-					}
-
-					Matrix dataBatch = trainingActivations.getActivations(trainingContext.getMatrixFactory())
-							.getColumns(colIndexes);
+					int endColumnIndexExclusive = Math.min(startColumnIndex + miniBatchSize, numberOfTrainingElements);
+
+					Matrix dataBatch = MatrixViews.getColumnRange(
+							trainingActivations.getActivations(trainingContext.getMatrixFactory()), startColumnIndex,
+							endColumnIndexExclusive);
 
 					NeuronsActivation batchDataActivations = new NeuronsActivationImpl(getLayer().getVisibleNeurons(),
 							dataBatch, trainingActivations.getFormat());
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.layers;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ConvolutionGeometry;
+import org.ml4j.nn.activationfunctions.DifferentiableActivationFunction;
+import org.ml4j.nn.axons.Axons;
+import org.ml4j.nn.axons.Axons3DConfig;
+import org.ml4j.nn.axons.AxonsContextImpl;
+import org.ml4j.nn.axons.TrainableAxons;
+import org.ml4j.nn.neurons.Neurons;
+import org.ml4j.nn.neurons.Neurons3D;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationContextImpl;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.ml4j.nn.neurons.format.NeuronsActivationFormat;
+import org.ml4j.quantization.ChannelScaleCalibrator;
+import org.ml4j.quantization.Int8QuantizedTransform;
+
+/**
+ * An inference-only, int8 quantized copy of a FullyConnectedFeedForwardLayer or a
+ * ConvolutionalFeedForwardLayer.
+ * 
+ * The scale of each input channel is calibrated from a sample of input activations, the weights are
+ * stored as int8 with a scale per output channel, and the products are accumulated in int32 and
+ * dequantized at the output of the axons, before the layer's activation function is applied.
+ * 
+ * @author Michael Lavelle
+ */
+public class QuantizedFeedForwardLayerInference implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private Int8QuantizedTransform transform;
+	private DifferentiableActivationFunction activationFunction;
+	private Neurons inputNeurons;
+	private Neurons outputNeurons;
+
+	private QuantizedFeedForwardLayerInference(Int8QuantizedTransform transform,
+			DifferentiableActivationFunction activationFunction, Neurons inputNeurons, Neurons outputNeurons) {
+		this.transform = transform;
+		this.activationFunction = activationFunction;
+		this.inputNeurons = inputNeurons;
+		this.outputNeurons = outputNeurons;
+	}
+
+	/**
+	 * @param layer                  The layer to quantize.
+	 * @param calibrationActivations A sample of input activations of the layer.
+	 * @param matrixFactory          The matrix factory.
+	 * @return The quantized layer.
+	 */
+	public static QuantizedFeedForwardLayerInference quantize(FullyConnectedFeedForwardLayer layer,
+			List<NeuronsActivation> calibrationActivations, MatrixFactory matrixFactory) {
+		Neurons inputNeurons = layer.getPrimaryAxons().getLeftNeurons();
+		ChannelScaleCalibrator calibrator = calibrate(calibrationActivations, inputNeurons.getNeuronCount(), 1);
+		Matrix zeroInput = matrixFactory.createZeros(inputNeurons.getNeuronCount(), 1);
+		Matrix biases = getBiases(layer.getPrimaryAxons(),
+				new NeuronsActivationImpl(inputNeurons, zeroInput, NeuronsActivationFormat.ROWS_SPAN_FEATURE_SET),
+				layer.getName(), matrixFactory);
+		Int8QuantizedTransform transform = Int8QuantizedTransform.quantizeFullyConnected(getWeights(layer),
+				biases, calibrator.getScales());
+		return new QuantizedFeedForwardLayerInference(transform, layer.getPrimaryActivationFunction(),
+				inputNeurons, layer.getPrimaryAxons().getRightNeurons());
+	}
+
+	/**
+	 * @param layer                  The layer to quantize, whose weights have a row for each output
+	 *                               channel and a column for each (input channel, filter row, filter
+	 *                               column).
+	 * @param calibrationActivations A sample of input activations of the layer.
+	 * @param matrixFactory          The matrix factory.
+	 * @return The quantized layer.
+	 */
+	public static QuantizedFeedForwardLayerInference quantize(ConvolutionalFeedForwardLayer layer,
+			List<NeuronsActivation> calibrationActivations, MatrixFactory matrixFactory) {
+		Neurons3D inputNeurons = layer.getPrimaryAxons().getLeftNeurons();
+		Neurons3D outputNeurons = layer.getPrimaryAxons().getRightNeurons();
+		ConvolutionGeometry geometry = createGeometry(layer.getPrimaryAxons().getConfig(), inputNeurons,
+				outputNeurons);
+		ChannelScaleCalibrator calibrator = calibrate(calibrationActivations, inputNeurons.getDepth(),
+				geometry.getInputChannelSize());
+		Matrix zeroInput = matrixFactory.createZeros(inputNeurons.getNeuronCount(), 1);
+		Matrix biases = getBiases(layer.getPrimaryAxons(),
+				new NeuronsActivationImpl(inputNeurons, zeroInput, NeuronsActivationFormat.ROWS_SPAN_FEATURE_SET),
+				layer.getName(), matrixFactory);
+		Int8QuantizedTransform transform = Int8QuantizedTransform.quantizeConvolutional(getWeights(layer), biases,
+				calibrator.getScales(), geometry);
+		return new QuantizedFeedForwardLayerInference(transform, layer.getPrimaryActivationFunction(),
+				inputNeurons, outputNeurons);
+	}
+
+	/**
+	 * The quantized transform only supports symmetric zero padding, described by ConvolutionGeometry,
+	 * so any other padding is rejected here, when the layer is quantized, rather than when the
+	 * quantized layer is first applied.
+	 */
+	private static ConvolutionGeometry createGeometry(Axons3DConfig config, Neurons3D inputNeurons,
+			Neurons3D outputNeurons) {
+		ConvolutionGeometry geometry;
+		try {
+			geometry = new ConvolutionGeometry(inputNeurons.getDepth(), inputNeurons.getHeight(),
+					inputNeurons.getWidth(), config.getFilterHeight(), config.getFilterWidth(),
+					config.getStrideHeight(), config.getStrideWidth(), config.getPaddingHeight(),
+					config.getPaddingWidth());
+		} catch (IllegalArgumentException e) {
+			throw new UnsupportedOperationException("Only symmetric zero padding is supported:" + config, e);
+		}
+		if (geometry.getOutputHeight() != outputNeurons.getHeight()
+				|| geometry.getOutputWidth() != outputNeurons.getWidth()) {
+			throw new UnsupportedOperationException("Only symmetric zero padding is supported:" + geometry);
+		}
+		return geometry;
+	}
+
+	private static ChannelScaleCalibrator calibrate(List<NeuronsActivation> calibrationActivations, int channels,
+			int rowsPerChannel) {
+		if (calibrationActivations.isEmpty()) {
+			throw new IllegalArgumentException("At least one calibration activation is required");
+		}
+		ChannelScaleCalibrator calibrator = new ChannelScaleCalibrator(channels, rowsPerChannel);
+		for (NeuronsActivation calibrationActivation : calibrationActivations) {
+			calibrator.observe(getActivations(calibrationActivation));
+		}
+		return calibrator;
+	}
+
+	private static Matrix getWeights(FeedForwardLayer<?, ?> layer) {
+		if (!(layer.getPrimaryAxons() instanceof TrainableAxons)) {
+			throw new UnsupportedOperationException("Axons do not have connection weights");
+		}
+		return ((TrainableAxons<?, ?, ?>) layer.getPrimaryAxons()).getDetachedAxonWeights().getConnectionWeights()
+				.getMatrix();
+	}
+
+	/**
+	 * The biases are obtained as the output of the float axons for an input of zeros, which is the bias
+	 * of each output value in the order of the output.
+	 */
+	private static Matrix getBiases(Axons<?, ?, ?> axons, NeuronsActivation zeroInput, String name,
+			MatrixFactory matrixFactory) {
+		return axons.pushLeftToRight(zeroInput, null, new AxonsContextImpl(name, matrixFactory, false, false))
+				.getPostDropoutOutput().getActivations();
+	}
+
+	private static Matrix getActivations(NeuronsActivation activation) {
+		if (activation.getFeatureOrientation() != NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET) {
+			throw new IllegalArgumentException("Activations must be rows span feature set");
+		}
+		return activation.getActivations();
+	}
+
+	public Neurons getInputNeurons() {
+		return inputNeurons;
+	}
+
+	public Neurons getOutputNeurons() {
+		return outputNeurons;
+	}
+
+	/**
+	 * @param inputNeuronsActivation The input activation.
+	 * @param matrixFactory          The matrix factory.
+	 * @return The output activation of the layer.
+	 */
+	public NeuronsActivation forwardPropagate(NeuronsActivation inputNeuronsActivation,
+			MatrixFactory matrixFactory) {
+		Matrix axonsOutput = transform.apply(getActivations(inputNeuronsActivation), matrixFactory);
+		NeuronsActivation axonsOutputActivation = new NeuronsActivationImpl(outputNeurons, axonsOutput,
+				NeuronsActivationFormat.ROWS_SPAN_FEATURE_SET);
+		return activationFunction.activate(axonsOutputActivation,
+				new NeuronsActivationContextImpl(matrixFactory, false)).getOutput();
+	}
+}
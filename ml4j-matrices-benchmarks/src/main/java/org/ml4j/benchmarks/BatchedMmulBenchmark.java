@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.batched.BatchedMmul;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time to multiply a batch of square matrix pairs one call at a time, compared with a single
+ * batched call, across matrix sizes. The size at which individual calls overtake the batched call
+ * is the crossover above which batching no longer pays for itself.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchedMmulBenchmark {
+
+	@Param({ "JBLAS", "ND4J", "PURE_JAVA" })
+	private MatrixBackend backend;
+
+	@Param({ "4", "8", "16", "32", "64", "128", "256" })
+	private int size;
+
+	@Param({ "8", "64" })
+	private int batchSize;
+
+	private MatrixFactory matrixFactory;
+	private List<Matrix> lefts;
+	private List<Matrix> rights;
+
+	@Setup
+	public void setUp() {
+		matrixFactory = backend.createMatrixFactory();
+		lefts = new ArrayList<>();
+		rights = new ArrayList<>();
+		for (int i = 0; i < batchSize; i++) {
+			lefts.add(matrixFactory.createRandn(size, size));
+			rights.add(matrixFactory.createRand(size, size));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		lefts.forEach(Matrix::close);
+		rights.forEach(Matrix::close);
+	}
+
+	@Benchmark
+	public void individual(Blackhole blackhole) {
+		for (int i = 0; i < batchSize; i++) {
+			Matrix result = lefts.get(i).mmul(rights.get(i));
+			blackhole.consume(result);
+			result.close();
+		}
+	}
+
+	@Benchmark
+	public void batched(Blackhole blackhole) {
+		for (Matrix result : BatchedMmul.mmul(matrixFactory, lefts, rights)) {
+			blackhole.consume(result);
+			result.close();
+		}
+	}
+}
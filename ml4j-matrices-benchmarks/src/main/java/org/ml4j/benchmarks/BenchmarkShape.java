@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+/**
+ * A fully connected layer shape of the form MxKxN, parsed from a benchmark parameter - an MxK weights
+ * matrix multiplied by a KxN activations matrix, N being the batch size.
+ * 
+ * @author Michael Lavelle
+ */
+public class BenchmarkShape {
+
+	private int outputFeatures;
+	private int inputFeatures;
+	private int batchSize;
+
+	private BenchmarkShape(int outputFeatures, int inputFeatures, int batchSize) {
+		this.outputFeatures = outputFeatures;
+		this.inputFeatures = inputFeatures;
+		this.batchSize = batchSize;
+	}
+
+	public static BenchmarkShape parse(String shape) {
+		String[] dimensions = shape.split("x");
+		if (dimensions.length != 3) {
+			throw new IllegalArgumentException("Shape must be of the form MxKxN but was:" + shape);
+		}
+		return new BenchmarkShape(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]),
+				Integer.parseInt(dimensions[2]));
+	}
+
+	public int getOutputFeatures() {
+		return outputFeatures;
+	}
+
+	public int getInputFeatures() {
+		return inputFeatures;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+}
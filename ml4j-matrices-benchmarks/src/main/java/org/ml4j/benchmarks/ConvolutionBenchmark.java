@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.images.MultiChannelImages;
+import org.ml4j.kernels.ConvolutionGeometry;
+import org.ml4j.kernels.WinogradConvolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the convolution algorithms of the image containers across the convolutional layer shapes
+ * of YOLOv2 at its 608x608 input resolution - multiplying the weights by the materialised im2col
+ * matrix, the direct convolution which computes the output straight from the input, and the Winograd
+ * F(2x2,3x3) convolution, which falls back to the direct convolution for the 1x1 layers.
+ * 
+ * A layer `HxWxCxFxK` is an `HxW` image of `C` channels, convolved with `K` `FxF` filters at unit
+ * stride with same padding.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvolutionBenchmark {
+
+	@Param({ "JBLAS", "PURE_JAVA" })
+	private MatrixBackend backend;
+
+	@Param({ "608x608x3x3x32", "304x304x32x3x64", "152x152x128x1x64", "76x76x128x3x256", "38x38x256x3x512",
+			"19x19x512x3x1024", "19x19x1024x1x425" })
+	private String layer;
+
+	@Param({ "1" })
+	private int examples;
+
+	private MatrixFactory matrixFactory;
+	private ConvolutionGeometry geometry;
+	private MultiChannelImages images;
+	private Matrix weights;
+	private WinogradConvolution winogradConvolution;
+
+	@Setup
+	public void setUp() {
+		matrixFactory = backend.createMatrixFactory();
+		String[] dimensions = layer.split("x");
+		if (dimensions.length != 5) {
+			throw new IllegalArgumentException("Layer must be of the form HxWxCxFxK: " + layer);
+		}
+		int filterSize = Integer.parseInt(dimensions[3]);
+		int padding = (filterSize - 1) / 2;
+		geometry = new ConvolutionGeometry(Integer.parseInt(dimensions[2]), Integer.parseInt(dimensions[0]),
+				Integer.parseInt(dimensions[1]), filterSize, filterSize, 1, 1, padding, padding);
+		float[] data = matrixFactory.createRand(1, geometry.getInputDepth() * geometry.getInputChannelSize() * examples)
+				.getRowByRowArray();
+		images = new MultiChannelImages(data, geometry.getInputDepth(), geometry.getInputHeight(),
+				geometry.getInputWidth(), geometry.getPaddingHeight(), geometry.getPaddingWidth(), examples);
+		weights = matrixFactory.createRandn(Integer.parseInt(dimensions[4]), geometry.getPatchSize());
+		winogradConvolution = new WinogradConvolution();
+	}
+
+	@TearDown
+	public void tearDown() {
+		weights.close();
+		images.close();
+	}
+
+	@Benchmark
+	public void im2colGemm(Blackhole blackhole) {
+		Matrix columns = images.im2colConvExport(matrixFactory, geometry.getFilterHeight(), geometry.getFilterWidth(),
+				geometry.getStrideHeight(), geometry.getStrideWidth());
+		Matrix result = weights.mmul(columns);
+		columns.close();
+		blackhole.consume(result);
+		result.close();
+	}
+
+	@Benchmark
+	public void direct(Blackhole blackhole) {
+		Matrix result = images.convolve(matrixFactory, weights, geometry.getFilterHeight(), geometry.getFilterWidth(),
+				geometry.getStrideHeight(), geometry.getStrideWidth());
+		blackhole.consume(result);
+		result.close();
+	}
+
+	@Benchmark
+	public void winograd(Blackhole blackhole) {
+		Matrix result = images.convolve(matrixFactory, weights, geometry.getFilterHeight(), geometry.getFilterWidth(),
+				geometry.getStrideHeight(), geometry.getStrideWidth(), winogradConvolution);
+		blackhole.consume(result);
+		result.close();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ParallelGemm;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Scaling of the multi-threaded pure-Java mmul with the number of threads in its ForkJoinPool,
+ * across the fully connected layer shapes.
+ * 
+ * Thread counts above the number of available processors are skipped.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GemmScalingBenchmark {
+
+	@Param({ "1", "2", "4", "8", "16", "32" })
+	private int threads;
+
+	@Param({ "128x784x32", "128x784x256", "10x128x256", "1024x1024x128" })
+	private String shape;
+
+	private ForkJoinPool forkJoinPool;
+	private Matrix weights;
+	private Matrix activations;
+
+	@Setup
+	public void setUp() {
+		if (threads > Runtime.getRuntime().availableProcessors()) {
+			throw new IllegalStateException("Only " + Runtime.getRuntime().availableProcessors()
+					+ " processors available - skipping " + threads + " threads");
+		}
+		forkJoinPool = new ForkJoinPool(threads);
+		// A threshold of zero so that every shape is multiplied by the pool
+		MatrixFactory matrixFactory = new PureJavaRowMajorMatrixFactory(new ParallelGemm(forkJoinPool, 0));
+		BenchmarkShape benchmarkShape = BenchmarkShape.parse(shape);
+		weights = matrixFactory.createRandn(benchmarkShape.getOutputFeatures(), benchmarkShape.getInputFeatures());
+		activations = matrixFactory.createRand(benchmarkShape.getInputFeatures(), benchmarkShape.getBatchSize());
+	}
+
+	@TearDown
+	public void tearDown() {
+		weights.close();
+		activations.close();
+		forkJoinPool.shutdown();
+	}
+
+	@Benchmark
+	public void mmul(Blackhole blackhole) {
+		Matrix result = weights.mmul(activations);
+		blackhole.consume(result);
+		result.close();
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.halfprecision.HalfPrecisionFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the kernels converting between float and the 16-bit formats, for arrays the size of
+ * an activations matrix.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HalfPrecisionConversionBenchmark {
+
+	@Param({ "BFLOAT16", "IEEE_HALF" })
+	private HalfPrecisionFormat format;
+
+	@Param({ "32768", "200704" })
+	private int length;
+
+	private float[] floats;
+	private short[] halves;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(1);
+		floats = new float[length];
+		halves = new short[length];
+		for (int i = 0; i < length; i++) {
+			floats[i] = (float) random.nextGaussian();
+		}
+		format.fromFloats(floats, 0, halves, 0, length);
+	}
+
+	@Benchmark
+	public short[] fromFloats() {
+		format.fromFloats(floats, 0, halves, 0, length);
+		return halves;
+	}
+
+	@Benchmark
+	public float[] toFloats() {
+		format.toFloats(halves, 0, floats, 0, length);
+		return floats;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.images.Im2colWorkspace;
+import org.ml4j.images.Images;
+import org.ml4j.images.MultiChannelImages;
+import org.ml4j.kernels.ConvolutionGeometry;
+import org.ml4j.kernels.ParallelGemm;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Scaling of the im2col export of the image containers, and of the import accumulating an im2col
+ * matrix back into an image as in convolution backpropagation, with the number of threads in the pool
+ * of the MatrixFactory, across the convolutional layer shapes of YOLOv2 at its 608x608 input
+ * resolution. The export into the buffers of an Im2colWorkspace reuses the buffer of each layer
+ * rather than allocating one on every invocation.
+ * 
+ * A layer `HxWxCxF` is an `HxW` image of `C` channels, convolved with `FxF` filters at unit stride
+ * with same padding. Thread counts above the number of available processors are skipped.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Im2colBenchmark {
+
+	@Param({ "1", "2", "4", "8", "16", "32" })
+	private int threads;
+
+	@Param({ "608x608x3x3", "304x304x32x3", "152x152x64x3", "152x152x128x1", "76x76x128x3", "38x38x256x3",
+			"19x19x512x3", "19x19x1024x3" })
+	private String layer;
+
+	@Param({ "1" })
+	private int examples;
+
+	private ForkJoinPool forkJoinPool;
+	private MatrixFactory matrixFactory;
+	private ConvolutionGeometry geometry;
+	private Images images;
+	private Matrix columns;
+	private Im2colWorkspace workspace;
+
+	@Setup
+	public void setUp() {
+		if (threads > Runtime.getRuntime().availableProcessors()) {
+			throw new IllegalStateException("Only " + Runtime.getRuntime().availableProcessors()
+					+ " processors available - skipping " + threads + " threads");
+		}
+		forkJoinPool = new ForkJoinPool(threads);
+		// A threshold of zero so that every layer is exported by the pool
+		matrixFactory = new PureJavaRowMajorMatrixFactory(new ParallelGemm(forkJoinPool, 0),
+				new ParallelKernels(forkJoinPool, 0));
+		geometry = parseLayer(layer);
+		float[] data = matrixFactory.createRand(1, geometry.getInputDepth() * geometry.getInputChannelSize() * examples)
+				.getRowByRowArray();
+		images = new MultiChannelImages(data, geometry.getInputDepth(), geometry.getInputHeight(),
+				geometry.getInputWidth(), geometry.getPaddingHeight(), geometry.getPaddingWidth(), examples);
+		columns = images.im2colConvExport(matrixFactory, geometry.getFilterHeight(), geometry.getFilterWidth(),
+				geometry.getStrideHeight(), geometry.getStrideWidth());
+		workspace = new Im2colWorkspace();
+	}
+
+	@TearDown
+	public void tearDown() {
+		columns.close();
+		images.close();
+		forkJoinPool.shutdown();
+	}
+
+	@Benchmark
+	public void im2colConvExport(Blackhole blackhole) {
+		Matrix result = images.im2colConvExport(matrixFactory, geometry.getFilterHeight(), geometry.getFilterWidth(),
+				geometry.getStrideHeight(), geometry.getStrideWidth());
+		blackhole.consume(result);
+		result.close();
+	}
+
+	@Benchmark
+	public void im2colConvExportWorkspace(Blackhole blackhole) {
+		Matrix result = workspace.im2colConvExport(layer, images, matrixFactory, geometry.getFilterHeight(),
+				geometry.getFilterWidth(), geometry.getStrideHeight(), geometry.getStrideWidth());
+		blackhole.consume(result);
+		workspace.release(layer, result);
+	}
+
+	@Benchmark
+	public void im2colConvImport() {
+		images.im2colConvImport(matrixFactory, columns, geometry.getFilterHeight(), geometry.getFilterWidth(),
+				geometry.getStrideHeight(), geometry.getStrideWidth());
+	}
+
+	private static ConvolutionGeometry parseLayer(String layer) {
+		String[] dimensions = layer.split("x");
+		if (dimensions.length != 4) {
+			throw new IllegalArgumentException("Layer must be of the form HxWxCxF: " + layer);
+		}
+		int height = Integer.parseInt(dimensions[0]);
+		int width = Integer.parseInt(dimensions[1]);
+		int channels = Integer.parseInt(dimensions[2]);
+		int filterSize = Integer.parseInt(dimensions[3]);
+		int padding = (filterSize - 1) / 2;
+		return new ConvolutionGeometry(channels, height, width, filterSize, filterSize, 1, 1, padding, padding);
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.function.Supplier;
+
+import org.ml4j.MatrixFactory;
+import org.ml4j.direct.DirectFloatBufferMatrixFactory;
+import org.ml4j.floatarray.FloatArrayPool;
+import org.ml4j.halfprecision.HalfPrecisionFormat;
+import org.ml4j.halfprecision.HalfPrecisionMatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nd4j.Nd4jRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * The MatrixFactory implementations that can be selected as a benchmark parameter.
+ * 
+ * @author Michael Lavelle
+ */
+public enum MatrixBackend {
+
+	JBLAS(JBlasRowMajorMatrixFactory::new), JBLAS_POOLED(
+			() -> new JBlasRowMajorMatrixFactory(new FloatArrayPool())), ND4J(Nd4jRowMajorMatrixFactory::new), DIRECT(
+					DirectFloatBufferMatrixFactory::new), PURE_JAVA(PureJavaRowMajorMatrixFactory::new), BFLOAT16(
+							() -> new HalfPrecisionMatrixFactory(HalfPrecisionFormat.BFLOAT16)), IEEE_HALF(
+									() -> new HalfPrecisionMatrixFactory(HalfPrecisionFormat.IEEE_HALF));
+
+	private Supplier<MatrixFactory> matrixFactorySupplier;
+
+	private MatrixBackend(Supplier<MatrixFactory> matrixFactorySupplier) {
+		this.matrixFactorySupplier = matrixFactorySupplier;
+	}
+
+	public MatrixFactory createMatrixFactory() {
+		return matrixFactorySupplier.get();
+	}
+}
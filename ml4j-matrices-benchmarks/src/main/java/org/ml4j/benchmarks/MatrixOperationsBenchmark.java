@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.activations.MatrixActivations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the Matrix operations on the hot path of feed forward training, across the
+ * MatrixFactory backends and a grid of fully connected layer shapes.
+ * 
+ * Out-of-place results are closed once consumed, as they would be by the training loop.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixOperationsBenchmark {
+
+	@Param({ "JBLAS", "JBLAS_POOLED", "ND4J", "DIRECT", "PURE_JAVA" })
+	private MatrixBackend backend;
+
+	@Param({ "128x784x32", "128x784x256", "10x128x256", "1024x1024x128" })
+	private String shape;
+
+	private MatrixFactory matrixFactory;
+	private Matrix weights;
+	private Matrix activations;
+	private Matrix columnVector;
+	private Matrix rowVector;
+	private int[] batchColumnIndexes;
+
+	@Setup
+	public void setUp() {
+		matrixFactory = backend.createMatrixFactory();
+		BenchmarkShape benchmarkShape = BenchmarkShape.parse(shape);
+		int rows = benchmarkShape.getInputFeatures();
+		int columns = benchmarkShape.getBatchSize();
+		weights = matrixFactory.createRandn(benchmarkShape.getOutputFeatures(), rows);
+		activations = matrixFactory.createRand(rows, columns);
+		// Vector values are kept close to one so repeated division stays well conditioned
+		columnVector = matrixFactory.createOnes(rows, 1).asEditableMatrix().addi(0.5f);
+		rowVector = matrixFactory.createOnes(1, columns).asEditableMatrix().addi(0.5f);
+		batchColumnIndexes = new int[Math.max(1, columns / 2)];
+		for (int i = 0; i < batchColumnIndexes.length; i++) {
+			batchColumnIndexes[i] = i * 2;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		weights.close();
+		activations.close();
+		columnVector.close();
+		rowVector.close();
+	}
+
+	private void consumeAndClose(Blackhole blackhole, Matrix result) {
+		blackhole.consume(result);
+		result.close();
+	}
+
+	@Benchmark
+	public void mmul(Blackhole blackhole) {
+		consumeAndClose(blackhole, weights.mmul(activations));
+	}
+
+	@Benchmark
+	public void addColumnVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.addColumnVector(columnVector));
+	}
+
+	@Benchmark
+	public void addRowVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.addRowVector(rowVector));
+	}
+
+	@Benchmark
+	public void subColumnVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.subColumnVector(columnVector));
+	}
+
+	@Benchmark
+	public void subRowVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.subRowVector(rowVector));
+	}
+
+	@Benchmark
+	public void mulColumnVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.mulColumnVector(columnVector));
+	}
+
+	@Benchmark
+	public void mulRowVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.mulRowVector(rowVector));
+	}
+
+	@Benchmark
+	public void divColumnVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.divColumnVector(columnVector));
+	}
+
+	@Benchmark
+	public void divRowVector(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.divRowVector(rowVector));
+	}
+
+	@Benchmark
+	public void transpose(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.transpose());
+	}
+
+	@Benchmark
+	public void sigmoid(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.sigmoid());
+	}
+
+	@Benchmark
+	public void softmaxColumns(Blackhole blackhole) {
+		consumeAndClose(blackhole, MatrixActivations.softmaxColumns(activations, matrixFactory));
+	}
+
+	@Benchmark
+	public void relu(Blackhole blackhole) {
+		consumeAndClose(blackhole, MatrixActivations.relu(activations, matrixFactory));
+	}
+
+	@Benchmark
+	public void tanh(Blackhole blackhole) {
+		consumeAndClose(blackhole, MatrixActivations.tanh(activations, matrixFactory));
+	}
+
+	@Benchmark
+	public Matrix sigmoidInPlace() {
+		// The in-place form is applied to a matrix whose values stay in a bounded range
+		return MatrixActivations.sigmoidi(activations);
+	}
+
+	@Benchmark
+	public void getColumns(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.getColumns(batchColumnIndexes));
+	}
+
+	@Benchmark
+	public void appendVertically(Blackhole blackhole) {
+		consumeAndClose(blackhole, activations.appendVertically(activations));
+	}
+
+	@Benchmark
+	public float[] toColumnByColumnArray() {
+		return activations.toColumnByColumnArray();
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.activations.MatrixActivations;
+import org.ml4j.quantization.ChannelScaleCalibrator;
+import org.ml4j.quantization.Int8QuantizedTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Inference throughput of a fully connected network with ReLU hidden layers, comparing the float
+ * path of each backend with the int8 quantized path over the same weights.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuantizedInferenceBenchmark {
+
+	private static final int[] LAYER_SIZES = { 784, 1024, 1024, 10 };
+
+	@Param({ "JBLAS", "PURE_JAVA" })
+	private MatrixBackend backend;
+
+	@Param({ "1", "8", "64", "256" })
+	private int batchSize;
+
+	private MatrixFactory matrixFactory;
+	private Matrix[] weights;
+	private Matrix[] biases;
+	private Int8QuantizedTransform[] quantizedTransforms;
+	private Matrix input;
+
+	@Setup
+	public void setUp() {
+		matrixFactory = backend.createMatrixFactory();
+		int layers = LAYER_SIZES.length - 1;
+		weights = new Matrix[layers];
+		biases = new Matrix[layers];
+		quantizedTransforms = new Int8QuantizedTransform[layers];
+		input = matrixFactory.createRand(LAYER_SIZES[0], batchSize);
+		// Calibrate each layer on the float activations of a calibration batch
+		Matrix calibrationActivations = matrixFactory.createRand(LAYER_SIZES[0], 256);
+		for (int layer = 0; layer < layers; layer++) {
+			weights[layer] = matrixFactory.createRandn(LAYER_SIZES[layer + 1], LAYER_SIZES[layer]).asEditableMatrix()
+					.muli((float) Math.sqrt(2d / LAYER_SIZES[layer]));
+			biases[layer] = matrixFactory.createRandn(LAYER_SIZES[layer + 1], 1).asEditableMatrix().muli(0.1f);
+			ChannelScaleCalibrator calibrator = new ChannelScaleCalibrator(LAYER_SIZES[layer], 1);
+			calibrator.observe(calibrationActivations);
+			quantizedTransforms[layer] = Int8QuantizedTransform.quantizeFullyConnected(weights[layer], biases[layer],
+					calibrator.getScales());
+			calibrationActivations = forwardPropagate(layer, calibrationActivations);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (int layer = 0; layer < weights.length; layer++) {
+			weights[layer].close();
+			biases[layer].close();
+		}
+		input.close();
+	}
+
+	private Matrix forwardPropagate(int layer, Matrix activations) {
+		Matrix output = weights[layer].mmul(activations).asEditableMatrix().addiColumnVector(biases[layer]);
+		return layer < weights.length - 1 ? MatrixActivations.relui(output) : output;
+	}
+
+	@Benchmark
+	public void floatInference(Blackhole blackhole) {
+		Matrix activations = input;
+		for (int layer = 0; layer < weights.length; layer++) {
+			Matrix output = forwardPropagate(layer, activations);
+			if (activations != input) {
+				activations.close();
+			}
+			activations = output;
+		}
+		blackhole.consume(activations);
+		activations.close();
+	}
+
+	@Benchmark
+	public void quantizedInference(Blackhole blackhole) {
+		Matrix activations = input;
+		for (int layer = 0; layer < quantizedTransforms.length; layer++) {
+			Matrix output = quantizedTransforms[layer].apply(activations, matrixFactory);
+			if (layer < quantizedTransforms.length - 1) {
+				MatrixActivations.relui(output);
+			}
+			if (activations != input) {
+				activations.close();
+			}
+			activations = output;
+		}
+		blackhole.consume(activations);
+		activations.close();
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.activations;
+
+import org.ml4j.EditableMatrix;
+import org.ml4j.Matrix;
+
+/**
+ * A Matrix providing dedicated single-pass activation functions and gradients, in place and out of
+ * place.
+ * 
+ * The in-place forms modify and return this matrix without allocating. The gradient methods are
+ * applied to the outputs of the corresponding activation function.
+ * 
+ * For the softmax functions, each column is taken to be the activations of one example.
+ * 
+ * @author Michael Lavelle
+ */
+public interface ActivationFunctionMatrix extends Matrix {
+
+	EditableMatrix sigmoidi();
+
+	/**
+	 * @return The gradient of the sigmoid function, where this matrix contains its outputs.
+	 */
+	Matrix sigmoidGradient();
+
+	EditableMatrix sigmoidGradienti();
+
+	Matrix tanh();
+
+	EditableMatrix tanhi();
+
+	/**
+	 * @return The gradient of the tanh function, where this matrix contains its outputs.
+	 */
+	Matrix tanhGradient();
+
+	EditableMatrix tanhGradienti();
+
+	Matrix relu();
+
+	EditableMatrix relui();
+
+	/**
+	 * @return The gradient of the relu function, where this matrix contains its outputs.
+	 */
+	Matrix reluGradient();
+
+	EditableMatrix reluGradienti();
+
+	/**
+	 * @return The softmax of each column of this matrix.
+	 */
+	Matrix softmaxColumns();
+
+	/**
+	 * Replaces each column of this matrix by its softmax.
+	 * 
+	 * @return This matrix.
+	 */
+	EditableMatrix softmaxColumnsi();
+}
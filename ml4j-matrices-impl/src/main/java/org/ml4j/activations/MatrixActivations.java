@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.activations;
+
+import org.ml4j.EditableMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ActivationKernel;
+
+/**
+ * Applies activation functions to any Matrix, using the dedicated kernels of an
+ * ActivationFunctionMatrix where available, and otherwise applying the kernels to a copy of the
+ * values of the matrix.
+ * 
+ * Each function has an out-of-place form, and an in-place form suffixed with i. These are the entry
+ * points for the activation function implementations, which are provided by the activation function
+ * module rather than by this one.
+ * 
+ * @author Michael Lavelle
+ */
+public final class MatrixActivations {
+
+	private MatrixActivations() {
+	}
+
+	public static Matrix sigmoid(Matrix matrix, MatrixFactory matrixFactory) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return matrix.sigmoid();
+		}
+		return apply(ActivationKernel.SIGMOID, matrix, matrixFactory);
+	}
+
+	public static Matrix sigmoidi(Matrix matrix) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) matrix).sigmoidi();
+		}
+		return applyInPlace(ActivationKernel.SIGMOID, matrix);
+	}
+
+	public static Matrix sigmoidGradient(Matrix outputs, MatrixFactory matrixFactory) {
+		if (outputs instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) outputs).sigmoidGradient();
+		}
+		return apply(ActivationKernel.SIGMOID_GRADIENT, outputs, matrixFactory);
+	}
+
+	public static Matrix sigmoidGradienti(Matrix outputs) {
+		if (outputs instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) outputs).sigmoidGradienti();
+		}
+		return applyInPlace(ActivationKernel.SIGMOID_GRADIENT, outputs);
+	}
+
+	public static Matrix tanh(Matrix matrix, MatrixFactory matrixFactory) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) matrix).tanh();
+		}
+		return apply(ActivationKernel.TANH, matrix, matrixFactory);
+	}
+
+	public static Matrix tanhi(Matrix matrix) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) matrix).tanhi();
+		}
+		return applyInPlace(ActivationKernel.TANH, matrix);
+	}
+
+	public static Matrix tanhGradient(Matrix outputs, MatrixFactory matrixFactory) {
+		if (outputs instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) outputs).tanhGradient();
+		}
+		return apply(ActivationKernel.TANH_GRADIENT, outputs, matrixFactory);
+	}
+
+	public static Matrix tanhGradienti(Matrix outputs) {
+		if (outputs instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) outputs).tanhGradienti();
+		}
+		return applyInPlace(ActivationKernel.TANH_GRADIENT, outputs);
+	}
+
+	public static Matrix relu(Matrix matrix, MatrixFactory matrixFactory) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) matrix).relu();
+		}
+		return apply(ActivationKernel.RELU, matrix, matrixFactory);
+	}
+
+	public static Matrix relui(Matrix matrix) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) matrix).relui();
+		}
+		return applyInPlace(ActivationKernel.RELU, matrix);
+	}
+
+	public static Matrix reluGradient(Matrix outputs, MatrixFactory matrixFactory) {
+		if (outputs instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) outputs).reluGradient();
+		}
+		return apply(ActivationKernel.RELU_GRADIENT, outputs, matrixFactory);
+	}
+
+	public static Matrix reluGradienti(Matrix outputs) {
+		if (outputs instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) outputs).reluGradienti();
+		}
+		return applyInPlace(ActivationKernel.RELU_GRADIENT, outputs);
+	}
+
+	public static Matrix softmaxColumns(Matrix matrix, MatrixFactory matrixFactory) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) matrix).softmaxColumns();
+		}
+		float[] values = matrix.getRowByRowArray();
+		float[] result = new float[values.length];
+		ActivationKernel.softmaxColumns(values, result, matrix.getRows(), matrix.getColumns());
+		return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(), result);
+	}
+
+	public static Matrix softmaxColumnsi(Matrix matrix) {
+		if (matrix instanceof ActivationFunctionMatrix) {
+			return ((ActivationFunctionMatrix) matrix).softmaxColumnsi();
+		}
+		EditableMatrix editableMatrix = matrix.asEditableMatrix();
+		float[] values = matrix.getRowByRowArray();
+		ActivationKernel.softmaxColumns(values, values, matrix.getRows(), matrix.getColumns());
+		for (int i = 0; i < values.length; i++) {
+			editableMatrix.put(i, values[i]);
+		}
+		return editableMatrix;
+	}
+
+	private static Matrix apply(ActivationKernel kernel, Matrix matrix, MatrixFactory matrixFactory) {
+		float[] values = matrix.getRowByRowArray();
+		float[] result = new float[values.length];
+		kernel.apply(values, result, 0, values.length);
+		return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(), result);
+	}
+
+	private static Matrix applyInPlace(ActivationKernel kernel, Matrix matrix) {
+		EditableMatrix editableMatrix = matrix.asEditableMatrix();
+		int length = matrix.getLength();
+		for (int i = 0; i < length; i++) {
+			editableMatrix.put(i, kernel.apply(editableMatrix.get(i)));
+		}
+		return editableMatrix;
+	}
+}
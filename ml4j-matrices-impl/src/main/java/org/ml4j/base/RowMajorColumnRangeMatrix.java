@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.base;
+
+/**
+ * A view of a range of the columns of a RowMajorMatrixBase, sharing its storage until it is changed in
+ * place, when it first copies its values into a matrix of its own.
+ * 
+ * @author Michael Lavelle
+ */
+public class RowMajorColumnRangeMatrix extends RowMajorMatrixBase {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private RowMajorMatrixBase parent;
+	private int startColumn;
+
+	/**
+	 * The copy of the values of this view, once this view has been changed in place.
+	 */
+	private RowMajorMatrixBase copy;
+
+	public RowMajorColumnRangeMatrix(RowMajorMatrixBase parent, int startColumn, int endColumnExclusive) {
+		super(parent.matrixFactory, parent.getRows(), endColumnExclusive - startColumn, parent.isImmutable());
+		this.parent = parent;
+		this.startColumn = startColumn;
+	}
+
+	private int getParentIndex(int index) {
+		return (index / columns) * parent.columns + startColumn + index % columns;
+	}
+
+	/**
+	 * @return The copy of the values of this view, created on first use.
+	 */
+	private RowMajorMatrixBase getCopy() {
+		if (copy == null) {
+			float[] values = new float[getLength()];
+			getValues(values, 0);
+			copy = createMatrix(rows, columns);
+			copy.putValues(values, 0);
+		}
+		return copy;
+	}
+
+	@Override
+	protected float getValue(int index) {
+		return copy == null ? parent.getValue(getParentIndex(index)) : copy.getValue(index);
+	}
+
+	@Override
+	protected void putValue(int index, float value) {
+		getCopy().putValue(index, value);
+	}
+
+	@Override
+	protected void getValues(float[] target, int targetIndex) {
+		if (copy == null) {
+			super.getValues(target, targetIndex);
+		} else {
+			copy.getValues(target, targetIndex);
+		}
+	}
+
+	@Override
+	protected void getValues(int start, int end, float[] target, int targetIndex) {
+		if (copy == null) {
+			super.getValues(start, end, target, targetIndex);
+		} else {
+			copy.getValues(start, end, target, targetIndex);
+		}
+	}
+
+	@Override
+	protected void putValues(float[] source, int sourceIndex) {
+		getCopy().putValues(source, sourceIndex);
+	}
+
+	@Override
+	protected long getStorageBytes() {
+		// Any copy is reported as an allocation of its own
+		return 0;
+	}
+
+	@Override
+	protected void releaseStorage() {
+		// Until copied, the storage belongs to the parent
+		if (copy != null) {
+			copy.close();
+		}
+	}
+
+	@Override
+	protected RowMajorMatrixBase createSoftDup() {
+		return copy == null ? new RowMajorColumnRangeMatrix(parent, startColumn, startColumn + columns)
+				: copy.createSoftDup();
+	}
+
+	@Override
+	public void reshape(int newRows, int newColumns) {
+		getCopy().reshape(newRows, newColumns);
+		super.reshape(newRows, newColumns);
+	}
+}
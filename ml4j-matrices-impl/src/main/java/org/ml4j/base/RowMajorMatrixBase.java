@@ -0,0 +1,959 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.base;
+
+import org.ml4j.EditableMatrix;
+import org.ml4j.InterrimMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.activations.ActivationFunctionMatrix;
+import org.ml4j.kernels.ActivationKernel;
+import org.ml4j.kernels.BinaryOperation;
+import org.ml4j.kernels.GemmKernels;
+import org.ml4j.sparse.SparseMatrix;
+import org.ml4j.views.ColumnRangeMatrix;
+import org.ml4j.views.RowByRowValuesMatrix;
+
+/**
+ * Base class for Matrix implementations which store their values in row-major order in a storage
+ * of their own choosing.
+ * 
+ * Every operation is implemented here in terms of reading and writing values by row-major index,
+ * so a subclass need only provide access to its storage, and may override the operations it can
+ * perform more efficiently.
+ * 
+ * Subclasses whose storage is not a heap float array return a copy of their values from
+ * getRowByRowArray().
+ * 
+ * @author Michael Lavelle
+ */
+public abstract class RowMajorMatrixBase
+		implements Matrix, EditableMatrix, InterrimMatrix, ActivationFunctionMatrix, ColumnRangeMatrix,
+		RowByRowValuesMatrix {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	protected RowMajorMatrixFactoryBase matrixFactory;
+	protected int rows;
+	protected int columns;
+	protected boolean immutable;
+	protected boolean closed;
+
+	/**
+	 * Whether the storage of this matrix may be referenced elsewhere, in which case it must not be
+	 * released when this matrix is closed.
+	 */
+	protected boolean storageShared;
+
+	public RowMajorMatrixBase(RowMajorMatrixFactoryBase matrixFactory, int rows, int columns, boolean immutable) {
+		this.matrixFactory = matrixFactory;
+		this.rows = rows;
+		this.columns = columns;
+		this.immutable = immutable;
+	}
+
+	/**
+	 * @param index The row-major index of the value.
+	 * @return The value at the row-major index.
+	 */
+	protected abstract float getValue(int index);
+
+	/**
+	 * @param index The row-major index of the value.
+	 * @param value The value to set at the row-major index.
+	 */
+	protected abstract void putValue(int index, float value);
+
+	/**
+	 * Release the storage of this matrix - only called if the storage is not shared.
+	 */
+	protected abstract void releaseStorage();
+
+	/**
+	 * @return A matrix sharing the storage of this matrix.
+	 */
+	protected abstract RowMajorMatrixBase createSoftDup();
+
+	/**
+	 * Copy all values of this matrix, in row-major order, into the target array.
+	 * 
+	 * @param target      The target array.
+	 * @param targetIndex The index in the target array of the first value.
+	 */
+	protected void getValues(float[] target, int targetIndex) {
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			target[targetIndex + i] = getValue(i);
+		}
+	}
+
+	/**
+	 * Copy the values of this matrix, in row-major order, from start (inclusive) to end (exclusive) into
+	 * the target array.
+	 * 
+	 * @param start       The row-major index of the first value.
+	 * @param end         The row-major index after the last value.
+	 * @param target      The target array.
+	 * @param targetIndex The index in the target array of the first value.
+	 */
+	protected void getValues(int start, int end, float[] target, int targetIndex) {
+		for (int i = start; i < end; i++) {
+			target[targetIndex + i - start] = getValue(i);
+		}
+	}
+
+	/**
+	 * Set all values of this matrix from an array of row-major values.
+	 * 
+	 * @param source      The source array.
+	 * @param sourceIndex The index in the source array of the first value.
+	 */
+	protected void putValues(float[] source, int sourceIndex) {
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			putValue(i, source[sourceIndex + i]);
+		}
+	}
+
+	protected RowMajorMatrixBase createMatrix(int rows, int columns) {
+		return allocated(matrixFactory.createRowMajorMatrix(rows, columns));
+	}
+
+	/**
+	 * Notifies the allocation listener of the factory of this matrix, if any, of a matrix allocated by
+	 * an operation on this matrix.
+	 * 
+	 * @param matrix The allocated matrix.
+	 * @return The matrix.
+	 */
+	protected <M extends RowMajorMatrixBase> M allocated(M matrix) {
+		return matrixFactory.allocated(matrix);
+	}
+
+	/**
+	 * @return The number of bytes of storage held by this matrix.
+	 */
+	protected long getStorageBytes() {
+		return getLength() * (long) Float.BYTES;
+	}
+
+	protected RowMajorMatrixBase createMatrixOfSameShape() {
+		return createMatrix(rows, columns);
+	}
+
+	protected void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("Matrix has been closed");
+		}
+	}
+
+	/**
+	 * Marks the storage of this matrix as referenced elsewhere, so that it is not released when this
+	 * matrix is closed.
+	 * 
+	 * @return This matrix.
+	 */
+	public RowMajorMatrixBase markStorageShared() {
+		this.storageShared = true;
+		return this;
+	}
+
+	/**
+	 * The values of the other matrix in row-major order, copied only if necessary.
+	 * 
+	 * @param other The matrix.
+	 * @return The row-major values, which must not be modified.
+	 */
+	protected float[] getRowByRowValues(Matrix other) {
+		return other.getRowByRowArray();
+	}
+
+	protected void checkSameShape(Matrix other) {
+		if (other.getRows() != rows) {
+			throw new IllegalArgumentException("Rows do not match");
+		}
+		if (other.getColumns() != columns) {
+			throw new IllegalArgumentException("Columns do not match");
+		}
+	}
+
+	protected void checkColumnVector(Matrix other) {
+		if (other.getRows() != rows) {
+			throw new IllegalArgumentException("Rows do not match");
+		}
+	}
+
+	protected void checkRowVector(Matrix other) {
+		if (other.getColumns() != columns) {
+			throw new IllegalArgumentException("Columns do not match");
+		}
+	}
+
+	/**
+	 * Apply an operation to corresponding elements of this matrix and another, placing the results in
+	 * the target, which may be this matrix.
+	 */
+	protected void applyElementwise(BinaryOperation operation, Matrix other, RowMajorMatrixBase target) {
+		ensureOpen();
+		checkSameShape(other);
+		float[] otherValues = getRowByRowValues(other);
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			target.putValue(i, operation.apply(getValue(i), otherValues[i]));
+		}
+	}
+
+	protected void applyScalar(BinaryOperation operation, float value, RowMajorMatrixBase target) {
+		ensureOpen();
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			target.putValue(i, operation.apply(getValue(i), value));
+		}
+	}
+
+	protected void applyColumnVector(BinaryOperation operation, Matrix other, RowMajorMatrixBase target) {
+		ensureOpen();
+		checkColumnVector(other);
+		float[] vector = getRowByRowValues(other);
+		for (int r = 0; r < rows; r++) {
+			float value = vector[r];
+			int rowStart = r * columns;
+			for (int c = 0; c < columns; c++) {
+				target.putValue(rowStart + c, operation.apply(getValue(rowStart + c), value));
+			}
+		}
+	}
+
+	protected void applyRowVector(BinaryOperation operation, Matrix other, RowMajorMatrixBase target) {
+		ensureOpen();
+		checkRowVector(other);
+		float[] vector = getRowByRowValues(other);
+		for (int r = 0; r < rows; r++) {
+			int rowStart = r * columns;
+			for (int c = 0; c < columns; c++) {
+				target.putValue(rowStart + c, operation.apply(getValue(rowStart + c), vector[c]));
+			}
+		}
+	}
+
+	private RowMajorMatrixBase elementwise(BinaryOperation operation, Matrix other) {
+		RowMajorMatrixBase result = createMatrixOfSameShape();
+		applyElementwise(operation, other, result);
+		return result;
+	}
+
+	private RowMajorMatrixBase scalar(BinaryOperation operation, float value) {
+		RowMajorMatrixBase result = createMatrixOfSameShape();
+		applyScalar(operation, value, result);
+		return result;
+	}
+
+	private RowMajorMatrixBase columnVector(BinaryOperation operation, Matrix other) {
+		RowMajorMatrixBase result = createMatrixOfSameShape();
+		applyColumnVector(operation, other, result);
+		return result;
+	}
+
+	private RowMajorMatrixBase rowVector(BinaryOperation operation, Matrix other) {
+		RowMajorMatrixBase result = createMatrixOfSameShape();
+		applyRowVector(operation, other, result);
+		return result;
+	}
+
+	@Override
+	public Matrix add(Matrix other) {
+		return elementwise(BinaryOperation.ADD, other);
+	}
+
+	@Override
+	public Matrix add(float value) {
+		return scalar(BinaryOperation.ADD, value);
+	}
+
+	@Override
+	public Matrix sub(Matrix other) {
+		return elementwise(BinaryOperation.SUB, other);
+	}
+
+	@Override
+	public Matrix sub(float value) {
+		return scalar(BinaryOperation.SUB, value);
+	}
+
+	@Override
+	public Matrix mul(Matrix other) {
+		return elementwise(BinaryOperation.MUL, other);
+	}
+
+	@Override
+	public Matrix mul(float value) {
+		return scalar(BinaryOperation.MUL, value);
+	}
+
+	@Override
+	public Matrix div(Matrix other) {
+		return elementwise(BinaryOperation.DIV, other);
+	}
+
+	@Override
+	public Matrix div(float value) {
+		return scalar(BinaryOperation.DIV, value);
+	}
+
+	@Override
+	public Matrix addColumnVector(Matrix other) {
+		return columnVector(BinaryOperation.ADD, other);
+	}
+
+	@Override
+	public Matrix addRowVector(Matrix other) {
+		return rowVector(BinaryOperation.ADD, other);
+	}
+
+	@Override
+	public Matrix subColumnVector(Matrix other) {
+		return columnVector(BinaryOperation.SUB, other);
+	}
+
+	@Override
+	public Matrix subRowVector(Matrix other) {
+		return rowVector(BinaryOperation.SUB, other);
+	}
+
+	@Override
+	public Matrix mulColumnVector(Matrix other) {
+		return columnVector(BinaryOperation.MUL, other);
+	}
+
+	@Override
+	public Matrix mulRowVector(Matrix other) {
+		return rowVector(BinaryOperation.MUL, other);
+	}
+
+	@Override
+	public Matrix divColumnVector(Matrix other) {
+		return columnVector(BinaryOperation.DIV, other);
+	}
+
+	@Override
+	public Matrix divRowVector(Matrix other) {
+		return rowVector(BinaryOperation.DIV, other);
+	}
+
+	@Override
+	public EditableMatrix addi(Matrix other) {
+		applyElementwise(BinaryOperation.ADD, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix addi(float value) {
+		applyScalar(BinaryOperation.ADD, value, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix subi(Matrix other) {
+		applyElementwise(BinaryOperation.SUB, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix subi(float value) {
+		applyScalar(BinaryOperation.SUB, value, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix muli(Matrix other) {
+		applyElementwise(BinaryOperation.MUL, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix muli(float value) {
+		applyScalar(BinaryOperation.MUL, value, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix divi(Matrix other) {
+		applyElementwise(BinaryOperation.DIV, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix divi(float value) {
+		applyScalar(BinaryOperation.DIV, value, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix addiColumnVector(Matrix other) {
+		applyColumnVector(BinaryOperation.ADD, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix addiRowVector(Matrix other) {
+		applyRowVector(BinaryOperation.ADD, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix subiColumnVector(Matrix other) {
+		applyColumnVector(BinaryOperation.SUB, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix subiRowVector(Matrix other) {
+		applyRowVector(BinaryOperation.SUB, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix muliColumnVector(Matrix other) {
+		applyColumnVector(BinaryOperation.MUL, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix muliRowVector(Matrix other) {
+		applyRowVector(BinaryOperation.MUL, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix diviColumnVector(Matrix other) {
+		applyColumnVector(BinaryOperation.DIV, other, this);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix diviRowVector(Matrix other) {
+		applyRowVector(BinaryOperation.DIV, other, this);
+		return this;
+	}
+
+	@Override
+	public Matrix mmul(Matrix other) {
+		ensureOpen();
+		if (other instanceof SparseMatrix) {
+			return ((SparseMatrix) other).leftMmul(this, matrixFactory);
+		}
+		if (other.getRows() != columns) {
+			throw new IllegalArgumentException("Columns of this matrix do not match rows of other matrix");
+		}
+		int resultColumns = other.getColumns();
+		float[] result = new float[rows * resultColumns];
+		GemmKernels.gemm(rows, resultColumns, columns, getRowByRowValues(this), 0, columns, getRowByRowValues(other), 0,
+				resultColumns, result, 0, resultColumns);
+		RowMajorMatrixBase resultMatrix = createMatrix(rows, resultColumns);
+		resultMatrix.putValues(result, 0);
+		return resultMatrix;
+	}
+
+	@Override
+	public float get(int index) {
+		ensureOpen();
+		return getValue(index);
+	}
+
+	@Override
+	public float get(int row, int column) {
+		ensureOpen();
+		return getValue(row * columns + column);
+	}
+
+	@Override
+	public void put(int index, float value) {
+		ensureOpen();
+		putValue(index, value);
+	}
+
+	@Override
+	public void put(int row, int column, float value) {
+		ensureOpen();
+		putValue(row * columns + column, value);
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getColumns() {
+		return columns;
+	}
+
+	@Override
+	public int getLength() {
+		return rows * columns;
+	}
+
+	@Override
+	public Matrix get(int[] rowIndexes, int[] columnIndexes) {
+		ensureOpen();
+		RowMajorMatrixBase result = createMatrix(rowIndexes.length, columnIndexes.length);
+		int index = 0;
+		for (int r : rowIndexes) {
+			for (int c : columnIndexes) {
+				result.putValue(index++, getValue(r * columns + c));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix getRows(int[] rowIndexes) {
+		ensureOpen();
+		RowMajorMatrixBase result = createMatrix(rowIndexes.length, columns);
+		int index = 0;
+		for (int r : rowIndexes) {
+			int rowStart = r * columns;
+			for (int c = 0; c < columns; c++) {
+				result.putValue(index++, getValue(rowStart + c));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix getColumns(int[] columnIndexes) {
+		ensureOpen();
+		RowMajorMatrixBase result = createMatrix(rows, columnIndexes.length);
+		int index = 0;
+		for (int r = 0; r < rows; r++) {
+			int rowStart = r * columns;
+			for (int c : columnIndexes) {
+				result.putValue(index++, getValue(rowStart + c));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix getColumnRange(int start, int endExclusive) {
+		ensureOpen();
+		return allocated(new RowMajorColumnRangeMatrix(this, start, endExclusive));
+	}
+
+	@Override
+	public Matrix getRow(int rowIndex) {
+		return getRows(new int[] { rowIndex });
+	}
+
+	@Override
+	public Matrix getColumn(int columnIndex) {
+		return getColumns(new int[] { columnIndex });
+	}
+
+	@Override
+	public void putRow(int rowIndex, Matrix other) {
+		ensureOpen();
+		checkRowVector(other);
+		float[] values = getRowByRowValues(other);
+		int rowStart = rowIndex * columns;
+		for (int c = 0; c < columns; c++) {
+			putValue(rowStart + c, values[c]);
+		}
+	}
+
+	@Override
+	public void putColumn(int columnIndex, Matrix other) {
+		ensureOpen();
+		checkColumnVector(other);
+		float[] values = getRowByRowValues(other);
+		for (int r = 0; r < rows; r++) {
+			putValue(r * columns + columnIndex, values[r]);
+		}
+	}
+
+	@Override
+	public void reshape(int newRows, int newColumns) {
+		ensureOpen();
+		if (newRows * newColumns != getLength()) {
+			throw new IllegalArgumentException("Number of elements must not change");
+		}
+		this.rows = newRows;
+		this.columns = newColumns;
+	}
+
+	@Override
+	public Matrix rowSums() {
+		ensureOpen();
+		RowMajorMatrixBase result = createMatrix(rows, 1);
+		for (int r = 0; r < rows; r++) {
+			int rowStart = r * columns;
+			float sum = 0;
+			for (int c = 0; c < columns; c++) {
+				sum += getValue(rowStart + c);
+			}
+			result.putValue(r, sum);
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix columnSums() {
+		ensureOpen();
+		float[] sums = new float[columns];
+		for (int r = 0; r < rows; r++) {
+			int rowStart = r * columns;
+			for (int c = 0; c < columns; c++) {
+				sums[c] += getValue(rowStart + c);
+			}
+		}
+		RowMajorMatrixBase result = createMatrix(1, columns);
+		result.putValues(sums, 0);
+		return result;
+	}
+
+	@Override
+	public int[] columnArgmaxs() {
+		ensureOpen();
+		int[] argmaxs = new int[columns];
+		for (int c = 0; c < columns; c++) {
+			float max = Float.NEGATIVE_INFINITY;
+			for (int r = 0; r < rows; r++) {
+				float value = getValue(r * columns + c);
+				if (value > max || r == 0) {
+					max = value;
+					argmaxs[c] = r;
+				}
+			}
+		}
+		return argmaxs;
+	}
+
+	@Override
+	public int argmax() {
+		ensureOpen();
+		int length = getLength();
+		if (length == 0) {
+			return -1;
+		}
+		int argmax = 0;
+		float max = getValue(0);
+		for (int i = 1; i < length; i++) {
+			float value = getValue(i);
+			if (value > max) {
+				max = value;
+				argmax = i;
+			}
+		}
+		return argmax;
+	}
+
+	@Override
+	public float sum() {
+		ensureOpen();
+		float sum = 0;
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			sum += getValue(i);
+		}
+		return sum;
+	}
+
+	@Override
+	public Matrix transpose() {
+		ensureOpen();
+		RowMajorMatrixBase result = createMatrix(columns, rows);
+		for (int r = 0; r < rows; r++) {
+			int rowStart = r * columns;
+			for (int c = 0; c < columns; c++) {
+				result.putValue(c * rows + r, getValue(rowStart + c));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix appendHorizontally(Matrix other) {
+		ensureOpen();
+		checkColumnVector(other);
+		int otherColumns = other.getColumns();
+		int resultColumns = columns + otherColumns;
+		float[] otherValues = getRowByRowValues(other);
+		RowMajorMatrixBase result = createMatrix(rows, resultColumns);
+		for (int r = 0; r < rows; r++) {
+			int resultRowStart = r * resultColumns;
+			for (int c = 0; c < columns; c++) {
+				result.putValue(resultRowStart + c, getValue(r * columns + c));
+			}
+			for (int c = 0; c < otherColumns; c++) {
+				result.putValue(resultRowStart + columns + c, otherValues[r * otherColumns + c]);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix appendVertically(Matrix other) {
+		ensureOpen();
+		checkRowVector(other);
+		int length = getLength();
+		float[] values = new float[length + other.getLength()];
+		getValues(values, 0);
+		System.arraycopy(getRowByRowValues(other), 0, values, length, other.getLength());
+		RowMajorMatrixBase result = createMatrix(rows + other.getRows(), columns);
+		result.putValues(values, 0);
+		return result;
+	}
+
+	@Override
+	public Matrix dup() {
+		ensureOpen();
+		RowMajorMatrixBase result = createMatrixOfSameShape();
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			result.putValue(i, getValue(i));
+		}
+		return result;
+	}
+
+	@Override
+	public Matrix softDup() {
+		ensureOpen();
+		markStorageShared();
+		return createSoftDup().markStorageShared();
+	}
+
+	@Override
+	public EditableMatrix expi() {
+		ensureOpen();
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			putValue(i, (float) Math.exp(getValue(i)));
+		}
+		return this;
+	}
+
+	@Override
+	public Matrix logi() {
+		ensureOpen();
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			putValue(i, (float) Math.log(getValue(i)));
+		}
+		return this;
+	}
+
+	@Override
+	public Matrix log() {
+		return dup().asEditableMatrix().logi();
+	}
+
+	/**
+	 * Apply an activation function to each value of this matrix, placing the results in the target,
+	 * which may be this matrix.
+	 */
+	protected void applyActivation(ActivationKernel kernel, RowMajorMatrixBase target) {
+		ensureOpen();
+		int length = getLength();
+		for (int i = 0; i < length; i++) {
+			target.putValue(i, kernel.apply(getValue(i)));
+		}
+	}
+
+	/**
+	 * Apply the softmax function to each column of this matrix, placing the results in the target,
+	 * which may be this matrix.
+	 */
+	protected void applySoftmaxColumns(RowMajorMatrixBase target) {
+		ensureOpen();
+		int length = getLength();
+		for (int c = 0; c < columns; c++) {
+			float max = Float.NEGATIVE_INFINITY;
+			double sum = 0;
+			for (int index = c; index < length; index += columns) {
+				float value = getValue(index);
+				if (value > max) {
+					sum = sum * Math.exp(max - value) + 1d;
+					max = value;
+				} else {
+					sum += Math.exp(value - max);
+				}
+			}
+			for (int index = c; index < length; index += columns) {
+				target.putValue(index, (float) (Math.exp(getValue(index) - max) / sum));
+			}
+		}
+	}
+
+	private RowMajorMatrixBase activation(ActivationKernel kernel) {
+		RowMajorMatrixBase result = createMatrixOfSameShape();
+		applyActivation(kernel, result);
+		return result;
+	}
+
+	@Override
+	public Matrix sigmoid() {
+		return activation(ActivationKernel.SIGMOID);
+	}
+
+	@Override
+	public EditableMatrix sigmoidi() {
+		applyActivation(ActivationKernel.SIGMOID, this);
+		return this;
+	}
+
+	@Override
+	public Matrix sigmoidGradient() {
+		return activation(ActivationKernel.SIGMOID_GRADIENT);
+	}
+
+	@Override
+	public EditableMatrix sigmoidGradienti() {
+		applyActivation(ActivationKernel.SIGMOID_GRADIENT, this);
+		return this;
+	}
+
+	@Override
+	public Matrix tanh() {
+		return activation(ActivationKernel.TANH);
+	}
+
+	@Override
+	public EditableMatrix tanhi() {
+		applyActivation(ActivationKernel.TANH, this);
+		return this;
+	}
+
+	@Override
+	public Matrix tanhGradient() {
+		return activation(ActivationKernel.TANH_GRADIENT);
+	}
+
+	@Override
+	public EditableMatrix tanhGradienti() {
+		applyActivation(ActivationKernel.TANH_GRADIENT, this);
+		return this;
+	}
+
+	@Override
+	public Matrix relu() {
+		return activation(ActivationKernel.RELU);
+	}
+
+	@Override
+	public EditableMatrix relui() {
+		applyActivation(ActivationKernel.RELU, this);
+		return this;
+	}
+
+	@Override
+	public Matrix reluGradient() {
+		return activation(ActivationKernel.RELU_GRADIENT);
+	}
+
+	@Override
+	public EditableMatrix reluGradienti() {
+		applyActivation(ActivationKernel.RELU_GRADIENT, this);
+		return this;
+	}
+
+	@Override
+	public Matrix softmaxColumns() {
+		RowMajorMatrixBase result = createMatrixOfSameShape();
+		applySoftmaxColumns(result);
+		return result;
+	}
+
+	@Override
+	public EditableMatrix softmaxColumnsi() {
+		applySoftmaxColumns(this);
+		return this;
+	}
+
+	@Override
+	public void getRowByRowValues(int start, int end, float[] target, int targetIndex) {
+		ensureOpen();
+		if (start < 0 || end > getLength() || start > end) {
+			throw new IllegalArgumentException("Invalid range " + start + " to " + end + " for " + getLength() + " values");
+		}
+		getValues(start, end, target, targetIndex);
+	}
+
+	@Override
+	public float[] getRowByRowArray() {
+		ensureOpen();
+		float[] values = new float[getLength()];
+		getValues(values, 0);
+		return values;
+	}
+
+	@Override
+	public float[] getColumnByColumnArray() {
+		return toColumnByColumnArray();
+	}
+
+	@Override
+	public float[] toColumnByColumnArray() {
+		ensureOpen();
+		float[] values = new float[getLength()];
+		for (int r = 0; r < rows; r++) {
+			int rowStart = r * columns;
+			for (int c = 0; c < columns; c++) {
+				values[c * rows + r] = getValue(rowStart + c);
+			}
+		}
+		return values;
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			if (!storageShared) {
+				releaseStorage();
+			}
+			closed = true;
+			matrixFactory.closed(this);
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public EditableMatrix asEditableMatrix() {
+		if (isImmutable()) {
+			throw new IllegalStateException("Matrix is immutable");
+		}
+		return this;
+	}
+
+	@Override
+	public InterrimMatrix asInterrimMatrix() {
+		return this;
+	}
+
+	@Override
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	@Override
+	public void setImmutable(boolean immutable) {
+		this.immutable = immutable;
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.base;
+
+import org.ml4j.Matrix;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.kernels.ParallelMatrixFactory;
+import org.ml4j.random.ParallelRandom;
+import org.ml4j.random.RandomMatrixFactory;
+import org.ml4j.tracking.MatrixAllocationListener;
+import org.ml4j.tracking.TrackableMatrixFactory;
+
+/**
+ * Base MatrixFactory for RowMajorMatrixBase implementations.
+ * 
+ * @author Michael Lavelle
+ */
+public abstract class RowMajorMatrixFactoryBase implements TrackableMatrixFactory, RandomMatrixFactory,
+		ParallelMatrixFactory {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private static final ParallelKernels DEFAULT_PARALLEL_KERNELS = new ParallelKernels();
+
+	private ParallelRandom parallelRandom = new ParallelRandom();
+
+	private transient MatrixAllocationListener matrixAllocationListener;
+
+	@Override
+	public ParallelRandom getParallelRandom() {
+		return parallelRandom;
+	}
+
+	@Override
+	public void setParallelRandom(ParallelRandom parallelRandom) {
+		this.parallelRandom = parallelRandom;
+	}
+
+	/**
+	 * @return The kernels with which data is converted between layouts. Defaults to kernels on the
+	 *         common ForkJoinPool.
+	 */
+	@Override
+	public ParallelKernels getParallelKernels() {
+		return DEFAULT_PARALLEL_KERNELS;
+	}
+
+	/**
+	 * @param rows    The number of rows.
+	 * @param columns The number of columns.
+	 * @return A new zero-filled matrix.
+	 */
+	protected abstract RowMajorMatrixBase createRowMajorMatrix(int rows, int columns);
+
+	/**
+	 * Create a matrix from an array of row-major values. The default implementation copies the values -
+	 * implementations which store their values in a float array may wrap the array instead.
+	 * 
+	 * @param rows    The number of rows.
+	 * @param columns The number of columns.
+	 * @param data    The row-major values.
+	 * @return The new matrix.
+	 */
+	protected RowMajorMatrixBase createRowMajorMatrix(int rows, int columns, float[] data) {
+		if (data.length != rows * columns) {
+			throw new IllegalArgumentException("Passed data must match matrix dimensions.");
+		}
+		RowMajorMatrixBase matrix = createRowMajorMatrix(rows, columns);
+		matrix.putValues(data, 0);
+		return matrix;
+	}
+
+	/**
+	 * Notifies the allocation listener, if any, of a matrix allocated by this factory or by an
+	 * operation on one of its matrices.
+	 * 
+	 * @param matrix The allocated matrix.
+	 * @return The matrix.
+	 */
+	protected <M extends RowMajorMatrixBase> M allocated(M matrix) {
+		MatrixAllocationListener listener = matrixAllocationListener;
+		if (listener != null) {
+			listener.onAllocation(matrix, matrix.getStorageBytes());
+		}
+		return matrix;
+	}
+
+	/**
+	 * Notifies the allocation listener, if any, that one of the matrices of this factory has been
+	 * closed.
+	 * 
+	 * @param matrix The closed matrix.
+	 */
+	protected void closed(RowMajorMatrixBase matrix) {
+		MatrixAllocationListener listener = matrixAllocationListener;
+		if (listener != null) {
+			listener.onClose(matrix);
+		}
+	}
+
+	@Override
+	public void setMatrixAllocationListener(MatrixAllocationListener matrixAllocationListener) {
+		this.matrixAllocationListener = matrixAllocationListener;
+	}
+
+	@Override
+	public Matrix createOnes(int rows, int columns) {
+		RowMajorMatrixBase matrix = allocated(createRowMajorMatrix(rows, columns));
+		matrix.addi(1f);
+		return matrix;
+	}
+
+	@Override
+	public Matrix createOnes(int length) {
+		return createOnes(1, length);
+	}
+
+	@Override
+	public Matrix createMatrixFromRows(float[][] data) {
+		int rows = data.length;
+		int columns = rows == 0 ? 0 : data[0].length;
+		float[] rowByRowData = new float[rows * columns];
+		getParallelKernels().fromRows(data, rows, columns, rowByRowData);
+		return allocated(createRowMajorMatrix(rows, columns, rowByRowData));
+	}
+
+	@Override
+	public Matrix createMatrix() {
+		return allocated(createRowMajorMatrix(0, 0));
+	}
+
+	@Override
+	public Matrix createMatrix(float[] data) {
+		return allocated(createRowMajorMatrix(1, data.length, data));
+	}
+
+	@Override
+	public Matrix createMatrixFromRowsByRowsArray(int rows, int columns, float[] data) {
+		return allocated(createRowMajorMatrix(rows, columns, data));
+	}
+
+	@Override
+	public Matrix createMatrixFromColumnsByColumnsArray(int rows, int columns, float[] data) {
+		float[] rowByRowData = new float[rows * columns];
+		// The column-by-column data is the row-major data of the transpose
+		getParallelKernels().transpose(data, columns, rows, rowByRowData);
+		return allocated(createRowMajorMatrix(rows, columns, rowByRowData));
+	}
+
+	@Override
+	public Matrix createMatrix(int rows, int columns) {
+		return allocated(createRowMajorMatrix(rows, columns));
+	}
+
+	@Override
+	public Matrix createZeros(int rows, int columns) {
+		return allocated(createRowMajorMatrix(rows, columns));
+	}
+
+	@Override
+	public Matrix createRandn(int rows, int columns) {
+		float[] data = new float[rows * columns];
+		parallelRandom.gaussian(data, data.length);
+		return allocated(createRowMajorMatrix(rows, columns, data));
+	}
+
+	@Override
+	public Matrix createRand(int rows, int columns) {
+		float[] data = new float[rows * columns];
+		parallelRandom.uniform(data, data.length);
+		return allocated(createRowMajorMatrix(rows, columns, data));
+	}
+
+	@Override
+	public Matrix createBernoulliMask(int rows, int columns, float probability) {
+		float[] data = new float[rows * columns];
+		parallelRandom.bernoulli(data, data.length, probability);
+		return allocated(createRowMajorMatrix(rows, columns, data));
+	}
+
+	@Override
+	public Matrix createBernoulliSample(Matrix probabilities) {
+		float[] data = new float[probabilities.getLength()];
+		parallelRandom.bernoulli(probabilities.getRowByRowArray(), data, data.length);
+		return allocated(createRowMajorMatrix(probabilities.getRows(), probabilities.getColumns(), data));
+	}
+
+	@Override
+	public Matrix createHorizontalConcatenation(Matrix first, Matrix second) {
+		return first.appendHorizontally(second);
+	}
+
+	@Override
+	public Matrix createVerticalConcatenation(Matrix first, Matrix second) {
+		return first.appendVertically(second);
+	}
+}
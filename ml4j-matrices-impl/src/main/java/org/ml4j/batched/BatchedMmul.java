@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.batched;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BinaryOperator;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ParallelMatrixFactory;
+
+/**
+ * Multiplies batches of matrix pairs, using the batched multiplication of the MatrixFactory where
+ * available and otherwise multiplying the pairs in parallel on the ForkJoinPool of a
+ * ParallelMatrixFactory, or the common pool.
+ * 
+ * @author Michael Lavelle
+ */
+public final class BatchedMmul {
+
+	/**
+	 * The number of tasks per thread the batch is divided into, so that pairs of differing sizes
+	 * balance across the threads.
+	 */
+	private static final int TASKS_PER_THREAD = 4;
+
+	private BatchedMmul() {
+	}
+
+	/**
+	 * @param matrixFactory The factory of the matrices.
+	 * @param lefts         The matrices on the left of each product.
+	 * @param rights        The matrices on the right of each product.
+	 * @return The products lefts[i].rights[i], in order.
+	 */
+	public static List<Matrix> mmul(MatrixFactory matrixFactory, List<Matrix> lefts, List<Matrix> rights) {
+		if (matrixFactory instanceof BatchedMmulMatrixFactory) {
+			return ((BatchedMmulMatrixFactory) matrixFactory).mmul(lefts, rights);
+		}
+		// Run on the factory's own pool, so that the batch keeps to its threads and any parallel products
+		// are not nested in tasks of another pool
+		ForkJoinPool forkJoinPool = matrixFactory instanceof ParallelMatrixFactory
+				? ((ParallelMatrixFactory) matrixFactory).getParallelKernels().getForkJoinPool()
+				: ForkJoinPool.commonPool();
+		return mmul(lefts, rights, forkJoinPool, Matrix::mmul);
+	}
+
+	/**
+	 * Computes each product of the batch on a single thread, dividing the batch between the threads
+	 * of the pool.
+	 * 
+	 * @param lefts        The matrices on the left of each product.
+	 * @param rights       The matrices on the right of each product.
+	 * @param forkJoinPool The pool on which the products are computed.
+	 * @param product      The function computing a single product.
+	 * @return The products lefts[i].rights[i], in order.
+	 */
+	public static List<Matrix> mmul(List<Matrix> lefts, List<Matrix> rights, ForkJoinPool forkJoinPool,
+			BinaryOperator<Matrix> product) {
+		checkOperands(lefts, rights);
+		Matrix[] results = new Matrix[lefts.size()];
+		int parallelism = forkJoinPool.getParallelism();
+		if (parallelism <= 1 || results.length <= 1) {
+			for (int i = 0; i < results.length; i++) {
+				results[i] = product.apply(lefts.get(i), rights.get(i));
+			}
+		} else {
+			int grainSize = Math.max(1, results.length / (parallelism * TASKS_PER_THREAD));
+			forkJoinPool.invoke(new MmulTask(lefts, rights, product, results, 0, results.length, grainSize));
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * @param lefts  The matrices on the left of each product.
+	 * @param rights The matrices on the right of each product.
+	 */
+	public static void checkOperands(List<Matrix> lefts, List<Matrix> rights) {
+		if (lefts.size() != rights.size()) {
+			throw new IllegalArgumentException("Batch sizes do not match");
+		}
+		for (int i = 0; i < lefts.size(); i++) {
+			if (lefts.get(i).getColumns() != rights.get(i).getRows()) {
+				throw new IllegalArgumentException(
+						"Columns of left matrix " + i + " do not match rows of right matrix " + i);
+			}
+		}
+	}
+
+	private static class MmulTask extends RecursiveAction {
+
+		/**
+		 * Default serialization id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private final List<Matrix> lefts;
+		private final List<Matrix> rights;
+		private final BinaryOperator<Matrix> product;
+		private final Matrix[] results;
+		private final int start;
+		private final int end;
+		private final int grainSize;
+
+		MmulTask(List<Matrix> lefts, List<Matrix> rights, BinaryOperator<Matrix> product, Matrix[] results,
+				int start, int end, int grainSize) {
+			this.lefts = lefts;
+			this.rights = rights;
+			this.product = product;
+			this.results = results;
+			this.start = start;
+			this.end = end;
+			this.grainSize = grainSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= grainSize) {
+				for (int i = start; i < end; i++) {
+					results[i] = product.apply(lefts.get(i), rights.get(i));
+				}
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new MmulTask(lefts, rights, product, results, start, middle, grainSize),
+						new MmulTask(lefts, rights, product, results, middle, end, grainSize));
+			}
+		}
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.batched;
+
+import java.util.List;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * A MatrixFactory which can multiply a batch of matrix pairs in one call, amortising the dispatch
+ * overhead that dominates many small multiplications issued one at a time.
+ * 
+ * @author Michael Lavelle
+ */
+public interface BatchedMmulMatrixFactory extends MatrixFactory {
+
+	/**
+	 * @param lefts  The matrices on the left of each product.
+	 * @param rights The matrices on the right of each product.
+	 * @return The products lefts[i].rights[i], in order.
+	 */
+	List<Matrix> mmul(List<Matrix> lefts, List<Matrix> rights);
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.bridge;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jblas.FloatMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.direct.DirectFloatBufferMatrix;
+import org.ml4j.direct.DirectFloatBufferMatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrix;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nd4j.Nd4jRowMajorMatrix;
+import org.ml4j.purejava.PureJavaRowMajorMatrix;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Converts matrices between backends, wrapping the storage of the source matrix as the target
+ * backend's matrix type without copying where the layouts allow it.
+ * 
+ * All of the backends store their values in row-major order, so the layouts match wherever the
+ * storage lives in the same kind of memory:
+ * 
+ * <ul>
+ * <li>JBlas and pure Java matrices both hold a heap float[], so are shared in either direction -
+ * toJBlasMatrix wraps the array of a pure Java matrix and toPureJavaMatrix the array of a JBlas
+ * matrix.</li>
+ * <li>ND4J and direct buffer matrices both hold native memory, so are shared in either direction.
+ * </li>
+ * <li>Between heap and native memory, such as between JBlas and ND4J, the values are copied once
+ * with a bulk copy, rather than through intermediate arrays.</li>
+ * </ul>
+ * 
+ * A converted matrix which shares storage with its source does not free that storage when closed,
+ * and must not be used after its source has been closed. A source whose storage is shared no longer
+ * returns it to its pool when closed, so the pool cannot hand it out while the converted matrix is
+ * still using it.
+ * 
+ * @author Michael Lavelle
+ */
+public final class MatrixBridge {
+
+	private MatrixBridge() {
+	}
+
+	/**
+	 * @param matrix The matrix.
+	 * @return A column-major FloatMatrix of shape (columns, rows) holding the values of the matrix,
+	 *         sharing the storage of JBlas and pure Java matrices.
+	 */
+	public static FloatMatrix asFloatMatrix(Matrix matrix) {
+		if (matrix instanceof JBlasRowMajorMatrix) {
+			return ((JBlasRowMajorMatrix) matrix).getFloatMatrix();
+		} else if (matrix instanceof PureJavaRowMajorMatrix) {
+			return new FloatMatrix(matrix.getColumns(), matrix.getRows(), ((PureJavaRowMajorMatrix) matrix).getData());
+		} else {
+			// Nd4j and direct buffer matrices copy their native memory directly into a new array
+			return new FloatMatrix(matrix.getColumns(), matrix.getRows(), matrix.getRowByRowArray());
+		}
+	}
+
+	/**
+	 * @param matrix The matrix.
+	 * @return A row-major INDArray of shape (rows, columns) holding the values of the matrix, sharing
+	 *         the storage of ND4J and direct buffer matrices.
+	 */
+	public static INDArray asIndArray(Matrix matrix) {
+		if (matrix instanceof Nd4jRowMajorMatrix) {
+			return ((Nd4jRowMajorMatrix) matrix).matrix;
+		}
+		int[] shape = new int[] { matrix.getRows(), matrix.getColumns() };
+		if (matrix instanceof DirectFloatBufferMatrix) {
+			DataBuffer dataBuffer = Nd4j.createBuffer(((DirectFloatBufferMatrix) matrix).getByteBuffer(),
+					DataBuffer.Type.FLOAT, matrix.getLength());
+			return Nd4j.create(dataBuffer, shape, new int[] { matrix.getColumns(), 1 }, 0, 'c');
+		}
+		// Copy heap arrays into native memory once, without an intermediate copy
+		float[] data;
+		if (matrix instanceof JBlasRowMajorMatrix) {
+			data = ((JBlasRowMajorMatrix) matrix).getFloatMatrix().data;
+		} else if (matrix instanceof PureJavaRowMajorMatrix) {
+			data = ((PureJavaRowMajorMatrix) matrix).getData();
+		} else {
+			data = matrix.getRowByRowArray();
+		}
+		return Nd4j.create(data, shape);
+	}
+
+	/**
+	 * @param matrix        The matrix.
+	 * @param matrixFactory The JBlas factory of the converted matrix.
+	 * @return The matrix as a JBlas matrix, sharing the storage of pure Java matrices.
+	 */
+	public static Matrix toJBlasMatrix(Matrix matrix, JBlasRowMajorMatrixFactory matrixFactory) {
+		if (matrix instanceof JBlasRowMajorMatrix) {
+			return matrix;
+		} else if (matrix instanceof PureJavaRowMajorMatrix) {
+			return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(),
+					((PureJavaRowMajorMatrix) matrix).getData());
+		} else {
+			return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(),
+					matrix.getRowByRowArray());
+		}
+	}
+
+	/**
+	 * @param matrix        The matrix.
+	 * @param matrixFactory The pure Java factory of the converted matrix.
+	 * @return The matrix as a pure Java matrix, sharing the storage of JBlas matrices.
+	 */
+	public static Matrix toPureJavaMatrix(Matrix matrix, PureJavaRowMajorMatrixFactory matrixFactory) {
+		if (matrix instanceof PureJavaRowMajorMatrix) {
+			return matrix;
+		} else if (matrix instanceof JBlasRowMajorMatrix) {
+			// getFloatMatrix marks the data as shared, so it is not released to the pool of the source
+			return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(),
+					((JBlasRowMajorMatrix) matrix).getFloatMatrix().data);
+		} else {
+			return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(),
+					matrix.getRowByRowArray());
+		}
+	}
+
+	/**
+	 * @param matrix The matrix.
+	 * @return The matrix as an ND4J matrix, sharing the storage of direct buffer matrices.
+	 */
+	public static Matrix toNd4jMatrix(Matrix matrix) {
+		if (matrix instanceof Nd4jRowMajorMatrix) {
+			return matrix;
+		}
+		return new Nd4jRowMajorMatrix(asIndArray(matrix), false);
+	}
+
+	/**
+	 * @param matrix        The matrix.
+	 * @param matrixFactory The direct buffer factory of the converted matrix.
+	 * @return The matrix as a direct buffer matrix, sharing the storage of ND4J matrices whose
+	 *         buffer is contiguous and row-major.
+	 */
+	public static Matrix toDirectMatrix(Matrix matrix, DirectFloatBufferMatrixFactory matrixFactory) {
+		if (matrix instanceof DirectFloatBufferMatrix) {
+			return matrix;
+		} else if (matrix instanceof Nd4jRowMajorMatrix) {
+			INDArray indArray = ((Nd4jRowMajorMatrix) matrix).matrix;
+			if (isContiguousRowMajor(indArray) && indArray.data().dataType() == DataBuffer.Type.FLOAT) {
+				ByteBuffer byteBuffer = indArray.data().asNio().duplicate().order(ByteOrder.nativeOrder());
+				return matrixFactory.createMatrixFromByteBuffer(matrix.getRows(), matrix.getColumns(), byteBuffer);
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(),
+				matrix.getRowByRowArray());
+	}
+
+	private static boolean isContiguousRowMajor(INDArray indArray) {
+		return !indArray.isView() && indArray.ordering() == 'c' && indArray.offset() == 0
+				&& indArray.data().length() == indArray.length();
+	}
+}
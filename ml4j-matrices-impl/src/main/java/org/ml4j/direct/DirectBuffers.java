@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.direct;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Utility methods for direct ByteBuffers.
+ * 
+ * @author Michael Lavelle
+ */
+public final class DirectBuffers {
+
+	private static final BufferCleaner CLEANER = createCleaner();
+
+	private DirectBuffers() {
+	}
+
+	/**
+	 * Allocate a direct buffer in native byte order.
+	 * 
+	 * @param floatCount The number of floats the buffer is to hold.
+	 * @return The zero-filled direct buffer.
+	 */
+	public static ByteBuffer allocateFloats(int floatCount) {
+		return ByteBuffer.allocateDirect(floatCount * Float.BYTES).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Free the native memory of a direct buffer now, rather than when the buffer is garbage
+	 * collected. The buffer, and any views of it, must not be used afterwards.
+	 * 
+	 * If the running JVM does not allow buffers to be freed explicitly, the memory is freed on
+	 * garbage collection as usual.
+	 * 
+	 * @param buffer The direct buffer to free.
+	 */
+	public static void free(ByteBuffer buffer) {
+		if (buffer != null && buffer.isDirect() && CLEANER != null) {
+			try {
+				CLEANER.clean(buffer);
+			} catch (Exception e) {
+				// Freed on garbage collection instead
+			}
+		}
+	}
+
+	private interface BufferCleaner {
+		void clean(ByteBuffer buffer) throws Exception;
+	}
+
+	private static BufferCleaner createCleaner() {
+		try {
+			// Java 9 and later
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			Object unsafe = theUnsafe.get(null);
+			return buffer -> invokeCleaner.invoke(unsafe, buffer);
+		} catch (Exception e) {
+			// Fall through to the Java 8 mechanism
+		}
+		try {
+			// Java 8
+			Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+			Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			return buffer -> {
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleanMethod.invoke(cleaner);
+				}
+			};
+		} catch (Exception e) {
+			// Buffers are freed on garbage collection
+		}
+		return null;
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.direct;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.ml4j.Matrix;
+import org.ml4j.base.RowMajorMatrixBase;
+import org.ml4j.sparse.SparseMatrix;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Matrix implementation storing its values in row-major order in a direct (off-heap) buffer.
+ * 
+ * The native memory is freed when the matrix is closed, unless the buffer has been shared with
+ * another matrix via softDup().
+ * 
+ * Matrix multiplication is delegated to the native BLAS used by ND4J, which is passed the direct
+ * buffers without copying.
+ * 
+ * @author Michael Lavelle
+ */
+public class DirectFloatBufferMatrix extends RowMajorMatrixBase {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private transient ByteBuffer byteBuffer;
+	private transient FloatBuffer buffer;
+	private transient boolean readOnly;
+
+	/**
+	 * @param matrixFactory The factory creating the results of operations on this matrix.
+	 * @param rows          The number of rows.
+	 * @param columns       The number of columns.
+	 * @param byteBuffer    The direct buffer of row-major values. A read-only buffer, such as a
+	 *                      read-only file mapping, makes the matrix immutable.
+	 * @param immutable     Whether the matrix is immutable.
+	 */
+	public DirectFloatBufferMatrix(DirectFloatBufferMatrixFactory matrixFactory, int rows, int columns,
+			ByteBuffer byteBuffer, boolean immutable) {
+		super(matrixFactory, rows, columns, immutable || byteBuffer.isReadOnly());
+		if (!byteBuffer.isDirect()) {
+			throw new IllegalArgumentException("Buffer must be direct");
+		}
+		if (byteBuffer.capacity() < rows * columns * Float.BYTES) {
+			throw new IllegalArgumentException("Buffer capacity does not match matrix dimensions");
+		}
+		this.byteBuffer = byteBuffer;
+		this.buffer = byteBuffer.asFloatBuffer();
+		this.readOnly = byteBuffer.isReadOnly();
+	}
+
+	/**
+	 * @return The direct buffer containing the values of this matrix in row-major order.
+	 */
+	public ByteBuffer getByteBuffer() {
+		ensureOpen();
+		return byteBuffer;
+	}
+
+	@Override
+	protected float getValue(int index) {
+		return buffer.get(index);
+	}
+
+	@Override
+	protected void putValue(int index, float value) {
+		if (readOnly) {
+			throw new IllegalStateException("Matrix is immutable");
+		}
+		buffer.put(index, value);
+	}
+
+	@Override
+	protected void getValues(float[] target, int targetIndex) {
+		FloatBuffer source = buffer.duplicate();
+		source.position(0);
+		source.get(target, targetIndex, getLength());
+	}
+
+	@Override
+	protected void getValues(int start, int end, float[] target, int targetIndex) {
+		FloatBuffer source = buffer.duplicate();
+		source.position(start);
+		source.get(target, targetIndex, end - start);
+	}
+
+	@Override
+	protected void putValues(float[] source, int sourceIndex) {
+		if (readOnly) {
+			throw new IllegalStateException("Matrix is immutable");
+		}
+		FloatBuffer target = buffer.duplicate();
+		target.position(0);
+		target.put(source, sourceIndex, getLength());
+	}
+
+	@Override
+	protected void releaseStorage() {
+		DirectBuffers.free(byteBuffer);
+		byteBuffer = null;
+		buffer = null;
+	}
+
+	@Override
+	protected RowMajorMatrixBase createSoftDup() {
+		return new DirectFloatBufferMatrix((DirectFloatBufferMatrixFactory) matrixFactory, rows, columns, byteBuffer,
+				false);
+	}
+
+	@Override
+	public void setImmutable(boolean immutable) {
+		if (!immutable && readOnly) {
+			throw new IllegalStateException("Matrix is backed by a read-only buffer and cannot be made editable");
+		}
+		super.setImmutable(immutable);
+	}
+
+	@Override
+	public Matrix mmul(Matrix other) {
+		ensureOpen();
+		if (other instanceof SparseMatrix) {
+			return ((SparseMatrix) other).leftMmul(this, matrixFactory);
+		}
+		if (other.getRows() != columns) {
+			throw new IllegalArgumentException("Columns of this matrix do not match rows of other matrix");
+		}
+		int resultColumns = other.getColumns();
+		DirectFloatBufferMatrix result = (DirectFloatBufferMatrix) createMatrix(rows, resultColumns);
+		if (rows == 0 || columns == 0 || resultColumns == 0) {
+			return result;
+		}
+		// A row-major buffer read in column-major order is the transpose, so the
+		// row-major product A.B is computed as the column-major product B^T.A^T
+		INDArray transposedOther = other instanceof DirectFloatBufferMatrix
+				? ((DirectFloatBufferMatrix) other).asTransposedIndArray()
+				: Nd4j.create(other.getRowByRowArray(), new int[] { other.getColumns(), other.getRows() }, 'f');
+		Nd4j.gemm(transposedOther, asTransposedIndArray(), result.asTransposedIndArray(), false, false, 1.0, 0.0);
+		return result;
+	}
+
+	/**
+	 * @return A column-major INDArray of shape (columns, rows) wrapping the buffer of this matrix,
+	 *         without copying.
+	 */
+	protected INDArray asTransposedIndArray() {
+		int length = getLength();
+		DataBuffer dataBuffer = Nd4j.createBuffer(byteBuffer, DataBuffer.Type.FLOAT, length);
+		return Nd4j.create(dataBuffer, new int[] { columns, rows }, new int[] { 1, columns }, 0, 'f');
+	}
+
+	private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+		out.defaultWriteObject();
+		out.writeObject(closed ? null : getRowByRowArray());
+	}
+
+	private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		float[] values = (float[]) in.readObject();
+		if (values != null) {
+			this.byteBuffer = DirectBuffers.allocateFloats(values.length);
+			this.buffer = byteBuffer.asFloatBuffer();
+			putValues(values, 0);
+		}
+	}
+}
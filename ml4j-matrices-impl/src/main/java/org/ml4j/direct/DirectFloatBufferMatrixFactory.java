@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.direct;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import org.ml4j.base.RowMajorMatrixBase;
+import org.ml4j.base.RowMajorMatrixFactoryBase;
+import org.ml4j.io.MatrixFileDataType;
+import org.ml4j.io.MatrixFileHeader;
+import org.ml4j.io.MatrixFileOrientation;
+import org.ml4j.io.MatrixFiles;
+
+/**
+ * MatrixFactory creating matrices whose values are stored off-heap in direct buffers, keeping large
+ * activation and weight matrices out of the Java heap.
+ * 
+ * Matrices created by this factory should be closed once no longer needed so that their native
+ * memory is freed promptly.
+ * 
+ * @author Michael Lavelle
+ */
+public class DirectFloatBufferMatrixFactory extends RowMajorMatrixFactoryBase {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected RowMajorMatrixBase createRowMajorMatrix(int rows, int columns) {
+		return new DirectFloatBufferMatrix(this, rows, columns, DirectBuffers.allocateFloats(rows * columns), false);
+	}
+
+	/**
+	 * Create a matrix wrapping an existing direct buffer of row-major values, without copying.
+	 * 
+	 * The buffer is not freed when the matrix is closed.
+	 * 
+	 * @param rows       The number of rows.
+	 * @param columns    The number of columns.
+	 * @param byteBuffer The direct buffer, in native byte order.
+	 * @return The matrix.
+	 */
+	public DirectFloatBufferMatrix createMatrixFromByteBuffer(int rows, int columns, ByteBuffer byteBuffer) {
+		DirectFloatBufferMatrix matrix = new DirectFloatBufferMatrix(this, rows, columns, byteBuffer, false);
+		matrix.markStorageShared();
+		return matrix;
+	}
+
+	/**
+	 * Open a matrix file of float values as a read-only matrix backed by a MappedByteBuffer, so the
+	 * values are paged in lazily and shared with other processes mapping the same file.
+	 * 
+	 * Row-major files are mapped without copying. Column-major files are mapped and then transposed
+	 * into a new matrix.
+	 * 
+	 * The mapping is released when the matrix is garbage collected, not when it is closed.
+	 * 
+	 * @param path A matrix file written by MatrixFiles.
+	 * @return The immutable matrix.
+	 */
+	public DirectFloatBufferMatrix createMatrixFromFile(Path path) {
+		return createMatrixFromFile(path, false);
+	}
+
+	/**
+	 * Open a matrix file of float values as a matrix backed by a MappedByteBuffer.
+	 * 
+	 * An editable matrix is mapped privately, so its pages are copied on first write and changes are
+	 * never written back to the file or seen by other processes mapping it.
+	 * 
+	 * @param path     A matrix file written by MatrixFiles.
+	 * @param editable Whether the matrix may be changed in place.
+	 * @return The matrix.
+	 */
+	public DirectFloatBufferMatrix createMatrixFromFile(Path path, boolean editable) {
+		MatrixFileHeader header = MatrixFiles.readHeader(path);
+		if (header.getDataType() != MatrixFileDataType.FLOAT32) {
+			throw new IllegalArgumentException("Only float matrix files can be mapped: " + header);
+		}
+		if (ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+			throw new UnsupportedOperationException("Mapping matrix files requires a little-endian platform");
+		}
+		ByteBuffer byteBuffer = MatrixFiles.mapData(path, header,
+				editable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY);
+		if (header.getOrientation() == MatrixFileOrientation.ROW_MAJOR) {
+			DirectFloatBufferMatrix matrix = new DirectFloatBufferMatrix(this, header.getRows(), header.getColumns(),
+					byteBuffer, !editable);
+			matrix.markStorageShared();
+			return allocated(matrix);
+		} else {
+			DirectFloatBufferMatrix transposed = new DirectFloatBufferMatrix(this, header.getColumns(),
+					header.getRows(), byteBuffer, true);
+			transposed.markStorageShared();
+			DirectFloatBufferMatrix matrix = (DirectFloatBufferMatrix) transposed.transpose();
+			transposed.close();
+			matrix.setImmutable(!editable);
+			return matrix;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+import org.ml4j.kernels.BinaryOperation;
+import org.ml4j.kernels.FloatArrayKernels;
+
+/**
+ * An expression combining the values of two expressions elementwise, broadcasting either operand
+ * as required.
+ * 
+ * @author Michael Lavelle
+ */
+class BinaryExpression extends MatrixExpression {
+
+	private final BinaryOperation operation;
+	private final MatrixExpression first;
+	private final MatrixExpression second;
+
+	BinaryExpression(BinaryOperation operation, MatrixExpression first, MatrixExpression second) {
+		super(broadcastDimension(first.getRows(), second.getRows(), "Rows"),
+				broadcastDimension(first.getColumns(), second.getColumns(), "Columns"));
+		this.operation = operation;
+		this.first = first;
+		this.second = second;
+	}
+
+	private static int broadcastDimension(int first, int second, String dimension) {
+		if (first == second || second == 1) {
+			return first;
+		}
+		if (first == 1) {
+			return second;
+		}
+		throw new IllegalArgumentException(dimension + " do not match");
+	}
+
+	@Override
+	ExpressionEvaluator createEvaluator(int resultRows, int resultColumns) {
+		ExpressionEvaluator firstEvaluator = first.createEvaluator(resultRows, resultColumns);
+		if (second instanceof ScalarExpression) {
+			float value = ((ScalarExpression) second).getValue();
+			return (row, columnStart, length, result) -> {
+				firstEvaluator.evaluate(row, columnStart, length, result);
+				FloatArrayKernels.scalar(operation, result, value, result, length);
+			};
+		}
+		ExpressionEvaluator secondEvaluator = second.createEvaluator(resultRows, resultColumns);
+		float[] secondValues = new float[Math.min(BLOCK_SIZE, Math.max(resultColumns, 1))];
+		return (row, columnStart, length, result) -> {
+			firstEvaluator.evaluate(row, columnStart, length, result);
+			secondEvaluator.evaluate(row, columnStart, length, secondValues);
+			FloatArrayKernels.elementwise(operation, result, secondValues, result, length);
+		};
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+/**
+ * An expression limiting the values of another expression to a range.
+ * 
+ * @author Michael Lavelle
+ */
+class ClampExpression extends MatrixExpression {
+
+	private final MatrixExpression operand;
+	private final float min;
+	private final float max;
+
+	ClampExpression(MatrixExpression operand, float min, float max) {
+		super(operand.getRows(), operand.getColumns());
+		this.operand = operand;
+		this.min = min;
+		this.max = max;
+	}
+
+	@Override
+	ExpressionEvaluator createEvaluator(int resultRows, int resultColumns) {
+		ExpressionEvaluator operandEvaluator = operand.createEvaluator(resultRows, resultColumns);
+		return (row, columnStart, length, result) -> {
+			operandEvaluator.evaluate(row, columnStart, length, result);
+			for (int i = 0; i < length; i++) {
+				result[i] = Math.max(Math.min(result[i], max), min);
+			}
+		};
+	}
+}
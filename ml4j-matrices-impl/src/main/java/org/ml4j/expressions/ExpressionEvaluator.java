@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+/**
+ * Evaluates a MatrixExpression a block of values at a time.
+ * 
+ * @author Michael Lavelle
+ */
+interface ExpressionEvaluator {
+
+	/**
+	 * Evaluate a block of consecutive values within a row of the expression.
+	 * 
+	 * @param row         The row.
+	 * @param columnStart The column of the first value.
+	 * @param length      The number of values.
+	 * @param result      The array into which the values are written, starting at index zero.
+	 */
+	void evaluate(int row, int columnStart, int length, float[] result);
+}
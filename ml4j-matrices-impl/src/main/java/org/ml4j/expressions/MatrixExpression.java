@@ -0,0 +1,246 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.BinaryOperation;
+
+/**
+ * A lazily evaluated elementwise expression over matrices.
+ * 
+ * Operations on an expression only record the operation - nothing is computed until one of the
+ * terminal methods (sum, rowSums, columnSums or evaluate) is called. The expression is then
+ * evaluated in a single pass over its operands, in blocks small enough to stay in cache, without
+ * allocating a matrix for any intermediate result.
+ * 
+ * Operands are broadcast by shape: an operand with a single row is applied to every row, and an
+ * operand with a single column is applied to every column.
+ * 
+ * For example, the cross entropy of actual outputs a for desired outputs y can be computed as:
+ * 
+ * <pre>
+ * MatrixExpression.of(y).neg().mul(MatrixExpression.of(a).log())
+ * 		.sub(MatrixExpression.scalar(1).sub(y).mul(MatrixExpression.scalar(1).sub(a).log())).sum();
+ * </pre>
+ * 
+ * @author Michael Lavelle
+ */
+public abstract class MatrixExpression {
+
+	/**
+	 * The number of values evaluated per block.
+	 */
+	static final int BLOCK_SIZE = 1024;
+
+	protected final int rows;
+	protected final int columns;
+
+	protected MatrixExpression(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+	}
+
+	/**
+	 * @param matrix The matrix.
+	 * @return An expression whose values are those of the matrix.
+	 */
+	public static MatrixExpression of(Matrix matrix) {
+		return new MatrixOperandExpression(matrix);
+	}
+
+	/**
+	 * @param value The value.
+	 * @return An expression whose values are all the given value, broadcast to the shape of the
+	 *         expressions it is combined with.
+	 */
+	public static MatrixExpression scalar(float value) {
+		return new ScalarExpression(value);
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Creates an evaluator for this expression broadcast to the given shape.
+	 * 
+	 * @param resultRows    The number of rows of the result.
+	 * @param resultColumns The number of columns of the result.
+	 * @return The evaluator.
+	 */
+	abstract ExpressionEvaluator createEvaluator(int resultRows, int resultColumns);
+
+	public MatrixExpression add(MatrixExpression other) {
+		return new BinaryExpression(BinaryOperation.ADD, this, other);
+	}
+
+	public MatrixExpression add(Matrix other) {
+		return add(of(other));
+	}
+
+	public MatrixExpression add(float value) {
+		return add(scalar(value));
+	}
+
+	public MatrixExpression sub(MatrixExpression other) {
+		return new BinaryExpression(BinaryOperation.SUB, this, other);
+	}
+
+	public MatrixExpression sub(Matrix other) {
+		return sub(of(other));
+	}
+
+	public MatrixExpression sub(float value) {
+		return sub(scalar(value));
+	}
+
+	public MatrixExpression mul(MatrixExpression other) {
+		return new BinaryExpression(BinaryOperation.MUL, this, other);
+	}
+
+	public MatrixExpression mul(Matrix other) {
+		return mul(of(other));
+	}
+
+	public MatrixExpression mul(float value) {
+		return mul(scalar(value));
+	}
+
+	public MatrixExpression div(MatrixExpression other) {
+		return new BinaryExpression(BinaryOperation.DIV, this, other);
+	}
+
+	public MatrixExpression div(Matrix other) {
+		return div(of(other));
+	}
+
+	public MatrixExpression div(float value) {
+		return div(scalar(value));
+	}
+
+	public MatrixExpression neg() {
+		return new UnaryExpression(UnaryOperation.NEG, this);
+	}
+
+	public MatrixExpression log() {
+		return new UnaryExpression(UnaryOperation.LOG, this);
+	}
+
+	public MatrixExpression exp() {
+		return new UnaryExpression(UnaryOperation.EXP, this);
+	}
+
+	public MatrixExpression sigmoid() {
+		return new UnaryExpression(UnaryOperation.SIGMOID, this);
+	}
+
+	public MatrixExpression square() {
+		return new UnaryExpression(UnaryOperation.SQUARE, this);
+	}
+
+	/**
+	 * @param min The minimum value.
+	 * @param max The maximum value.
+	 * @return An expression whose values are the values of this expression limited to the range [min,
+	 *         max].
+	 */
+	public MatrixExpression clamp(float min, float max) {
+		return new ClampExpression(this, min, max);
+	}
+
+	/**
+	 * @return The sum of all values of this expression.
+	 */
+	public float sum() {
+		ExpressionEvaluator evaluator = createEvaluator(rows, columns);
+		float[] block = new float[Math.min(BLOCK_SIZE, Math.max(columns, 1))];
+		double sum = 0;
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c += block.length) {
+				int length = Math.min(block.length, columns - c);
+				evaluator.evaluate(r, c, length, block);
+				for (int i = 0; i < length; i++) {
+					sum += block[i];
+				}
+			}
+		}
+		return (float) sum;
+	}
+
+	/**
+	 * @param matrixFactory The factory used to create the result.
+	 * @return A column vector containing the sum of each row of this expression.
+	 */
+	public Matrix rowSums(MatrixFactory matrixFactory) {
+		ExpressionEvaluator evaluator = createEvaluator(rows, columns);
+		float[] block = new float[Math.min(BLOCK_SIZE, Math.max(columns, 1))];
+		float[] sums = new float[rows];
+		for (int r = 0; r < rows; r++) {
+			float sum = 0;
+			for (int c = 0; c < columns; c += block.length) {
+				int length = Math.min(block.length, columns - c);
+				evaluator.evaluate(r, c, length, block);
+				for (int i = 0; i < length; i++) {
+					sum += block[i];
+				}
+			}
+			sums[r] = sum;
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(rows, 1, sums);
+	}
+
+	/**
+	 * @param matrixFactory The factory used to create the result.
+	 * @return A row vector containing the sum of each column of this expression.
+	 */
+	public Matrix columnSums(MatrixFactory matrixFactory) {
+		ExpressionEvaluator evaluator = createEvaluator(rows, columns);
+		float[] block = new float[Math.min(BLOCK_SIZE, Math.max(columns, 1))];
+		float[] sums = new float[columns];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c += block.length) {
+				int length = Math.min(block.length, columns - c);
+				evaluator.evaluate(r, c, length, block);
+				for (int i = 0; i < length; i++) {
+					sums[c + i] += block[i];
+				}
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(1, columns, sums);
+	}
+
+	/**
+	 * @param matrixFactory The factory used to create the result.
+	 * @return A matrix containing the values of this expression.
+	 */
+	public Matrix evaluate(MatrixFactory matrixFactory) {
+		ExpressionEvaluator evaluator = createEvaluator(rows, columns);
+		float[] values = new float[rows * columns];
+		float[] block = new float[Math.min(BLOCK_SIZE, Math.max(columns, 1))];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c += block.length) {
+				int length = Math.min(block.length, columns - c);
+				evaluator.evaluate(r, c, length, block);
+				System.arraycopy(block, 0, values, r * columns + c, length);
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(rows, columns, values);
+	}
+}
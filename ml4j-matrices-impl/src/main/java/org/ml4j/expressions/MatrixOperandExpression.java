@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+import java.util.Arrays;
+
+import org.ml4j.Matrix;
+import org.ml4j.views.RowByRowValuesMatrix;
+
+/**
+ * An expression whose values are those of a matrix, broadcast if the matrix has a single row or
+ * column.
+ * 
+ * @author Michael Lavelle
+ */
+class MatrixOperandExpression extends MatrixExpression {
+
+	private final Matrix matrix;
+
+	MatrixOperandExpression(Matrix matrix) {
+		super(matrix.getRows(), matrix.getColumns());
+		this.matrix = matrix;
+	}
+
+	@Override
+	ExpressionEvaluator createEvaluator(int resultRows, int resultColumns) {
+		if ((rows != resultRows && rows != 1) || (columns != resultColumns && columns != 1)) {
+			throw new IllegalArgumentException("Matrix of shape " + rows + "x" + columns
+					+ " cannot be broadcast to shape " + resultRows + "x" + resultColumns);
+		}
+		boolean broadcastRows = rows != resultRows;
+		boolean broadcastColumns = columns != resultColumns;
+		if (broadcastColumns) {
+			return (row, columnStart, length, result) -> Arrays.fill(result, 0, length,
+					matrix.get(broadcastRows ? 0 : row, 0));
+		} else if (matrix instanceof RowByRowValuesMatrix) {
+			// Copy each row as it is evaluated, rather than taking the row by row array of the matrix,
+			// which may be a copy of the whole matrix or stop its storage being released for reuse
+			RowByRowValuesMatrix valuesMatrix = (RowByRowValuesMatrix) matrix;
+			return (row, columnStart, length, result) -> {
+				int start = (broadcastRows ? 0 : row * columns) + columnStart;
+				valuesMatrix.getRowByRowValues(start, start + length, result, 0);
+			};
+		} else {
+			float[] values = matrix.getRowByRowArray();
+			return (row, columnStart, length, result) -> System.arraycopy(values,
+					(broadcastRows ? 0 : row * columns) + columnStart, result, 0, length);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+import java.util.Arrays;
+
+/**
+ * An expression whose values are all the same scalar value.
+ * 
+ * @author Michael Lavelle
+ */
+class ScalarExpression extends MatrixExpression {
+
+	private final float value;
+
+	ScalarExpression(float value) {
+		super(1, 1);
+		this.value = value;
+	}
+
+	float getValue() {
+		return value;
+	}
+
+	@Override
+	ExpressionEvaluator createEvaluator(int resultRows, int resultColumns) {
+		return (row, columnStart, length, result) -> Arrays.fill(result, 0, length, value);
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+/**
+ * An expression applying an elementwise function to another expression.
+ * 
+ * @author Michael Lavelle
+ */
+class UnaryExpression extends MatrixExpression {
+
+	private final UnaryOperation operation;
+	private final MatrixExpression operand;
+
+	UnaryExpression(UnaryOperation operation, MatrixExpression operand) {
+		super(operand.getRows(), operand.getColumns());
+		this.operation = operation;
+		this.operand = operand;
+	}
+
+	@Override
+	ExpressionEvaluator createEvaluator(int resultRows, int resultColumns) {
+		ExpressionEvaluator operandEvaluator = operand.createEvaluator(resultRows, resultColumns);
+		return (row, columnStart, length, result) -> {
+			operandEvaluator.evaluate(row, columnStart, length, result);
+			operation.apply(result, length);
+		};
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.expressions;
+
+/**
+ * The elementwise functions of a single expression.
+ * 
+ * @author Michael Lavelle
+ */
+enum UnaryOperation {
+
+	NEG, LOG, EXP, SIGMOID, SQUARE;
+
+	void apply(float[] values, int length) {
+		switch (this) {
+		case NEG:
+			for (int i = 0; i < length; i++) {
+				values[i] = -values[i];
+			}
+			break;
+		case LOG:
+			for (int i = 0; i < length; i++) {
+				values[i] = (float) Math.log(values[i]);
+			}
+			break;
+		case EXP:
+			for (int i = 0; i < length; i++) {
+				values[i] = (float) Math.exp(values[i]);
+			}
+			break;
+		case SIGMOID:
+			for (int i = 0; i < length; i++) {
+				values[i] = (float) (1d / (1d + Math.exp(-values[i])));
+			}
+			break;
+		case SQUARE:
+			for (int i = 0; i < length; i++) {
+				values[i] = values[i] * values[i];
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported operation:" + this);
+		}
+	}
+}
@@ -7,4 +7,14 @@ public interface FloatArrayFactory extends Serializable {
 	float[] createFloatArray(int length);
 	float[][] createFloatArray(int rows, int columns);
 
+	/**
+	 * Indicates that the caller holds the only reference to the array and no longer needs it, so
+	 * that it may be reused by a pooling implementation. The default is to leave the array to the
+	 * garbage collector.
+	 * 
+	 * @param array The array no longer needed.
+	 */
+	default void release(float[] array) {
+		// No-op by default
+	}
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.floatarray;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of float arrays, with a free list per thread for each array length.
+ * 
+ * The same few array lengths recur on every training iteration, so arrays released by one
+ * iteration can be handed out again on the next instead of being re-allocated. Arrays are keyed by
+ * exact length, as FloatMatrix requires its data length to match its dimensions.
+ * 
+ * Free lists are per thread, so acquiring and releasing is lock free. An array released on a
+ * different thread to the one it was acquired on simply joins the releasing thread's free list.
+ * 
+ * @author Michael Lavelle
+ */
+public class FloatArrayPool implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MINIMUM_POOLED_LENGTH = 256;
+
+	public static final int DEFAULT_MAXIMUM_ARRAYS_PER_LENGTH = 16;
+
+	private int minimumPooledLength;
+	private int maximumArraysPerLength;
+
+	private transient ThreadLocal<Map<Integer, ArrayDeque<float[]>>> freeLists;
+	private transient LongAdder hits;
+	private transient LongAdder misses;
+	private transient LongAdder releases;
+	private transient LongAdder discards;
+
+	public FloatArrayPool() {
+		this(DEFAULT_MINIMUM_POOLED_LENGTH, DEFAULT_MAXIMUM_ARRAYS_PER_LENGTH);
+	}
+
+	/**
+	 * @param minimumPooledLength    Arrays shorter than this are cheap to allocate and are never
+	 *                               pooled.
+	 * @param maximumArraysPerLength The maximum number of free arrays retained per thread for each
+	 *                               length - further released arrays are left to the garbage
+	 *                               collector.
+	 */
+	public FloatArrayPool(int minimumPooledLength, int maximumArraysPerLength) {
+		this.minimumPooledLength = minimumPooledLength;
+		this.maximumArraysPerLength = maximumArraysPerLength;
+		initialise();
+	}
+
+	private void initialise() {
+		this.freeLists = ThreadLocal.withInitial(HashMap::new);
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.releases = new LongAdder();
+		this.discards = new LongAdder();
+	}
+
+	/**
+	 * Obtain a zero-filled array of the specified length, reusing a released array if one is
+	 * available on this thread.
+	 * 
+	 * @param length The length of the array.
+	 * @return A zero-filled array of the specified length.
+	 */
+	public float[] acquire(int length) {
+		if (length >= minimumPooledLength) {
+			ArrayDeque<float[]> freeList = freeLists.get().get(length);
+			if (freeList != null) {
+				float[] array = freeList.pollLast();
+				if (array != null) {
+					hits.increment();
+					Arrays.fill(array, 0f);
+					return array;
+				}
+			}
+			misses.increment();
+		}
+		return new float[length];
+	}
+
+	/**
+	 * Return an array to this thread's free list. The caller must hold the only reference to the
+	 * array.
+	 * 
+	 * @param array The array to release.
+	 */
+	public void release(float[] array) {
+		if (array == null || array.length < minimumPooledLength) {
+			return;
+		}
+		ArrayDeque<float[]> freeList = freeLists.get().computeIfAbsent(array.length, l -> new ArrayDeque<>());
+		if (freeList.size() < maximumArraysPerLength) {
+			freeList.addLast(array);
+			releases.increment();
+		} else {
+			discards.increment();
+		}
+	}
+
+	/**
+	 * Discard all free arrays held for the current thread.
+	 */
+	public void clear() {
+		freeLists.get().clear();
+	}
+
+	/**
+	 * @return The number of acquisitions satisfied by a released array.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return The number of acquisitions of a poolable length that required a new array.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return The number of arrays returned to a free list.
+	 */
+	public long getReleases() {
+		return releases.sum();
+	}
+
+	/**
+	 * @return The number of released arrays discarded because their free list was full.
+	 */
+	public long getDiscards() {
+		return discards.sum();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		initialise();
+	}
+
+	@Override
+	public String toString() {
+		return "FloatArrayPool [hits=" + getHits() + ", misses=" + getMisses() + ", releases=" + getReleases()
+				+ ", discards=" + getDiscards() + "]";
+	}
+}
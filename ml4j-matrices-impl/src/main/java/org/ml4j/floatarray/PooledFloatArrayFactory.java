@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.floatarray;
+
+/**
+ * FloatArrayFactory which obtains its arrays from a FloatArrayPool.
+ * 
+ * @author Michael Lavelle
+ */
+public class PooledFloatArrayFactory implements FloatArrayFactory {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private FloatArrayPool floatArrayPool;
+
+	public PooledFloatArrayFactory(FloatArrayPool floatArrayPool) {
+		this.floatArrayPool = floatArrayPool;
+	}
+
+	@Override
+	public float[] createFloatArray(int length) {
+		return floatArrayPool.acquire(length);
+	}
+
+	@Override
+	public float[][] createFloatArray(int rows, int columns) {
+		return new float[rows][columns];
+	}
+
+	@Override
+	public void release(float[] array) {
+		floatArrayPool.release(array);
+	}
+
+	public FloatArrayPool getFloatArrayPool() {
+		return floatArrayPool;
+	}
+}
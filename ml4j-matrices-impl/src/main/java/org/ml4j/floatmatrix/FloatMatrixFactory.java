@@ -12,4 +12,14 @@ public interface FloatMatrixFactory extends Serializable {
 
 	FloatMatrix create(int rows, int columns, float[] data);
 
+	/**
+	 * Indicates that the caller holds the only reference to the data of the FloatMatrix and no
+	 * longer needs it, so that it may be reused by a pooling implementation. The default is to leave
+	 * the data to the garbage collector.
+	 * 
+	 * @param matrix The FloatMatrix no longer needed.
+	 */
+	default void release(FloatMatrix matrix) {
+		// No-op by default
+	}
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.halfprecision;
+
+/**
+ * The 16-bit floating point formats in which a HalfPrecisionMatrix may store its values, with the
+ * kernels converting between them and float.
+ * 
+ * Conversion to 16 bits rounds to the nearest representable value, ties to even.
+ * 
+ * @author Michael Lavelle
+ */
+public enum HalfPrecisionFormat {
+
+	/**
+	 * The upper 16 bits of a float - the same range as float, with 8 bits of precision.
+	 */
+	BFLOAT16,
+
+	/**
+	 * IEEE 754 binary16 - a range of +/-65504, with 11 bits of precision.
+	 */
+	IEEE_HALF;
+
+	/**
+	 * The float value of each IEEE half precision value, indexed by its bits.
+	 */
+	private static final float[] IEEE_HALF_TO_FLOAT = createIeeeHalfToFloatTable();
+
+	/**
+	 * @param value The float value.
+	 * @return The nearest value in this format.
+	 */
+	public short fromFloat(float value) {
+		return this == BFLOAT16 ? floatToBfloat16(value) : floatToIeeeHalf(value);
+	}
+
+	/**
+	 * @param value The value in this format.
+	 * @return The float value.
+	 */
+	public float toFloat(short value) {
+		return this == BFLOAT16 ? Float.intBitsToFloat(value << 16) : IEEE_HALF_TO_FLOAT[value & 0xffff];
+	}
+
+	/**
+	 * Converts a range of float values to this format.
+	 * 
+	 * @param source       The float values.
+	 * @param sourceOffset The index of the first float value.
+	 * @param target       The array into which the converted values are written.
+	 * @param targetOffset The index of the first converted value.
+	 * @param length       The number of values.
+	 */
+	public void fromFloats(float[] source, int sourceOffset, short[] target, int targetOffset, int length) {
+		if (this == BFLOAT16) {
+			for (int i = 0; i < length; i++) {
+				target[targetOffset + i] = floatToBfloat16(source[sourceOffset + i]);
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				target[targetOffset + i] = floatToIeeeHalf(source[sourceOffset + i]);
+			}
+		}
+	}
+
+	/**
+	 * Converts a range of values in this format to float.
+	 * 
+	 * @param source       The values in this format.
+	 * @param sourceOffset The index of the first value.
+	 * @param target       The array into which the float values are written.
+	 * @param targetOffset The index of the first float value.
+	 * @param length       The number of values.
+	 */
+	public void toFloats(short[] source, int sourceOffset, float[] target, int targetOffset, int length) {
+		if (this == BFLOAT16) {
+			for (int i = 0; i < length; i++) {
+				target[targetOffset + i] = Float.intBitsToFloat(source[sourceOffset + i] << 16);
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				target[targetOffset + i] = IEEE_HALF_TO_FLOAT[source[sourceOffset + i] & 0xffff];
+			}
+		}
+	}
+
+	static short floatToBfloat16(float value) {
+		int bits = Float.floatToRawIntBits(value);
+		if ((bits & 0x7fffffff) > 0x7f800000) {
+			// Keep NaNs quiet, as rounding could otherwise turn them into infinities
+			return (short) ((bits >>> 16) | 0x40);
+		}
+		return (short) ((bits + 0x7fff + ((bits >>> 16) & 1)) >>> 16);
+	}
+
+	static short floatToIeeeHalf(float value) {
+		int bits = Float.floatToRawIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int abs = bits & 0x7fffffff;
+		if (abs >= 0x7f800000) {
+			// Infinity or NaN
+			return (short) (sign | (abs > 0x7f800000 ? 0x7e00 : 0x7c00));
+		}
+		if (abs >= 0x477ff000) {
+			// 65520 and above round to infinity
+			return (short) (sign | 0x7c00);
+		}
+		if (abs >= 0x38800000) {
+			// Normal - rebias the exponent and round the mantissa from 23 to 10 bits
+			int rounded = abs + 0xfff + ((abs >>> 13) & 1);
+			return (short) (sign | ((rounded - 0x38000000) >>> 13));
+		}
+		if (abs <= 0x33000000) {
+			// 2^-25 and below round to zero
+			return (short) sign;
+		}
+		// Subnormal - the value is mantissa * 2^(exponent - 150), which is half * 2^-24
+		int exponent = abs >>> 23;
+		int mantissa = (abs & 0x7fffff) | 0x800000;
+		int shift = 126 - exponent;
+		int half = mantissa >>> shift;
+		int remainder = mantissa & ((1 << shift) - 1);
+		int halfway = 1 << (shift - 1);
+		if (remainder > halfway || (remainder == halfway && (half & 1) == 1)) {
+			half++;
+		}
+		return (short) (sign | half);
+	}
+
+	private static float[] createIeeeHalfToFloatTable() {
+		float[] table = new float[1 << 16];
+		for (int bits = 0; bits < table.length; bits++) {
+			int sign = (bits & 0x8000) << 16;
+			int exponent = (bits >>> 10) & 0x1f;
+			int mantissa = bits & 0x3ff;
+			if (exponent == 0) {
+				float magnitude = mantissa * 0x1p-24f;
+				table[bits] = sign == 0 ? magnitude : -magnitude;
+			} else if (exponent == 0x1f) {
+				table[bits] = Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+			} else {
+				table[bits] = Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+			}
+		}
+		return table;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.halfprecision;
+
+import org.ml4j.base.RowMajorMatrixBase;
+
+/**
+ * Matrix implementation storing its values in row-major order as 16-bit floats, halving the memory
+ * and bandwidth of float storage.
+ * 
+ * Values are widened to float as they are read by the compute kernels, and results are rounded back
+ * to 16 bits as they are stored.
+ * 
+ * @author Michael Lavelle
+ */
+public class HalfPrecisionMatrix extends RowMajorMatrixBase {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private HalfPrecisionFormat format;
+	private short[] data;
+
+	public HalfPrecisionMatrix(HalfPrecisionMatrixFactory matrixFactory, int rows, int columns, short[] data,
+			boolean immutable) {
+		super(matrixFactory, rows, columns, immutable);
+		if (data.length != rows * columns) {
+			throw new IllegalArgumentException("Passed data must match matrix dimensions.");
+		}
+		this.format = matrixFactory.getFormat();
+		this.data = data;
+	}
+
+	public HalfPrecisionFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return The row-major 16-bit values of this matrix, which are shared with the caller.
+	 */
+	public short[] getData() {
+		ensureOpen();
+		markStorageShared();
+		return data;
+	}
+
+	@Override
+	protected float getValue(int index) {
+		return format.toFloat(data[index]);
+	}
+
+	@Override
+	protected void putValue(int index, float value) {
+		data[index] = format.fromFloat(value);
+	}
+
+	@Override
+	protected void getValues(float[] target, int targetIndex) {
+		format.toFloats(data, 0, target, targetIndex, getLength());
+	}
+
+	@Override
+	protected void getValues(int start, int end, float[] target, int targetIndex) {
+		format.toFloats(data, start, target, targetIndex, end - start);
+	}
+
+	@Override
+	protected void putValues(float[] source, int sourceIndex) {
+		format.fromFloats(source, sourceIndex, data, 0, getLength());
+	}
+
+	@Override
+	protected long getStorageBytes() {
+		return getLength() * (long) Short.BYTES;
+	}
+
+	@Override
+	protected void releaseStorage() {
+		data = null;
+	}
+
+	@Override
+	protected RowMajorMatrixBase createSoftDup() {
+		return new HalfPrecisionMatrix((HalfPrecisionMatrixFactory) matrixFactory, rows, columns, data, false);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.halfprecision;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.base.RowMajorMatrixBase;
+import org.ml4j.base.RowMajorMatrixFactoryBase;
+import org.ml4j.views.RowByRowValuesMatrix;
+
+/**
+ * MatrixFactory creating matrices which store their values as 16-bit floats.
+ * 
+ * The factory may be used as the MatrixFactory of an inference-only network, or to compress
+ * activations which are retained between the forward and backward passes, and expand them again
+ * when they are needed.
+ * 
+ * @author Michael Lavelle
+ */
+public class HalfPrecisionMatrixFactory extends RowMajorMatrixFactoryBase {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of values read from a matrix being compressed and rounded at a time.
+	 */
+	private static final int COMPRESSION_STRIPE_LENGTH = 4096;
+
+	private HalfPrecisionFormat format;
+
+	/**
+	 * Creates a factory storing values as bfloat16, which has the range of float.
+	 */
+	public HalfPrecisionMatrixFactory() {
+		this(HalfPrecisionFormat.BFLOAT16);
+	}
+
+	public HalfPrecisionMatrixFactory(HalfPrecisionFormat format) {
+		this.format = format;
+	}
+
+	public HalfPrecisionFormat getFormat() {
+		return format;
+	}
+
+	@Override
+	protected RowMajorMatrixBase createRowMajorMatrix(int rows, int columns) {
+		return new HalfPrecisionMatrix(this, rows, columns, new short[rows * columns], false);
+	}
+
+	/**
+	 * @param matrix The matrix to compress.
+	 * @return A matrix of the values of the given matrix, rounded to 16 bits.
+	 */
+	public HalfPrecisionMatrix compress(Matrix matrix) {
+		if (matrix instanceof RowByRowValuesMatrix) {
+			// Read the values a stripe at a time, as getRowByRowArray() would mark the data of a JBlas
+			// matrix shared and stop it being returned to the pool when closed
+			int length = matrix.getLength();
+			short[] data = new short[length];
+			float[] stripe = new float[Math.min(length, COMPRESSION_STRIPE_LENGTH)];
+			for (int start = 0; start < length; start += stripe.length) {
+				int end = Math.min(start + stripe.length, length);
+				((RowByRowValuesMatrix) matrix).getRowByRowValues(start, end, stripe, 0);
+				format.fromFloats(stripe, 0, data, start, end - start);
+			}
+			return (HalfPrecisionMatrix) allocated(
+					new HalfPrecisionMatrix(this, matrix.getRows(), matrix.getColumns(), data, false));
+		}
+		return (HalfPrecisionMatrix) allocated(
+				createRowMajorMatrix(matrix.getRows(), matrix.getColumns(), matrix.getRowByRowArray()));
+	}
+
+	/**
+	 * @param matrix        The matrix to expand.
+	 * @param matrixFactory The factory of the float matrix to create.
+	 * @return A float matrix of the values of the given matrix.
+	 */
+	public Matrix expand(HalfPrecisionMatrix matrix, MatrixFactory matrixFactory) {
+		return matrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(),
+				matrix.getRowByRowArray());
+	}
+}
@@ -104,10 +104,8 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 	@Override
 	public void populateIm2colConvExport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
 		for (I subImage : channelConcatImages) {
 			subImage.populateIm2colConvExport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth,
 					channels);
@@ -116,12 +114,23 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 		}
 	}
 
+	@Override
+	protected void addIm2colConvExportTasks(List<Runnable> tasks, float[] data, int startIndex, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int channels) {
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
+		for (I subImage : channelConcatImages) {
+			addIm2colConvExportTasks(subImage, tasks, data, startIndex, filterHeight, filterWidth, strideHeight,
+					strideWidth, channels);
+			startIndex = startIndex
+					+ windowWidth * windowHeight * examples * filterHeight * filterWidth * subImage.getChannels();
+		}
+	}
+
 	public void populateIm2colPoolExport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
 		for (I subImage : channelConcatImages) {
 			subImage.populateIm2colPoolExport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth,
 					channels);
@@ -131,10 +140,8 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 
 	public void populateIm2colConvImport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
 		for (I subImage : channelConcatImages) {
 			subImage.populateIm2colConvImport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth,
 					channels);
@@ -143,12 +150,23 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 		}
 	}
 
+	@Override
+	protected void addIm2colConvImportTasks(List<Runnable> tasks, float[] data, int startIndex, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int channels) {
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
+		for (I subImage : channelConcatImages) {
+			addIm2colConvImportTasks(subImage, tasks, data, startIndex, filterHeight, filterWidth, strideHeight,
+					strideWidth, channels);
+			startIndex = startIndex
+					+ windowWidth * windowHeight * examples * filterHeight * filterWidth * subImage.getChannels();
+		}
+	}
+
 	public void populateIm2colPoolImport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
 		for (I subImage : channelConcatImages) {
 			subImage.populateIm2colPoolImport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth,
 					channels);
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.images;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrix;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.jblas.JBlasTransposedRowMajorMatrix;
+import org.ml4j.purejava.PureJavaRowMajorMatrix;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Hands out and reclaims the buffers of im2col matrices, and of the images into which col2im
+ * accumulates, with a free list per thread for each layer and buffer length.
+ * 
+ * The im2col matrices of a layer are the same size on every iteration, and the largest allocations of
+ * a convolutional training step. A buffer released by the forward pass of one iteration is handed out
+ * again to the same layer on the next, rather than a new one being allocated. A layer is any key
+ * identifying it by equals, such as its name or its Axons3DConfig.
+ * 
+ * As with FloatArrayPool, free lists are per thread, so that a buffer is handed out again on the
+ * thread that released it. Buffers are zero-filled when handed out, as im2col leaves the padding
+ * untouched and col2im accumulates.
+ * 
+ * Only the JBlas and pure Java matrices wrap the array they are created from, so im2col matrices are
+ * exported into buffers of the workspace only for their factories. Other factories, such as those
+ * of ND4J or direct buffers, copy the array, and their im2col matrices are exported as usual and
+ * closed when released.
+ * 
+ * @author Michael Lavelle
+ */
+public class Im2colWorkspace implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_MAXIMUM_BUFFERS_PER_KEY = 4;
+
+	private int maximumBuffersPerKey;
+
+	private transient ThreadLocal<Map<BufferKey, ArrayDeque<float[]>>> freeLists;
+	private transient Map<Object, Counters> layerCounters;
+	private transient Counters counters;
+
+	public Im2colWorkspace() {
+		this(DEFAULT_MAXIMUM_BUFFERS_PER_KEY);
+	}
+
+	/**
+	 * @param maximumBuffersPerKey The maximum number of free buffers retained per thread for each layer
+	 *                             and length - further released buffers are left to the garbage
+	 *                             collector.
+	 */
+	public Im2colWorkspace(int maximumBuffersPerKey) {
+		this.maximumBuffersPerKey = maximumBuffersPerKey;
+		initialise();
+	}
+
+	private void initialise() {
+		this.freeLists = ThreadLocal.withInitial(HashMap::new);
+		this.layerCounters = new ConcurrentHashMap<>();
+		this.counters = new Counters();
+	}
+
+	/**
+	 * Obtain a zero-filled buffer for a layer, reusing one released by the layer on this thread if one is
+	 * available.
+	 * 
+	 * @param layer  The layer.
+	 * @param length The length of the buffer.
+	 * @return A zero-filled buffer of the specified length.
+	 */
+	public float[] acquire(Object layer, int length) {
+		ArrayDeque<float[]> freeList = freeLists.get().get(new BufferKey(layer, length));
+		float[] buffer = freeList == null ? null : freeList.pollLast();
+		Counters layerCounters = getLayerCounters(layer);
+		if (buffer != null) {
+			counters.reused();
+			layerCounters.reused();
+			Arrays.fill(buffer, 0f);
+			return buffer;
+		}
+		long bytes = (long) length * Float.BYTES;
+		counters.allocated(bytes);
+		layerCounters.allocated(bytes);
+		return new float[length];
+	}
+
+	/**
+	 * Return a buffer acquired for a layer to this thread's free list for the layer. The caller must
+	 * hold the only reference to the buffer.
+	 * 
+	 * @param layer  The layer.
+	 * @param buffer The buffer to release.
+	 */
+	public void release(Object layer, float[] buffer) {
+		if (buffer == null) {
+			return;
+		}
+		ArrayDeque<float[]> freeList = freeLists.get().computeIfAbsent(new BufferKey(layer, buffer.length),
+				k -> new ArrayDeque<>());
+		Counters layerCounters = getLayerCounters(layer);
+		if (freeList.size() < maximumBuffersPerKey) {
+			freeList.addLast(buffer);
+			counters.released();
+			layerCounters.released();
+		} else {
+			long bytes = (long) buffer.length * Float.BYTES;
+			counters.discarded(bytes);
+			layerCounters.discarded(bytes);
+		}
+	}
+
+	/**
+	 * Closes a matrix exported into a buffer of a layer, and releases the buffer. Matrices which do not
+	 * wrap an array, such as those of ND4J, are only closed.
+	 * 
+	 * @param layer  The layer.
+	 * @param matrix The matrix, which must not be used afterwards.
+	 */
+	public void release(Object layer, Matrix matrix) {
+		// The array of any other matrix is a copy, rather than a buffer to reuse
+		float[] buffer = wrapsArray(matrix) ? matrix.getRowByRowArray() : null;
+		matrix.close();
+		release(layer, buffer);
+	}
+
+	/**
+	 * Exports the im2col matrix of images into a buffer of a layer, to be released once the matrix is no
+	 * longer needed.
+	 * 
+	 * @param layer         The layer.
+	 * @param images        The images, with the padding of the layer.
+	 * @param matrixFactory The factory of the im2col matrix.
+	 * @param filterHeight  The height of the filters.
+	 * @param filterWidth   The width of the filters.
+	 * @param strideHeight  The vertical stride.
+	 * @param strideWidth   The horizontal stride.
+	 * @return The im2col matrix.
+	 */
+	public Matrix im2colConvExport(Object layer, ImageContainer<?> images, MatrixFactory matrixFactory,
+			int filterHeight, int filterWidth, int strideHeight, int strideWidth) {
+		if (images instanceof ImageContainerBase && wrapsArrays(matrixFactory)) {
+			ImageContainerBase<?> imageContainer = (ImageContainerBase<?>) images;
+			float[] buffer = acquire(layer,
+					imageContainer.getIm2colExportLength(filterHeight, filterWidth, strideHeight, strideWidth));
+			return imageContainer.im2colConvExport(matrixFactory, buffer, filterHeight, filterWidth, strideHeight,
+					strideWidth);
+		}
+		Matrix matrix = images.im2colConvExport(matrixFactory, filterHeight, filterWidth, strideHeight,
+				strideWidth);
+		if (wrapsArray(matrix)) {
+			allocated(layer, matrix.getLength());
+		}
+		return matrix;
+	}
+
+	/**
+	 * Exports the pooling im2col matrix of images into a buffer of a layer, to be released once the
+	 * matrix is no longer needed.
+	 * 
+	 * @param layer         The layer.
+	 * @param images        The images, with the padding of the layer.
+	 * @param matrixFactory The factory of the im2col matrix.
+	 * @param filterHeight  The height of the filters.
+	 * @param filterWidth   The width of the filters.
+	 * @param strideHeight  The vertical stride.
+	 * @param strideWidth   The horizontal stride.
+	 * @return The im2col matrix.
+	 */
+	public Matrix im2colPoolExport(Object layer, ImageContainer<?> images, MatrixFactory matrixFactory,
+			int filterHeight, int filterWidth, int strideHeight, int strideWidth) {
+		if (images instanceof ImageContainerBase && wrapsArrays(matrixFactory)) {
+			ImageContainerBase<?> imageContainer = (ImageContainerBase<?>) images;
+			float[] buffer = acquire(layer,
+					imageContainer.getIm2colExportLength(filterHeight, filterWidth, strideHeight, strideWidth));
+			return imageContainer.im2colPoolExport(matrixFactory, buffer, filterHeight, filterWidth, strideHeight,
+					strideWidth);
+		}
+		Matrix matrix = images.im2colPoolExport(matrixFactory, filterHeight, filterWidth, strideHeight,
+				strideWidth);
+		if (wrapsArray(matrix)) {
+			allocated(layer, matrix.getLength());
+		}
+		return matrix;
+	}
+
+	/**
+	 * @param matrixFactory The factory.
+	 * @return Whether the matrices created by the factory from an array wrap the array, rather than
+	 *         copying it.
+	 */
+	public static boolean wrapsArrays(MatrixFactory matrixFactory) {
+		return matrixFactory instanceof JBlasRowMajorMatrixFactory
+				|| matrixFactory instanceof PureJavaRowMajorMatrixFactory;
+	}
+
+	/**
+	 * @return Whether the row by row array of the matrix is its data, rather than a copy.
+	 */
+	private static boolean wrapsArray(Matrix matrix) {
+		return matrix instanceof PureJavaRowMajorMatrix
+				|| (matrix instanceof JBlasRowMajorMatrix && !(matrix instanceof JBlasTransposedRowMajorMatrix));
+	}
+
+	/**
+	 * Records a buffer of a layer allocated elsewhere, which may be released to the workspace.
+	 */
+	private void allocated(Object layer, int length) {
+		long bytes = (long) length * Float.BYTES;
+		counters.allocated(bytes);
+		getLayerCounters(layer).allocated(bytes);
+	}
+
+	private Counters getLayerCounters(Object layer) {
+		return layerCounters.computeIfAbsent(layer, l -> new Counters());
+	}
+
+	/**
+	 * Discard all free buffers held for the current thread.
+	 */
+	public void clear() {
+		for (Map.Entry<BufferKey, ArrayDeque<float[]>> entry : freeLists.get().entrySet()) {
+			long bytes = (long) entry.getKey().length * Float.BYTES * entry.getValue().size();
+			counters.cleared(bytes);
+			getLayerCounters(entry.getKey().layer).cleared(bytes);
+		}
+		freeLists.get().clear();
+	}
+
+	/**
+	 * @return The statistics of the buffers of all layers.
+	 */
+	public Im2colWorkspaceStatistics getStatistics() {
+		return counters.getStatistics();
+	}
+
+	/**
+	 * @param layer The layer.
+	 * @return The statistics of the buffers of the layer.
+	 */
+	public Im2colWorkspaceStatistics getStatistics(Object layer) {
+		return getLayerCounters(layer).getStatistics();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		initialise();
+	}
+
+	@Override
+	public String toString() {
+		return "Im2colWorkspace " + getStatistics();
+	}
+
+	/**
+	 * The key of a free list - a layer and a buffer length.
+	 */
+	private static class BufferKey {
+
+		private final Object layer;
+		private final int length;
+
+		BufferKey(Object layer, int length) {
+			this.layer = layer;
+			this.length = length;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * layer.hashCode() + length;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof BufferKey)) {
+				return false;
+			}
+			BufferKey otherKey = (BufferKey) other;
+			return length == otherKey.length && layer.equals(otherKey.layer);
+		}
+	}
+
+	/**
+	 * The counts of the buffers of all layers or of a single layer.
+	 */
+	private static class Counters {
+
+		private final LongAdder acquisitions = new LongAdder();
+		private final LongAdder reuses = new LongAdder();
+		private final LongAdder releases = new LongAdder();
+		private final LongAdder discards = new LongAdder();
+		private final LongAdder allocatedBytes = new LongAdder();
+		private final AtomicLong liveBytes = new AtomicLong();
+		private final AtomicLong peakBytes = new AtomicLong();
+
+		void reused() {
+			acquisitions.increment();
+			reuses.increment();
+		}
+
+		void allocated(long bytes) {
+			acquisitions.increment();
+			allocatedBytes.add(bytes);
+			long live = liveBytes.addAndGet(bytes);
+			peakBytes.accumulateAndGet(live, Math::max);
+		}
+
+		void released() {
+			releases.increment();
+		}
+
+		void discarded(long bytes) {
+			discards.increment();
+			liveBytes.addAndGet(-bytes);
+		}
+
+		void cleared(long bytes) {
+			liveBytes.addAndGet(-bytes);
+		}
+
+		Im2colWorkspaceStatistics getStatistics() {
+			return new Im2colWorkspaceStatistics(acquisitions.sum(), reuses.sum(), releases.sum(), discards.sum(),
+					allocatedBytes.sum(), liveBytes.get(), peakBytes.get());
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.images;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of the buffers handed out by an Im2colWorkspace, for all layers or for a single layer.
+ * 
+ * @author Michael Lavelle
+ */
+public class Im2colWorkspaceStatistics implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private final long acquisitions;
+	private final long reuses;
+	private final long releases;
+	private final long discards;
+	private final long allocatedBytes;
+	private final long liveBytes;
+	private final long peakBytes;
+
+	/**
+	 * @param acquisitions   The number of buffers handed out.
+	 * @param reuses         The number of those buffers which were released buffers handed out again.
+	 * @param releases       The number of buffers returned to a free list.
+	 * @param discards       The number of released buffers left to the garbage collector because their
+	 *                       free list was full.
+	 * @param allocatedBytes The bytes of the buffers newly allocated.
+	 * @param liveBytes      The bytes of the buffers allocated and not since discarded or cleared,
+	 *                       whether handed out or free.
+	 * @param peakBytes      The maximum of liveBytes.
+	 */
+	public Im2colWorkspaceStatistics(long acquisitions, long reuses, long releases, long discards,
+			long allocatedBytes, long liveBytes, long peakBytes) {
+		this.acquisitions = acquisitions;
+		this.reuses = reuses;
+		this.releases = releases;
+		this.discards = discards;
+		this.allocatedBytes = allocatedBytes;
+		this.liveBytes = liveBytes;
+		this.peakBytes = peakBytes;
+	}
+
+	public long getAcquisitions() {
+		return acquisitions;
+	}
+
+	public long getReuses() {
+		return reuses;
+	}
+
+	public long getAllocations() {
+		return acquisitions - reuses;
+	}
+
+	/**
+	 * @return The proportion of acquisitions satisfied by a released buffer.
+	 */
+	public double getReuseRatio() {
+		return acquisitions == 0 ? 0d : (double) reuses / acquisitions;
+	}
+
+	public long getReleases() {
+		return releases;
+	}
+
+	public long getDiscards() {
+		return discards;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	public long getLiveBytes() {
+		return liveBytes;
+	}
+
+	public long getPeakBytes() {
+		return peakBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "Im2colWorkspaceStatistics [acquisitions=" + acquisitions + ", reuses=" + reuses + ", releases="
+				+ releases + ", discards=" + discards + ", allocatedBytes=" + allocatedBytes + ", liveBytes="
+				+ liveBytes + ", peakBytes=" + peakBytes + "]";
+	}
+}
@@ -1,9 +1,16 @@
 package org.ml4j.images;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.ml4j.FloatModifier;
 import org.ml4j.FloatPredicate;
 import org.ml4j.Matrix;
 import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ConvolutionAlgorithm;
+import org.ml4j.kernels.ConvolutionGeometry;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.kernels.ParallelMatrixFactory;
 
 public abstract class ImageContainerBase<I extends ImageContainer<I>> implements ImageContainer<I> {
 
@@ -13,7 +20,7 @@ public abstract class ImageContainerBase<I extends ImageContainer<I>> implements
 	protected int paddingWidth = 0;
 	protected int examples;
 
-	public ImageContainerBase(int width, int height, int paddingHeight, int paddingWidth, int examples) {
+	public ImageContainerBase(int height, int width, int paddingHeight, int paddingWidth, int examples) {
 		this.width = width;
 		this.height = height;
 		this.paddingHeight = paddingHeight;
@@ -69,6 +76,59 @@ public abstract class ImageContainerBase<I extends ImageContainer<I>> implements
 	public abstract void populateIm2colConvExport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels);
 
+	/**
+	 * Adds independent tasks which together populate the same values as populateIm2colConvExport, so
+	 * that the tasks may be run in parallel. By default the whole image is populated by a single task -
+	 * subclasses divide the image by channel and by filter row.
+	 */
+	protected void addIm2colConvExportTasks(List<Runnable> tasks, float[] data, int startIndex, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int channels) {
+		tasks.add(() -> populateIm2colConvExport(data, startIndex, filterHeight, filterWidth, strideHeight,
+				strideWidth, channels));
+	}
+
+	/**
+	 * Adds the tasks populating the im2col values of a sub-image, dividing the sub-image further if it
+	 * is an ImageContainerBase.
+	 */
+	protected static void addIm2colConvExportTasks(ImageContainer<?> subImage, List<Runnable> tasks, float[] data,
+			int startIndex, int filterHeight, int filterWidth, int strideHeight, int strideWidth, int channels) {
+		if (subImage instanceof ImageContainerBase) {
+			((ImageContainerBase<?>) subImage).addIm2colConvExportTasks(tasks, data, startIndex, filterHeight,
+					filterWidth, strideHeight, strideWidth, channels);
+		} else {
+			tasks.add(() -> subImage.populateIm2colConvExport(data, startIndex, filterHeight, filterWidth,
+					strideHeight, strideWidth, channels));
+		}
+	}
+
+	/**
+	 * Adds independent tasks which together accumulate the same values as populateIm2colConvImport, so
+	 * that the tasks may be run in parallel. Tasks must accumulate into disjoint values of the image, so
+	 * by default the whole image is accumulated into by a single task - subclasses divide the image by
+	 * channel and by blocks of image rows.
+	 */
+	protected void addIm2colConvImportTasks(List<Runnable> tasks, float[] data, int startIndex, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int channels) {
+		tasks.add(() -> populateIm2colConvImport(data, startIndex, filterHeight, filterWidth, strideHeight,
+				strideWidth, channels));
+	}
+
+	/**
+	 * Adds the tasks accumulating the im2col values of a sub-image, dividing the sub-image further if it
+	 * is an ImageContainerBase.
+	 */
+	protected static void addIm2colConvImportTasks(ImageContainer<?> subImage, List<Runnable> tasks, float[] data,
+			int startIndex, int filterHeight, int filterWidth, int strideHeight, int strideWidth, int channels) {
+		if (subImage instanceof ImageContainerBase) {
+			((ImageContainerBase<?>) subImage).addIm2colConvImportTasks(tasks, data, startIndex, filterHeight,
+					filterWidth, strideHeight, strideWidth, channels);
+		} else {
+			tasks.add(() -> subImage.populateIm2colConvImport(data, startIndex, filterHeight, filterWidth,
+					strideHeight, strideWidth, channels));
+		}
+	}
+
 	public abstract void populateIm2colPoolExport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels);
 
@@ -85,21 +145,140 @@ public abstract class ImageContainerBase<I extends ImageContainer<I>> implements
 	@Override
 	public Matrix im2colConvExport(MatrixFactory matrixFactory, int filterHeight, int filterWidth, int strideHeight,
 			int strideWidth) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		float[] data = new float[getChannels() * filterWidth * filterHeight * windowWidth * windowHeight * examples];
-		populateIm2colConvExport(data, getStartIndex(), filterHeight, filterWidth, strideHeight, strideWidth, getChannels());
+		return im2colConvExport(matrixFactory,
+				new float[getIm2colExportLength(filterHeight, filterWidth, strideHeight, strideWidth)], filterHeight,
+				filterWidth, strideHeight, strideWidth);
+	}
+
+	/**
+	 * @param filterHeight The height of the filters.
+	 * @param filterWidth  The width of the filters.
+	 * @param strideHeight The vertical stride.
+	 * @param strideWidth  The horizontal stride.
+	 * @return The length of the data of the im2col matrices exported by im2colConvExport and
+	 *         im2colPoolExport.
+	 */
+	public int getIm2colExportLength(int filterHeight, int filterWidth, int strideHeight, int strideWidth) {
+		return getChannels() * filterWidth * filterHeight * getWindowWidth(filterWidth, strideWidth)
+				* getWindowHeight(filterHeight, strideHeight) * examples;
+	}
+
+	/**
+	 * @param filterWidth The width of the filters.
+	 * @param strideWidth The horizontal stride.
+	 * @return The number of filter positions across the padded image, as ConvolutionGeometry.
+	 */
+	protected int getWindowWidth(int filterWidth, int strideWidth) {
+		return (width + 2 * paddingWidth - filterWidth) / strideWidth + 1;
+	}
+
+	/**
+	 * @param filterHeight The height of the filters.
+	 * @param strideHeight The vertical stride.
+	 * @return The number of filter positions down the padded image, as ConvolutionGeometry.
+	 */
+	protected int getWindowHeight(int filterHeight, int strideHeight) {
+		return (height + 2 * paddingHeight - filterHeight) / strideHeight + 1;
+	}
+
+	/**
+	 * Exports the im2col matrix of this image into the given array, such as a buffer of an
+	 * Im2colWorkspace, rather than a newly allocated one.
+	 * 
+	 * @param matrixFactory The factory of the im2col matrix.
+	 * @param data          A zero-filled array of the length from getIm2colExportLength.
+	 * @param filterHeight  The height of the filters.
+	 * @param filterWidth   The width of the filters.
+	 * @param strideHeight  The vertical stride.
+	 * @param strideWidth   The horizontal stride.
+	 * @return The im2col matrix, whose data is the given array if the factory wraps arrays, as
+	 *         determined by Im2colWorkspace.wrapsArrays.
+	 */
+	public Matrix im2colConvExport(MatrixFactory matrixFactory, float[] data, int filterHeight, int filterWidth,
+			int strideHeight, int strideWidth) {
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
+		checkIm2colExportLength(data, filterHeight, filterWidth, strideHeight, strideWidth);
+		ParallelKernels parallelKernels = matrixFactory instanceof ParallelMatrixFactory
+				? ((ParallelMatrixFactory) matrixFactory).getParallelKernels()
+				: null;
+		if (parallelKernels != null && parallelKernels.isParallel(data.length)) {
+			List<Runnable> tasks = new ArrayList<>();
+			addIm2colConvExportTasks(tasks, data, getStartIndex(), filterHeight, filterWidth, strideHeight,
+					strideWidth, getChannels());
+			parallelKernels.run(tasks, data.length);
+		} else {
+			populateIm2colConvExport(data, getStartIndex(), filterHeight, filterWidth, strideHeight, strideWidth, getChannels());
+		}
 		return matrixFactory.createMatrixFromRowsByRowsArray(getChannels() * filterWidth * filterHeight,
 				windowWidth * windowHeight * examples, data);
 	}
 
+	/**
+	 * Convolves this image with filters, without materialising its im2col matrix. The result is that
+	 * of multiplying the weights by the im2col matrix from im2colConvExport.
+	 * 
+	 * @param matrixFactory The factory of the output.
+	 * @param weights       The filters, a row per filter and a column per row of the im2col matrix.
+	 * @param filterHeight  The height of the filters.
+	 * @param filterWidth   The width of the filters.
+	 * @param strideHeight  The vertical stride.
+	 * @param strideWidth   The horizontal stride.
+	 * @return The output, a row per filter and a column per (output position, example).
+	 */
+	public Matrix convolve(MatrixFactory matrixFactory, Matrix weights, int filterHeight, int filterWidth,
+			int strideHeight, int strideWidth) {
+		return convolve(matrixFactory, weights, filterHeight, filterWidth, strideHeight, strideWidth,
+				ConvolutionAlgorithm.DIRECT);
+	}
+
+	/**
+	 * Convolves this image with filters using the given algorithm. The result is that of multiplying
+	 * the weights by the im2col matrix from im2colConvExport.
+	 * 
+	 * @param matrixFactory The factory of the output.
+	 * @param weights       The filters, a row per filter and a column per row of the im2col matrix.
+	 * @param filterHeight  The height of the filters.
+	 * @param filterWidth   The width of the filters.
+	 * @param strideHeight  The vertical stride.
+	 * @param strideWidth   The horizontal stride.
+	 * @param algorithm     The convolution algorithm.
+	 * @return The output, a row per filter and a column per (output position, example).
+	 */
+	public Matrix convolve(MatrixFactory matrixFactory, Matrix weights, int filterHeight, int filterWidth,
+			int strideHeight, int strideWidth, ConvolutionAlgorithm algorithm) {
+		I unpaddedImage = softDup();
+		unpaddedImage.setPaddingHeight(0);
+		unpaddedImage.setPaddingWidth(0);
+		ConvolutionGeometry geometry = new ConvolutionGeometry(getChannels(), height, width, filterHeight,
+				filterWidth, strideHeight, strideWidth, paddingHeight, paddingWidth);
+		return algorithm.convolve(matrixFactory, weights, unpaddedImage.getData(), examples, geometry);
+	}
+
+	private void checkIm2colExportLength(float[] data, int filterHeight, int filterWidth, int strideHeight,
+			int strideWidth) {
+		int length = getIm2colExportLength(filterHeight, filterWidth, strideHeight, strideWidth);
+		if (data.length != length) {
+			throw new IllegalArgumentException("Data length of " + data.length + " does not match im2col length of "
+					+ length);
+		}
+	}
+
 	@Override
 	public void im2colConvImport(MatrixFactory matrixFactory, Matrix matrix, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth) {
 		float[] data = matrix.getRowByRowArray();
-		populateIm2colConvImport(data, 0, filterHeight, filterWidth, strideHeight, strideWidth, getChannels());
+		ParallelKernels parallelKernels = matrixFactory instanceof ParallelMatrixFactory
+				? ((ParallelMatrixFactory) matrixFactory).getParallelKernels()
+				: null;
+		if (parallelKernels != null && parallelKernels.isParallel(data.length)) {
+			List<Runnable> tasks = new ArrayList<>();
+			addIm2colConvImportTasks(tasks, data, 0, filterHeight, filterWidth, strideHeight, strideWidth,
+					getChannels());
+			parallelKernels.run(tasks, data.length);
+		} else {
+			populateIm2colConvImport(data, 0, filterHeight, filterWidth, strideHeight, strideWidth, getChannels());
+		}
 	}
 	
 
@@ -120,11 +299,29 @@ public abstract class ImageContainerBase<I extends ImageContainer<I>> implements
 	@Override
 	public Matrix im2colPoolExport(MatrixFactory matrixFactory, int filterHeight, int filterWidth, int strideHeight,
 			int strideWidth) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		float[] data = new float[getChannels() * filterWidth * filterHeight * windowWidth * windowHeight * examples];
+		return im2colPoolExport(matrixFactory,
+				new float[getIm2colExportLength(filterHeight, filterWidth, strideHeight, strideWidth)], filterHeight,
+				filterWidth, strideHeight, strideWidth);
+	}
+
+	/**
+	 * Exports the pooling im2col matrix of this image into the given array, such as a buffer of an
+	 * Im2colWorkspace, rather than a newly allocated one.
+	 * 
+	 * @param matrixFactory The factory of the im2col matrix.
+	 * @param data          A zero-filled array of the length from getIm2colExportLength.
+	 * @param filterHeight  The height of the filters.
+	 * @param filterWidth   The width of the filters.
+	 * @param strideHeight  The vertical stride.
+	 * @param strideWidth   The horizontal stride.
+	 * @return The im2col matrix, whose data is the given array if the factory wraps arrays, as
+	 *         determined by Im2colWorkspace.wrapsArrays.
+	 */
+	public Matrix im2colPoolExport(MatrixFactory matrixFactory, float[] data, int filterHeight, int filterWidth,
+			int strideHeight, int strideWidth) {
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
+		checkIm2colExportLength(data, filterHeight, filterWidth, strideHeight, strideWidth);
 		populateIm2colPoolExport(data, getStartIndex(), filterHeight, filterWidth, strideHeight, strideWidth, getChannels());
 		return matrixFactory.createMatrixFromRowsByRowsArray(filterWidth * filterHeight,
 				windowWidth * windowHeight * examples * getChannels(), data);
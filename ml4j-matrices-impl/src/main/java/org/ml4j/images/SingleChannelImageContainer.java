@@ -1,11 +1,18 @@
 package org.ml4j.images;
 
+import java.util.List;
+
 import org.jblas.JavaBlas;
 import org.ml4j.FloatModifier;
 import org.ml4j.FloatPredicate;
 
 public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> extends ImageContainerBase<I> {
 
+	/**
+	 * The number of rows of the image accumulated into by each task of a parallel im2col import.
+	 */
+	private static final int IM2COL_IMPORT_ROW_BLOCK_HEIGHT = 8;
+
 	protected float[] data;
 	protected int startIndex;
 	protected boolean closed;
@@ -59,30 +66,27 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 	public void populateDataSubImage(float[] data, int startIndex, int startHeight, int startWidth, int height,
 			int width, int strideHeight, int strideWidth, boolean forIm2col2) {
 		int startH = startHeight - paddingHeight;
-		for (int sourceH = startH; sourceH < startH + this.height; sourceH += strideHeight) {
-			int targetH = (sourceH - startH) / strideHeight;
-			if (sourceH >= 0 && targetH >= 0 && sourceH < this.height && targetH < height) {
+		int startW2 = startWidth - paddingWidth;
+		for (int targetH = 0; targetH < height; targetH++) {
+			int sourceH = startH + targetH * strideHeight;
+			if (sourceH >= 0 && sourceH < this.height) {
 				if (strideWidth == 1) {
-					int startW2 = Math.max(startWidth - paddingWidth, 0);
-					int widthToCopy = Math.min(width - paddingWidth + (forIm2col2 ? 0 : startWidth),
-							this.width - startW2);
-					int startW = Math.max(paddingWidth - startWidth, 0);
-					System.arraycopy(this.data, this.startIndex + sourceH * this.width * examples + startW2 * examples,
-							data, startIndex + targetH * width * examples + startW * examples,
-							examples * (widthToCopy));
+					int startW = Math.max(-startW2, 0);
+					int widthToCopy = Math.min(width - startW, this.width - startW2 - startW);
+					if (widthToCopy > 0) {
+						System.arraycopy(this.data,
+								this.startIndex + sourceH * this.width * examples + (startW2 + startW) * examples,
+								data, startIndex + targetH * width * examples + startW * examples,
+								examples * widthToCopy);
+					}
 				} else {
-					int widthToCopy = 1;
-					int startW2 = startWidth - paddingWidth;
-					int startW = Math.max(paddingWidth - startWidth, 0);
-					for (int w = startW2; w < this.width; w += strideWidth) {
-						if (w >= 0) {
+					for (int targetW = 0; targetW < width; targetW++) {
+						int w = startW2 + targetW * strideWidth;
+						if (w >= 0 && w < this.width) {
 							System.arraycopy(this.data,
 									this.startIndex + sourceH * this.width * examples + w * examples, data,
-									startIndex + targetH * width * examples + startW * examples,
-									examples * (widthToCopy));
-							startW = startW + 1;
+									startIndex + targetH * width * examples + targetW * examples, examples);
 						}
-
 					}
 				}
 			}
@@ -92,30 +96,38 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 	@Override
 	public void populateDataSubImageReverse(float[] data, int startIndex, int startHeight, int startWidth, int height,
 			int width, int strideHeight, int strideWidth, boolean forIm2col2) {
+		populateDataSubImageReverse(data, startIndex, startHeight, startWidth, height, width, strideHeight,
+				strideWidth, forIm2col2, 0, this.height);
+	}
+
+	/**
+	 * As populateDataSubImageReverse, accumulating only into the rows of this image from imageRowStart
+	 * to imageRowEnd.
+	 */
+	private void populateDataSubImageReverse(float[] data, int startIndex, int startHeight, int startWidth,
+			int height, int width, int strideHeight, int strideWidth, boolean forIm2col2, int imageRowStart,
+			int imageRowEnd) {
 		int startH = startHeight - paddingHeight;
-		for (int sourceH = startH; sourceH < startH + this.height; sourceH += strideHeight) {
-			int targetH = (sourceH - startH) / strideHeight;
-			if (sourceH >= 0 && targetH >= 0 && sourceH < this.height && targetH < height) {
+		int startW2 = startWidth - paddingWidth;
+		for (int targetH = 0; targetH < height; targetH++) {
+			int sourceH = startH + targetH * strideHeight;
+			if (sourceH >= imageRowStart && sourceH < imageRowEnd) {
 				if (strideWidth == 1) {
-					int startW2 = Math.max(startWidth - paddingWidth, 0);
-					int widthToCopy = Math.min(width - paddingWidth + (forIm2col2 ? 0 : startWidth),
-							this.width - startW2);
-					int startW = Math.max(paddingWidth - startWidth, 0);
-					JavaBlas.raxpy(examples * widthToCopy, 1, data,
-							startIndex + targetH * width * examples + startW * examples, 1, this.data,
-							this.startIndex + sourceH * this.width * examples + startW2 * examples, 1);
+					int startW = Math.max(-startW2, 0);
+					int widthToCopy = Math.min(width - startW, this.width - startW2 - startW);
+					if (widthToCopy > 0) {
+						JavaBlas.raxpy(examples * widthToCopy, 1, data,
+								startIndex + targetH * width * examples + startW * examples, 1, this.data,
+								this.startIndex + sourceH * this.width * examples + (startW2 + startW) * examples, 1);
+					}
 				} else {
-					int widthToCopy = 1;
-					int startW2 = startWidth - paddingWidth;
-					int startW = Math.max(paddingWidth - startWidth, 0);
-					for (int w = startW2; w < this.width; w += strideWidth) {
-						if (w >= 0) {
-							JavaBlas.raxpy(examples * widthToCopy, 1, data,
-									startIndex + targetH * width * examples + startW * examples, 1, this.data,
+					for (int targetW = 0; targetW < width; targetW++) {
+						int w = startW2 + targetW * strideWidth;
+						if (w >= 0 && w < this.width) {
+							JavaBlas.raxpy(examples, 1, data,
+									startIndex + targetH * width * examples + targetW * examples, 1, this.data,
 									this.startIndex + sourceH * this.width * examples + w * examples, 1);
-							startW = startW + 1;
 						}
-
 					}
 				}
 			}
@@ -135,30 +147,76 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 	@Override
 	public void populateIm2colConvExport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
 		for (int h = 0; h < filterHeight; h++) {
-			for (int w = 0; w < filterWidth; w++) {
-				populateDataSubImage(data, startIndex, h, w, windowHeight, windowWidth, strideHeight, strideWidth,
-						false);
-				startIndex = startIndex + getSubImageDataLength(windowHeight, windowWidth);
-			}
+			populateIm2colConvExportFilterRow(data, startIndex, h, filterWidth, windowHeight, windowWidth,
+					strideHeight, strideWidth);
+			startIndex = startIndex + getSubImageDataLength(windowHeight, windowWidth) * filterWidth;
+		}
+	}
+
+	@Override
+	protected void addIm2colConvExportTasks(List<Runnable> tasks, float[] data, int startIndex, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int channels) {
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
+		int filterRowDataLength = getSubImageDataLength(windowHeight, windowWidth) * filterWidth;
+		for (int h = 0; h < filterHeight; h++) {
+			int filterRow = h;
+			int filterRowStartIndex = startIndex + h * filterRowDataLength;
+			tasks.add(() -> populateIm2colConvExportFilterRow(data, filterRowStartIndex, filterRow, filterWidth,
+					windowHeight, windowWidth, strideHeight, strideWidth));
+		}
+	}
+
+	/**
+	 * Populates the rows of the im2col matrix for one row of the filter, which are independent of the
+	 * rows for the other filter rows.
+	 */
+	private void populateIm2colConvExportFilterRow(float[] data, int startIndex, int filterRow, int filterWidth,
+			int windowHeight, int windowWidth, int strideHeight, int strideWidth) {
+		for (int w = 0; w < filterWidth; w++) {
+			populateDataSubImage(data, startIndex, filterRow, w, windowHeight, windowWidth, strideHeight,
+					strideWidth, false);
+			startIndex = startIndex + getSubImageDataLength(windowHeight, windowWidth);
 		}
 	}
 
 	@Override
 	public void populateIm2colConvImport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
+		populateIm2colConvImportImageRows(data, startIndex, filterHeight, filterWidth, windowHeight, windowWidth,
+				strideHeight, strideWidth, 0, height);
+	}
+
+	@Override
+	protected void addIm2colConvImportTasks(List<Runnable> tasks, float[] data, int startIndex, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int channels) {
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
+		for (int imageRowStart = 0; imageRowStart < height; imageRowStart += IM2COL_IMPORT_ROW_BLOCK_HEIGHT) {
+			int rowStart = imageRowStart;
+			int rowEnd = Math.min(imageRowStart + IM2COL_IMPORT_ROW_BLOCK_HEIGHT, height);
+			tasks.add(() -> populateIm2colConvImportImageRows(data, startIndex, filterHeight, filterWidth,
+					windowHeight, windowWidth, strideHeight, strideWidth, rowStart, rowEnd));
+		}
+	}
+
+	/**
+	 * Accumulates the im2col values for every filter position into the rows of this image from
+	 * imageRowStart to imageRowEnd. The filter positions are visited in the same order for every block
+	 * of rows, so each value is accumulated in the same order as by a single pass over the whole image.
+	 */
+	private void populateIm2colConvImportImageRows(float[] data, int startIndex, int filterHeight, int filterWidth,
+			int windowHeight, int windowWidth, int strideHeight, int strideWidth, int imageRowStart,
+			int imageRowEnd) {
 		for (int h = 0; h < filterHeight; h++) {
 			for (int w = 0; w < filterWidth; w++) {
 				populateDataSubImageReverse(data, startIndex, h, w, windowHeight, windowWidth, strideHeight,
-						strideWidth, false);
+						strideWidth, false, imageRowStart, imageRowEnd);
 				startIndex = startIndex + getSubImageDataLength(windowHeight, windowWidth);
 			}
 		}
@@ -167,10 +225,8 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 	@Override
 	public void populateIm2colPoolExport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
 		for (int h = 0; h < filterHeight; h++) {
 			for (int w = 0; w < filterWidth; w++) {
 				populateDataSubImage(data, startIndex, h, w, windowHeight, windowWidth, strideHeight, strideWidth,
@@ -183,10 +239,8 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 	@Override
 	public void populateIm2colPoolImport(float[] data, int startIndex, int filterHeight, int filterWidth,
 			int strideHeight, int strideWidth, int channels) {
-		int windowSpanWidth = width + 2 * paddingWidth - filterWidth + 1;
-		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
-		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
-		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
+		int windowWidth = getWindowWidth(filterWidth, strideWidth);
+		int windowHeight = getWindowHeight(filterHeight, strideHeight);
 		for (int h = 0; h < filterHeight; h++) {
 			for (int w = 0; w < filterWidth; w++) {
 				populateDataSubImageReverse(data, startIndex, h, w, windowHeight, windowWidth, strideHeight,
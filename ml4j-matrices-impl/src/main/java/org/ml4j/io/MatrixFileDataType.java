@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.io;
+
+import org.ml4j.halfprecision.HalfPrecisionFormat;
+
+/**
+ * The type of the values stored in a matrix file.
+ * 
+ * @author Michael Lavelle
+ */
+public enum MatrixFileDataType {
+
+	/**
+	 * IEEE 754 single precision.
+	 */
+	FLOAT32(0, 4, null),
+
+	/**
+	 * The upper 16 bits of IEEE 754 single precision.
+	 */
+	BFLOAT16(1, 2, HalfPrecisionFormat.BFLOAT16),
+
+	/**
+	 * IEEE 754 half precision.
+	 */
+	IEEE_HALF(2, 2, HalfPrecisionFormat.IEEE_HALF);
+
+	private final int code;
+	private final int bytesPerValue;
+	private final HalfPrecisionFormat halfPrecisionFormat;
+
+	MatrixFileDataType(int code, int bytesPerValue, HalfPrecisionFormat halfPrecisionFormat) {
+		this.code = code;
+		this.bytesPerValue = bytesPerValue;
+		this.halfPrecisionFormat = halfPrecisionFormat;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	public int getBytesPerValue() {
+		return bytesPerValue;
+	}
+
+	/**
+	 * @return The format of the values if half precision, otherwise null.
+	 */
+	public HalfPrecisionFormat getHalfPrecisionFormat() {
+		return halfPrecisionFormat;
+	}
+
+	/**
+	 * @param format A half precision format.
+	 * @return The data type storing values in that format.
+	 */
+	public static MatrixFileDataType forHalfPrecisionFormat(HalfPrecisionFormat format) {
+		return format == HalfPrecisionFormat.BFLOAT16 ? BFLOAT16 : IEEE_HALF;
+	}
+
+	/**
+	 * @param code The code stored in a matrix file header.
+	 * @return The data type with that code.
+	 */
+	public static MatrixFileDataType forCode(int code) {
+		for (MatrixFileDataType dataType : values()) {
+			if (dataType.code == code) {
+				return dataType;
+			}
+		}
+		throw new IllegalArgumentException("Unknown matrix file data type:" + code);
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.io;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The header of a matrix file, describing the shape, orientation and data type of the values
+ * which follow it.
+ * 
+ * The header occupies the first HEADER_BYTES bytes of the file, little-endian:
+ * 
+ * <pre>
+ * offset  0: magic "ML4J"
+ * offset  4: int version
+ * offset  8: int data type code
+ * offset 12: int orientation code
+ * offset 16: int rows
+ * offset 20: int columns
+ * offset 24: reserved, zero
+ * </pre>
+ * 
+ * The values start at HEADER_BYTES, so that mapped values are aligned to a cache line.
+ * 
+ * @author Michael Lavelle
+ */
+public class MatrixFileHeader implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of bytes before the values.
+	 */
+	public static final int HEADER_BYTES = 64;
+
+	/**
+	 * "ML4J" read as a little-endian int.
+	 */
+	private static final int MAGIC = 'M' | ('L' << 8) | ('4' << 16) | ('J' << 24);
+
+	private static final int VERSION = 1;
+
+	private final int rows;
+	private final int columns;
+	private final MatrixFileOrientation orientation;
+	private final MatrixFileDataType dataType;
+
+	/**
+	 * @param rows        The number of rows.
+	 * @param columns     The number of columns.
+	 * @param orientation The order of the values.
+	 * @param dataType    The type of the values.
+	 */
+	public MatrixFileHeader(int rows, int columns, MatrixFileOrientation orientation, MatrixFileDataType dataType) {
+		if (rows < 0 || columns < 0) {
+			throw new IllegalArgumentException("Invalid matrix dimensions " + rows + "x" + columns);
+		}
+		this.rows = rows;
+		this.columns = columns;
+		this.orientation = orientation;
+		this.dataType = dataType;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getLength() {
+		return rows * columns;
+	}
+
+	public MatrixFileOrientation getOrientation() {
+		return orientation;
+	}
+
+	public MatrixFileDataType getDataType() {
+		return dataType;
+	}
+
+	/**
+	 * @return The number of bytes of values following the header.
+	 */
+	public long getDataBytes() {
+		return (long) rows * columns * dataType.getBytesPerValue();
+	}
+
+	/**
+	 * @return The header in its file representation.
+	 */
+	public ByteBuffer toByteBuffer() {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(dataType.getCode());
+		buffer.putInt(orientation.getCode());
+		buffer.putInt(rows);
+		buffer.putInt(columns);
+		buffer.rewind();
+		return buffer;
+	}
+
+	/**
+	 * @param buffer The first HEADER_BYTES bytes of a matrix file.
+	 * @return The header.
+	 */
+	public static MatrixFileHeader fromByteBuffer(ByteBuffer buffer) {
+		ByteBuffer header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+			throw new IllegalArgumentException("Not a matrix file");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported matrix file version:" + version);
+		}
+		MatrixFileDataType dataType = MatrixFileDataType.forCode(header.getInt());
+		MatrixFileOrientation orientation = MatrixFileOrientation.forCode(header.getInt());
+		int rows = header.getInt();
+		int columns = header.getInt();
+		return new MatrixFileHeader(rows, columns, orientation, dataType);
+	}
+
+	@Override
+	public String toString() {
+		return rows + "x" + columns + " " + orientation + " " + dataType;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.io;
+
+/**
+ * The order in which the values of a matrix are stored in a matrix file.
+ * 
+ * @author Michael Lavelle
+ */
+public enum MatrixFileOrientation {
+
+	/**
+	 * Values are stored row by row, the layout of every matrix backend, so the file can be mapped
+	 * without copying.
+	 */
+	ROW_MAJOR(0),
+
+	/**
+	 * Values are stored column by column.
+	 */
+	COLUMN_MAJOR(1);
+
+	private final int code;
+
+	MatrixFileOrientation(int code) {
+		this.code = code;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * @param code The code stored in a matrix file header.
+	 * @return The orientation with that code.
+	 */
+	public static MatrixFileOrientation forCode(int code) {
+		for (MatrixFileOrientation orientation : values()) {
+			if (orientation.code == code) {
+				return orientation;
+			}
+		}
+		throw new IllegalArgumentException("Unknown matrix file orientation:" + code);
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.direct.DirectFloatBufferMatrix;
+import org.ml4j.halfprecision.HalfPrecisionFormat;
+import org.ml4j.halfprecision.HalfPrecisionMatrix;
+
+/**
+ * Reads and writes matrices in the matrix file format: a MatrixFileHeader followed by the raw
+ * little-endian values.
+ * 
+ * Float files can also be mapped, see DirectFloatBufferMatrixFactory.createMatrixFromFile, so that
+ * large weight and feature files are read lazily from, and shared between processes through, the
+ * page cache.
+ * 
+ * @author Michael Lavelle
+ */
+public final class MatrixFiles {
+
+	/**
+	 * The number of values converted per write.
+	 */
+	private static final int CHUNK_VALUES = 1 << 16;
+
+	private MatrixFiles() {
+	}
+
+	/**
+	 * Writes the matrix as row-major floats, which can be mapped without copying.
+	 * 
+	 * @param matrix The matrix.
+	 * @param path   The file to write.
+	 */
+	public static void write(Matrix matrix, Path path) {
+		write(matrix, path, MatrixFileOrientation.ROW_MAJOR);
+	}
+
+	/**
+	 * @param matrix      The matrix.
+	 * @param path        The file to write.
+	 * @param orientation The order in which to write the values.
+	 */
+	public static void write(Matrix matrix, Path path, MatrixFileOrientation orientation) {
+		MatrixFileHeader header = new MatrixFileHeader(matrix.getRows(), matrix.getColumns(), orientation,
+				MatrixFileDataType.FLOAT32);
+		try (FileChannel channel = openForWriting(path)) {
+			writeHeader(channel, header);
+			if (orientation == MatrixFileOrientation.ROW_MAJOR && matrix instanceof DirectFloatBufferMatrix
+					&& ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+				// The buffer of a direct matrix is already in the file layout
+				ByteBuffer values = ((DirectFloatBufferMatrix) matrix).getByteBuffer().duplicate();
+				values.clear();
+				values.limit(matrix.getLength() * Float.BYTES);
+				writeFully(channel, values);
+			} else {
+				float[] values = orientation == MatrixFileOrientation.ROW_MAJOR ? matrix.getRowByRowArray()
+						: matrix.getColumnByColumnArray();
+				writeFloats(channel, values);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the half precision values of the matrix without converting them.
+	 * 
+	 * @param matrix The matrix.
+	 * @param path   The file to write.
+	 */
+	public static void write(HalfPrecisionMatrix matrix, Path path) {
+		MatrixFileHeader header = new MatrixFileHeader(matrix.getRows(), matrix.getColumns(),
+				MatrixFileOrientation.ROW_MAJOR, MatrixFileDataType.forHalfPrecisionFormat(matrix.getFormat()));
+		short[] values = matrix.getData();
+		try (FileChannel channel = openForWriting(path)) {
+			writeHeader(channel, header);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_VALUES * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			for (int start = 0; start < values.length; start += CHUNK_VALUES) {
+				int count = Math.min(CHUNK_VALUES, values.length - start);
+				buffer.clear();
+				buffer.asShortBuffer().put(values, start, count);
+				buffer.limit(count * Short.BYTES);
+				writeFully(channel, buffer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param path A matrix file.
+	 * @return The header of the file.
+	 */
+	public static MatrixFileHeader readHeader(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return readHeader(channel);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads a matrix file into a matrix of the factory, converting half precision values to float.
+	 * 
+	 * @param path          A matrix file.
+	 * @param matrixFactory The factory of the matrix.
+	 * @return The matrix.
+	 */
+	public static Matrix read(Path path, MatrixFactory matrixFactory) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MatrixFileHeader header = readHeader(channel);
+			ByteBuffer data = mapData(channel, header, FileChannel.MapMode.READ_ONLY);
+			float[] values = new float[header.getLength()];
+			HalfPrecisionFormat format = header.getDataType().getHalfPrecisionFormat();
+			if (format == null) {
+				data.asFloatBuffer().get(values);
+			} else {
+				short[] halfValues = new short[values.length];
+				data.asShortBuffer().get(halfValues);
+				format.toFloats(halfValues, 0, values, 0, values.length);
+			}
+			if (header.getOrientation() == MatrixFileOrientation.ROW_MAJOR) {
+				return matrixFactory.createMatrixFromRowsByRowsArray(header.getRows(), header.getColumns(), values);
+			} else {
+				return matrixFactory.createMatrixFromColumnsByColumnsArray(header.getRows(), header.getColumns(),
+						values);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Maps the values of a matrix file read-only.
+	 * 
+	 * @param path   A matrix file.
+	 * @param header The header of the file.
+	 * @return A little-endian buffer of the values, which remains valid after the file is closed.
+	 */
+	public static ByteBuffer mapData(Path path, MatrixFileHeader header) {
+		return mapData(path, header, FileChannel.MapMode.READ_ONLY);
+	}
+
+	/**
+	 * Maps the values of a matrix file.
+	 * 
+	 * @param path   A matrix file.
+	 * @param header The header of the file.
+	 * @param mode   READ_ONLY, or PRIVATE for a copy-on-write mapping whose changes are never written
+	 *               to the file.
+	 * @return A little-endian buffer of the values, which remains valid after the file is closed.
+	 */
+	public static ByteBuffer mapData(Path path, MatrixFileHeader header, FileChannel.MapMode mode) {
+		if (mode == FileChannel.MapMode.READ_WRITE) {
+			throw new IllegalArgumentException("Matrix files can only be mapped read-only or private");
+		}
+		// A private mapping requires a channel opened for writing, although the file is left unchanged
+		try (FileChannel channel = mode == FileChannel.MapMode.PRIVATE
+				? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ)) {
+			return mapData(channel, header, mode);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static ByteBuffer mapData(FileChannel channel, MatrixFileHeader header, FileChannel.MapMode mode)
+			throws IOException {
+		long dataBytes = header.getDataBytes();
+		if (dataBytes > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Matrix file values exceed the maximum mapping size: " + header);
+		}
+		if (channel.size() < MatrixFileHeader.HEADER_BYTES + dataBytes) {
+			throw new IllegalArgumentException("Matrix file is truncated: " + header);
+		}
+		return channel.map(mode, MatrixFileHeader.HEADER_BYTES, dataBytes)
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static MatrixFileHeader readHeader(FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixFileHeader.HEADER_BYTES);
+		while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+			continue;
+		}
+		buffer.flip();
+		return MatrixFileHeader.fromByteBuffer(buffer);
+	}
+
+	private static FileChannel openForWriting(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	private static void writeHeader(FileChannel channel, MatrixFileHeader header) throws IOException {
+		writeFully(channel, header.toByteBuffer());
+	}
+
+	private static void writeFloats(FileChannel channel, float[] values) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_VALUES * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		for (int start = 0; start < values.length; start += CHUNK_VALUES) {
+			int count = Math.min(CHUNK_VALUES, values.length - start);
+			buffer.clear();
+			buffer.asFloatBuffer().put(values, start, count);
+			buffer.limit(count * Float.BYTES);
+			writeFully(channel, buffer);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
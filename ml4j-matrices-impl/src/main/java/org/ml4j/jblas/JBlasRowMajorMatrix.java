@@ -16,18 +16,29 @@ package org.ml4j.jblas;
 
 import org.jblas.FloatMatrix;
 import org.jblas.MatrixFunctions;
+import org.jblas.NativeBlas;
 import org.ml4j.EditableMatrix;
 import org.ml4j.InterrimMatrix;
 import org.ml4j.Matrix;
+import org.ml4j.activations.ActivationFunctionMatrix;
+import org.ml4j.bridge.MatrixBridge;
 import org.ml4j.floatarray.FloatArrayFactory;
 import org.ml4j.floatmatrix.FloatMatrixFactory;
+import org.ml4j.kernels.ActivationKernel;
+import org.ml4j.kernels.BinaryOperation;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.sparse.SparseMatrix;
+import org.ml4j.views.ColumnRangeMatrix;
+import org.ml4j.views.RowByRowValuesMatrix;
 
 /**
  * Default JBlas matrix implementation.
  * 
  * @author Michael Lavelle
  */
-public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatrix {
+public class JBlasRowMajorMatrix
+		implements Matrix, EditableMatrix, InterrimMatrix, ActivationFunctionMatrix, ColumnRangeMatrix,
+		RowByRowValuesMatrix {
 
 	/**
 	 * Default serialization id.
@@ -40,6 +51,23 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	protected boolean immutable;
 	protected JBlasRowMajorMatrixFactory jblasRowMajorMatrixFactory;
 
+	/**
+	 * Whether the data of this matrix may be referenced elsewhere, in which case it must not be
+	 * released to the FloatMatrixFactory when this matrix is closed.
+	 */
+	protected boolean dataShared;
+
+	/**
+	 * The number of transposed views of this matrix which still share its data.
+	 */
+	private int transposedViews;
+
+	/**
+	 * The data of this matrix, if this matrix was closed while transposed views still shared it, to be
+	 * released once the last of them no longer does.
+	 */
+	private FloatMatrix releaseOnLastTransposedView;
+
 	public JBlasRowMajorMatrix(JBlasRowMajorMatrixFactory jblasRowMajorMatrixFactory, FloatMatrixFactory floatMatrixFactory, FloatArrayFactory floatArrayFactory, 
 			FloatMatrix matrix, boolean immutable) {
 		this.matrix = matrix;
@@ -49,7 +77,15 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		this.jblasRowMajorMatrixFactory = jblasRowMajorMatrixFactory;
 	}
 
-	private FloatMatrix getFloatMatrix() {
+	/**
+	 * Returns the FloatMatrix of this matrix, which is shared with the caller, so is no longer released
+	 * for reuse when this matrix is closed.
+	 * 
+	 * @return The FloatMatrix of this matrix, of shape (columns, rows), whose column-major data is the
+	 *         row-major data of this matrix.
+	 */
+	public FloatMatrix getFloatMatrix() {
+		markDataShared();
 		return getMatrix();
 	}
 
@@ -61,9 +97,10 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	 */
 	protected FloatMatrix createJBlasFloatMatrix(Matrix matrix) {
 		if (matrix instanceof JBlasRowMajorMatrix) {
-			return ((JBlasRowMajorMatrix) matrix).getFloatMatrix();
+			// Only used for the duration of an operation, so not marked as shared
+			return ((JBlasRowMajorMatrix) matrix).getMatrix();
 		} else {
-			throw new UnsupportedOperationException();
+			return MatrixBridge.asFloatMatrix(matrix);
 		}
 	}
 
@@ -71,12 +108,92 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		return jblasRowMajorMatrixFactory.createJBlasMatrix(matrix, immutable);
 	}
 
+	protected Matrix createSharedJBlasMatrix(FloatMatrix matrix, boolean immutable) {
+		return jblasRowMajorMatrixFactory.createSharedJBlasMatrix(matrix, immutable);
+	}
+
+	/**
+	 * Marks the data of this matrix as referenced elsewhere, so that it is not released for reuse
+	 * when this matrix is closed.
+	 * 
+	 * @return This matrix.
+	 */
+	protected JBlasRowMajorMatrix markDataShared() {
+		this.dataShared = true;
+		return this;
+	}
+
+	protected ParallelKernels getParallelKernels() {
+		return jblasRowMajorMatrixFactory.getParallelKernels();
+	}
+
+	/**
+	 * Applies an operation to corresponding elements of this matrix and other, striped across the
+	 * threads of the ParallelKernels when this matrix is large enough, and otherwise by JBlas.
+	 */
+	private FloatMatrix elementwise(BinaryOperation operation, FloatMatrix other, FloatMatrix result) {
+		FloatMatrix source = getMatrix();
+		// JBlas also supports scalar operands, which are left to JBlas
+		if (other.length != source.length || !getParallelKernels().isParallel(source.length)) {
+			switch (operation) {
+			case ADD:
+				return source.addi(other, result);
+			case SUB:
+				return source.subi(other, result);
+			case MUL:
+				return source.muli(other, result);
+			case DIV:
+				return source.divi(other, result);
+			default:
+				throw new IllegalArgumentException("Unsupported operation:" + operation);
+			}
+		}
+		getParallelKernels().elementwise(operation, source.data, other.data, result.data, source.length);
+		return result;
+	}
+
+	/**
+	 * Applies an operation to each element of this matrix and a scalar, striped across the threads of
+	 * the ParallelKernels when this matrix is large enough, and otherwise by JBlas.
+	 */
+	private FloatMatrix scalar(BinaryOperation operation, float value, FloatMatrix result) {
+		FloatMatrix source = getMatrix();
+		if (!getParallelKernels().isParallel(source.length)) {
+			switch (operation) {
+			case ADD:
+				return source.addi(value, result);
+			case SUB:
+				return source.subi(value, result);
+			case MUL:
+				return source.muli(value, result);
+			case DIV:
+				return source.divi(value, result);
+			default:
+				throw new IllegalArgumentException("Unsupported operation:" + operation);
+			}
+		}
+		getParallelKernels().scalar(operation, source.data, value, result.data, source.length);
+		return result;
+	}
+
+	/**
+	 * @return A copy of the underlying FloatMatrix, created by the FloatMatrixFactory.
+	 */
+	private FloatMatrix dupFloatMatrix() {
+		FloatMatrix source = getMatrix();
+		FloatMatrix dup = floatMatrixFactory.create(source.getRows(), source.getColumns());
+		System.arraycopy(source.data, 0, dup.data, 0, source.length);
+		return dup;
+	}
+
 	@Override
 	public Matrix add(Matrix other) {
 		if (other.getRows() != this.getRows()) {
 			throw new IllegalArgumentException("Rows do not match");
 		}
-		return createJBlasMatrix(getMatrix().add(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(
+				elementwise(BinaryOperation.ADD, createJBlasFloatMatrix(other), floatMatrixFactory.create(getColumns(), getRows())),
+				false);
 	}
 
 	@Override
@@ -84,7 +201,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		if (other.getRows() != this.getRows()) {
 			throw new IllegalArgumentException("Rows do not match");
 		}
-		return createJBlasMatrix(getMatrix().addRowVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().addiRowVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
@@ -92,17 +209,17 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		if (other.getColumns() != this.getColumns()) {
 			throw new IllegalArgumentException("Columns do not match");
 		}
-		return createJBlasMatrix(getMatrix().addColumnVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().addiColumnVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
 	public Matrix add(float value) {
-		return createJBlasMatrix(getMatrix().addi(value, floatMatrixFactory.create(getColumns(), getRows())), false);
+		return createJBlasMatrix(scalar(BinaryOperation.ADD, value, floatMatrixFactory.create(getColumns(), getRows())), false);
 	}
 
 	@Override
 	public Matrix sub(float value) {
-		return createJBlasMatrix(getMatrix().subi(value, floatMatrixFactory.create(getColumns(), getRows())), false);
+		return createJBlasMatrix(scalar(BinaryOperation.SUB, value, floatMatrixFactory.create(getColumns(), getRows())), false);
 	}
 
 	@Override
@@ -110,7 +227,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		if (other.getRows() != this.getRows()) {
 			throw new IllegalArgumentException("Rows do not match");
 		}
-		matrix.addi(createJBlasFloatMatrix(other));
+		elementwise(BinaryOperation.ADD, createJBlasFloatMatrix(other), getMatrix());
 		return this;
 	}
 
@@ -134,46 +251,50 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public EditableMatrix addi(float value) {
-		getMatrix().addi(value);
+		scalar(BinaryOperation.ADD, value, getMatrix());
 		return this;
 	}
 
 	@Override
 	public EditableMatrix subi(float value) {
-		getMatrix().subi(value);
+		scalar(BinaryOperation.SUB, value, getMatrix());
 		return this;
 	}
 
 	@Override
 	public int argmax() {
-		return getMatrix().argmax();
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			return getParallelKernels().argmax(source.data, source.length);
+		}
+		return source.argmax();
 	}
 
 	public Matrix copy(Matrix other) {
-		return createJBlasMatrix(getMatrix().copy(createJBlasFloatMatrix(other)), false);
+		return createSharedJBlasMatrix(getMatrix().copy(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
 	public Matrix div(float value) {
-		return createJBlasMatrix(getMatrix().divi(value, floatMatrixFactory.create(getColumns(), getRows())), false);
+		return createJBlasMatrix(scalar(BinaryOperation.DIV, value, floatMatrixFactory.create(getColumns(), getRows())), false);
 	}
 
 	@Override
 	public Matrix div(Matrix other) {
 		return createJBlasMatrix(
-				getMatrix().divi(createJBlasFloatMatrix(other), floatMatrixFactory.create(getColumns(), getRows())),
+				elementwise(BinaryOperation.DIV, createJBlasFloatMatrix(other), floatMatrixFactory.create(getColumns(), getRows())),
 				false);
 	}
 
 	@Override
 	public EditableMatrix divi(float value) {
-		getMatrix().divi(value);
+		scalar(BinaryOperation.DIV, value, getMatrix());
 		return this;
 	}
 
 	@Override
 	public EditableMatrix divi(Matrix other) {
-		getMatrix().divi(createJBlasFloatMatrix(other));
+		elementwise(BinaryOperation.DIV, createJBlasFloatMatrix(other), getMatrix());
 		return this;
 	}
 
@@ -224,6 +345,23 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		return getMatrix().getLength();
 	}
 
+	/**
+	 * A FloatMatrix has no offset or stride, so the range is copied, one contiguous run of each row
+	 * at a time.
+	 */
+	@Override
+	public Matrix getColumnRange(int start, int endExclusive) {
+		FloatMatrix source = getMatrix();
+		int rows = getRows();
+		int columns = getColumns();
+		int width = endExclusive - start;
+		FloatMatrix result = floatMatrixFactory.create(width, rows);
+		for (int r = 0; r < rows; r++) {
+			System.arraycopy(source.data, r * columns + start, result.data, r * width, width);
+		}
+		return createJBlasMatrix(result, false);
+	}
+
 	public Matrix getRowRange(int avalue, int bvalue, int cvalue) {
 		return createJBlasMatrix(getMatrix().getColumnRange(avalue, bvalue, cvalue), false);
 	}
@@ -239,56 +377,100 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	}
 
 	public Matrix mmul(Matrix other, Matrix target) {
-		return createJBlasMatrix(getMatrix().mmuli(createJBlasFloatMatrix(other), createJBlasFloatMatrix(target)),
+		return createSharedJBlasMatrix(getMatrix().mmuli(createJBlasFloatMatrix(other), createJBlasFloatMatrix(target)),
 				false);
 	}
 
 	@Override
 	public Matrix mmul(Matrix other)  {
 		
+		if (other instanceof SparseMatrix) {
+			return ((SparseMatrix) other).leftMmul(this, jblasRowMajorMatrixFactory);
+		}
+
+		if (isTransposedView(this) || isTransposedView(other)) {
+			return createJBlasMatrix(gemmWithTransposedViews(other), false);
+		}
+
 		FloatMatrix o = createJBlasFloatMatrix(other);
 		FloatMatrix t = getMatrix();
 
 		return createJBlasMatrix(o.mmuli(t, floatMatrixFactory.create(other.getColumns(), getRows())), false);
 
 	}
+
+	private static boolean isTransposedView(Matrix matrix) {
+		return matrix instanceof JBlasTransposedRowMajorMatrix
+				&& ((JBlasTransposedRowMajorMatrix) matrix).isTransposedView();
+	}
+
+	/**
+	 * Multiplies this matrix by other where either is an unmaterialized transposed view, passing the
+	 * data of the matrix the view transposes to BLAS with the transpose flag set rather than copying
+	 * it.
+	 * 
+	 * As elsewhere, the row-major product this.other is computed as the column-major product
+	 * other^T.this^T. The column-major reading of a normal matrix's data is its transpose, while the
+	 * column-major reading of the data behind a transposed view is the view itself.
+	 */
+	private FloatMatrix gemmWithTransposedViews(Matrix other) {
+		if (other.getRows() != getColumns()) {
+			throw new IllegalArgumentException("Columns of this matrix do not match rows of other matrix");
+		}
+		int m = getRows();
+		int k = getColumns();
+		int n = other.getColumns();
+		FloatMatrix result = floatMatrixFactory.create(n, m);
+		if (m == 0 || n == 0 || k == 0) {
+			return result.fill(0f);
+		}
+		boolean transposeOther = isTransposedView(other);
+		boolean transposeThis = isTransposedView(this);
+		float[] otherData = transposeOther ? ((JBlasTransposedRowMajorMatrix) other).getTransposedData()
+				: createJBlasFloatMatrix(other).data;
+		float[] thisData = transposeThis ? ((JBlasTransposedRowMajorMatrix) this).getTransposedData()
+				: getMatrix().data;
+		NativeBlas.sgemm(transposeOther ? 'T' : 'N', transposeThis ? 'T' : 'N', n, m, k, 1f, otherData, 0,
+				transposeOther ? k : n, thisData, 0, transposeThis ? m : k, 0f, result.data, 0, n);
+		return result;
+	}
 	
 
 	@Override
 	public Matrix mul(float value) {
-		return createJBlasMatrix(getMatrix().mul(value), false);
+		return createJBlasMatrix(scalar(BinaryOperation.MUL, value, floatMatrixFactory.create(getColumns(), getRows())), false);
 	}
 
 	@Override
 	public Matrix mul(Matrix other) {
 		return createJBlasMatrix(
-				getMatrix().muli(createJBlasFloatMatrix(other), floatMatrixFactory.create(getColumns(), getRows())),
+				elementwise(BinaryOperation.MUL, createJBlasFloatMatrix(other), floatMatrixFactory.create(getColumns(), getRows())),
 				false);
 	}
 
 	@Override
 	public Matrix mulColumnVector(Matrix other) {
-		return createJBlasMatrix(getMatrix().mulRowVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().muliRowVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
 	public Matrix mulRowVector(Matrix other) {
-		return createJBlasMatrix(getMatrix().mulColumnVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().muliColumnVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
 	public Matrix divRowVector(Matrix other) {
-		return createJBlasMatrix(getMatrix().divColumnVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().diviColumnVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
 	public Matrix divColumnVector(Matrix other) {
-		return createJBlasMatrix(getMatrix().divRowVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().diviRowVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
 	public EditableMatrix muli(Matrix other) {
-		getMatrix().muli(createJBlasFloatMatrix(other));
+		elementwise(BinaryOperation.MUL, createJBlasFloatMatrix(other), getMatrix());
 		return this;
 	}
 
@@ -306,7 +488,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public EditableMatrix muli(float value) {
-		getMatrix().muli(value);
+		scalar(BinaryOperation.MUL, value, getMatrix());
 		return this;
 	}
 
@@ -344,17 +526,33 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public int[] columnArgmaxs() {
-		return getMatrix().rowArgmaxs();
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			return getParallelKernels().columnArgmaxs(source.data, getRows(), getColumns());
+		}
+		return source.rowArgmaxs();
 	}
 
 	@Override
 	public Matrix rowSums() {
-		return createJBlasMatrix(getMatrix().columnSums(), false);
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			FloatMatrix result = floatMatrixFactory.create(1, getRows());
+			getParallelKernels().rowSums(source.data, getRows(), getColumns(), result.data);
+			return createJBlasMatrix(result, false);
+		}
+		return createJBlasMatrix(source.columnSums(), false);
 	}
 
 	@Override
 	public Matrix columnSums() {
-		return createJBlasMatrix(getMatrix().rowSums(), false);
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			FloatMatrix result = floatMatrixFactory.create(getColumns(), 1);
+			getParallelKernels().columnSums(source.data, getRows(), getColumns(), result.data);
+			return createJBlasMatrix(result, false);
+		}
+		return createJBlasMatrix(source.rowSums(), false);
 	}
 
 	@Override
@@ -363,7 +561,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 			throw new IllegalArgumentException("Rows do not match");
 		}
 		return createJBlasMatrix(
-				getMatrix().subi(createJBlasFloatMatrix(other), floatMatrixFactory.create(getColumns(), getRows())),
+				elementwise(BinaryOperation.SUB, createJBlasFloatMatrix(other), floatMatrixFactory.create(getColumns(), getRows())),
 				false);
 
 	}
@@ -373,7 +571,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		if (other.getRows() != this.getRows()) {
 			throw new IllegalArgumentException("Rows do not match");
 		}
-		return createJBlasMatrix(matrix.subRowVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().subiRowVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
@@ -381,7 +579,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		if (other.getRows() != this.getRows()) {
 			throw new IllegalArgumentException("Rows do not match");
 		}
-		return createJBlasMatrix(getMatrix().subColumnVector(createJBlasFloatMatrix(other)), false);
+		return createJBlasMatrix(dupFloatMatrix().subiColumnVector(createJBlasFloatMatrix(other)), false);
 	}
 
 	@Override
@@ -389,7 +587,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		if (other.getRows() != this.getRows()) {
 			throw new IllegalArgumentException("Rows do not match");
 		}
-		getMatrix().subi(createJBlasFloatMatrix(other));
+		elementwise(BinaryOperation.SUB, createJBlasFloatMatrix(other), getMatrix());
 		return this;
 	}
 
@@ -407,28 +605,56 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		if (other.getRows() != this.getRows()) {
 			throw new IllegalArgumentException("Rows do not match");
 		}
-		matrix.subiColumnVector(createJBlasFloatMatrix(other));
+		getMatrix().subiColumnVector(createJBlasFloatMatrix(other));
 		return this;
 	}
 
 	@Override
 	public float sum() {
-		return getMatrix().sum();
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			return getParallelKernels().sum(source.data, source.length);
+		}
+		return source.sum();
 	}
 
 	public float[][] toArray2() {
 		float[][] result = floatArrayFactory.createFloatArray(getRows(), getColumns());
-		for (int r = 0; r < getRows(); r++) {
-			for (int c = 0; c < getColumns(); c++) {
-				result[r][c] = get(r, c);
-			}
-		}
+		getParallelKernels().toRows(getMatrix().data, getRows(), getColumns(), result);
 		return result;
 	}
 
+	/**
+	 * Returns a view of the transpose of this matrix, sharing the data of this matrix. The transpose
+	 * is only copied into a buffer of its own when an operation requires it - multiplying by the
+	 * view, reading its values and transposing it again do not.
+	 * 
+	 * The view aliases this matrix: changes made to this matrix in place are visible through the view
+	 * until the view is copied, while changes made in place to the view apply to its own copy. Callers
+	 * which change this matrix in place while still needing its earlier transpose should take a dup()
+	 * of the transpose first.
+	 * 
+	 * If this matrix is closed while views of it still share its data, the data is released once the
+	 * last of the views has been copied or closed.
+	 */
 	@Override
 	public Matrix transpose() {
-		return createJBlasMatrix(getMatrix().transpose(), false);
+		FloatMatrix source = getMatrix();
+		transposedViews++;
+		return jblasRowMajorMatrixFactory.createTransposedJBlasMatrix(this, softDupFloatMatrix(source));
+	}
+
+	/**
+	 * Called by a transposed view of this matrix once it no longer shares the data of this matrix.
+	 */
+	protected void transposedViewReleased() {
+		transposedViews--;
+		if (transposedViews == 0 && releaseOnLastTransposedView != null) {
+			if (!dataShared) {
+				floatMatrixFactory.release(releaseOnLastTransposedView);
+			}
+			releaseOnLastTransposedView = null;
+		}
 	}
 
 	@Override
@@ -453,12 +679,17 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public Matrix dup() {
-		return createJBlasMatrix(getMatrix().dup(), false);
+		return createJBlasMatrix(dupFloatMatrix(), false);
 	}
 
 	@Override
 	public EditableMatrix expi() {
-		this.matrix = MatrixFunctions.expi(getMatrix());
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			getParallelKernels().exp(source.data, source.data, source.length);
+		} else {
+			this.matrix = MatrixFunctions.expi(source);
+		}
 		return this;
 	}
 
@@ -472,17 +703,28 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	}
 
 	public Matrix log() {
-		FloatMatrix result = MatrixFunctions.log(getMatrix());
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+			getParallelKernels().log(source.data, result.data, source.length);
+			return createJBlasMatrix(result, false);
+		}
+		FloatMatrix result = MatrixFunctions.logi(dupFloatMatrix());
 		return createJBlasMatrix(result, false);
 	}
 
 	public Matrix logi() {
-		this.matrix = MatrixFunctions.logi(getMatrix());
+		FloatMatrix source = getMatrix();
+		if (getParallelKernels().isParallel(source.length)) {
+			getParallelKernels().log(source.data, source.data, source.length);
+		} else {
+			this.matrix = MatrixFunctions.logi(source);
+		}
 		return this;
 	}
 
 	public Matrix pow(int value) {
-		FloatMatrix result = MatrixFunctions.pow(getMatrix(), value);
+		FloatMatrix result = MatrixFunctions.powi(dupFloatMatrix(), value);
 		return createJBlasMatrix(result, false);
 	}
 
@@ -493,29 +735,110 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public Matrix sigmoid() {
-		FloatMatrix result = MatrixFunctions
-				.expi(getMatrix().muli(-1, floatMatrixFactory.create(getColumns(), getRows())));
-		result.addi(1);
-		MatrixFunctions.powi(result, -1);
+		return activation(ActivationKernel.SIGMOID);
+	}
+
+	private Matrix activation(ActivationKernel kernel) {
+		FloatMatrix source = getMatrix();
+		FloatMatrix result = floatMatrixFactory.create(source.getRows(), source.getColumns());
+		getParallelKernels().activation(kernel, source.data, result.data, source.length);
 		return createJBlasMatrix(result, false);
 	}
 
+	private EditableMatrix activationi(ActivationKernel kernel) {
+		FloatMatrix source = getMatrix();
+		getParallelKernels().activation(kernel, source.data, source.data, source.length);
+		return this;
+	}
+
+	@Override
+	public EditableMatrix sigmoidi() {
+		return activationi(ActivationKernel.SIGMOID);
+	}
+
+	@Override
+	public Matrix sigmoidGradient() {
+		return activation(ActivationKernel.SIGMOID_GRADIENT);
+	}
+
+	@Override
+	public EditableMatrix sigmoidGradienti() {
+		return activationi(ActivationKernel.SIGMOID_GRADIENT);
+	}
+
+	@Override
+	public Matrix tanh() {
+		return activation(ActivationKernel.TANH);
+	}
+
+	@Override
+	public EditableMatrix tanhi() {
+		return activationi(ActivationKernel.TANH);
+	}
+
+	@Override
+	public Matrix tanhGradient() {
+		return activation(ActivationKernel.TANH_GRADIENT);
+	}
+
+	@Override
+	public EditableMatrix tanhGradienti() {
+		return activationi(ActivationKernel.TANH_GRADIENT);
+	}
+
+	@Override
+	public Matrix relu() {
+		return activation(ActivationKernel.RELU);
+	}
+
+	@Override
+	public EditableMatrix relui() {
+		return activationi(ActivationKernel.RELU);
+	}
+
+	@Override
+	public Matrix reluGradient() {
+		return activation(ActivationKernel.RELU_GRADIENT);
+	}
+
+	@Override
+	public EditableMatrix reluGradienti() {
+		return activationi(ActivationKernel.RELU_GRADIENT);
+	}
+
+	@Override
+	public Matrix softmaxColumns() {
+		FloatMatrix source = getMatrix();
+		FloatMatrix result = floatMatrixFactory.create(source.getRows(), source.getColumns());
+		getParallelKernels().softmaxColumns(source.data, result.data, getRows(), getColumns());
+		return createJBlasMatrix(result, false);
+	}
+
+	@Override
+	public EditableMatrix softmaxColumnsi() {
+		FloatMatrix source = getMatrix();
+		getParallelKernels().softmaxColumns(source.data, source.data, getRows(), getColumns());
+		return this;
+	}
+
 	public float[] toColumnByColumnArray() {
 		float[] result = floatArrayFactory.createFloatArray(getRows() * getColumns());
-		int index = 0;
-		for (int c = 0; c < getColumns(); c++) {
-			for (int r = 0; r < getRows(); r++) {
-				result[index] = get(r, c);
-				index++;
-			}
-		}
+		getParallelKernels().transpose(getMatrix().data, getRows(), getColumns(), result);
 		return result;
 	}
 
 	@Override
 	public void close() {
 		if (this.matrix != null) {
+			if (!dataShared) {
+				if (transposedViews > 0) {
+					releaseOnLastTransposedView = matrix;
+				} else {
+					floatMatrixFactory.release(matrix);
+				}
+			}
 			this.matrix = null;
+			jblasRowMajorMatrixFactory.closed(this);
 		}
 	}
 
@@ -529,7 +852,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		return getMatrix().toArray();
 	}
 
-	private FloatMatrix getMatrix() {
+	protected FloatMatrix getMatrix() {
 		if (matrix == null) {
 			throw new IllegalStateException("Matrix has been clased");
 		}
@@ -537,8 +860,18 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		return matrix;
 	}
 
+	@Override
+	public void getRowByRowValues(int start, int end, float[] target, int targetIndex) {
+		if (start < 0 || end > getLength() || start > end) {
+			throw new IllegalArgumentException("Invalid range " + start + " to " + end + " for " + getLength() + " values");
+		}
+		// Read in place, as the data is not referenced once this returns, so need not be marked shared
+		System.arraycopy(getMatrix().data, start, target, targetIndex, end - start);
+	}
+
 	@Override
 	public float[] getRowByRowArray() {
+		markDataShared();
 		return getMatrix().data;
 	}
 
@@ -547,6 +880,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	}
 
 	public float[] getData() {
+		markDataShared();
 		return getMatrix().data;
 	}
 
@@ -571,7 +905,8 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public Matrix softDup() {
-		return createJBlasMatrix(softDupFloatMatrix(getMatrix()), false);
+		markDataShared();
+		return createSharedJBlasMatrix(softDupFloatMatrix(getMatrix()), false);
 	}
 
 	public FloatMatrix softDupFloatMatrix(FloatMatrix matrix) {
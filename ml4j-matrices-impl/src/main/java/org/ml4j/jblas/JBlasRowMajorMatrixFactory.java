@@ -16,17 +16,25 @@ package org.ml4j.jblas;
 
 import org.jblas.FloatMatrix;
 import org.ml4j.Matrix;
-import org.ml4j.MatrixFactory;
 import org.ml4j.floatarray.DefaultFloatArrayFactory;
 import org.ml4j.floatarray.FloatArrayFactory;
+import org.ml4j.floatarray.FloatArrayPool;
+import org.ml4j.floatarray.PooledFloatArrayFactory;
 import org.ml4j.floatmatrix.FloatMatrixFactory;
+import org.ml4j.floatmatrix.PooledFloatMatrixFactory;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.kernels.ParallelMatrixFactory;
+import org.ml4j.random.ParallelRandom;
+import org.ml4j.random.RandomMatrixFactory;
+import org.ml4j.tracking.MatrixAllocationListener;
+import org.ml4j.tracking.TrackableMatrixFactory;
 
 /**
  * Default JBlas MatrixFactory.
  * 
  * @author Michael Lavelle
  */
-public class JBlasRowMajorMatrixFactory implements MatrixFactory {
+public class JBlasRowMajorMatrixFactory implements TrackableMatrixFactory, RandomMatrixFactory, ParallelMatrixFactory {
 
 	/**
 	 * Default serialization id.
@@ -36,30 +44,100 @@ public class JBlasRowMajorMatrixFactory implements MatrixFactory {
 	protected FloatMatrixFactory floatMatrixFactory;
 	protected FloatArrayFactory floatArrayFactory;
 
+	protected ParallelKernels parallelKernels;
+
+	private ParallelRandom parallelRandom = new ParallelRandom();
+
+	private transient MatrixAllocationListener matrixAllocationListener;
+
 	public JBlasRowMajorMatrixFactory() {
-		this.floatMatrixFactory = new DefaultFloatMatrixFactory();
-		this.floatArrayFactory = new DefaultFloatArrayFactory();
+		this(new DefaultFloatMatrixFactory(), new DefaultFloatArrayFactory());
+	}
+
+	public JBlasRowMajorMatrixFactory(FloatMatrixFactory floatMatrixFactory, FloatArrayFactory floatArrayFactory) {
+		this(floatMatrixFactory, floatArrayFactory, new ParallelKernels());
+	}
+
+	/**
+	 * @param floatMatrixFactory The factory of the FloatMatrix of each matrix.
+	 * @param floatArrayFactory  The factory of the arrays returned by matrices.
+	 * @param parallelKernels    The kernels to which elementwise operations, activations and
+	 *                           reductions on large matrices are delegated, striped across threads.
+	 */
+	public JBlasRowMajorMatrixFactory(FloatMatrixFactory floatMatrixFactory, FloatArrayFactory floatArrayFactory,
+			ParallelKernels parallelKernels) {
+		this.floatMatrixFactory = floatMatrixFactory;
+		this.floatArrayFactory = floatArrayFactory;
+		this.parallelKernels = parallelKernels;
+	}
+
+	/**
+	 * Creates a JBlasRowMajorMatrixFactory whose matrices obtain their data from the given pool, and
+	 * return it to the pool when closed.
+	 * 
+	 * @param floatArrayPool The pool shared by the FloatMatrixFactory and FloatArrayFactory.
+	 */
+	public JBlasRowMajorMatrixFactory(FloatArrayPool floatArrayPool) {
+		this(new PooledFloatMatrixFactory(floatArrayPool), new PooledFloatArrayFactory(floatArrayPool));
+	}
+
+	@Override
+	public ParallelKernels getParallelKernels() {
+		return parallelKernels;
+	}
+
+	@Override
+	public ParallelRandom getParallelRandom() {
+		return parallelRandom;
+	}
+
+	@Override
+	public void setParallelRandom(ParallelRandom parallelRandom) {
+		this.parallelRandom = parallelRandom;
+	}
+
+	/**
+	 * Notifies the allocation listener, if any, of a matrix whose data has been allocated.
+	 * 
+	 * @param matrix The matrix.
+	 * @param length The length of the data allocated.
+	 */
+	protected void allocated(Matrix matrix, int length) {
+		MatrixAllocationListener listener = matrixAllocationListener;
+		if (listener != null) {
+			listener.onAllocation(matrix, length * (long) Float.BYTES);
+		}
+	}
+
+	protected void closed(Matrix matrix) {
+		MatrixAllocationListener listener = matrixAllocationListener;
+		if (listener != null) {
+			listener.onClose(matrix);
+		}
+	}
+
+	@Override
+	public void setMatrixAllocationListener(MatrixAllocationListener matrixAllocationListener) {
+		this.matrixAllocationListener = matrixAllocationListener;
 	}
 
 	@Override
 	public Matrix createOnes(int rows, int columns) {
-		return createJBlasMatrix(FloatMatrix.ones(columns, rows), false);
+		return createJBlasMatrix(floatMatrixFactory.create(columns, rows).fill(1f), false);
 	}
 
 	@Override
 	public Matrix createOnes(int length) {
-		return createJBlasMatrix(FloatMatrix.ones(length), false);
+		return createJBlasMatrix(floatMatrixFactory.create(length, 1).fill(1f), false);
 	}
 
 	@Override
 	public Matrix createMatrixFromRows(float[][] data) {
-		float[][] translatedData = floatArrayFactory.createFloatArray(data[0].length, data.length);
-		for (int i = 0; i < data.length; i++) {
-			for (int j = 0; j < data[0].length; j++) {
-				translatedData[j][i] = data[i][j];
-			}
-		}
-		return createJBlasMatrix(floatMatrixFactory.create(translatedData), false);
+		int rows = data.length;
+		int columns = rows == 0 ? 0 : data[0].length;
+		FloatMatrix matrix = floatMatrixFactory.create(columns, rows);
+		parallelKernels.fromRows(data, rows, columns, matrix.data);
+		return createJBlasMatrix(matrix, false);
 	}
 
 	@Override
@@ -69,16 +147,10 @@ public class JBlasRowMajorMatrixFactory implements MatrixFactory {
 
 	@Override
 	public Matrix createMatrixFromColumnsByColumnsArray(int rows, int cols, float[] data) {
-
-		float[] targetData = floatArrayFactory.createFloatArray(rows * cols);
-		for (int c = 0; c < cols; c++) {
-			for (int r = 0; r < rows; r++) {
-				int sourceDataIndex = r * cols + c;
-				int targetDataIndex = c * rows + r;
-				targetData[sourceDataIndex] = data[targetDataIndex];
-			}
-		}
-		return createJBlasMatrix(new FloatMatrix(cols, rows, targetData), false);
+		FloatMatrix matrix = floatMatrixFactory.create(cols, rows);
+		// The column-by-column data is the row-major data of the transpose
+		parallelKernels.transpose(data, cols, rows, matrix.data);
+		return createJBlasMatrix(matrix, false);
 	}
 
 	@Override
@@ -93,7 +165,9 @@ public class JBlasRowMajorMatrixFactory implements MatrixFactory {
 
 	@Override
 	public Matrix createRandn(int rows, int cols) {
-		return createJBlasMatrix(FloatMatrix.randn(cols, rows), false);
+		FloatMatrix matrix = floatMatrixFactory.create(cols, rows);
+		parallelRandom.gaussian(matrix.data, matrix.length);
+		return createJBlasMatrix(matrix, false);
 	}
 
 	@Override
@@ -103,7 +177,28 @@ public class JBlasRowMajorMatrixFactory implements MatrixFactory {
 
 	@Override
 	public Matrix createRand(int rows, int cols) {
-		return createJBlasMatrix(FloatMatrix.rand(cols, rows), false);
+		FloatMatrix matrix = floatMatrixFactory.create(cols, rows);
+		parallelRandom.uniform(matrix.data, matrix.length);
+		return createJBlasMatrix(matrix, false);
+	}
+
+	@Override
+	public Matrix createBernoulliMask(int rows, int columns, float probability) {
+		FloatMatrix matrix = floatMatrixFactory.create(columns, rows);
+		parallelRandom.bernoulli(matrix.data, matrix.length, probability);
+		return createJBlasMatrix(matrix, false);
+	}
+
+	@Override
+	public Matrix createBernoulliSample(Matrix probabilities) {
+		FloatMatrix matrix = floatMatrixFactory.create(probabilities.getColumns(), probabilities.getRows());
+		// Read the probabilities of a JBlas matrix in place, as getRowByRowArray() would mark its data
+		// shared and stop it being returned to the pool when closed
+		float[] values = probabilities instanceof JBlasRowMajorMatrix
+				? ((JBlasRowMajorMatrix) probabilities).getMatrix().data
+				: probabilities.getRowByRowArray();
+		parallelRandom.bernoulli(values, matrix.data, matrix.length);
+		return createJBlasMatrix(matrix, false);
 	}
 
 	@Override
@@ -112,17 +207,40 @@ public class JBlasRowMajorMatrixFactory implements MatrixFactory {
 	}
 	
 	protected Matrix createJBlasMatrix(FloatMatrix matrix, boolean immutable) {
-		return new JBlasRowMajorMatrix(this, floatMatrixFactory, floatArrayFactory, matrix, immutable);
+		Matrix jblasMatrix = new JBlasRowMajorMatrix(this, floatMatrixFactory, floatArrayFactory, matrix, immutable);
+		allocated(jblasMatrix, matrix.length);
+		return jblasMatrix;
+	}
+
+	/**
+	 * @param source The JBlasRowMajorMatrix to transpose.
+	 * @param matrix The FloatMatrix of the JBlasRowMajorMatrix.
+	 * @return A view of the transpose of the JBlasRowMajorMatrix, sharing its data.
+	 */
+	protected Matrix createTransposedJBlasMatrix(JBlasRowMajorMatrix source, FloatMatrix matrix) {
+		return new JBlasTransposedRowMajorMatrix(this, floatMatrixFactory, floatArrayFactory, source, matrix);
+	}
+
+	/**
+	 * Create a matrix whose data is also referenced elsewhere, so must not be released for reuse
+	 * when the matrix is closed.
+	 */
+	protected Matrix createSharedJBlasMatrix(FloatMatrix matrix, boolean immutable) {
+		Matrix jblasMatrix = createJBlasMatrix(matrix, immutable);
+		if (jblasMatrix instanceof JBlasRowMajorMatrix) {
+			((JBlasRowMajorMatrix) jblasMatrix).markDataShared();
+		}
+		return jblasMatrix;
 	}
 
 	@Override
 	public Matrix createMatrixFromRowsByRowsArray(int rows, int cols, float[] data) {
-		return createJBlasMatrix(new FloatMatrix(cols, rows, data), false);
+		return createSharedJBlasMatrix(new FloatMatrix(cols, rows, data), false);
 	}
 
 	@Override
 	public Matrix createMatrix(float[] data) {
-		return createJBlasMatrix(new FloatMatrix(data), false);
+		return createSharedJBlasMatrix(new FloatMatrix(data), false);
 
 	}
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.jblas;
+
+import org.jblas.FloatMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.floatarray.FloatArrayFactory;
+import org.ml4j.floatmatrix.FloatMatrixFactory;
+
+/**
+ * A view of the transpose of a JBlasRowMajorMatrix, sharing its data.
+ * 
+ * The FloatMatrix of a JBlasRowMajorMatrix holds the transpose of the matrix in column-major order,
+ * so the same FloatMatrix read in column-major order is this view. Operations which can work with
+ * that layout - mmul, element access, transpose and toColumnByColumnArray - use it directly, and any
+ * other operation first copies the transpose into a FloatMatrix of this matrix's own.
+ * 
+ * Until it is copied, this view aliases the matrix it transposes, so changes made in place to that
+ * matrix are visible through it.
+ * 
+ * @author Michael Lavelle
+ */
+public class JBlasTransposedRowMajorMatrix extends JBlasRowMajorMatrix {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The FloatMatrix of the matrix this matrix is the transpose of, until this matrix is copied.
+	 */
+	private FloatMatrix transposedMatrix;
+
+	/**
+	 * The matrix this matrix is the transpose of, until this matrix is copied or closed.
+	 */
+	private JBlasRowMajorMatrix source;
+
+	public JBlasTransposedRowMajorMatrix(JBlasRowMajorMatrixFactory jblasRowMajorMatrixFactory,
+			FloatMatrixFactory floatMatrixFactory, FloatArrayFactory floatArrayFactory, JBlasRowMajorMatrix source,
+			FloatMatrix transposedMatrix) {
+		super(jblasRowMajorMatrixFactory, floatMatrixFactory, floatArrayFactory, null, false);
+		this.source = source;
+		this.transposedMatrix = transposedMatrix;
+	}
+
+	/**
+	 * @return Whether this matrix is still a view of the data of the matrix it transposes.
+	 */
+	protected boolean isTransposedView() {
+		return matrix == null && transposedMatrix != null;
+	}
+
+	/**
+	 * @return The row-major data of the matrix this matrix transposes, which is the column-major data
+	 *         of this matrix.
+	 */
+	protected float[] getTransposedData() {
+		return transposedMatrix.data;
+	}
+
+	@Override
+	protected FloatMatrix getMatrix() {
+		if (matrix == null && transposedMatrix != null) {
+			this.matrix = copyTranspose();
+			releaseTransposedMatrix();
+			jblasRowMajorMatrixFactory.allocated(this, matrix.length);
+		}
+		return super.getMatrix();
+	}
+
+	private void releaseTransposedMatrix() {
+		this.transposedMatrix = null;
+		if (source != null) {
+			source.transposedViewReleased();
+			this.source = null;
+		}
+	}
+
+	private FloatMatrix copyTranspose() {
+		FloatMatrix copy = floatMatrixFactory.create(getColumns(), getRows());
+		// The data of the transposed matrix is row-major with getColumns() rows
+		getParallelKernels().transpose(transposedMatrix.data, getColumns(), getRows(), copy.data);
+		return copy;
+	}
+
+	@Override
+	public int getRows() {
+		return isTransposedView() ? transposedMatrix.getRows() : super.getRows();
+	}
+
+	@Override
+	public int getColumns() {
+		return isTransposedView() ? transposedMatrix.getColumns() : super.getColumns();
+	}
+
+	@Override
+	public int getLength() {
+		return isTransposedView() ? transposedMatrix.getLength() : super.getLength();
+	}
+
+	@Override
+	public float get(int row, int column) {
+		return isTransposedView() ? transposedMatrix.get(row, column) : super.get(row, column);
+	}
+
+	@Override
+	public float get(int index) {
+		if (isTransposedView()) {
+			int columns = getColumns();
+			return transposedMatrix.get(index / columns, index % columns);
+		}
+		return super.get(index);
+	}
+
+	@Override
+	public void getRowByRowValues(int start, int end, float[] target, int targetIndex) {
+		if (isTransposedView()) {
+			if (start < 0 || end > getLength() || start > end) {
+				throw new IllegalArgumentException(
+						"Invalid range " + start + " to " + end + " for " + getLength() + " values");
+			}
+			int columns = getColumns();
+			for (int i = start; i < end; i++) {
+				target[targetIndex + i - start] = transposedMatrix.get(i / columns, i % columns);
+			}
+		} else {
+			super.getRowByRowValues(start, end, target, targetIndex);
+		}
+	}
+
+	@Override
+	public Matrix transpose() {
+		if (isTransposedView()) {
+			// The result shares the data of the source for good, so it must never be released
+			source.markDataShared();
+			return createSharedJBlasMatrix(softDupFloatMatrix(transposedMatrix), false);
+		}
+		return super.transpose();
+	}
+
+	@Override
+	public Matrix dup() {
+		if (isTransposedView()) {
+			return createJBlasMatrix(copyTranspose(), false);
+		}
+		return super.dup();
+	}
+
+	@Override
+	public float[] toColumnByColumnArray() {
+		if (isTransposedView()) {
+			float[] result = floatArrayFactory.createFloatArray(getLength());
+			System.arraycopy(transposedMatrix.data, 0, result, 0, result.length);
+			return result;
+		}
+		return super.toColumnByColumnArray();
+	}
+
+	@Override
+	public void close() {
+		releaseTransposedMatrix();
+		super.close();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return transposedMatrix == null && super.isClosed();
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+/**
+ * Elementwise activation functions, and their gradients, applied in a single pass.
+ * 
+ * The gradients are expressed in terms of the outputs of the activation function, as available
+ * during back propagation.
+ * 
+ * @author Michael Lavelle
+ */
+public enum ActivationKernel {
+
+	SIGMOID, TANH, RELU, SIGMOID_GRADIENT, TANH_GRADIENT, RELU_GRADIENT;
+
+	/**
+	 * @param value The value.
+	 * @return The result of applying this function to the value.
+	 */
+	public float apply(float value) {
+		switch (this) {
+		case SIGMOID:
+			return (float) (1d / (1d + Math.exp(-value)));
+		case TANH:
+			return (float) Math.tanh(value);
+		case RELU:
+			return value > 0 ? value : 0f;
+		case SIGMOID_GRADIENT:
+			return value * (1f - value);
+		case TANH_GRADIENT:
+			return 1f - value * value;
+		case RELU_GRADIENT:
+			return value > 0 ? 1f : 0f;
+		default:
+			throw new IllegalArgumentException("Unsupported activation:" + this);
+		}
+	}
+
+	/**
+	 * Applies this function to a range of values, which may be performed in place by passing the
+	 * same array as values and result.
+	 * 
+	 * @param values The values.
+	 * @param result The array into which the results are written.
+	 * @param start  The index of the first value, and of the first result.
+	 * @param end    The index after the last value.
+	 */
+	public void apply(float[] values, float[] result, int start, int end) {
+		switch (this) {
+		case SIGMOID:
+			for (int i = start; i < end; i++) {
+				result[i] = (float) (1d / (1d + Math.exp(-values[i])));
+			}
+			break;
+		case TANH:
+			for (int i = start; i < end; i++) {
+				result[i] = (float) Math.tanh(values[i]);
+			}
+			break;
+		case RELU:
+			for (int i = start; i < end; i++) {
+				// As apply(float), mapping NaN to zero
+				result[i] = values[i] > 0 ? values[i] : 0f;
+			}
+			break;
+		case SIGMOID_GRADIENT:
+			for (int i = start; i < end; i++) {
+				result[i] = values[i] * (1f - values[i]);
+			}
+			break;
+		case TANH_GRADIENT:
+			for (int i = start; i < end; i++) {
+				result[i] = 1f - values[i] * values[i];
+			}
+			break;
+		case RELU_GRADIENT:
+			for (int i = start; i < end; i++) {
+				result[i] = values[i] > 0 ? 1f : 0f;
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported activation:" + this);
+		}
+	}
+
+	/**
+	 * Applies the softmax function to each column of a row-major matrix, which may be performed in
+	 * place by passing the same array as values and result.
+	 * 
+	 * The maximum of each column is subtracted before exponentiating so that large values do not
+	 * overflow. The maximum and the sum of the exponentials are accumulated together in a single
+	 * pass, rescaling the sum whenever the maximum increases, followed by a second pass normalising
+	 * the column. No memory is allocated.
+	 * 
+	 * @param values  The values.
+	 * @param result  The array into which the results are written.
+	 * @param rows    The number of rows.
+	 * @param columns The number of columns.
+	 */
+	public static void softmaxColumns(float[] values, float[] result, int rows, int columns) {
+		softmaxColumns(values, result, rows, columns, 0, columns);
+	}
+
+	/**
+	 * As softmaxColumns, for the columns from columnStart (inclusive) to columnEnd (exclusive).
+	 */
+	public static void softmaxColumns(float[] values, float[] result, int rows, int columns, int columnStart,
+			int columnEnd) {
+		for (int c = columnStart; c < columnEnd; c++) {
+			float max = Float.NEGATIVE_INFINITY;
+			double sum = 0;
+			for (int index = c; index < rows * columns; index += columns) {
+				float value = values[index];
+				if (value > max) {
+					sum = sum * Math.exp(max - value) + 1d;
+					max = value;
+				} else {
+					sum += Math.exp(value - max);
+				}
+			}
+			for (int index = c; index < rows * columns; index += columns) {
+				result[index] = (float) (Math.exp(values[index] - max) / sum);
+			}
+		}
+	}
+}
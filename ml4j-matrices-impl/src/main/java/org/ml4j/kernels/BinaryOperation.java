@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+/**
+ * The binary arithmetic operations applied by matrices elementwise, by scalar and by vector.
+ * 
+ * @author Michael Lavelle
+ */
+public enum BinaryOperation {
+
+	ADD, SUB, MUL, DIV;
+
+	public float apply(float first, float second) {
+		switch (this) {
+		case ADD:
+			return first + second;
+		case SUB:
+			return first - second;
+		case MUL:
+			return first * second;
+		default:
+			return first / second;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Computes the convolution of an input with filters, with the result of multiplying the weights by
+ * the im2col matrix of the input.
+ * 
+ * The input is laid out as by the image containers - channel by channel, each channel in row-major
+ * order, with the examples of each position adjacent. The filters are the rows of a weights matrix
+ * whose columns are in im2col row order - (channel, filter row, filter column).
+ * 
+ * @author Michael Lavelle
+ */
+@FunctionalInterface
+public interface ConvolutionAlgorithm {
+
+	/**
+	 * The direct convolution, which computes the output straight from the input.
+	 */
+	ConvolutionAlgorithm DIRECT = DirectConvolution::convolve;
+
+	/**
+	 * @param matrixFactory The factory of the output.
+	 * @param weights       The filters, a row per filter and a column per (channel, filter row, filter
+	 *                      column).
+	 * @param input         The input values.
+	 * @param examples      The number of examples.
+	 * @param geometry      The shape of the convolution.
+	 * @return The output, a row per filter and a column per (output position, example).
+	 */
+	Matrix convolve(MatrixFactory matrixFactory, Matrix weights, float[] input, int examples,
+			ConvolutionGeometry geometry);
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.io.Serializable;
+
+/**
+ * The shape of a two dimensional convolution over images stored channel by channel, each channel
+ * in row-major order.
+ * 
+ * @author Michael Lavelle
+ */
+public class ConvolutionGeometry implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private int inputDepth;
+	private int inputHeight;
+	private int inputWidth;
+	private int filterHeight;
+	private int filterWidth;
+	private int strideHeight;
+	private int strideWidth;
+	private int paddingHeight;
+	private int paddingWidth;
+	private int outputHeight;
+	private int outputWidth;
+
+	/**
+	 * @param inputDepth    The number of input channels.
+	 * @param inputHeight   The height of each input channel.
+	 * @param inputWidth    The width of each input channel.
+	 * @param filterHeight  The height of the filters.
+	 * @param filterWidth   The width of the filters.
+	 * @param strideHeight  The vertical stride.
+	 * @param strideWidth   The horizontal stride.
+	 * @param paddingHeight The number of rows of zeros above and below each input channel.
+	 * @param paddingWidth  The number of columns of zeros either side of each input channel.
+	 */
+	public ConvolutionGeometry(int inputDepth, int inputHeight, int inputWidth, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int paddingHeight, int paddingWidth) {
+		if (filterHeight < 1 || filterWidth < 1 || strideHeight < 1 || strideWidth < 1) {
+			throw new IllegalArgumentException("Filter sizes and strides must be positive");
+		}
+		if (paddingHeight < 0 || paddingWidth < 0) {
+			throw new IllegalArgumentException("Padding must not be negative");
+		}
+		this.inputDepth = inputDepth;
+		this.inputHeight = inputHeight;
+		this.inputWidth = inputWidth;
+		this.filterHeight = filterHeight;
+		this.filterWidth = filterWidth;
+		this.strideHeight = strideHeight;
+		this.strideWidth = strideWidth;
+		this.paddingHeight = paddingHeight;
+		this.paddingWidth = paddingWidth;
+		this.outputHeight = (inputHeight + 2 * paddingHeight - filterHeight) / strideHeight + 1;
+		this.outputWidth = (inputWidth + 2 * paddingWidth - filterWidth) / strideWidth + 1;
+		if (outputHeight <= 0 || outputWidth <= 0) {
+			throw new IllegalArgumentException("Filter does not fit within the padded input");
+		}
+	}
+
+	public int getInputDepth() {
+		return inputDepth;
+	}
+
+	public int getInputHeight() {
+		return inputHeight;
+	}
+
+	public int getInputWidth() {
+		return inputWidth;
+	}
+
+	public int getFilterHeight() {
+		return filterHeight;
+	}
+
+	public int getFilterWidth() {
+		return filterWidth;
+	}
+
+	public int getStrideHeight() {
+		return strideHeight;
+	}
+
+	public int getStrideWidth() {
+		return strideWidth;
+	}
+
+	public int getPaddingHeight() {
+		return paddingHeight;
+	}
+
+	public int getPaddingWidth() {
+		return paddingWidth;
+	}
+
+	public int getOutputHeight() {
+		return outputHeight;
+	}
+
+	public int getOutputWidth() {
+		return outputWidth;
+	}
+
+	/**
+	 * @return The number of values in each input channel.
+	 */
+	public int getInputChannelSize() {
+		return inputHeight * inputWidth;
+	}
+
+	/**
+	 * @return The number of values in each output channel.
+	 */
+	public int getOutputChannelSize() {
+		return outputHeight * outputWidth;
+	}
+
+	/**
+	 * @return The number of input values under a filter - the number of rows of the im2col matrix.
+	 */
+	public int getPatchSize() {
+		return inputDepth * filterHeight * filterWidth;
+	}
+
+	/**
+	 * @return Whether this is a 1x1 convolution with unit stride and no padding, for which the input is
+	 *         its own im2col matrix.
+	 */
+	public boolean isPointwise() {
+		return filterHeight == 1 && filterWidth == 1 && strideHeight == 1 && strideWidth == 1
+				&& paddingHeight == 0 && paddingWidth == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "ConvolutionGeometry [input=" + inputDepth + "x" + inputHeight + "x" + inputWidth + ", filter="
+				+ filterHeight + "x" + filterWidth + ", stride=" + strideHeight + "x" + strideWidth + ", padding="
+				+ paddingHeight + "x" + paddingWidth + "]";
+	}
+}
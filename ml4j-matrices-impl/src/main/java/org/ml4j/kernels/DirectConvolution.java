@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Convolves images straight from their data, without materialising the im2col matrix, which for
+ * 3x3 filters is nine times the size of the input.
+ * 
+ * The input is laid out as by the image containers and by Int8Kernels.im2col - channel by channel,
+ * each channel in row-major order, with the examples of each position adjacent. The filters are the
+ * rows of a weights matrix whose columns are in im2col row order - (channel, filter row, filter
+ * column) - and the output has a row per filter and a column per (output position, example), so the
+ * result is that of multiplying the weights by the im2col matrix of the input.
+ * 
+ * 1x1 convolutions with unit stride and no padding are a single matrix multiplication of the weights
+ * by the input itself. Other convolutions accumulate the product of each filter value with the rows
+ * of the input it is applied to into tiles of the output small enough to remain in cache.
+ * 
+ * @author Michael Lavelle
+ */
+public final class DirectConvolution {
+
+	/**
+	 * The number of output values of each filter accumulated into at a time.
+	 */
+	private static final int OUTPUT_TILE_LENGTH = 4096;
+
+	/**
+	 * The number of filters whose outputs are accumulated together, sharing each load of the input.
+	 */
+	private static final int FILTER_BLOCK_SIZE = 4;
+
+	private DirectConvolution() {
+	}
+
+	/**
+	 * @param matrixFactory The factory of the output, whose ParallelKernels divide the filters
+	 *                      between threads where it is a ParallelMatrixFactory.
+	 * @param weights       The filters, a row per filter and a column per (channel, filter row, filter
+	 *                      column).
+	 * @param input         The input values.
+	 * @param examples      The number of examples.
+	 * @param geometry      The shape of the convolution.
+	 * @return The output, a row per filter and a column per (output position, example).
+	 */
+	public static Matrix convolve(MatrixFactory matrixFactory, Matrix weights, float[] input, int examples,
+			ConvolutionGeometry geometry) {
+		if (weights.getColumns() != geometry.getPatchSize()) {
+			throw new IllegalArgumentException("Columns of weights do not match the patch size of " + geometry);
+		}
+		int columns = geometry.getOutputChannelSize() * examples;
+		if (geometry.isPointwise()) {
+			// The input is its own im2col matrix
+			Matrix inputMatrix = matrixFactory.createMatrixFromRowsByRowsArray(geometry.getInputDepth(), columns,
+					input);
+			return weights.mmul(inputMatrix);
+		}
+		int filters = weights.getRows();
+		float[] weightValues = weights.getRowByRowArray();
+		float[] output = new float[filters * columns];
+		ParallelKernels parallelKernels = matrixFactory instanceof ParallelMatrixFactory
+				? ((ParallelMatrixFactory) matrixFactory).getParallelKernels()
+				: null;
+		if (parallelKernels != null && parallelKernels.isParallel(output.length)) {
+			// Each block of filters accumulates into its own rows of the output
+			List<Runnable> tasks = new ArrayList<>();
+			for (int blockStart = 0; blockStart < filters; blockStart += FILTER_BLOCK_SIZE) {
+				int start = blockStart;
+				int end = Math.min(blockStart + FILTER_BLOCK_SIZE, filters);
+				tasks.add(() -> convolve(weightValues, input, examples, geometry, output, start, end));
+			}
+			parallelKernels.run(tasks, output.length);
+		} else {
+			convolve(weightValues, input, examples, geometry, output, 0, filters);
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(filters, columns, output);
+	}
+
+	/**
+	 * Computes the rows of the output for the filters from filterStart to filterEnd.
+	 * 
+	 * @param weights     The row-major filters, a row per filter and a column per (channel, filter
+	 *                    row, filter column).
+	 * @param input       The input values.
+	 * @param examples    The number of examples.
+	 * @param geometry    The shape of the convolution.
+	 * @param output      The row-major output, a row per filter and a column per (output position,
+	 *                    example), whose rows for the filters are overwritten.
+	 * @param filterStart The first filter.
+	 * @param filterEnd   The filter after the last.
+	 */
+	public static void convolve(float[] weights, float[] input, int examples, ConvolutionGeometry geometry,
+			float[] output, int filterStart, int filterEnd) {
+		int channels = geometry.getInputDepth();
+		int inputHeight = geometry.getInputHeight();
+		int inputWidth = geometry.getInputWidth();
+		int filterHeight = geometry.getFilterHeight();
+		int filterWidth = geometry.getFilterWidth();
+		int strideHeight = geometry.getStrideHeight();
+		int strideWidth = geometry.getStrideWidth();
+		int paddingHeight = geometry.getPaddingHeight();
+		int paddingWidth = geometry.getPaddingWidth();
+		int outputHeight = geometry.getOutputHeight();
+		int outputWidth = geometry.getOutputWidth();
+		int patchSize = geometry.getPatchSize();
+		int outputRowLength = outputWidth * examples;
+		int outputChannelLength = outputHeight * outputRowLength;
+		int tileRows = Math.max(1, OUTPUT_TILE_LENGTH / outputRowLength);
+		for (int blockStart = filterStart; blockStart < filterEnd; blockStart += FILTER_BLOCK_SIZE) {
+			int blockSize = Math.min(FILTER_BLOCK_SIZE, filterEnd - blockStart);
+			int outputStart = blockStart * outputChannelLength;
+			Arrays.fill(output, outputStart, outputStart + blockSize * outputChannelLength, 0f);
+			float[] blockWeights = new float[FILTER_BLOCK_SIZE];
+			for (int tileStart = 0; tileStart < outputHeight; tileStart += tileRows) {
+				int tileEnd = Math.min(tileStart + tileRows, outputHeight);
+				int patchIndex = 0;
+				for (int channel = 0; channel < channels; channel++) {
+					int channelStart = channel * inputHeight * inputWidth * examples;
+					for (int filterY = 0; filterY < filterHeight; filterY++) {
+						for (int filterX = 0; filterX < filterWidth; filterX++) {
+							for (int i = 0; i < blockSize; i++) {
+								blockWeights[i] = weights[(blockStart + i) * patchSize + patchIndex];
+							}
+							patchIndex++;
+							// The output columns whose input column lies within the unpadded input
+							int outputXStart = Math.max(0,
+									Math.floorDiv(paddingWidth - filterX + strideWidth - 1, strideWidth));
+							int outputXEnd = Math.min(outputWidth,
+									Math.floorDiv(inputWidth - 1 + paddingWidth - filterX, strideWidth) + 1);
+							if (outputXStart >= outputXEnd) {
+								continue;
+							}
+							for (int outputY = tileStart; outputY < tileEnd; outputY++) {
+								int y = outputY * strideHeight - paddingHeight + filterY;
+								if (y < 0 || y >= inputHeight) {
+									continue;
+								}
+								int inputRowStart = channelStart + y * inputWidth * examples;
+								int outputRowStart = outputStart + outputY * outputRowLength;
+								if (strideWidth == 1) {
+									int x = outputXStart - paddingWidth + filterX;
+									axpy(blockWeights, blockSize, input, inputRowStart + x * examples, output,
+											outputRowStart + outputXStart * examples, outputChannelLength,
+											(outputXEnd - outputXStart) * examples);
+								} else {
+									for (int outputX = outputXStart; outputX < outputXEnd; outputX++) {
+										int x = outputX * strideWidth - paddingWidth + filterX;
+										axpy(blockWeights, blockSize, input, inputRowStart + x * examples, output,
+												outputRowStart + outputX * examples, outputChannelLength, examples);
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Accumulates the products of a run of input values with the weights of a block of filters into
+	 * the corresponding runs of the output of each filter, loading each input value once for the block.
+	 */
+	private static void axpy(float[] blockWeights, int blockSize, float[] x, int xStart, float[] y, int yStart,
+			int yStride, int length) {
+		if (blockSize == FILTER_BLOCK_SIZE) {
+			float w0 = blockWeights[0];
+			float w1 = blockWeights[1];
+			float w2 = blockWeights[2];
+			float w3 = blockWeights[3];
+			int y1 = yStart + yStride;
+			int y2 = y1 + yStride;
+			int y3 = y2 + yStride;
+			for (int i = 0; i < length; i++) {
+				float value = x[xStart + i];
+				y[yStart + i] += w0 * value;
+				y[y1 + i] += w1 * value;
+				y[y2 + i] += w2 * value;
+				y[y3 + i] += w3 * value;
+			}
+		} else {
+			for (int filter = 0; filter < blockSize; filter++) {
+				axpy(blockWeights[filter], x, xStart, y, yStart + filter * yStride, length);
+			}
+		}
+	}
+
+	private static void axpy(float alpha, float[] x, int xStart, float[] y, int yStart, int length) {
+		for (int i = 0; i < length; i++) {
+			y[yStart + i] += alpha * x[xStart + i];
+		}
+	}
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A complex fast Fourier transform of a fixed length, on separate arrays of real and imaginary parts.
+ * 
+ * Powers of two are transformed in place by the iterative radix-2 algorithm. Other lengths are
+ * transformed by the recursive mixed-radix algorithm, decimating in time by each factor of the length
+ * in turn - radix 4, 2, 3 and 5 before any larger prime factors, whose butterflies are direct
+ * transforms. The lengths from getGoodLength have no factors larger than 5.
+ * 
+ * A Fft holds only its precomputed twiddle factors, so may be shared between threads.
+ * 
+ * @author Michael Lavelle
+ */
+public final class Fft {
+
+	private final int length;
+	private final boolean powerOfTwo;
+	private final int[] factors;
+	private final int maximumFactor;
+
+	/**
+	 * The twiddle factors cos(2 pi k / length) and sin(2 pi k / length).
+	 */
+	private final float[] cos;
+	private final float[] sin;
+
+	/**
+	 * @param length The length of the transform.
+	 */
+	public Fft(int length) {
+		if (length < 1) {
+			throw new IllegalArgumentException("Length must be positive:" + length);
+		}
+		this.length = length;
+		this.powerOfTwo = Integer.bitCount(length) == 1;
+		this.factors = factorise(length);
+		int maximum = 1;
+		for (int factor : factors) {
+			maximum = Math.max(maximum, factor);
+		}
+		this.maximumFactor = maximum;
+		this.cos = new float[length];
+		this.sin = new float[length];
+		for (int k = 0; k < length; k++) {
+			double angle = 2 * Math.PI * k / length;
+			cos[k] = (float) Math.cos(angle);
+			sin[k] = (float) Math.sin(angle);
+		}
+	}
+
+	/**
+	 * @param minimumLength The minimum length.
+	 * @return The smallest length of at least the minimum whose only prime factors are 2, 3 and 5.
+	 */
+	public static int getGoodLength(int minimumLength) {
+		for (int length = Math.max(1, minimumLength);; length++) {
+			int remainder = length;
+			for (int factor = 2; factor <= 5; factor++) {
+				while (remainder % factor == 0) {
+					remainder /= factor;
+				}
+			}
+			if (remainder == 1) {
+				return length;
+			}
+		}
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Transforms the values in place, with the kernel exp(-2 pi i j k / length).
+	 * 
+	 * @param re     The real parts.
+	 * @param im     The imaginary parts.
+	 * @param workRe Working space of at least the length, unused for powers of two.
+	 * @param workIm Working space of at least the length, unused for powers of two.
+	 */
+	public void forward(float[] re, float[] im, float[] workRe, float[] workIm) {
+		transform(re, im, workRe, workIm, -1f);
+	}
+
+	/**
+	 * Transforms the values in place, with the kernel exp(2 pi i j k / length), and without the scaling
+	 * by 1 / length of the inverse transform.
+	 * 
+	 * @param re     The real parts.
+	 * @param im     The imaginary parts.
+	 * @param workRe Working space of at least the length, unused for powers of two.
+	 * @param workIm Working space of at least the length, unused for powers of two.
+	 */
+	public void inverse(float[] re, float[] im, float[] workRe, float[] workIm) {
+		transform(re, im, workRe, workIm, 1f);
+	}
+
+	private void transform(float[] re, float[] im, float[] workRe, float[] workIm, float sign) {
+		if (length == 1) {
+			return;
+		}
+		if (powerOfTwo) {
+			radix2(re, im, sign);
+		} else {
+			System.arraycopy(re, 0, workRe, 0, length);
+			System.arraycopy(im, 0, workIm, 0, length);
+			float[] butterflyRe = new float[maximumFactor];
+			float[] butterflyIm = new float[maximumFactor];
+			mixedRadix(workRe, workIm, 0, 1, re, im, 0, length, 0, sign, butterflyRe, butterflyIm);
+		}
+	}
+
+	private void radix2(float[] re, float[] im, float sign) {
+		// Bit-reversal permutation
+		for (int i = 1, j = 0; i < length; i++) {
+			int bit = length >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				float t = re[i];
+				re[i] = re[j];
+				re[j] = t;
+				t = im[i];
+				im[i] = im[j];
+				im[j] = t;
+			}
+		}
+		for (int size = 2; size <= length; size <<= 1) {
+			int half = size >> 1;
+			int twiddleStride = length / size;
+			for (int j = 0; j < half; j++) {
+				float wr = cos[j * twiddleStride];
+				float wi = sign * sin[j * twiddleStride];
+				for (int a = j; a < length; a += size) {
+					int b = a + half;
+					float tr = re[b] * wr - im[b] * wi;
+					float ti = re[b] * wi + im[b] * wr;
+					re[b] = re[a] - tr;
+					im[b] = im[a] - ti;
+					re[a] += tr;
+					im[a] += ti;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Transforms the n values of the input from inOffset at intervals of inStride into the n
+	 * consecutive values of the output from outOffset, by transforming each of the p subsequences
+	 * decimated by the factor p and combining them with butterflies of radix p.
+	 */
+	private void mixedRadix(float[] inRe, float[] inIm, int inOffset, int inStride, float[] outRe, float[] outIm,
+			int outOffset, int n, int factorIndex, float sign, float[] butterflyRe, float[] butterflyIm) {
+		if (n == 1) {
+			outRe[outOffset] = inRe[inOffset];
+			outIm[outOffset] = inIm[inOffset];
+			return;
+		}
+		int p = factors[factorIndex];
+		int m = n / p;
+		for (int q = 0; q < p; q++) {
+			mixedRadix(inRe, inIm, inOffset + q * inStride, inStride * p, outRe, outIm, outOffset + q * m, m,
+					factorIndex + 1, sign, butterflyRe, butterflyIm);
+		}
+		int twiddleStride = length / n;
+		switch (p) {
+		case 2:
+			butterfly2(outRe, outIm, outOffset, m, twiddleStride, sign);
+			break;
+		case 4:
+			butterfly4(outRe, outIm, outOffset, m, twiddleStride, sign);
+			break;
+		default:
+			butterfly(outRe, outIm, outOffset, m, p, twiddleStride, sign, butterflyRe, butterflyIm);
+		}
+	}
+
+	private void butterfly2(float[] re, float[] im, int offset, int m, int twiddleStride, float sign) {
+		for (int k = 0; k < m; k++) {
+			int a = offset + k;
+			int b = a + m;
+			float wr = cos[k * twiddleStride];
+			float wi = sign * sin[k * twiddleStride];
+			float tr = re[b] * wr - im[b] * wi;
+			float ti = re[b] * wi + im[b] * wr;
+			re[b] = re[a] - tr;
+			im[b] = im[a] - ti;
+			re[a] += tr;
+			im[a] += ti;
+		}
+	}
+
+	private void butterfly4(float[] re, float[] im, int offset, int m, int twiddleStride, float sign) {
+		for (int k = 0; k < m; k++) {
+			int i0 = offset + k;
+			int i1 = i0 + m;
+			int i2 = i1 + m;
+			int i3 = i2 + m;
+			int t1 = k * twiddleStride;
+			int t2 = 2 * t1;
+			int t3 = 3 * t1;
+			float r0 = re[i0];
+			float m0 = im[i0];
+			float r1 = re[i1] * cos[t1] - im[i1] * sign * sin[t1];
+			float m1 = re[i1] * sign * sin[t1] + im[i1] * cos[t1];
+			float r2 = re[i2] * cos[t2] - im[i2] * sign * sin[t2];
+			float m2 = re[i2] * sign * sin[t2] + im[i2] * cos[t2];
+			float r3 = re[i3] * cos[t3] - im[i3] * sign * sin[t3];
+			float m3 = re[i3] * sign * sin[t3] + im[i3] * cos[t3];
+			float sumRe02 = r0 + r2;
+			float sumIm02 = m0 + m2;
+			float differenceRe02 = r0 - r2;
+			float differenceIm02 = m0 - m2;
+			float sumRe13 = r1 + r3;
+			float sumIm13 = m1 + m3;
+			// sign * i * (x1 - x3)
+			float rotatedRe13 = -sign * (m1 - m3);
+			float rotatedIm13 = sign * (r1 - r3);
+			re[i0] = sumRe02 + sumRe13;
+			im[i0] = sumIm02 + sumIm13;
+			re[i1] = differenceRe02 + rotatedRe13;
+			im[i1] = differenceIm02 + rotatedIm13;
+			re[i2] = sumRe02 - sumRe13;
+			im[i2] = sumIm02 - sumIm13;
+			re[i3] = differenceRe02 - rotatedRe13;
+			im[i3] = differenceIm02 - rotatedIm13;
+		}
+	}
+
+	/**
+	 * The butterflies of a radix p, each a direct transform of length p of its twiddled values.
+	 */
+	private void butterfly(float[] re, float[] im, int offset, int m, int p, int twiddleStride, float sign,
+			float[] butterflyRe, float[] butterflyIm) {
+		int rootStride = length / p;
+		for (int k = 0; k < m; k++) {
+			for (int q = 0; q < p; q++) {
+				int index = offset + q * m + k;
+				int twiddle = q * k * twiddleStride;
+				float wr = cos[twiddle];
+				float wi = sign * sin[twiddle];
+				butterflyRe[q] = re[index] * wr - im[index] * wi;
+				butterflyIm[q] = re[index] * wi + im[index] * wr;
+			}
+			for (int s = 0; s < p; s++) {
+				float sumRe = butterflyRe[0];
+				float sumIm = butterflyIm[0];
+				for (int q = 1; q < p; q++) {
+					int root = (q * s) % p * rootStride;
+					float wr = cos[root];
+					float wi = sign * sin[root];
+					sumRe += butterflyRe[q] * wr - butterflyIm[q] * wi;
+					sumIm += butterflyRe[q] * wi + butterflyIm[q] * wr;
+				}
+				re[offset + s * m + k] = sumRe;
+				im[offset + s * m + k] = sumIm;
+			}
+		}
+	}
+
+	/**
+	 * @return The factors of the length, fours first, then twos, threes and fives, and then any larger
+	 *         primes.
+	 */
+	private static int[] factorise(int length) {
+		List<Integer> factors = new ArrayList<>();
+		int remainder = length;
+		while (remainder % 4 == 0) {
+			factors.add(4);
+			remainder /= 4;
+		}
+		for (int factor = 2; factor * factor <= remainder; factor++) {
+			while (remainder % factor == 0) {
+				factors.add(factor);
+				remainder /= factor;
+			}
+		}
+		if (remainder > 1) {
+			factors.add(remainder);
+		}
+		int[] result = new int[factors.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = factors.get(i);
+		}
+		return result;
+	}
+}
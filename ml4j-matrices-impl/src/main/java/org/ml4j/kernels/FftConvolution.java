@@ -0,0 +1,402 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Convolves large filters by multiplying the Fourier transforms of the input and the filters, whose
+ * cost unlike that of im2col and GEMM does not grow with the area of the filters.
+ * 
+ * Each channel of each padded input image, and each channel of each filter, is zero-extended to the
+ * smallest size whose sides have no prime factors larger than 5 that holds the padded image, and
+ * transformed by a two-dimensional real FFT. As the inputs are real only half of each spectrum is
+ * kept. The spectrum of each output channel is the sum over the input channels of the products of
+ * the input spectra with the conjugates of the filter spectra - a correlation rather than a
+ * convolution, as for im2col - and the output is sampled from its inverse transform at the stride.
+ * 
+ * The spectra of the filters are cached for each weights matrix, and transformed again when the
+ * weights are updated or the input size changes. Convolutions are computed by FFT only where the
+ * estimated cost, weighted by the cost ratio, is less than that of the direct convolution - in
+ * practice for filters of 5x5 and larger over many channels or high resolution images - and otherwise
+ * by the fallback.
+ * 
+ * @author Michael Lavelle
+ */
+public class FftConvolution implements ConvolutionAlgorithm {
+
+	/**
+	 * The default ratio of the time of an operation of the FFT convolution to one of the direct
+	 * convolution, whose inner loops vectorise. Measured at between 1 and 3 across 3x3 to 15x15 filters,
+	 * and rounded up so that the FFT is chosen only where it is clearly faster.
+	 */
+	public static final float DEFAULT_COST_RATIO = 4f;
+
+	private final ConvolutionAlgorithm fallback;
+	private final float costRatio;
+	private final TransformedFilterCache<Spectra> filterCache;
+	private final Map<Integer, Fft> ffts;
+
+	/**
+	 * Creates a FftConvolution with the default cost ratio, which falls back to the direct convolution.
+	 */
+	public FftConvolution() {
+		this(ConvolutionAlgorithm.DIRECT, DEFAULT_COST_RATIO);
+	}
+
+	/**
+	 * @param fallback  The algorithm for the convolutions not worth computing by FFT.
+	 * @param costRatio The ratio of the time of an operation of the FFT convolution to one of the
+	 *                  fallback, by which the cutover between them is chosen.
+	 */
+	public FftConvolution(ConvolutionAlgorithm fallback, float costRatio) {
+		this.fallback = fallback;
+		this.costRatio = costRatio;
+		this.filterCache = new TransformedFilterCache<>();
+		this.ffts = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @param geometry The shape of a convolution.
+	 * @param filters  The number of filters.
+	 * @param examples The number of examples.
+	 * @return Whether the estimated cost of the convolution by FFT, weighted by the cost ratio, is less
+	 *         than that of the direct convolution.
+	 */
+	public boolean isFftFaster(ConvolutionGeometry geometry, int filters, int examples) {
+		double directCost = (double) filters * geometry.getPatchSize() * geometry.getOutputChannelSize() * examples;
+		return costRatio * getFftCost(geometry, filters, examples) < directCost;
+	}
+
+	/**
+	 * @return The estimated number of multiply-adds of the convolution by FFT, excluding the cached
+	 *         transforms of the filters.
+	 */
+	static double getFftCost(ConvolutionGeometry geometry, int filters, int examples) {
+		int transformHeight = getTransformHeight(geometry);
+		int transformWidth = getTransformWidth(geometry);
+		int spectrumLength = transformHeight * (transformWidth / 2 + 1);
+		double transformCost = transformHeight * transformWidth * log2(transformWidth)
+				+ spectrumLength * log2(transformHeight);
+		double productCost = 4d * filters * geometry.getInputDepth() * spectrumLength;
+		return examples * ((geometry.getInputDepth() + filters) * transformCost + productCost);
+	}
+
+	/**
+	 * @return The number of times filters have been transformed, rather than taken from the cache.
+	 */
+	public long getFilterTransforms() {
+		return filterCache.getTransforms();
+	}
+
+	/**
+	 * @return The number of weights matrices whose transformed filters are cached.
+	 */
+	public int getCachedFilters() {
+		return filterCache.size();
+	}
+
+	/**
+	 * Discards the cached transformed filters.
+	 */
+	public void clear() {
+		filterCache.clear();
+	}
+
+	@Override
+	public Matrix convolve(MatrixFactory matrixFactory, Matrix weights, float[] input, int examples,
+			ConvolutionGeometry geometry) {
+		int filters = weights.getRows();
+		if (geometry.isPointwise() || !isFftFaster(geometry, filters, examples)) {
+			return fallback.convolve(matrixFactory, weights, input, examples, geometry);
+		}
+		if (weights.getColumns() != geometry.getPatchSize()) {
+			throw new IllegalArgumentException("Columns of weights do not match the patch size of " + geometry);
+		}
+		int channels = geometry.getInputDepth();
+		int outputLength = geometry.getOutputChannelSize() * examples;
+		Transform transform = new Transform(geometry, getFft(getTransformHeight(geometry)),
+				getFft(getTransformWidth(geometry)));
+		int spectrumLength = transform.getSpectrumLength();
+		ParallelKernels parallelKernels = matrixFactory instanceof ParallelMatrixFactory
+				? ((ParallelMatrixFactory) matrixFactory).getParallelKernels()
+				: null;
+
+		Spectra filterSpectra = filterCache.getTransformedFilters(weights,
+				Arrays.asList(transform.height, transform.width),
+				weightValues -> transformFilters(transform, weightValues, filters, channels));
+
+		// The spectra of the input, a block of channels for each example
+		Spectra inputSpectra = new Spectra(examples * channels * spectrumLength);
+		int planes = examples * channels;
+		if (parallelKernels != null && parallelKernels.isParallel(planes * spectrumLength)) {
+			List<Runnable> tasks = new ArrayList<>();
+			for (int plane = 0; plane < planes; plane++) {
+				int start = plane;
+				tasks.add(() -> transformInput(transform, input, examples, inputSpectra, start, start + 1));
+			}
+			parallelKernels.run(tasks, planes * spectrumLength);
+		} else {
+			transformInput(transform, input, examples, inputSpectra, 0, planes);
+		}
+
+		float[] output = new float[filters * outputLength];
+		if (parallelKernels != null && parallelKernels.isParallel(output.length)) {
+			List<Runnable> tasks = new ArrayList<>();
+			for (int filter = 0; filter < filters; filter++) {
+				int start = filter;
+				tasks.add(() -> correlate(transform, filterSpectra, inputSpectra, channels, examples, output, start,
+						start + 1));
+			}
+			parallelKernels.run(tasks, output.length);
+		} else {
+			correlate(transform, filterSpectra, inputSpectra, channels, examples, output, 0, filters);
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(filters, outputLength, output);
+	}
+
+	private Fft getFft(int length) {
+		return ffts.computeIfAbsent(length, Fft::new);
+	}
+
+	private static int getTransformHeight(ConvolutionGeometry geometry) {
+		return Fft.getGoodLength(geometry.getInputHeight() + 2 * geometry.getPaddingHeight());
+	}
+
+	private static int getTransformWidth(ConvolutionGeometry geometry) {
+		return Fft.getGoodLength(geometry.getInputWidth() + 2 * geometry.getPaddingWidth());
+	}
+
+	private static double log2(int value) {
+		return Math.log(value) / Math.log(2);
+	}
+
+	private static Spectra transformFilters(Transform transform, float[] weights, int filters, int channels) {
+		int filterHeight = transform.geometry.getFilterHeight();
+		int filterWidth = transform.geometry.getFilterWidth();
+		int filterArea = filterHeight * filterWidth;
+		int spectrumLength = transform.getSpectrumLength();
+		Spectra spectra = new Spectra(filters * channels * spectrumLength);
+		Workspace workspace = transform.createWorkspace();
+		for (int index = 0; index < filters * channels; index++) {
+			transform.forward(weights, index * filterArea, filterWidth, 1, filterHeight, filterWidth, 0, 0,
+					spectra, index * spectrumLength, workspace);
+		}
+		return spectra;
+	}
+
+	/**
+	 * Transforms the padded images of the planes, each a channel of an example, from planeStart to
+	 * planeEnd.
+	 */
+	private static void transformInput(Transform transform, float[] input, int examples, Spectra spectra,
+			int planeStart, int planeEnd) {
+		ConvolutionGeometry geometry = transform.geometry;
+		int channels = geometry.getInputDepth();
+		int inputHeight = geometry.getInputHeight();
+		int inputWidth = geometry.getInputWidth();
+		int spectrumLength = transform.getSpectrumLength();
+		Workspace workspace = transform.createWorkspace();
+		for (int plane = planeStart; plane < planeEnd; plane++) {
+			int example = plane / channels;
+			int channel = plane % channels;
+			transform.forward(input, channel * inputHeight * inputWidth * examples + example,
+					inputWidth * examples, examples, inputHeight, inputWidth, geometry.getPaddingHeight(),
+					geometry.getPaddingWidth(), spectra, plane * spectrumLength, workspace);
+		}
+	}
+
+	/**
+	 * Computes the rows of the output for the filters from filterStart to filterEnd, as the inverse
+	 * transforms of the sums over the channels of the products of the input spectra with the conjugate
+	 * filter spectra.
+	 */
+	private static void correlate(Transform transform, Spectra filterSpectra, Spectra inputSpectra, int channels,
+			int examples, float[] output, int filterStart, int filterEnd) {
+		int spectrumLength = transform.getSpectrumLength();
+		int outputChannelLength = transform.geometry.getOutputChannelSize() * examples;
+		Spectra sum = new Spectra(spectrumLength);
+		Workspace workspace = transform.createWorkspace();
+		for (int filter = filterStart; filter < filterEnd; filter++) {
+			for (int example = 0; example < examples; example++) {
+				Arrays.fill(sum.re, 0f);
+				Arrays.fill(sum.im, 0f);
+				for (int channel = 0; channel < channels; channel++) {
+					int filterOffset = (filter * channels + channel) * spectrumLength;
+					int inputOffset = (example * channels + channel) * spectrumLength;
+					for (int i = 0; i < spectrumLength; i++) {
+						float inputRe = inputSpectra.re[inputOffset + i];
+						float inputIm = inputSpectra.im[inputOffset + i];
+						float filterRe = filterSpectra.re[filterOffset + i];
+						float filterIm = filterSpectra.im[filterOffset + i];
+						sum.re[i] += inputRe * filterRe + inputIm * filterIm;
+						sum.im[i] += inputIm * filterRe - inputRe * filterIm;
+					}
+				}
+				transform.inverse(sum, output, filter * outputChannelLength + example, examples, workspace);
+			}
+		}
+	}
+
+	/**
+	 * The real and imaginary parts of a sequence of half spectra.
+	 */
+	private static class Spectra {
+
+		private final float[] re;
+		private final float[] im;
+
+		Spectra(int length) {
+			this.re = new float[length];
+			this.im = new float[length];
+		}
+	}
+
+	/**
+	 * The buffers of the rows and columns of a transform, for the use of a single thread.
+	 */
+	private static class Workspace {
+
+		private final float[] rowRe;
+		private final float[] rowIm;
+		private final float[] columnRe;
+		private final float[] columnIm;
+		private final float[] workRe;
+		private final float[] workIm;
+
+		Workspace(int height, int width) {
+			this.rowRe = new float[width];
+			this.rowIm = new float[width];
+			this.columnRe = new float[height];
+			this.columnIm = new float[height];
+			this.workRe = new float[Math.max(height, width)];
+			this.workIm = new float[Math.max(height, width)];
+		}
+	}
+
+	/**
+	 * The two-dimensional real FFT of a convolution, whose half spectra are row-major with the
+	 * width / 2 + 1 columns of non-negative horizontal frequencies.
+	 */
+	private static class Transform {
+
+		private final ConvolutionGeometry geometry;
+		private final Fft columnFft;
+		private final Fft rowFft;
+		private final int height;
+		private final int width;
+		private final int halfWidth;
+
+		Transform(ConvolutionGeometry geometry, Fft columnFft, Fft rowFft) {
+			this.geometry = geometry;
+			this.columnFft = columnFft;
+			this.rowFft = rowFft;
+			this.height = columnFft.getLength();
+			this.width = rowFft.getLength();
+			this.halfWidth = width / 2 + 1;
+		}
+
+		int getSpectrumLength() {
+			return height * halfWidth;
+		}
+
+		Workspace createWorkspace() {
+			return new Workspace(height, width);
+		}
+
+		/**
+		 * Transforms an image of rows x columns values at rowOffset and columnOffset within a zero plane
+		 * of the transform size.
+		 */
+		void forward(float[] values, int offset, int rowStride, int columnStride, int rows, int columns,
+				int rowOffset, int columnOffset, Spectra spectra, int spectrumOffset, Workspace workspace) {
+			Arrays.fill(spectra.re, spectrumOffset, spectrumOffset + getSpectrumLength(), 0f);
+			Arrays.fill(spectra.im, spectrumOffset, spectrumOffset + getSpectrumLength(), 0f);
+			// The rows, only those within the image being non-zero
+			for (int row = 0; row < rows; row++) {
+				Arrays.fill(workspace.rowRe, 0f);
+				Arrays.fill(workspace.rowIm, 0f);
+				int rowStart = offset + row * rowStride;
+				for (int column = 0; column < columns; column++) {
+					workspace.rowRe[columnOffset + column] = values[rowStart + column * columnStride];
+				}
+				rowFft.forward(workspace.rowRe, workspace.rowIm, workspace.workRe, workspace.workIm);
+				int spectrumRowStart = spectrumOffset + (rowOffset + row) * halfWidth;
+				System.arraycopy(workspace.rowRe, 0, spectra.re, spectrumRowStart, halfWidth);
+				System.arraycopy(workspace.rowIm, 0, spectra.im, spectrumRowStart, halfWidth);
+			}
+			// The columns of non-negative frequencies
+			for (int column = 0; column < halfWidth; column++) {
+				for (int row = 0; row < height; row++) {
+					workspace.columnRe[row] = spectra.re[spectrumOffset + row * halfWidth + column];
+					workspace.columnIm[row] = spectra.im[spectrumOffset + row * halfWidth + column];
+				}
+				columnFft.forward(workspace.columnRe, workspace.columnIm, workspace.workRe, workspace.workIm);
+				for (int row = 0; row < height; row++) {
+					spectra.re[spectrumOffset + row * halfWidth + column] = workspace.columnRe[row];
+					spectra.im[spectrumOffset + row * halfWidth + column] = workspace.columnIm[row];
+				}
+			}
+		}
+
+		/**
+		 * Inverse transforms a half spectrum in place, and writes the output positions sampled at the
+		 * stride to the output from outputOffset at intervals of outputStride.
+		 */
+		void inverse(Spectra spectrum, float[] output, int outputOffset, int outputStride, Workspace workspace) {
+			int outputHeight = geometry.getOutputHeight();
+			int outputWidth = geometry.getOutputWidth();
+			int strideHeight = geometry.getStrideHeight();
+			int strideWidth = geometry.getStrideWidth();
+			float scale = 1f / (height * width);
+			for (int column = 0; column < halfWidth; column++) {
+				for (int row = 0; row < height; row++) {
+					workspace.columnRe[row] = spectrum.re[row * halfWidth + column];
+					workspace.columnIm[row] = spectrum.im[row * halfWidth + column];
+				}
+				columnFft.inverse(workspace.columnRe, workspace.columnIm, workspace.workRe, workspace.workIm);
+				for (int row = 0; row < height; row++) {
+					spectrum.re[row * halfWidth + column] = workspace.columnRe[row];
+					spectrum.im[row * halfWidth + column] = workspace.columnIm[row];
+				}
+			}
+			for (int outputY = 0; outputY < outputHeight; outputY++) {
+				int rowStart = outputY * strideHeight * halfWidth;
+				// The negative frequencies of a real row are the conjugates of the positive
+				for (int column = 0; column < width; column++) {
+					if (column < halfWidth) {
+						workspace.rowRe[column] = spectrum.re[rowStart + column];
+						workspace.rowIm[column] = spectrum.im[rowStart + column];
+					} else {
+						workspace.rowRe[column] = spectrum.re[rowStart + width - column];
+						workspace.rowIm[column] = -spectrum.im[rowStart + width - column];
+					}
+				}
+				rowFft.inverse(workspace.rowRe, workspace.rowIm, workspace.workRe, workspace.workIm);
+				int outputRowStart = outputOffset + outputY * outputWidth * outputStride;
+				for (int outputX = 0; outputX < outputWidth; outputX++) {
+					output[outputRowStart + outputX * outputStride] = workspace.rowRe[outputX * strideWidth] * scale;
+				}
+			}
+		}
+	}
+}
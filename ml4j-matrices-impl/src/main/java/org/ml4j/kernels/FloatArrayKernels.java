@@ -0,0 +1,386 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+/**
+ * Elementwise and reduction kernels operating on row-major float arrays.
+ * 
+ * Each kernel is a simple counted loop over contiguous array ranges, the form the JIT compiler
+ * vectorizes.
+ * 
+ * @author Michael Lavelle
+ */
+public final class FloatArrayKernels {
+
+	private FloatArrayKernels() {
+	}
+
+	/**
+	 * Applies an operation to corresponding elements of two arrays.
+	 */
+	public static void elementwise(BinaryOperation operation, float[] first, float[] second, float[] result,
+			int length) {
+		elementwise(operation, first, second, result, 0, length);
+	}
+
+	/**
+	 * Applies an operation to corresponding elements of two arrays, from start (inclusive) to end
+	 * (exclusive).
+	 */
+	public static void elementwise(BinaryOperation operation, float[] first, float[] second, float[] result,
+			int start, int end) {
+		switch (operation) {
+		case ADD:
+			for (int i = start; i < end; i++) {
+				result[i] = first[i] + second[i];
+			}
+			break;
+		case SUB:
+			for (int i = start; i < end; i++) {
+				result[i] = first[i] - second[i];
+			}
+			break;
+		case MUL:
+			for (int i = start; i < end; i++) {
+				result[i] = first[i] * second[i];
+			}
+			break;
+		case DIV:
+			for (int i = start; i < end; i++) {
+				result[i] = first[i] / second[i];
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported operation:" + operation);
+		}
+	}
+
+	/**
+	 * Applies an operation to each element of an array and a scalar.
+	 */
+	public static void scalar(BinaryOperation operation, float[] values, float value, float[] result, int length) {
+		scalar(operation, values, value, result, 0, length);
+	}
+
+	/**
+	 * Applies an operation to each element of an array and a scalar, from start (inclusive) to end
+	 * (exclusive).
+	 */
+	public static void scalar(BinaryOperation operation, float[] values, float value, float[] result, int start,
+			int end) {
+		switch (operation) {
+		case ADD:
+			for (int i = start; i < end; i++) {
+				result[i] = values[i] + value;
+			}
+			break;
+		case SUB:
+			for (int i = start; i < end; i++) {
+				result[i] = values[i] - value;
+			}
+			break;
+		case MUL:
+			for (int i = start; i < end; i++) {
+				result[i] = values[i] * value;
+			}
+			break;
+		case DIV:
+			for (int i = start; i < end; i++) {
+				result[i] = values[i] / value;
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported operation:" + operation);
+		}
+	}
+
+	/**
+	 * Applies an operation to each element of a row-major matrix and the element of a column vector
+	 * corresponding to its row.
+	 */
+	public static void columnVector(BinaryOperation operation, float[] values, float[] vector, float[] result,
+			int rows, int columns) {
+		columnVector(operation, values, vector, result, 0, rows, columns);
+	}
+
+	/**
+	 * As columnVector, for the rows from rowStart (inclusive) to rowEnd (exclusive).
+	 */
+	public static void columnVector(BinaryOperation operation, float[] values, float[] vector, float[] result,
+			int rowStart, int rowEnd, int columns) {
+		for (int r = rowStart; r < rowEnd; r++) {
+			int start = r * columns;
+			int end = start + columns;
+			float value = vector[r];
+			switch (operation) {
+			case ADD:
+				for (int i = start; i < end; i++) {
+					result[i] = values[i] + value;
+				}
+				break;
+			case SUB:
+				for (int i = start; i < end; i++) {
+					result[i] = values[i] - value;
+				}
+				break;
+			case MUL:
+				for (int i = start; i < end; i++) {
+					result[i] = values[i] * value;
+				}
+				break;
+			case DIV:
+				for (int i = start; i < end; i++) {
+					result[i] = values[i] / value;
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported operation:" + operation);
+			}
+		}
+	}
+
+	/**
+	 * Applies an operation to each element of a row-major matrix and the element of a row vector
+	 * corresponding to its column.
+	 */
+	public static void rowVector(BinaryOperation operation, float[] values, float[] vector, float[] result, int rows,
+			int columns) {
+		rowVector(operation, values, vector, result, 0, rows, columns);
+	}
+
+	/**
+	 * As rowVector, for the rows from rowStart (inclusive) to rowEnd (exclusive).
+	 */
+	public static void rowVector(BinaryOperation operation, float[] values, float[] vector, float[] result,
+			int rowStart, int rowEnd, int columns) {
+		for (int r = rowStart; r < rowEnd; r++) {
+			int start = r * columns;
+			switch (operation) {
+			case ADD:
+				for (int c = 0; c < columns; c++) {
+					result[start + c] = values[start + c] + vector[c];
+				}
+				break;
+			case SUB:
+				for (int c = 0; c < columns; c++) {
+					result[start + c] = values[start + c] - vector[c];
+				}
+				break;
+			case MUL:
+				for (int c = 0; c < columns; c++) {
+					result[start + c] = values[start + c] * vector[c];
+				}
+				break;
+			case DIV:
+				for (int c = 0; c < columns; c++) {
+					result[start + c] = values[start + c] / vector[c];
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported operation:" + operation);
+			}
+		}
+	}
+
+	/**
+	 * @return The sum of the first length values.
+	 */
+	public static float sum(float[] values, int length) {
+		return sum(values, 0, length);
+	}
+
+	/**
+	 * @return The sum of the values from start (inclusive) to end (exclusive).
+	 */
+	public static float sum(float[] values, int start, int end) {
+		float sum = 0;
+		for (int i = start; i < end; i++) {
+			sum += values[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Sums each row of a row-major matrix.
+	 */
+	public static void rowSums(float[] values, int rows, int columns, float[] result) {
+		rowSums(values, 0, rows, columns, result);
+	}
+
+	/**
+	 * Sums the rows of a row-major matrix from rowStart (inclusive) to rowEnd (exclusive).
+	 */
+	public static void rowSums(float[] values, int rowStart, int rowEnd, int columns, float[] result) {
+		for (int r = rowStart; r < rowEnd; r++) {
+			result[r] = sum(values, r * columns, (r + 1) * columns);
+		}
+	}
+
+	/**
+	 * Sums the columns of a row-major matrix by accumulating whole rows, so that the inner loop is
+	 * over contiguous values.
+	 */
+	public static void columnSums(float[] values, int rows, int columns, float[] result) {
+		columnSums(values, rows, columns, 0, columns, result);
+	}
+
+	/**
+	 * Sums the columns of a row-major matrix from columnStart (inclusive) to columnEnd (exclusive).
+	 */
+	public static void columnSums(float[] values, int rows, int columns, int columnStart, int columnEnd,
+			float[] result) {
+		for (int c = columnStart; c < columnEnd; c++) {
+			result[c] = 0;
+		}
+		for (int r = 0; r < rows; r++) {
+			int start = r * columns;
+			for (int c = columnStart; c < columnEnd; c++) {
+				result[c] += values[start + c];
+			}
+		}
+	}
+
+	/**
+	 * @return The index of the first maximum value, or -1 if length is zero.
+	 */
+	public static int argmax(float[] values, int length) {
+		return argmax(values, 0, length);
+	}
+
+	/**
+	 * @return The index of the first maximum value from start (inclusive) to end (exclusive), or -1 if
+	 *         the range is empty.
+	 */
+	public static int argmax(float[] values, int start, int end) {
+		if (end <= start) {
+			return -1;
+		}
+		int argmax = start;
+		float max = values[start];
+		for (int i = start + 1; i < end; i++) {
+			if (values[i] > max) {
+				max = values[i];
+				argmax = i;
+			}
+		}
+		return argmax;
+	}
+
+	/**
+	 * Finds the row index of the first maximum value of each column of a row-major matrix, scanning
+	 * whole rows so that the inner loop is over contiguous values.
+	 */
+	public static int[] columnArgmaxs(float[] values, int rows, int columns) {
+		int[] argmaxs = new int[columns];
+		columnArgmaxs(values, rows, columns, 0, columns, argmaxs);
+		return argmaxs;
+	}
+
+	/**
+	 * As columnArgmaxs, for the columns from columnStart (inclusive) to columnEnd (exclusive).
+	 */
+	public static void columnArgmaxs(float[] values, int rows, int columns, int columnStart, int columnEnd,
+			int[] argmaxs) {
+		for (int c = columnStart; c < columnEnd; c++) {
+			argmaxs[c] = 0;
+		}
+		if (rows == 0) {
+			return;
+		}
+		float[] maxs = new float[columnEnd - columnStart];
+		System.arraycopy(values, columnStart, maxs, 0, maxs.length);
+		for (int r = 1; r < rows; r++) {
+			int start = r * columns;
+			for (int c = columnStart; c < columnEnd; c++) {
+				float value = values[start + c];
+				if (value > maxs[c - columnStart]) {
+					maxs[c - columnStart] = value;
+					argmaxs[c] = r;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The length of the side of the square tiles in which matrices are transposed.
+	 */
+	public static final int TRANSPOSE_TILE = 32;
+
+	/**
+	 * Transposes a row-major matrix in cache-sized tiles.
+	 */
+	public static void transpose(float[] values, int rows, int columns, float[] result) {
+		transpose(values, rows, columns, result, 0, rows);
+	}
+
+	/**
+	 * Transposes the rows from rowStart to rowEnd of a row-major matrix into the corresponding columns
+	 * of result, in cache-sized tiles.
+	 */
+	public static void transpose(float[] values, int rows, int columns, float[] result, int rowStart, int rowEnd) {
+		final int tile = TRANSPOSE_TILE;
+		for (int rr = rowStart; rr < rowEnd; rr += tile) {
+			int rEnd = Math.min(rr + tile, rowEnd);
+			for (int cc = 0; cc < columns; cc += tile) {
+				int cEnd = Math.min(cc + tile, columns);
+				for (int r = rr; r < rEnd; r++) {
+					int start = r * columns;
+					for (int c = cc; c < cEnd; c++) {
+						result[c * rows + r] = values[start + c];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies the rows from rowStart to rowEnd of a row-major matrix into the arrays of result.
+	 */
+	public static void toRows(float[] values, int columns, float[][] result, int rowStart, int rowEnd) {
+		for (int r = rowStart; r < rowEnd; r++) {
+			System.arraycopy(values, r * columns, result[r], 0, columns);
+		}
+	}
+
+	/**
+	 * Copies the arrays from rowStart to rowEnd of rows into the corresponding rows of a row-major
+	 * matrix.
+	 */
+	public static void fromRows(float[][] rows, int columns, float[] result, int rowStart, int rowEnd) {
+		for (int r = rowStart; r < rowEnd; r++) {
+			System.arraycopy(rows[r], 0, result, r * columns, columns);
+		}
+	}
+
+	public static void exp(float[] values, float[] result, int length) {
+		exp(values, result, 0, length);
+	}
+
+	public static void exp(float[] values, float[] result, int start, int end) {
+		for (int i = start; i < end; i++) {
+			result[i] = (float) Math.exp(values[i]);
+		}
+	}
+
+	public static void log(float[] values, float[] result, int length) {
+		log(values, result, 0, length);
+	}
+
+	public static void log(float[] values, float[] result, int start, int end) {
+		for (int i = start; i < end; i++) {
+			result[i] = (float) Math.log(values[i]);
+		}
+	}
+}
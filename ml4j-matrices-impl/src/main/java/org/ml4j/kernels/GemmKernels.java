@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+/**
+ * Single precision matrix multiplication kernels operating on row-major float arrays.
+ * 
+ * The kernels are written as simple counted loops over contiguous array ranges so that the JIT
+ * compiler can vectorize their inner loops, and are blocked so that the panels of the operands
+ * being multiplied stay in cache.
+ * 
+ * See ParallelGemm for a multi-threaded version.
+ * 
+ * @author Michael Lavelle
+ */
+public final class GemmKernels {
+
+	/**
+	 * The number of rows of the left-hand operand processed per block.
+	 */
+	static final int ROW_BLOCK_SIZE = 64;
+
+	/**
+	 * The number of columns of the left-hand operand (rows of the right-hand operand) processed per
+	 * block.
+	 */
+	static final int INNER_BLOCK_SIZE = 256;
+
+	/**
+	 * The number of columns of the right-hand operand processed per block.
+	 */
+	static final int COLUMN_BLOCK_SIZE = 256;
+
+	private static final ThreadLocal<PackingBuffers> PACKING_BUFFERS = ThreadLocal.withInitial(PackingBuffers::new);
+
+	private GemmKernels() {
+	}
+
+	/**
+	 * Computes C += A.B, where A is m x k, B is k x n and C is m x n, all stored in row-major order.
+	 * 
+	 * @param m       The number of rows of A and C.
+	 * @param n       The number of columns of B and C.
+	 * @param k       The number of columns of A and rows of B.
+	 * @param a       The values of A.
+	 * @param aOffset The index of the first value of A.
+	 * @param lda     The distance between the starts of consecutive rows of A.
+	 * @param b       The values of B.
+	 * @param bOffset The index of the first value of B.
+	 * @param ldb     The distance between the starts of consecutive rows of B.
+	 * @param c       The values of C.
+	 * @param cOffset The index of the first value of C.
+	 * @param ldc     The distance between the starts of consecutive rows of C.
+	 */
+	public static void gemm(int m, int n, int k, float[] a, int aOffset, int lda, float[] b, int bOffset, int ldb,
+			float[] c, int cOffset, int ldc) {
+		for (int jj = 0; jj < n; jj += COLUMN_BLOCK_SIZE) {
+			int jEnd = Math.min(jj + COLUMN_BLOCK_SIZE, n);
+			for (int ii = 0; ii < m; ii += ROW_BLOCK_SIZE) {
+				int iEnd = Math.min(ii + ROW_BLOCK_SIZE, m);
+				gemmTile(ii, iEnd, jj, jEnd, k, a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc);
+			}
+		}
+	}
+
+	/**
+	 * Computes the tile of C += A.B from rows iStart (inclusive) to iEnd (exclusive) and columns
+	 * jStart (inclusive) to jEnd (exclusive). Tiles of C may be computed concurrently, as each tile
+	 * is written only by the thread computing it, and the values of each tile are the same as if the
+	 * whole of C were computed at once.
+	 * 
+	 * For each block of the inner dimension, the panels of A and B contributing to the tile are
+	 * first packed into contiguous per-thread buffers, so that the inner kernel streams through
+	 * memory sequentially.
+	 */
+	static void gemmTile(int iStart, int iEnd, int jStart, int jEnd, int k, float[] a, int aOffset, int lda,
+			float[] b, int bOffset, int ldb, float[] c, int cOffset, int ldc) {
+		PackingBuffers buffers = PACKING_BUFFERS.get();
+		float[] packedA = buffers.packedA;
+		float[] packedB = buffers.packedB;
+		int height = iEnd - iStart;
+		int width = jEnd - jStart;
+		for (int kk = 0; kk < k; kk += INNER_BLOCK_SIZE) {
+			int depth = Math.min(INNER_BLOCK_SIZE, k - kk);
+			for (int i = 0; i < height; i++) {
+				System.arraycopy(a, aOffset + (iStart + i) * lda + kk, packedA, i * depth, depth);
+			}
+			for (int p = 0; p < depth; p++) {
+				System.arraycopy(b, bOffset + (kk + p) * ldb + jStart, packedB, p * width, width);
+			}
+			multiplyPackedPanels(height, width, depth, packedA, packedB, c, cOffset + iStart * ldc + jStart, ldc);
+		}
+	}
+
+	/**
+	 * Inner kernel computing C += A.B for a packed height x depth panel of A and a packed depth x
+	 * width panel of B, four rows of C at a time so that each value loaded from B is used four times.
+	 */
+	private static void multiplyPackedPanels(int height, int width, int depth, float[] packedA, float[] packedB,
+			float[] c, int cOffset, int ldc) {
+		int i = 0;
+		for (; i + 3 < height; i += 4) {
+			int c0 = cOffset + i * ldc;
+			int c1 = c0 + ldc;
+			int c2 = c1 + ldc;
+			int c3 = c2 + ldc;
+			int a0 = i * depth;
+			for (int p = 0; p < depth; p++) {
+				float value0 = packedA[a0 + p];
+				float value1 = packedA[a0 + depth + p];
+				float value2 = packedA[a0 + 2 * depth + p];
+				float value3 = packedA[a0 + 3 * depth + p];
+				int bRow = p * width;
+				for (int j = 0; j < width; j++) {
+					float bValue = packedB[bRow + j];
+					c[c0 + j] += value0 * bValue;
+					c[c1 + j] += value1 * bValue;
+					c[c2 + j] += value2 * bValue;
+					c[c3 + j] += value3 * bValue;
+				}
+			}
+		}
+		for (; i < height; i++) {
+			int cRow = cOffset + i * ldc;
+			int aRow = i * depth;
+			for (int p = 0; p < depth; p++) {
+				float value = packedA[aRow + p];
+				int bRow = p * width;
+				for (int j = 0; j < width; j++) {
+					c[cRow + j] += value * packedB[bRow + j];
+				}
+			}
+		}
+	}
+
+	private static class PackingBuffers {
+		private final float[] packedA = new float[ROW_BLOCK_SIZE * INNER_BLOCK_SIZE];
+		private final float[] packedB = new float[INNER_BLOCK_SIZE * COLUMN_BLOCK_SIZE];
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-threaded version of GemmKernels.gemm, which divides C into tiles and computes the tiles
+ * on a configurable ForkJoinPool.
+ * 
+ * Each tile of C is computed by a single thread in the same order as the single-threaded kernel,
+ * so results do not depend on the number of threads.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelGemm implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The default number of multiply-adds below which a multiplication is performed on the calling
+	 * thread.
+	 */
+	public static final long DEFAULT_SEQUENTIAL_THRESHOLD = 64L * 64L * 64L;
+
+	private transient ForkJoinPool forkJoinPool;
+	private long sequentialThreshold;
+
+	/**
+	 * Creates a ParallelGemm using the common ForkJoinPool.
+	 */
+	public ParallelGemm() {
+		this(ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_THRESHOLD);
+	}
+
+	/**
+	 * @param forkJoinPool        The pool on which tiles are computed.
+	 * @param sequentialThreshold The number of multiply-adds below which a multiplication is performed
+	 *                            on the calling thread.
+	 */
+	public ParallelGemm(ForkJoinPool forkJoinPool, long sequentialThreshold) {
+		this.forkJoinPool = forkJoinPool;
+		this.sequentialThreshold = sequentialThreshold;
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	/**
+	 * Computes C += A.B, where A is m x k, B is k x n and C is m x n, all stored in row-major order.
+	 * The arguments are as for GemmKernels.gemm.
+	 */
+	public void gemm(int m, int n, int k, float[] a, int aOffset, int lda, float[] b, int bOffset, int ldb,
+			float[] c, int cOffset, int ldc) {
+		if (m == 0 || n == 0 || k == 0) {
+			// C is empty or unchanged
+			return;
+		}
+		int parallelism = forkJoinPool.getParallelism();
+		if (parallelism <= 1 || (long) m * n * k < sequentialThreshold) {
+			GemmKernels.gemm(m, n, k, a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc);
+			return;
+		}
+		List<int[]> tiles = createTiles(m, n, parallelism);
+		GemmTask task = new GemmTask(tiles, 0, tiles.size(), k, a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc);
+		forkJoinPool.invoke(task);
+	}
+
+	/**
+	 * Divides C into tiles no larger than the cache blocks of GemmKernels, halving the tile height
+	 * until there are enough tiles to occupy every thread.
+	 */
+	private List<int[]> createTiles(int m, int n, int parallelism) {
+		int tileWidth = GemmKernels.COLUMN_BLOCK_SIZE;
+		int tileHeight = GemmKernels.ROW_BLOCK_SIZE;
+		int columnTiles = (n + tileWidth - 1) / tileWidth;
+		while (tileHeight > 4 && columnTiles * ((m + tileHeight - 1) / tileHeight) < parallelism) {
+			tileHeight /= 2;
+		}
+		List<int[]> tiles = new ArrayList<>();
+		for (int i = 0; i < m; i += tileHeight) {
+			for (int j = 0; j < n; j += tileWidth) {
+				tiles.add(new int[] { i, Math.min(i + tileHeight, m), j, Math.min(j + tileWidth, n) });
+			}
+		}
+		return tiles;
+	}
+
+	private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.forkJoinPool = ForkJoinPool.commonPool();
+	}
+
+	private static class GemmTask extends RecursiveAction {
+
+		/**
+		 * Default serialization id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private final List<int[]> tiles;
+		private final int start;
+		private final int end;
+		private final int k;
+		private final float[] a;
+		private final int aOffset;
+		private final int lda;
+		private final float[] b;
+		private final int bOffset;
+		private final int ldb;
+		private final float[] c;
+		private final int cOffset;
+		private final int ldc;
+
+		GemmTask(List<int[]> tiles, int start, int end, int k, float[] a, int aOffset, int lda, float[] b,
+				int bOffset, int ldb, float[] c, int cOffset, int ldc) {
+			this.tiles = tiles;
+			this.start = start;
+			this.end = end;
+			this.k = k;
+			this.a = a;
+			this.aOffset = aOffset;
+			this.lda = lda;
+			this.b = b;
+			this.bOffset = bOffset;
+			this.ldb = ldb;
+			this.c = c;
+			this.cOffset = cOffset;
+			this.ldc = ldc;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= 1) {
+				for (int i = start; i < end; i++) {
+					int[] tile = tiles.get(i);
+					GemmKernels.gemmTile(tile[0], tile[1], tile[2], tile[3], k, a, aOffset, lda, b, bOffset, ldb, c,
+							cOffset, ldc);
+				}
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new GemmTask(tiles, start, middle, k, a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc),
+						new GemmTask(tiles, middle, end, k, a, aOffset, lda, b, bOffset, ldb, c, cOffset, ldc));
+			}
+		}
+	}
+}
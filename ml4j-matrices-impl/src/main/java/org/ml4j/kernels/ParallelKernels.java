@@ -0,0 +1,410 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-threaded versions of the FloatArrayKernels and ActivationKernels, which divide matrices
+ * larger than a threshold into stripes of rows, columns or elements and process the stripes on a
+ * configurable ForkJoinPool.
+ * 
+ * Each element, row or column is computed by a single thread in the same order as the
+ * single-threaded kernel, so results do not depend on the number of threads. The sum and argmax of
+ * a whole matrix are reduced over stripes of a fixed length, combined in a fixed tree, so they too
+ * are reproducible from run to run and from pool to pool.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelKernels implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The default number of elements below which an operation is performed on the calling thread.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * The length of the stripes whose partial sums and argmaxs are combined by sum and argmax.
+	 */
+	public static final int REDUCTION_STRIPE_LENGTH = 1 << 13;
+
+	/**
+	 * The number of stripes per thread, so that stripes balance across the threads.
+	 */
+	private static final int STRIPES_PER_THREAD = 4;
+
+	private transient ForkJoinPool forkJoinPool;
+	private int parallelThreshold;
+
+	/**
+	 * Creates ParallelKernels using the common ForkJoinPool.
+	 */
+	public ParallelKernels() {
+		this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * @param forkJoinPool      The pool on which stripes are processed.
+	 * @param parallelThreshold The number of elements below which an operation is performed on the
+	 *                          calling thread.
+	 */
+	public ParallelKernels(ForkJoinPool forkJoinPool, int parallelThreshold) {
+		this.forkJoinPool = forkJoinPool;
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * @param length The number of elements of an operation.
+	 * @return Whether the operation is divided between threads.
+	 */
+	public boolean isParallel(int length) {
+		return length >= parallelThreshold && forkJoinPool.getParallelism() > 1;
+	}
+
+	/**
+	 * As FloatArrayKernels.elementwise.
+	 */
+	public void elementwise(BinaryOperation operation, float[] first, float[] second, float[] result, int length) {
+		if (!isParallel(length)) {
+			FloatArrayKernels.elementwise(operation, first, second, result, 0, length);
+		} else {
+			stripe(length, 1, (start, end) -> FloatArrayKernels.elementwise(operation, first, second, result, start,
+					end));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.scalar.
+	 */
+	public void scalar(BinaryOperation operation, float[] values, float value, float[] result, int length) {
+		if (!isParallel(length)) {
+			FloatArrayKernels.scalar(operation, values, value, result, 0, length);
+		} else {
+			stripe(length, 1, (start, end) -> FloatArrayKernels.scalar(operation, values, value, result, start, end));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.columnVector, striped by rows.
+	 */
+	public void columnVector(BinaryOperation operation, float[] values, float[] vector, float[] result, int rows,
+			int columns) {
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.columnVector(operation, values, vector, result, 0, rows, columns);
+		} else {
+			stripe(rows, columns, (start, end) -> FloatArrayKernels.columnVector(operation, values, vector, result,
+					start, end, columns));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.rowVector, striped by rows.
+	 */
+	public void rowVector(BinaryOperation operation, float[] values, float[] vector, float[] result, int rows,
+			int columns) {
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.rowVector(operation, values, vector, result, 0, rows, columns);
+		} else {
+			stripe(rows, columns, (start, end) -> FloatArrayKernels.rowVector(operation, values, vector, result,
+					start, end, columns));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.rowSums, striped by rows.
+	 */
+	public void rowSums(float[] values, int rows, int columns, float[] result) {
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.rowSums(values, 0, rows, columns, result);
+		} else {
+			stripe(rows, columns, (start, end) -> FloatArrayKernels.rowSums(values, start, end, columns, result));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.columnSums, striped by columns.
+	 */
+	public void columnSums(float[] values, int rows, int columns, float[] result) {
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.columnSums(values, rows, columns, 0, columns, result);
+		} else {
+			stripe(columns, rows,
+					(start, end) -> FloatArrayKernels.columnSums(values, rows, columns, start, end, result));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.columnArgmaxs, striped by columns.
+	 */
+	public int[] columnArgmaxs(float[] values, int rows, int columns) {
+		int[] argmaxs = new int[columns];
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.columnArgmaxs(values, rows, columns, 0, columns, argmaxs);
+		} else {
+			stripe(columns, rows,
+					(start, end) -> FloatArrayKernels.columnArgmaxs(values, rows, columns, start, end, argmaxs));
+		}
+		return argmaxs;
+	}
+
+	/**
+	 * As ActivationKernel.softmaxColumns, striped by columns.
+	 */
+	public void softmaxColumns(float[] values, float[] result, int rows, int columns) {
+		if (!isParallel(rows * columns)) {
+			ActivationKernel.softmaxColumns(values, result, rows, columns, 0, columns);
+		} else {
+			stripe(columns, rows,
+					(start, end) -> ActivationKernel.softmaxColumns(values, result, rows, columns, start, end));
+		}
+	}
+
+	/**
+	 * As ActivationKernel.apply.
+	 */
+	public void activation(ActivationKernel kernel, float[] values, float[] result, int length) {
+		if (!isParallel(length)) {
+			kernel.apply(values, result, 0, length);
+		} else {
+			stripe(length, 1, (start, end) -> kernel.apply(values, result, start, end));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.exp.
+	 */
+	public void exp(float[] values, float[] result, int length) {
+		if (!isParallel(length)) {
+			FloatArrayKernels.exp(values, result, 0, length);
+		} else {
+			stripe(length, 1, (start, end) -> FloatArrayKernels.exp(values, result, start, end));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.log.
+	 */
+	public void log(float[] values, float[] result, int length) {
+		if (!isParallel(length)) {
+			FloatArrayKernels.log(values, result, 0, length);
+		} else {
+			stripe(length, 1, (start, end) -> FloatArrayKernels.log(values, result, start, end));
+		}
+	}
+
+	/**
+	 * As FloatArrayKernels.transpose, striped by blocks of TRANSPOSE_TILE rows so that each thread
+	 * writes whole tiles of distinct columns of the result.
+	 */
+	public void transpose(float[] values, int rows, int columns, float[] result) {
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.transpose(values, rows, columns, result, 0, rows);
+		} else {
+			int tile = FloatArrayKernels.TRANSPOSE_TILE;
+			stripe((rows + tile - 1) / tile, tile * columns, (start, end) -> FloatArrayKernels.transpose(values,
+					rows, columns, result, start * tile, Math.min(end * tile, rows)));
+		}
+	}
+
+	/**
+	 * Copies a row-major matrix into an array per row, striped by rows.
+	 */
+	public void toRows(float[] values, int rows, int columns, float[][] result) {
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.toRows(values, columns, result, 0, rows);
+		} else {
+			stripe(rows, columns, (start, end) -> FloatArrayKernels.toRows(values, columns, result, start, end));
+		}
+	}
+
+	/**
+	 * Copies an array per row into a row-major matrix, striped by rows.
+	 */
+	public void fromRows(float[][] values, int rows, int columns, float[] result) {
+		if (!isParallel(rows * columns)) {
+			FloatArrayKernels.fromRows(values, columns, result, 0, rows);
+		} else {
+			stripe(rows, columns, (start, end) -> FloatArrayKernels.fromRows(values, columns, result, start, end));
+		}
+	}
+
+	/**
+	 * Runs independent tasks, which together process length values, dividing the tasks between the
+	 * threads of the pool when length is large enough.
+	 * 
+	 * @param tasks  The tasks, which must not write to the same values.
+	 * @param length The number of values processed by all the tasks.
+	 */
+	public void run(List<Runnable> tasks, int length) {
+		if (!isParallel(length) || tasks.size() <= 1) {
+			tasks.forEach(Runnable::run);
+		} else {
+			stripe(tasks.size(), length / tasks.size(), (start, end) -> {
+				for (int i = start; i < end; i++) {
+					tasks.get(i).run();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Sums the values by summing stripes of REDUCTION_STRIPE_LENGTH values and adding the partial sums
+	 * pairwise, whether or not the stripes are summed in parallel.
+	 * 
+	 * @param values The values.
+	 * @param length The number of values.
+	 * @return The sum.
+	 */
+	public float sum(float[] values, int length) {
+		if (length <= REDUCTION_STRIPE_LENGTH) {
+			return FloatArrayKernels.sum(values, length);
+		}
+		float[] partialSums = new float[(length + REDUCTION_STRIPE_LENGTH - 1) / REDUCTION_STRIPE_LENGTH];
+		ReductionStripeOperation partialSum = stripeIndex -> {
+			int start = stripeIndex * REDUCTION_STRIPE_LENGTH;
+			partialSums[stripeIndex] = FloatArrayKernels.sum(values, start,
+					Math.min(start + REDUCTION_STRIPE_LENGTH, length));
+		};
+		reduceStripes(partialSums.length, length, partialSum);
+		for (int width = 1; width < partialSums.length; width *= 2) {
+			for (int i = 0; i + width < partialSums.length; i += 2 * width) {
+				partialSums[i] += partialSums[i + width];
+			}
+		}
+		return partialSums[0];
+	}
+
+	/**
+	 * Finds the first maximum of each stripe of REDUCTION_STRIPE_LENGTH values, then the first maximum
+	 * of the stripe maxima in stripe order, so that for values without NaNs the result is that of
+	 * FloatArrayKernels.argmax.
+	 * 
+	 * @param values The values.
+	 * @param length The number of values.
+	 * @return The index of the first maximum value, or -1 if length is zero.
+	 */
+	public int argmax(float[] values, int length) {
+		if (length <= REDUCTION_STRIPE_LENGTH) {
+			return FloatArrayKernels.argmax(values, length);
+		}
+		int[] partialArgmaxs = new int[(length + REDUCTION_STRIPE_LENGTH - 1) / REDUCTION_STRIPE_LENGTH];
+		ReductionStripeOperation partialArgmax = stripeIndex -> {
+			int start = stripeIndex * REDUCTION_STRIPE_LENGTH;
+			partialArgmaxs[stripeIndex] = FloatArrayKernels.argmax(values, start,
+					Math.min(start + REDUCTION_STRIPE_LENGTH, length));
+		};
+		reduceStripes(partialArgmaxs.length, length, partialArgmax);
+		int argmax = partialArgmaxs[0];
+		for (int i = 1; i < partialArgmaxs.length; i++) {
+			if (values[partialArgmaxs[i]] > values[argmax]) {
+				argmax = partialArgmaxs[i];
+			}
+		}
+		return argmax;
+	}
+
+	private void reduceStripes(int stripes, int length, ReductionStripeOperation operation) {
+		if (!isParallel(length)) {
+			for (int i = 0; i < stripes; i++) {
+				operation.apply(i);
+			}
+		} else {
+			stripe(stripes, REDUCTION_STRIPE_LENGTH, (start, end) -> {
+				for (int i = start; i < end; i++) {
+					operation.apply(i);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Divides the range from 0 to count between the threads of the pool.
+	 * 
+	 * @param count        The number of rows, columns or elements.
+	 * @param lengthOfEach The number of elements in each row, column or element.
+	 * @param operation    The operation to apply to each stripe.
+	 */
+	private void stripe(int count, int lengthOfEach, StripeOperation operation) {
+		int stripes = forkJoinPool.getParallelism() * STRIPES_PER_THREAD;
+		// Stripes of at least a few thousand elements, so that the task overhead is amortised
+		int minimumStripeSize = Math.max(1, (REDUCTION_STRIPE_LENGTH / 2) / Math.max(1, lengthOfEach));
+		int stripeSize = Math.max(minimumStripeSize, (count + stripes - 1) / stripes);
+		forkJoinPool.invoke(new StripeTask(operation, 0, count, stripeSize));
+	}
+
+	private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.forkJoinPool = ForkJoinPool.commonPool();
+	}
+
+	@FunctionalInterface
+	private interface StripeOperation {
+
+		void apply(int start, int end);
+	}
+
+	@FunctionalInterface
+	private interface ReductionStripeOperation {
+
+		void apply(int stripeIndex);
+	}
+
+	private static class StripeTask extends RecursiveAction {
+
+		/**
+		 * Default serialization id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private final StripeOperation operation;
+		private final int start;
+		private final int end;
+		private final int stripeSize;
+
+		StripeTask(StripeOperation operation, int start, int end, int stripeSize) {
+			this.operation = operation;
+			this.start = start;
+			this.end = end;
+			this.stripeSize = stripeSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= stripeSize) {
+				operation.apply(start, end);
+			} else {
+				int middle = (start + end) >>> 1;
+				invokeAll(new StripeTask(operation, start, middle, stripeSize),
+						new StripeTask(operation, middle, end, stripeSize));
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.ml4j.Matrix;
+
+/**
+ * Caches the filters of weights matrices transformed by a convolution algorithm, so that they are
+ * computed once rather than on every forward pass.
+ * 
+ * Each weights matrix is weakly referenced, and its transformed filters held with a copy of the
+ * weights they were transformed from. The copy is compared with the weights on each lookup, so that
+ * updates of the weights in place are transformed again.
+ * 
+ * @author Michael Lavelle
+ * 
+ * @param <T> The type of the transformed filters.
+ */
+public class TransformedFilterCache<T> {
+
+	private final Map<Matrix, CachedFilters<T>> cache;
+	private final AtomicLong transforms;
+
+	public TransformedFilterCache() {
+		this.cache = Collections.synchronizedMap(new WeakHashMap<>());
+		this.transforms = new AtomicLong();
+	}
+
+	/**
+	 * @param weights   The weights, a row per filter.
+	 * @param shape     The shape the filters are transformed for, compared with that of the cached
+	 *                  filters by equals.
+	 * @param transform Transforms the row-major values of the weights.
+	 * @return The transformed filters, from the cache unless the weights or the shape have changed since
+	 *         they were transformed.
+	 */
+	public T getTransformedFilters(Matrix weights, Object shape, Function<float[], T> transform) {
+		float[] weightValues = weights.getRowByRowArray();
+		CachedFilters<T> cached = cache.get(weights);
+		if (cached != null && cached.shape.equals(shape) && Arrays.equals(cached.weights, weightValues)) {
+			return cached.transformedFilters;
+		}
+		T transformedFilters = transform.apply(weightValues);
+		cache.put(weights, new CachedFilters<>(weightValues.clone(), shape, transformedFilters));
+		transforms.incrementAndGet();
+		return transformedFilters;
+	}
+
+	/**
+	 * @return The number of times filters have been transformed, rather than taken from the cache.
+	 */
+	public long getTransforms() {
+		return transforms.get();
+	}
+
+	/**
+	 * @return The number of weights matrices whose transformed filters are cached.
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Discards the cached transformed filters.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * The transformed filters of a weights matrix, with a copy of the weights they were transformed from.
+	 */
+	private static class CachedFilters<T> {
+
+		private final float[] weights;
+		private final Object shape;
+		private final T transformedFilters;
+
+		CachedFilters(float[] weights, Object shape, T transformedFilters) {
+			this.weights = weights;
+			this.shape = shape;
+			this.transformedFilters = transformedFilters;
+		}
+	}
+}
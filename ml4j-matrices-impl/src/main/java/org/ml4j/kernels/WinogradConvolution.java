@@ -0,0 +1,317 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Convolves 3x3 filters at unit stride with the Winograd minimal filtering algorithm F(2x2,3x3),
+ * which computes each 2x2 tile of the output from a 4x4 tile of the input with 16 multiplications
+ * rather than 36.
+ * 
+ * Each filter g is transformed to G g G^T and each input tile d to B^T d B, both 4x4. The sixteen
+ * elements of the transforms are then sixteen independent matrix multiplications of the transformed
+ * filters by the transformed tiles, summing over the channels, and each 2x2 output tile is A^T m A of
+ * the 4x4 tile m of their products.
+ * 
+ * The transformed filters are cached for each weights matrix, so that they are computed once rather
+ * than on every forward pass. The cached filters are checked against the weights on each call, and
+ * recomputed when the weights have been updated. Other shapes fall back to the direct convolution.
+ * 
+ * @author Michael Lavelle
+ */
+public class WinogradConvolution implements ConvolutionAlgorithm {
+
+	/**
+	 * The number of elements of the transformed tiles and filters.
+	 */
+	private static final int TRANSFORM_LENGTH = 16;
+
+	private final ConvolutionAlgorithm fallback;
+	private final TransformedFilterCache<float[][]> filterCache;
+
+	/**
+	 * Creates a WinogradConvolution which falls back to the direct convolution for other shapes.
+	 */
+	public WinogradConvolution() {
+		this(ConvolutionAlgorithm.DIRECT);
+	}
+
+	/**
+	 * @param fallback The algorithm for the convolutions which are not 3x3 at unit stride.
+	 */
+	public WinogradConvolution(ConvolutionAlgorithm fallback) {
+		this.fallback = fallback;
+		this.filterCache = new TransformedFilterCache<>();
+	}
+
+	/**
+	 * @param geometry The shape of a convolution.
+	 * @return Whether the convolution is 3x3 at unit stride.
+	 */
+	public static boolean isSupported(ConvolutionGeometry geometry) {
+		return geometry.getFilterHeight() == 3 && geometry.getFilterWidth() == 3 && geometry.getStrideHeight() == 1
+				&& geometry.getStrideWidth() == 1;
+	}
+
+	/**
+	 * @return The number of times filters have been transformed, rather than taken from the cache.
+	 */
+	public long getFilterTransforms() {
+		return filterCache.getTransforms();
+	}
+
+	/**
+	 * @return The number of weights matrices whose transformed filters are cached.
+	 */
+	public int getCachedFilters() {
+		return filterCache.size();
+	}
+
+	/**
+	 * Discards the cached transformed filters.
+	 */
+	public void clear() {
+		filterCache.clear();
+	}
+
+	@Override
+	public Matrix convolve(MatrixFactory matrixFactory, Matrix weights, float[] input, int examples,
+			ConvolutionGeometry geometry) {
+		if (!isSupported(geometry)) {
+			return fallback.convolve(matrixFactory, weights, input, examples, geometry);
+		}
+		if (weights.getColumns() != geometry.getPatchSize()) {
+			throw new IllegalArgumentException("Columns of weights do not match the patch size of " + geometry);
+		}
+		int filters = weights.getRows();
+		int channels = geometry.getInputDepth();
+		int outputHeight = geometry.getOutputHeight();
+		int outputWidth = geometry.getOutputWidth();
+		int tiles = ((outputHeight + 1) / 2) * ((outputWidth + 1) / 2) * examples;
+		ParallelKernels parallelKernels = matrixFactory instanceof ParallelMatrixFactory
+				? ((ParallelMatrixFactory) matrixFactory).getParallelKernels()
+				: null;
+
+		float[][] transformedFilters = filterCache.getTransformedFilters(weights, channels,
+				weightValues -> transformFilters(weightValues, filters, channels));
+
+		float[][] transformedInput = new float[TRANSFORM_LENGTH][channels * tiles];
+		if (parallelKernels != null && parallelKernels.isParallel(channels * tiles * TRANSFORM_LENGTH)) {
+			List<Runnable> tasks = new ArrayList<>();
+			for (int channel = 0; channel < channels; channel++) {
+				int start = channel;
+				tasks.add(() -> transformInput(input, examples, geometry, transformedInput, start, start + 1));
+			}
+			parallelKernels.run(tasks, channels * tiles * TRANSFORM_LENGTH);
+		} else {
+			transformInput(input, examples, geometry, transformedInput, 0, channels);
+		}
+
+		// Each element of the transforms is a product of the filters by the tiles, over the channels
+		float[][] products = new float[TRANSFORM_LENGTH][];
+		for (int element = 0; element < TRANSFORM_LENGTH; element++) {
+			Matrix filterMatrix = matrixFactory.createMatrixFromRowsByRowsArray(filters, channels,
+					transformedFilters[element]);
+			Matrix tileMatrix = matrixFactory.createMatrixFromRowsByRowsArray(channels, tiles,
+					transformedInput[element]);
+			transformedInput[element] = null;
+			Matrix product = filterMatrix.mmul(tileMatrix);
+			products[element] = product.getRowByRowArray();
+			filterMatrix.close();
+			tileMatrix.close();
+			product.close();
+		}
+
+		float[] output = new float[filters * outputHeight * outputWidth * examples];
+		if (parallelKernels != null && parallelKernels.isParallel(output.length)) {
+			List<Runnable> tasks = new ArrayList<>();
+			for (int filter = 0; filter < filters; filter++) {
+				int start = filter;
+				tasks.add(() -> transformOutput(products, examples, geometry, output, start, start + 1));
+			}
+			parallelKernels.run(tasks, output.length);
+		} else {
+			transformOutput(products, examples, geometry, output, 0, filters);
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(filters, outputHeight * outputWidth * examples, output);
+	}
+
+	/**
+	 * Transforms each 3x3 filter g of each channel to G g G^T, where G = [1 0 0; 1/2 1/2 1/2; 1/2 -1/2
+	 * 1/2; 0 0 1].
+	 * 
+	 * @return For each element of the transform, the row-major matrix of that element of the
+	 *         transformed filters, a row per filter and a column per channel.
+	 */
+	static float[][] transformFilters(float[] weights, int filters, int channels) {
+		float[][] transformed = new float[TRANSFORM_LENGTH][filters * channels];
+		float[] g = new float[9];
+		float[] gg = new float[12];
+		for (int filter = 0; filter < filters; filter++) {
+			for (int channel = 0; channel < channels; channel++) {
+				int index = filter * channels + channel;
+				System.arraycopy(weights, index * 9, g, 0, 9);
+				// G g, 4x3
+				for (int column = 0; column < 3; column++) {
+					float g0 = g[column];
+					float g1 = g[3 + column];
+					float g2 = g[6 + column];
+					gg[column] = g0;
+					gg[3 + column] = 0.5f * (g0 + g1 + g2);
+					gg[6 + column] = 0.5f * (g0 - g1 + g2);
+					gg[9 + column] = g2;
+				}
+				// (G g) G^T, 4x4
+				for (int row = 0; row < 4; row++) {
+					float g0 = gg[row * 3];
+					float g1 = gg[row * 3 + 1];
+					float g2 = gg[row * 3 + 2];
+					transformed[row * 4][index] = g0;
+					transformed[row * 4 + 1][index] = 0.5f * (g0 + g1 + g2);
+					transformed[row * 4 + 2][index] = 0.5f * (g0 - g1 + g2);
+					transformed[row * 4 + 3][index] = g2;
+				}
+			}
+		}
+		return transformed;
+	}
+
+	/**
+	 * Transforms each 4x4 tile d of the input channels from channelStart to channelEnd to B^T d B,
+	 * where B^T = [1 0 -1 0; 0 1 1 0; 0 -1 1 0; 0 1 0 -1]. The tiles overlap by two rows and columns,
+	 * and those positions outside the input are the zero padding.
+	 * 
+	 * @param transformed For each element of the transform, the row-major matrix of that element of
+	 *                    the transformed tiles, a row per channel and a column per (tile, example).
+	 */
+	static void transformInput(float[] input, int examples, ConvolutionGeometry geometry, float[][] transformed,
+			int channelStart, int channelEnd) {
+		int inputHeight = geometry.getInputHeight();
+		int inputWidth = geometry.getInputWidth();
+		int paddingHeight = geometry.getPaddingHeight();
+		int paddingWidth = geometry.getPaddingWidth();
+		int tileRows = (geometry.getOutputHeight() + 1) / 2;
+		int tileColumns = (geometry.getOutputWidth() + 1) / 2;
+		int tiles = tileRows * tileColumns * examples;
+		float[] d = new float[TRANSFORM_LENGTH];
+		float[] t = new float[TRANSFORM_LENGTH];
+		for (int channel = channelStart; channel < channelEnd; channel++) {
+			int channelStartIndex = channel * inputHeight * inputWidth * examples;
+			for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+				for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+					int y0 = tileRow * 2 - paddingHeight;
+					int x0 = tileColumn * 2 - paddingWidth;
+					int column = channel * tiles + (tileRow * tileColumns + tileColumn) * examples;
+					for (int example = 0; example < examples; example++) {
+						for (int i = 0; i < 4; i++) {
+							int y = y0 + i;
+							for (int j = 0; j < 4; j++) {
+								int x = x0 + j;
+								d[i * 4 + j] = y < 0 || y >= inputHeight || x < 0 || x >= inputWidth ? 0f
+										: input[channelStartIndex + (y * inputWidth + x) * examples + example];
+							}
+						}
+						// B^T d
+						for (int j = 0; j < 4; j++) {
+							float d0 = d[j];
+							float d1 = d[4 + j];
+							float d2 = d[8 + j];
+							float d3 = d[12 + j];
+							t[j] = d0 - d2;
+							t[4 + j] = d1 + d2;
+							t[8 + j] = d2 - d1;
+							t[12 + j] = d1 - d3;
+						}
+						// (B^T d) B
+						for (int i = 0; i < 4; i++) {
+							float t0 = t[i * 4];
+							float t1 = t[i * 4 + 1];
+							float t2 = t[i * 4 + 2];
+							float t3 = t[i * 4 + 3];
+							transformed[i * 4][column + example] = t0 - t2;
+							transformed[i * 4 + 1][column + example] = t1 + t2;
+							transformed[i * 4 + 2][column + example] = t2 - t1;
+							transformed[i * 4 + 3][column + example] = t1 - t3;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Transforms each 4x4 tile m of the products of the filters from filterStart to filterEnd to the
+	 * 2x2 output tile A^T m A, where A^T = [1 1 1 0; 0 1 -1 -1], omitting those positions of the last
+	 * row and column of tiles outside an output of odd height or width.
+	 * 
+	 * @param products For each element of the transform, the row-major matrix of the products, a row
+	 *                 per filter and a column per (tile, example).
+	 * @param output   The row-major output, a row per filter and a column per (output position,
+	 *                 example).
+	 */
+	static void transformOutput(float[][] products, int examples, ConvolutionGeometry geometry, float[] output,
+			int filterStart, int filterEnd) {
+		int outputHeight = geometry.getOutputHeight();
+		int outputWidth = geometry.getOutputWidth();
+		int tileRows = (outputHeight + 1) / 2;
+		int tileColumns = (outputWidth + 1) / 2;
+		int tiles = tileRows * tileColumns * examples;
+		int outputChannelLength = outputHeight * outputWidth * examples;
+		float[] m = new float[TRANSFORM_LENGTH];
+		float[] s = new float[8];
+		for (int filter = filterStart; filter < filterEnd; filter++) {
+			int outputStart = filter * outputChannelLength;
+			for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+				for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+					int column = filter * tiles + (tileRow * tileColumns + tileColumn) * examples;
+					int outputY = tileRow * 2;
+					int outputX = tileColumn * 2;
+					boolean secondRow = outputY + 1 < outputHeight;
+					boolean secondColumn = outputX + 1 < outputWidth;
+					for (int example = 0; example < examples; example++) {
+						for (int element = 0; element < TRANSFORM_LENGTH; element++) {
+							m[element] = products[element][column + example];
+						}
+						// A^T m
+						for (int j = 0; j < 4; j++) {
+							float m1 = m[4 + j];
+							float m2 = m[8 + j];
+							s[j] = m[j] + m1 + m2;
+							s[4 + j] = m1 - m2 - m[12 + j];
+						}
+						// (A^T m) A
+						int index = outputStart + (outputY * outputWidth + outputX) * examples + example;
+						output[index] = s[0] + s[1] + s[2];
+						if (secondColumn) {
+							output[index + examples] = s[1] - s[2] - s[3];
+						}
+						if (secondRow) {
+							index += outputWidth * examples;
+							output[index] = s[4] + s[5] + s[6];
+							if (secondColumn) {
+								output[index + examples] = s[5] - s[6] - s[7];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -17,10 +17,14 @@ package org.ml4j.nd4j;
 import org.ml4j.EditableMatrix;
 import org.ml4j.InterrimMatrix;
 import org.ml4j.Matrix;
-import org.ml4j.jblas.JBlasRowMajorMatrix;
+import org.ml4j.activations.ActivationFunctionMatrix;
+import org.ml4j.bridge.MatrixBridge;
 import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.sparse.SparseMatrix;
+import org.ml4j.views.ColumnRangeMatrix;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.ops.transforms.Transforms;
 
 /**
@@ -28,16 +32,29 @@ import org.nd4j.linalg.ops.transforms.Transforms;
  * 
  * @author Michael Lavelle
  */
-public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatrix {
+public class Nd4jRowMajorMatrix
+		implements Matrix, EditableMatrix, InterrimMatrix, ActivationFunctionMatrix, ColumnRangeMatrix {
 
 	/**
 	 * Default serialization id.
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The factory of the JBlas matrices to which operations not yet implemented with ND4J are
+	 * delegated.
+	 */
+	private static final JBlasRowMajorMatrixFactory JBLAS_MATRIX_FACTORY = new JBlasRowMajorMatrixFactory();
+
 	public INDArray matrix;
 	private boolean immutable;
 
+	/**
+	 * Whether the INDArray of this matrix is a view sharing the buffer of another matrix, so must be
+	 * copied before this matrix is changed in place.
+	 */
+	private boolean copyOnWrite;
+
 	public Nd4jRowMajorMatrix(INDArray matrix, boolean immutable) {
 		this.matrix = matrix;
 		this.immutable = immutable;
@@ -51,7 +68,20 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 	}
 
 	/**
-	 * Create a new n4j4j INDArray from the Matrix.
+	 * @return The INDArray of this matrix, first copied into a buffer of its own if it is a view of
+	 *         another matrix.
+	 */
+	private INDArray getEditableIndArray() {
+		INDArray indArray = getIndArray();
+		if (copyOnWrite) {
+			this.matrix = indArray.dup('c');
+			this.copyOnWrite = false;
+		}
+		return matrix;
+	}
+
+	/**
+	 * Create a new n4j4j INDArray from the Matrix, sharing its storage where MatrixBridge allows.
 	 * 
 	 * @param matrix The matrix we want to convert to a INDArray.
 	 * @return The resulting INDArray.
@@ -59,10 +89,8 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 	private INDArray getNd4jIndArray(Matrix matrix) {
 		if (matrix instanceof Nd4jRowMajorMatrix) {
 			return ((Nd4jRowMajorMatrix) matrix).getIndArray();
-		} else if (matrix instanceof JBlasRowMajorMatrix) {
-			return Nd4j.create(matrix.dup().getRowByRowArray(), new int[] { matrix.getRows(), matrix.getColumns() });
 		} else {
-			throw new UnsupportedOperationException("Only Nd4j and JBlas matrices currently supported");
+			return MatrixBridge.asIndArray(matrix);
 		}
 	}
 
@@ -70,6 +98,16 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 		return new Nd4jRowMajorMatrix(matrix, immutable);
 	}
 
+	/**
+	 * @param view A view sharing the buffer of this matrix.
+	 * @return A matrix reading the view, which copies the view before it is changed in place.
+	 */
+	protected Nd4jRowMajorMatrix createNd4jView(INDArray view) {
+		Nd4jRowMajorMatrix matrix = createNd4jMatrix(view, false);
+		matrix.copyOnWrite = true;
+		return matrix;
+	}
+
 	@Override
 	public Matrix add(Matrix other) {
 		return createNd4jMatrix(matrix.add(getNd4jIndArray(other)), false);
@@ -82,13 +120,13 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 
 	@Override
 	public EditableMatrix addi(Matrix other) {
-		this.matrix = matrix.addi(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().addi(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix addi(float value) {
-		this.matrix = this.matrix.addi(value);
+		this.matrix = getEditableIndArray().addi(value);
 		return this;
 	}
 
@@ -104,25 +142,27 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 
 	@Override
 	public EditableMatrix divi(float value) {
-		this.matrix = matrix.divi(value);
+		this.matrix = getEditableIndArray().divi(value);
 		return this;
 	}
 
 	@Override
 	public EditableMatrix divi(Matrix other) {
-		this.matrix = matrix.divi(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().divi(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix diviColumnVector(Matrix other) {
-		this.matrix = matrix.diviColumnVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().diviColumnVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public float get(int index) {
-		return matrix.getFloat(index);
+		// Indexed by row and column, as the INDArray may be a view in column-major order
+		int columns = matrix.columns();
+		return matrix.getFloat(index / columns, index % columns);
 	}
 
 	@Override
@@ -158,39 +198,39 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 	@Override
 	public EditableMatrix muli(Matrix other) {
 
-		this.matrix = matrix.muli(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().muli(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix muli(float value) {
-		this.matrix = matrix.muli(value);
+		this.matrix = getEditableIndArray().muli(value);
 		return this;
 	}
 
 	@Override
 	public void put(int index, float value) {
-		matrix.putScalar(index, value);
+		getEditableIndArray().putScalar(index, value);
 	}
 
 	@Override
 	public void put(int row, int col, float value) {
-		matrix.putScalar(row, col, value);
+		getEditableIndArray().putScalar(row, col, value);
 	}
 
 	@Override
 	public void putColumn(int columnIndex, Matrix other) {
-		matrix.putColumn(columnIndex, getNd4jIndArray(other));
+		getEditableIndArray().putColumn(columnIndex, getNd4jIndArray(other));
 	}
 
 	@Override
 	public void putRow(int rowIndex, Matrix other) {
-		matrix.putRow(rowIndex, getNd4jIndArray(other));
+		getEditableIndArray().putRow(rowIndex, getNd4jIndArray(other));
 	}
 
 	@Override
 	public void reshape(int newRows, int newColumns) {
-		this.matrix = matrix.reshape(newRows, newColumns);
+		this.matrix = matrix.reshape('c', newRows, newColumns);
 	}
 
 	@Override
@@ -200,7 +240,7 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 
 	@Override
 	public EditableMatrix subi(Matrix other) {
-		this.matrix = matrix.subi(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().subi(getNd4jIndArray(other));
 		return this;
 	}
 
@@ -243,6 +283,79 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 		return createNd4jMatrix(result, false);
 	}
 
+	@Override
+	public EditableMatrix sigmoidi() {
+		this.matrix = Transforms.sigmoid(getEditableIndArray(), false);
+		return this;
+	}
+
+	@Override
+	public Matrix sigmoidGradient() {
+		return createNd4jMatrix(matrix.rsub(1).muli(matrix), false);
+	}
+
+	@Override
+	public EditableMatrix sigmoidGradienti() {
+		this.matrix = getEditableIndArray().muli(matrix.rsub(1));
+		return this;
+	}
+
+	@Override
+	public Matrix tanh() {
+		return createNd4jMatrix(Transforms.tanh(matrix), false);
+	}
+
+	@Override
+	public EditableMatrix tanhi() {
+		this.matrix = Transforms.tanh(getEditableIndArray(), false);
+		return this;
+	}
+
+	@Override
+	public Matrix tanhGradient() {
+		return createNd4jMatrix(matrix.mul(matrix).rsubi(1), false);
+	}
+
+	@Override
+	public EditableMatrix tanhGradienti() {
+		this.matrix = getEditableIndArray().muli(matrix).rsubi(1);
+		return this;
+	}
+
+	@Override
+	public Matrix relu() {
+		return createNd4jMatrix(Transforms.relu(matrix), false);
+	}
+
+	@Override
+	public EditableMatrix relui() {
+		this.matrix = Transforms.relu(getEditableIndArray(), false);
+		return this;
+	}
+
+	@Override
+	public Matrix reluGradient() {
+		return createNd4jMatrix(matrix.gt(0), false);
+	}
+
+	@Override
+	public EditableMatrix reluGradienti() {
+		this.matrix = getEditableIndArray().gti(0);
+		return this;
+	}
+
+	@Override
+	public Matrix softmaxColumns() {
+		// Softmax is applied along rows, so is applied to the transpose
+		return createNd4jMatrix(Transforms.softmax(matrix.transpose()).transpose(), false);
+	}
+
+	@Override
+	public EditableMatrix softmaxColumnsi() {
+		this.matrix = Transforms.softmax(getEditableIndArray().transpose(), false).transpose();
+		return this;
+	}
+
 	@Override
 	public Matrix sub(float v) {
 		return createNd4jMatrix(matrix.sub(v), false);
@@ -285,54 +398,58 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 
 	@Override
 	public EditableMatrix subi(float v) {
-		this.matrix = matrix.subi(v);
+		this.matrix = getEditableIndArray().subi(v);
 		return this;
 	}
 
 	@Override
 	public EditableMatrix subiColumnVector(Matrix other) {
-		this.matrix = matrix.subiColumnVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().subiColumnVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix subiRowVector(Matrix other) {
-		this.matrix = matrix.subiRowVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().subiRowVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix diviRowVector(Matrix other) {
-		this.matrix = matrix.diviRowVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().diviRowVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix addiRowVector(Matrix other) {
-		this.matrix = matrix.addiRowVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().addiRowVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix addiColumnVector(Matrix other) {
-		this.matrix = matrix.addiColumnVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().addiColumnVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix muliColumnVector(Matrix other) {
-		this.matrix = matrix.muliColumnVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().muliColumnVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public EditableMatrix muliRowVector(Matrix other) {
-		this.matrix = matrix.muliRowVector(getNd4jIndArray(other));
+		this.matrix = getEditableIndArray().muliRowVector(getNd4jIndArray(other));
 		return this;
 	}
 
 	@Override
 	public float[] getRowByRowArray() {
+		if (matrix.isView() || matrix.ordering() != 'c' || matrix.data().length() != matrix.length()) {
+			// Views, such as transposes, share a buffer whose layout differs from their own
+			return matrix.dup('c').data().asFloat();
+		}
 		return (float[]) matrix.data().asFloat();
 	}
 
@@ -397,8 +514,11 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 
 	@Override
 	public Matrix mmul(Matrix other) {
-		return createNd4jMatrix(getNd4jIndArray(asJBlasMatrix().mmul(asJBlasMatrix(other))), false);
-		// return createNd4jMatrix(matrix.mmul(createNd4jIndArray(other)));
+		if (other instanceof SparseMatrix) {
+			return ((SparseMatrix) other).leftMmul(this, new Nd4jRowMajorMatrixFactory());
+		}
+		// ND4J passes transposed views to BLAS with the transpose flags set rather than copying them
+		return createNd4jMatrix(matrix.mmul(getNd4jIndArray(other)), false);
 	}
 
 	@Override
@@ -430,10 +550,22 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 		return asJBlasMatrix().rowSums();
 	}
 
+	@Override
+	public Matrix getColumnRange(int start, int endExclusive) {
+		return createNd4jView(getIndArray().get(NDArrayIndex.all(), NDArrayIndex.interval(start, endExclusive)));
+	}
+
+	/**
+	 * Returns a view of the transpose of this matrix, sharing the buffer of this matrix.
+	 * 
+	 * The view aliases this matrix: changes made to this matrix in place are visible through the view,
+	 * while changes made in place to the view first copy it into a buffer of its own. Callers which
+	 * change this matrix in place while still needing its earlier transpose should take a dup() of the
+	 * transpose first.
+	 */
 	@Override
 	public Matrix transpose() {
-		// return createNd4jMatrix(matrix.transpose());
-		return createNd4jMatrix(getNd4jIndArray(asJBlasMatrix().transpose()), false);
+		return createNd4jView(getIndArray().transpose());
 	}
 
 	@Override
@@ -464,14 +596,8 @@ public class Nd4jRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatri
 	}
 
 	private Matrix asJBlasMatrix(Matrix other) {
-		if (other instanceof JBlasRowMajorMatrix) {
-			return other;
-		} else {
-			return
-			// TODO- check immutable
-			new JBlasRowMajorMatrixFactory().createMatrixFromRowsByRowsArray(other.getRows(), other.getColumns(),
-					other.getRowByRowArray());
-		}
+		// TODO- check immutable
+		return MatrixBridge.toJBlasMatrix(other, JBLAS_MATRIX_FACTORY);
 	}
 	
 	// The below methods are not yet implemented - TODO
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.purejava;
+
+import org.ml4j.EditableMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.base.RowMajorMatrixBase;
+import org.ml4j.kernels.ActivationKernel;
+import org.ml4j.kernels.BinaryOperation;
+import org.ml4j.kernels.GemmKernels;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.sparse.SparseMatrix;
+
+/**
+ * Matrix implementation storing its values in row-major order in a heap float array, with all
+ * operations implemented in Java.
+ * 
+ * @author Michael Lavelle
+ */
+public class PureJavaRowMajorMatrix extends RowMajorMatrixBase {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private float[] data;
+
+	public PureJavaRowMajorMatrix(PureJavaRowMajorMatrixFactory matrixFactory, int rows, int columns, float[] data,
+			boolean immutable) {
+		super(matrixFactory, rows, columns, immutable);
+		if (data.length != rows * columns) {
+			throw new IllegalArgumentException("Passed data must match matrix dimensions.");
+		}
+		this.data = data;
+	}
+
+	/**
+	 * @return The row-major values of this matrix, which are shared with the caller.
+	 */
+	public float[] getData() {
+		ensureOpen();
+		markStorageShared();
+		return data;
+	}
+
+	@Override
+	protected float getValue(int index) {
+		return data[index];
+	}
+
+	@Override
+	protected void putValue(int index, float value) {
+		data[index] = value;
+	}
+
+	@Override
+	protected void getValues(float[] target, int targetIndex) {
+		System.arraycopy(data, 0, target, targetIndex, getLength());
+	}
+
+	@Override
+	protected void getValues(int start, int end, float[] target, int targetIndex) {
+		System.arraycopy(data, start, target, targetIndex, end - start);
+	}
+
+	@Override
+	protected void putValues(float[] source, int sourceIndex) {
+		System.arraycopy(source, sourceIndex, data, 0, getLength());
+	}
+
+	@Override
+	protected float[] getRowByRowValues(Matrix other) {
+		if (other instanceof PureJavaRowMajorMatrix) {
+			PureJavaRowMajorMatrix pureJavaMatrix = (PureJavaRowMajorMatrix) other;
+			pureJavaMatrix.ensureOpen();
+			return pureJavaMatrix.data;
+		}
+		return super.getRowByRowValues(other);
+	}
+
+	@Override
+	protected void releaseStorage() {
+		data = null;
+	}
+
+	@Override
+	protected RowMajorMatrixBase createSoftDup() {
+		return new PureJavaRowMajorMatrix((PureJavaRowMajorMatrixFactory) matrixFactory, rows, columns, data, false);
+	}
+
+	private PureJavaRowMajorMatrix createPureJavaMatrix(int rows, int columns, float[] data) {
+		return allocated(
+				new PureJavaRowMajorMatrix((PureJavaRowMajorMatrixFactory) matrixFactory, rows, columns, data, false));
+	}
+
+	private ParallelKernels getParallelKernels() {
+		return ((PureJavaRowMajorMatrixFactory) matrixFactory).getParallelKernels();
+	}
+
+	private float[] getTargetData(RowMajorMatrixBase target) {
+		return ((PureJavaRowMajorMatrix) target).data;
+	}
+
+	@Override
+	protected void applyElementwise(BinaryOperation operation, Matrix other, RowMajorMatrixBase target) {
+		ensureOpen();
+		checkSameShape(other);
+		getParallelKernels().elementwise(operation, data, getRowByRowValues(other), getTargetData(target), getLength());
+	}
+
+	@Override
+	protected void applyScalar(BinaryOperation operation, float value, RowMajorMatrixBase target) {
+		ensureOpen();
+		getParallelKernels().scalar(operation, data, value, getTargetData(target), getLength());
+	}
+
+	@Override
+	protected void applyColumnVector(BinaryOperation operation, Matrix other, RowMajorMatrixBase target) {
+		ensureOpen();
+		checkColumnVector(other);
+		getParallelKernels().columnVector(operation, data, getRowByRowValues(other), getTargetData(target), rows,
+				columns);
+	}
+
+	@Override
+	protected void applyRowVector(BinaryOperation operation, Matrix other, RowMajorMatrixBase target) {
+		ensureOpen();
+		checkRowVector(other);
+		getParallelKernels().rowVector(operation, data, getRowByRowValues(other), getTargetData(target), rows,
+				columns);
+	}
+
+	@Override
+	public Matrix mmul(Matrix other) {
+		return mmul(other, false);
+	}
+
+	/**
+	 * @param other      The matrix to multiply by.
+	 * @param sequential Whether to multiply on the calling thread, eg. when the caller is already
+	 *                   multiplying a batch of matrices in parallel.
+	 * @return this.other
+	 */
+	Matrix mmul(Matrix other, boolean sequential) {
+		ensureOpen();
+		if (other instanceof SparseMatrix) {
+			return ((SparseMatrix) other).leftMmul(this, matrixFactory);
+		}
+		if (other.getRows() != columns) {
+			throw new IllegalArgumentException("Columns of this matrix do not match rows of other matrix");
+		}
+		int resultColumns = other.getColumns();
+		float[] result = new float[rows * resultColumns];
+		if (sequential) {
+			GemmKernels.gemm(rows, resultColumns, columns, data, 0, columns, getRowByRowValues(other), 0,
+					resultColumns, result, 0, resultColumns);
+		} else {
+			((PureJavaRowMajorMatrixFactory) matrixFactory).getParallelGemm().gemm(rows, resultColumns, columns,
+					data, 0, columns, getRowByRowValues(other), 0, resultColumns, result, 0, resultColumns);
+		}
+		return createPureJavaMatrix(rows, resultColumns, result);
+	}
+
+	@Override
+	public Matrix rowSums() {
+		ensureOpen();
+		float[] result = new float[rows];
+		getParallelKernels().rowSums(data, rows, columns, result);
+		return createPureJavaMatrix(rows, 1, result);
+	}
+
+	@Override
+	public Matrix columnSums() {
+		ensureOpen();
+		float[] result = new float[columns];
+		getParallelKernels().columnSums(data, rows, columns, result);
+		return createPureJavaMatrix(1, columns, result);
+	}
+
+	@Override
+	public int[] columnArgmaxs() {
+		ensureOpen();
+		return getParallelKernels().columnArgmaxs(data, rows, columns);
+	}
+
+	@Override
+	public int argmax() {
+		ensureOpen();
+		return getParallelKernels().argmax(data, getLength());
+	}
+
+	@Override
+	public float sum() {
+		ensureOpen();
+		return getParallelKernels().sum(data, getLength());
+	}
+
+	@Override
+	public Matrix transpose() {
+		ensureOpen();
+		float[] result = new float[getLength()];
+		getParallelKernels().transpose(data, rows, columns, result);
+		return createPureJavaMatrix(columns, rows, result);
+	}
+
+	@Override
+	public float[] toColumnByColumnArray() {
+		ensureOpen();
+		float[] result = new float[getLength()];
+		getParallelKernels().transpose(data, rows, columns, result);
+		return result;
+	}
+
+	@Override
+	public Matrix dup() {
+		ensureOpen();
+		return createPureJavaMatrix(rows, columns, data.clone());
+	}
+
+	@Override
+	public EditableMatrix expi() {
+		ensureOpen();
+		getParallelKernels().exp(data, data, getLength());
+		return this;
+	}
+
+	@Override
+	public Matrix logi() {
+		ensureOpen();
+		getParallelKernels().log(data, data, getLength());
+		return this;
+	}
+
+	@Override
+	protected void applyActivation(ActivationKernel kernel, RowMajorMatrixBase target) {
+		ensureOpen();
+		getParallelKernels().activation(kernel, data, getTargetData(target), getLength());
+	}
+
+	@Override
+	protected void applySoftmaxColumns(RowMajorMatrixBase target) {
+		ensureOpen();
+		getParallelKernels().softmaxColumns(data, getTargetData(target), rows, columns);
+	}
+
+	@Override
+	public float[] getRowByRowArray() {
+		return getData();
+	}
+}
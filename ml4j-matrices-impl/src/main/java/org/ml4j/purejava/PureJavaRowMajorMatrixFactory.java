@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.purejava;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.ml4j.Matrix;
+import org.ml4j.base.RowMajorMatrixBase;
+import org.ml4j.base.RowMajorMatrixFactoryBase;
+import org.ml4j.batched.BatchedMmul;
+import org.ml4j.batched.BatchedMmulMatrixFactory;
+import org.ml4j.kernels.ParallelGemm;
+import org.ml4j.kernels.ParallelKernels;
+
+/**
+ * MatrixFactory creating matrices implemented in Java, without any dependency on native libraries.
+ * 
+ * Matrix multiplications, and elementwise operations, activations and reductions on large
+ * matrices, are spread across the threads of a ForkJoinPool, which defaults to the common pool. A
+ * batch of multiplications is spread across the threads a pair at a time, each pair being
+ * multiplied on a single thread.
+ * 
+ * @author Michael Lavelle
+ */
+public class PureJavaRowMajorMatrixFactory extends RowMajorMatrixFactoryBase implements BatchedMmulMatrixFactory {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private ParallelGemm parallelGemm;
+	private ParallelKernels parallelKernels;
+
+	public PureJavaRowMajorMatrixFactory() {
+		this(new ParallelGemm(), new ParallelKernels());
+	}
+
+	/**
+	 * @param forkJoinPool The pool on which matrix multiplications and operations on large matrices
+	 *                     are performed.
+	 */
+	public PureJavaRowMajorMatrixFactory(ForkJoinPool forkJoinPool) {
+		this(new ParallelGemm(forkJoinPool, ParallelGemm.DEFAULT_SEQUENTIAL_THRESHOLD),
+				new ParallelKernels(forkJoinPool, ParallelKernels.DEFAULT_PARALLEL_THRESHOLD));
+	}
+
+	public PureJavaRowMajorMatrixFactory(ParallelGemm parallelGemm) {
+		this(parallelGemm,
+				new ParallelKernels(parallelGemm.getForkJoinPool(), ParallelKernels.DEFAULT_PARALLEL_THRESHOLD));
+	}
+
+	public PureJavaRowMajorMatrixFactory(ParallelGemm parallelGemm, ParallelKernels parallelKernels) {
+		this.parallelGemm = parallelGemm;
+		this.parallelKernels = parallelKernels;
+	}
+
+	public ParallelGemm getParallelGemm() {
+		return parallelGemm;
+	}
+
+	@Override
+	public ParallelKernels getParallelKernels() {
+		return parallelKernels;
+	}
+
+	@Override
+	protected RowMajorMatrixBase createRowMajorMatrix(int rows, int columns) {
+		return new PureJavaRowMajorMatrix(this, rows, columns, new float[rows * columns], false);
+	}
+
+	@Override
+	protected RowMajorMatrixBase createRowMajorMatrix(int rows, int columns, float[] data) {
+		return new PureJavaRowMajorMatrix(this, rows, columns, data, false).markStorageShared();
+	}
+
+	@Override
+	public List<Matrix> mmul(List<Matrix> lefts, List<Matrix> rights) {
+		ForkJoinPool forkJoinPool = parallelGemm.getForkJoinPool();
+		if (lefts.size() < forkJoinPool.getParallelism()) {
+			// Too few pairs to occupy every thread, so spread each multiplication across the threads
+			BatchedMmul.checkOperands(lefts, rights);
+			List<Matrix> results = new ArrayList<>(lefts.size());
+			for (int i = 0; i < lefts.size(); i++) {
+				results.add(lefts.get(i).mmul(rights.get(i)));
+			}
+			return results;
+		}
+		return BatchedMmul.mmul(lefts, rights, forkJoinPool, PureJavaRowMajorMatrixFactory::mmulSequential);
+	}
+
+	private static Matrix mmulSequential(Matrix left, Matrix right) {
+		if (left instanceof PureJavaRowMajorMatrix) {
+			return ((PureJavaRowMajorMatrix) left).mmul(right, true);
+		}
+		return left.mmul(right);
+	}
+}
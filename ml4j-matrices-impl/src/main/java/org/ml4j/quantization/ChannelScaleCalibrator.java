@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.quantization;
+
+import org.ml4j.Matrix;
+
+/**
+ * Calibrates the int8 quantization scale of each channel of an activation, from the largest
+ * magnitude observed in a sample of activations.
+ * 
+ * Activations have a row for each feature and a column for each example, with the features of each
+ * channel in consecutive rows - for an image, a channel is a colour or feature map, and for a fully
+ * connected layer each feature is a channel of its own.
+ * 
+ * @author Michael Lavelle
+ */
+public class ChannelScaleCalibrator {
+
+	private int channels;
+	private int rowsPerChannel;
+	private float[] maxAbsoluteValues;
+
+	/**
+	 * @param channels       The number of channels.
+	 * @param rowsPerChannel The number of rows of each channel.
+	 */
+	public ChannelScaleCalibrator(int channels, int rowsPerChannel) {
+		this.channels = channels;
+		this.rowsPerChannel = rowsPerChannel;
+		this.maxAbsoluteValues = new float[channels];
+	}
+
+	/**
+	 * @param activations A sample of activations.
+	 */
+	public void observe(Matrix activations) {
+		if (activations.getRows() != channels * rowsPerChannel) {
+			throw new IllegalArgumentException("Rows do not match");
+		}
+		float[] values = activations.getRowByRowArray();
+		int channelLength = rowsPerChannel * activations.getColumns();
+		for (int channel = 0; channel < channels; channel++) {
+			float maxAbsoluteValue = maxAbsoluteValues[channel];
+			int offset = channel * channelLength;
+			for (int i = offset; i < offset + channelLength; i++) {
+				maxAbsoluteValue = Math.max(maxAbsoluteValue, Math.abs(values[i]));
+			}
+			maxAbsoluteValues[channel] = maxAbsoluteValue;
+		}
+	}
+
+	/**
+	 * @return The scale of each channel - the value represented by a quantized value of one.
+	 */
+	public float[] getScales() {
+		float[] scales = new float[channels];
+		for (int channel = 0; channel < channels; channel++) {
+			float maxAbsoluteValue = maxAbsoluteValues[channel];
+			scales[channel] = maxAbsoluteValue == 0 ? 1f : maxAbsoluteValue / Int8Kernels.MAX_QUANTIZED_VALUE;
+		}
+		return scales;
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.quantization;
+
+import java.util.Arrays;
+
+import org.ml4j.kernels.ConvolutionGeometry;
+
+/**
+ * Kernels for symmetric int8 quantization, with int32 accumulation.
+ * 
+ * @author Michael Lavelle
+ */
+public final class Int8Kernels {
+
+	/**
+	 * The largest magnitude of a quantized value - -128 is not used, so that the range is symmetric.
+	 */
+	public static final int MAX_QUANTIZED_VALUE = 127;
+
+	private static final int COLUMN_BLOCK_SIZE = 512;
+	private static final int INNER_BLOCK_SIZE = 256;
+
+	private Int8Kernels() {
+		// Static utility
+	}
+
+	/**
+	 * Quantizes a range of values as round(value / scale), clamped to +/-127.
+	 * 
+	 * @param values       The values.
+	 * @param offset       The index of the first value.
+	 * @param target       The array into which the quantized values are written.
+	 * @param targetOffset The index of the first quantized value.
+	 * @param length       The number of values.
+	 * @param scale        The value represented by a quantized value of one.
+	 */
+	public static void quantize(float[] values, int offset, byte[] target, int targetOffset, int length,
+			float scale) {
+		float inverseScale = 1f / scale;
+		for (int i = 0; i < length; i++) {
+			int quantized = Math.round(values[offset + i] * inverseScale);
+			target[targetOffset + i] = (byte) Math.max(-MAX_QUANTIZED_VALUE,
+					Math.min(MAX_QUANTIZED_VALUE, quantized));
+		}
+	}
+
+	/**
+	 * Computes rows rowStart to rowEnd of C = A.B, where A is m x k, B is k x n and C is m x n, all
+	 * stored in row-major order.
+	 * 
+	 * As each product is at most 127 * 127, the sums cannot overflow for k below 133,000.
+	 */
+	public static void gemm(byte[] a, byte[] b, int[] c, int k, int n, int rowStart, int rowEnd) {
+		for (int i = rowStart; i < rowEnd; i++) {
+			Arrays.fill(c, i * n, (i + 1) * n, 0);
+		}
+		for (int columnStart = 0; columnStart < n; columnStart += COLUMN_BLOCK_SIZE) {
+			int columnEnd = Math.min(n, columnStart + COLUMN_BLOCK_SIZE);
+			for (int innerStart = 0; innerStart < k; innerStart += INNER_BLOCK_SIZE) {
+				int innerEnd = Math.min(k, innerStart + INNER_BLOCK_SIZE);
+				int i = rowStart;
+				// Four rows of C at a time, so that each row of B is loaded once for four rows of A
+				for (; i + 4 <= rowEnd; i += 4) {
+					int c0 = i * n;
+					int c1 = c0 + n;
+					int c2 = c1 + n;
+					int c3 = c2 + n;
+					for (int p = innerStart; p < innerEnd; p++) {
+						int a0 = a[i * k + p];
+						int a1 = a[(i + 1) * k + p];
+						int a2 = a[(i + 2) * k + p];
+						int a3 = a[(i + 3) * k + p];
+						int bOffset = p * n;
+						for (int j = columnStart; j < columnEnd; j++) {
+							int bValue = b[bOffset + j];
+							c[c0 + j] += a0 * bValue;
+							c[c1 + j] += a1 * bValue;
+							c[c2 + j] += a2 * bValue;
+							c[c3 + j] += a3 * bValue;
+						}
+					}
+				}
+				for (; i < rowEnd; i++) {
+					int cOffset = i * n;
+					for (int p = innerStart; p < innerEnd; p++) {
+						int aValue = a[i * k + p];
+						int bOffset = p * n;
+						for (int j = columnStart; j < columnEnd; j++) {
+							c[cOffset + j] += aValue * b[bOffset + j];
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes rows rowStart to rowEnd of C = A.B as for gemm, but with B supplied transposed, as an
+	 * n x k matrix in row-major order, so that each element of C is a contiguous dot product. This is
+	 * faster than gemm when n is small, such as for a fully connected layer at a small batch size.
+	 */
+	public static void gemmTransposedB(byte[] a, byte[] bTransposed, int[] c, int k, int n, int rowStart,
+			int rowEnd) {
+		for (int i = rowStart; i < rowEnd; i++) {
+			int aOffset = i * k;
+			for (int j = 0; j < n; j++) {
+				int bOffset = j * k;
+				int sum = 0;
+				for (int p = 0; p < k; p++) {
+					sum += a[aOffset + p] * bTransposed[bOffset + p];
+				}
+				c[i * n + j] = sum;
+			}
+		}
+	}
+
+	/**
+	 * @param values  A rows x columns matrix in row-major order.
+	 * @param rows    The number of rows.
+	 * @param columns The number of columns.
+	 * @return The transpose, in row-major order.
+	 */
+	public static byte[] transpose(byte[] values, int rows, int columns) {
+		byte[] transposed = new byte[values.length];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				transposed[j * rows + i] = values[i * columns + j];
+			}
+		}
+		return transposed;
+	}
+
+	/**
+	 * Lays out the patches of a batch of quantized images as the columns of a matrix, so that a
+	 * convolution becomes a single matrix multiplication.
+	 * 
+	 * The input has a row for each input value and a column for each example. The output has a row for
+	 * each (channel, filter row, filter column) and a column for each (output position, example), so
+	 * that the product of the filters with it is in the row-major order of the convolution output.
+	 * Padding is written as zero, which is exact under symmetric quantization.
+	 * 
+	 * @param input    The quantized input, in row-major order.
+	 * @param examples The number of examples.
+	 * @param geometry The shape of the convolution.
+	 * @param columns  The array of length patch size x output channel size x examples to write to.
+	 */
+	public static void im2col(byte[] input, int examples, ConvolutionGeometry geometry, byte[] columns) {
+		int inputHeight = geometry.getInputHeight();
+		int inputWidth = geometry.getInputWidth();
+		int outputHeight = geometry.getOutputHeight();
+		int outputWidth = geometry.getOutputWidth();
+		int rowLength = geometry.getOutputChannelSize() * examples;
+		int row = 0;
+		for (int channel = 0; channel < geometry.getInputDepth(); channel++) {
+			for (int filterY = 0; filterY < geometry.getFilterHeight(); filterY++) {
+				for (int filterX = 0; filterX < geometry.getFilterWidth(); filterX++) {
+					int target = row * rowLength;
+					for (int outputY = 0; outputY < outputHeight; outputY++) {
+						int y = outputY * geometry.getStrideHeight() - geometry.getPaddingHeight() + filterY;
+						for (int outputX = 0; outputX < outputWidth; outputX++) {
+							int x = outputX * geometry.getStrideWidth() - geometry.getPaddingWidth() + filterX;
+							if (y < 0 || y >= inputHeight || x < 0 || x >= inputWidth) {
+								Arrays.fill(columns, target, target + examples, (byte) 0);
+							} else {
+								System.arraycopy(input, ((channel * inputHeight + y) * inputWidth + x) * examples,
+										columns, target, examples);
+							}
+							target += examples;
+						}
+					}
+					row++;
+				}
+			}
+		}
+	}
+}
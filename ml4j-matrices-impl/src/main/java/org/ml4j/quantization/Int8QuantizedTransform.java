@@ -0,0 +1,249 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.quantization;
+
+import java.io.Serializable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ConvolutionGeometry;
+import org.ml4j.kernels.ParallelMatrixFactory;
+
+/**
+ * An inference-only, int8 quantized version of the linear part of a fully connected or
+ * convolutional layer - the product of the weights with the input, plus the biases.
+ * 
+ * Each input channel is quantized with its own calibrated scale. These scales are folded into the
+ * weights, which are then quantized with a scale per output channel, so the products of the
+ * quantized values are summed exactly in int32 and dequantized once per output value.
+ * 
+ * A fully connected transform is a pointwise convolution over 1x1 images, with a channel for each
+ * input feature.
+ * 
+ * @author Michael Lavelle
+ */
+public class Int8QuantizedTransform implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of multiply-adds below which the product is computed on the calling thread.
+	 */
+	private static final long SEQUENTIAL_THRESHOLD = 64L * 64L * 64L;
+
+	/**
+	 * The number of im2col columns below which the product is computed as dot products.
+	 */
+	private static final int DOT_PRODUCT_COLUMN_THRESHOLD = 32;
+
+	private ConvolutionGeometry geometry;
+	private int outputChannels;
+	private byte[] weights;
+	private float[] weightScales;
+	private float[] inputScales;
+	private float[] biases;
+
+	private Int8QuantizedTransform(ConvolutionGeometry geometry, int outputChannels, byte[] weights,
+			float[] weightScales, float[] inputScales, float[] biases) {
+		this.geometry = geometry;
+		this.outputChannels = outputChannels;
+		this.weights = weights;
+		this.weightScales = weightScales;
+		this.inputScales = inputScales;
+		this.biases = biases;
+	}
+
+	/**
+	 * @param weights     The weights, with a row for each output feature and a column for each input
+	 *                    feature.
+	 * @param biases      The biases, as a vector with an element for each output feature, or null.
+	 * @param inputScales The calibrated scale of each input feature.
+	 * @return The quantized transform of a fully connected layer.
+	 */
+	public static Int8QuantizedTransform quantizeFullyConnected(Matrix weights, Matrix biases,
+			float[] inputScales) {
+		return quantizeConvolutional(weights, biases, inputScales,
+				new ConvolutionGeometry(weights.getColumns(), 1, 1, 1, 1, 1, 1, 0, 0));
+	}
+
+	/**
+	 * @param weights     The filters, with a row for each output channel and a column for each
+	 *                    (input channel, filter row, filter column).
+	 * @param biases      The biases, as a vector with an element either for each output channel or for
+	 *                    each output value, or null.
+	 * @param inputScales The calibrated scale of each input channel.
+	 * @param geometry    The shape of the convolution.
+	 * @return The quantized transform of a convolutional layer.
+	 */
+	public static Int8QuantizedTransform quantizeConvolutional(Matrix weights, Matrix biases,
+			float[] inputScales, ConvolutionGeometry geometry) {
+		if (weights.getColumns() != geometry.getPatchSize()) {
+			throw new IllegalArgumentException("Weights do not match the convolution geometry");
+		}
+		if (inputScales.length != geometry.getInputDepth()) {
+			throw new IllegalArgumentException("Scales do not match the input channels");
+		}
+		int outputChannels = weights.getRows();
+		int patchSize = geometry.getPatchSize();
+		int filterSize = patchSize / geometry.getInputDepth();
+		float[] weightValues = weights.getRowByRowArray();
+		byte[] quantizedWeights = new byte[weightValues.length];
+		float[] weightScales = new float[outputChannels];
+		float[] scaledRow = new float[patchSize];
+		for (int outputChannel = 0; outputChannel < outputChannels; outputChannel++) {
+			float maxAbsoluteValue = 0;
+			for (int p = 0; p < patchSize; p++) {
+				scaledRow[p] = weightValues[outputChannel * patchSize + p] * inputScales[p / filterSize];
+				maxAbsoluteValue = Math.max(maxAbsoluteValue, Math.abs(scaledRow[p]));
+			}
+			float weightScale = maxAbsoluteValue == 0 ? 1f : maxAbsoluteValue / Int8Kernels.MAX_QUANTIZED_VALUE;
+			Int8Kernels.quantize(scaledRow, 0, quantizedWeights, outputChannel * patchSize, patchSize, weightScale);
+			weightScales[outputChannel] = weightScale;
+		}
+		return new Int8QuantizedTransform(geometry, outputChannels, quantizedWeights, weightScales,
+				inputScales.clone(), createBiases(biases, outputChannels, geometry.getOutputChannelSize()));
+	}
+
+	private static float[] createBiases(Matrix biases, int outputChannels, int outputChannelSize) {
+		int outputLength = outputChannels * outputChannelSize;
+		float[] outputBiases = new float[outputLength];
+		if (biases == null) {
+			return outputBiases;
+		}
+		float[] values = biases.getRowByRowArray();
+		if (values.length == outputLength) {
+			System.arraycopy(values, 0, outputBiases, 0, outputLength);
+		} else if (values.length == outputChannels) {
+			for (int i = 0; i < outputLength; i++) {
+				outputBiases[i] = values[i / outputChannelSize];
+			}
+		} else {
+			throw new IllegalArgumentException("Biases do not match the output channels");
+		}
+		return outputBiases;
+	}
+
+	public ConvolutionGeometry getGeometry() {
+		return geometry;
+	}
+
+	public int getOutputChannels() {
+		return outputChannels;
+	}
+
+	/**
+	 * @param input         The input, with a row for each input value and a column for each example.
+	 * @param matrixFactory The factory of the output matrix, whose ParallelKernels, if it is a
+	 *                      ParallelMatrixFactory, determine the pool the product is divided across.
+	 * @return The dequantized output, with a row for each output value and a column for each example.
+	 */
+	public Matrix apply(Matrix input, MatrixFactory matrixFactory) {
+		int inputChannelSize = geometry.getInputChannelSize();
+		if (input.getRows() != geometry.getInputDepth() * inputChannelSize) {
+			throw new IllegalArgumentException("Rows do not match");
+		}
+		int examples = input.getColumns();
+		float[] inputValues = input.getRowByRowArray();
+		byte[] quantizedInput = new byte[inputValues.length];
+		int channelLength = inputChannelSize * examples;
+		for (int channel = 0; channel < inputScales.length; channel++) {
+			Int8Kernels.quantize(inputValues, channel * channelLength, quantizedInput, channel * channelLength,
+					channelLength, inputScales[channel]);
+		}
+		byte[] columns = quantizedInput;
+		int columnCount = geometry.getOutputChannelSize() * examples;
+		if (!geometry.isPointwise()) {
+			columns = new byte[geometry.getPatchSize() * columnCount];
+			Int8Kernels.im2col(quantizedInput, examples, geometry, columns);
+		}
+		int[] products = new int[outputChannels * columnCount];
+		boolean transposed = columnCount < DOT_PRODUCT_COLUMN_THRESHOLD;
+		if (transposed) {
+			columns = Int8Kernels.transpose(columns, geometry.getPatchSize(), columnCount);
+		}
+		GemmRowsTask task = new GemmRowsTask(columns, transposed, products, columnCount, 0, outputChannels);
+		ForkJoinPool forkJoinPool = matrixFactory instanceof ParallelMatrixFactory
+				? ((ParallelMatrixFactory) matrixFactory).getParallelKernels().getForkJoinPool()
+				: ForkJoinPool.commonPool();
+		if ((long) outputChannels * geometry.getPatchSize() * columnCount < SEQUENTIAL_THRESHOLD
+				|| forkJoinPool.getParallelism() <= 1) {
+			task.compute();
+		} else {
+			forkJoinPool.invoke(task);
+		}
+		float[] output = new float[products.length];
+		int outputRows = outputChannels * geometry.getOutputChannelSize();
+		int outputChannelSize = geometry.getOutputChannelSize();
+		for (int row = 0; row < outputRows; row++) {
+			float weightScale = weightScales[row / outputChannelSize];
+			float bias = biases[row];
+			for (int i = row * examples; i < (row + 1) * examples; i++) {
+				output[i] = products[i] * weightScale + bias;
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(outputRows, examples, output);
+	}
+
+	/**
+	 * Computes a range of rows of the product of the quantized weights with the im2col matrix,
+	 * splitting the range between threads.
+	 */
+	private class GemmRowsTask extends RecursiveAction {
+
+		/**
+		 * Default serialization id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private byte[] columns;
+		private boolean transposed;
+		private int[] products;
+		private int columnCount;
+		private int rowStart;
+		private int rowEnd;
+
+		GemmRowsTask(byte[] columns, boolean transposed, int[] products, int columnCount, int rowStart,
+				int rowEnd) {
+			this.columns = columns;
+			this.transposed = transposed;
+			this.products = products;
+			this.columnCount = columnCount;
+			this.rowStart = rowStart;
+			this.rowEnd = rowEnd;
+		}
+
+		@Override
+		protected void compute() {
+			int patchSize = geometry.getPatchSize();
+			if (rowEnd - rowStart <= 1
+					|| (long) (rowEnd - rowStart) * patchSize * columnCount < SEQUENTIAL_THRESHOLD) {
+				if (transposed) {
+					Int8Kernels.gemmTransposedB(weights, columns, products, patchSize, columnCount, rowStart, rowEnd);
+				} else {
+					Int8Kernels.gemm(weights, columns, products, patchSize, columnCount, rowStart, rowEnd);
+				}
+			} else {
+				int middle = (rowStart + rowEnd) >>> 1;
+				invokeAll(new GemmRowsTask(columns, transposed, products, columnCount, rowStart, middle),
+						new GemmRowsTask(columns, transposed, products, columnCount, middle, rowEnd));
+			}
+		}
+	}
+}
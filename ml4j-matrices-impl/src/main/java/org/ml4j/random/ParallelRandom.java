@@ -0,0 +1,260 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.random;
+
+import java.io.Serializable;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills float arrays with uniform, Gaussian and Bernoulli random values, dividing large arrays into
+ * blocks that are filled in parallel on a ForkJoinPool.
+ * 
+ * Each fill splits a new stream from a root SplittableRandom, and each block of a fill is given its
+ * own generator split from that stream before any block is filled. When the root is seeded, the
+ * values of each fill therefore depend only on the seed and the sequence of fills, and not on the
+ * number of threads or the order in which the blocks are processed.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelRandom implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of values filled by each generator.
+	 */
+	public static final int BLOCK_LENGTH = 1 << 12;
+
+	/**
+	 * The default number of values below which a fill is performed on the calling thread.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+	private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+	private transient SplittableRandom root;
+	private transient ForkJoinPool forkJoinPool;
+	private int parallelThreshold;
+
+	/**
+	 * Creates an unseeded ParallelRandom using the common ForkJoinPool.
+	 */
+	public ParallelRandom() {
+		this(new SplittableRandom(), ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Creates a ParallelRandom using the common ForkJoinPool, whose sequence of fills is reproducible.
+	 * 
+	 * @param seed The seed of the root generator.
+	 */
+	public ParallelRandom(long seed) {
+		this(new SplittableRandom(seed), ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * @param seed              The seed of the root generator.
+	 * @param forkJoinPool      The pool on which blocks are filled.
+	 * @param parallelThreshold The number of values below which a fill is performed on the calling
+	 *                          thread.
+	 */
+	public ParallelRandom(long seed, ForkJoinPool forkJoinPool, int parallelThreshold) {
+		this(new SplittableRandom(seed), forkJoinPool, parallelThreshold);
+	}
+
+	private ParallelRandom(SplittableRandom root, ForkJoinPool forkJoinPool, int parallelThreshold) {
+		this.root = root;
+		this.forkJoinPool = forkJoinPool;
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Splits an independent ParallelRandom from this one, for example to give each layer or each
+	 * sampling chain a stream of its own. When this ParallelRandom is seeded, so is the split.
+	 * 
+	 * @return A new ParallelRandom sharing the pool and threshold of this one.
+	 */
+	public ParallelRandom split() {
+		return new ParallelRandom(splitRoot(), forkJoinPool, parallelThreshold);
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Fills values with floats uniformly distributed in [0, 1).
+	 * 
+	 * @param values The values to fill.
+	 * @param length The number of values to fill.
+	 */
+	public void uniform(float[] values, int length) {
+		fill(length, (random, start, end) -> {
+			for (int i = start; i < end; i++) {
+				values[i] = nextFloat(random);
+			}
+		});
+	}
+
+	/**
+	 * Fills values with samples of the standard normal distribution.
+	 * 
+	 * @param values The values to fill.
+	 * @param length The number of values to fill.
+	 */
+	public void gaussian(float[] values, int length) {
+		fill(length, (random, start, end) -> {
+			// Marsaglia's polar method, which generates the values in pairs
+			int i = start;
+			while (i < end) {
+				double u;
+				double v;
+				double s;
+				do {
+					u = 2 * random.nextDouble() - 1;
+					v = 2 * random.nextDouble() - 1;
+					s = u * u + v * v;
+				} while (s >= 1 || s == 0);
+				double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+				values[i++] = (float) (u * multiplier);
+				if (i < end) {
+					values[i++] = (float) (v * multiplier);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Fills values with 1 with the given probability and with 0 otherwise, for example to create a
+	 * dropout mask.
+	 * 
+	 * @param values      The values to fill.
+	 * @param length      The number of values to fill.
+	 * @param probability The probability of each value being 1.
+	 */
+	public void bernoulli(float[] values, int length, float probability) {
+		fill(length, (random, start, end) -> {
+			for (int i = start; i < end; i++) {
+				values[i] = nextFloat(random) < probability ? 1f : 0f;
+			}
+		});
+	}
+
+	/**
+	 * Sets each value of result to 1 with the probability given by the corresponding value of
+	 * probabilities and to 0 otherwise, for example to sample binary units from their activation
+	 * probabilities. probabilities and result may be the same array.
+	 * 
+	 * @param probabilities The probability of each value being 1.
+	 * @param result        The values to fill.
+	 * @param length        The number of values to fill.
+	 */
+	public void bernoulli(float[] probabilities, float[] result, int length) {
+		fill(length, (random, start, end) -> {
+			for (int i = start; i < end; i++) {
+				result[i] = nextFloat(random) < probabilities[i] ? 1f : 0f;
+			}
+		});
+	}
+
+	private static float nextFloat(SplittableRandom random) {
+		return (random.nextInt() >>> 8) * FLOAT_UNIT;
+	}
+
+	private void fill(int length, BlockOperation operation) {
+		SplittableRandom stream = splitRoot();
+		int blocks = (length + BLOCK_LENGTH - 1) / BLOCK_LENGTH;
+		SplittableRandom[] generators = new SplittableRandom[blocks];
+		for (int i = 0; i < blocks; i++) {
+			generators[i] = stream.split();
+		}
+		if (length < parallelThreshold || forkJoinPool.getParallelism() <= 1) {
+			for (int i = 0; i < blocks; i++) {
+				fillBlock(operation, generators, i, length);
+			}
+		} else {
+			forkJoinPool.invoke(new FillTask(operation, generators, 0, blocks, length));
+		}
+	}
+
+	private SplittableRandom splitRoot() {
+		// SplittableRandom is not thread-safe, so streams are split from the root one at a time
+		synchronized (root) {
+			return root.split();
+		}
+	}
+
+	private static void fillBlock(BlockOperation operation, SplittableRandom[] generators, int block, int length) {
+		int start = block * BLOCK_LENGTH;
+		operation.apply(generators[block], start, Math.min(start + BLOCK_LENGTH, length));
+	}
+
+	private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		// SplittableRandom is not serializable, so a deserialized ParallelRandom is unseeded
+		this.root = new SplittableRandom();
+		this.forkJoinPool = ForkJoinPool.commonPool();
+	}
+
+	@FunctionalInterface
+	private interface BlockOperation {
+
+		void apply(SplittableRandom random, int start, int end);
+	}
+
+	private static class FillTask extends RecursiveAction {
+
+		/**
+		 * Default serialization id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private final BlockOperation operation;
+		private final SplittableRandom[] generators;
+		private final int startBlock;
+		private final int endBlock;
+		private final int length;
+
+		FillTask(BlockOperation operation, SplittableRandom[] generators, int startBlock, int endBlock, int length) {
+			this.operation = operation;
+			this.generators = generators;
+			this.startBlock = startBlock;
+			this.endBlock = endBlock;
+			this.length = length;
+		}
+
+		@Override
+		protected void compute() {
+			if (endBlock - startBlock <= 1) {
+				for (int i = startBlock; i < endBlock; i++) {
+					fillBlock(operation, generators, i, length);
+				}
+			} else {
+				int middle = (startBlock + endBlock) >>> 1;
+				invokeAll(new FillTask(operation, generators, startBlock, middle, length),
+						new FillTask(operation, generators, middle, endBlock, length));
+			}
+		}
+	}
+}
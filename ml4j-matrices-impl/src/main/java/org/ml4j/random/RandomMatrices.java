@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.random;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Creates Bernoulli masks and samples, using the bulk generation of the MatrixFactory where
+ * available and otherwise thresholding a uniform random matrix of the factory.
+ * 
+ * @author Michael Lavelle
+ */
+public final class RandomMatrices {
+
+	private RandomMatrices() {
+	}
+
+	/**
+	 * @param matrixFactory The factory of the mask.
+	 * @param rows          The number of rows.
+	 * @param columns       The number of columns.
+	 * @param probability   The probability of each value being 1.
+	 * @return A matrix of values that are 1 with the given probability and 0 otherwise.
+	 */
+	public static Matrix createBernoulliMask(MatrixFactory matrixFactory, int rows, int columns,
+			float probability) {
+		if (matrixFactory instanceof RandomMatrixFactory) {
+			return ((RandomMatrixFactory) matrixFactory).createBernoulliMask(rows, columns, probability);
+		}
+		float[] values = matrixFactory.createRand(rows, columns).getRowByRowArray();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = values[i] < probability ? 1f : 0f;
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(rows, columns, values);
+	}
+
+	/**
+	 * @param matrixFactory The factory of the sample.
+	 * @param probabilities The probability of each value being 1.
+	 * @return A matrix of the shape of probabilities, of values that are 1 with the corresponding
+	 *         probability and 0 otherwise.
+	 */
+	public static Matrix createBernoulliSample(MatrixFactory matrixFactory, Matrix probabilities) {
+		if (matrixFactory instanceof RandomMatrixFactory) {
+			return ((RandomMatrixFactory) matrixFactory).createBernoulliSample(probabilities);
+		}
+		float[] values = matrixFactory.createRand(probabilities.getRows(), probabilities.getColumns())
+				.getRowByRowArray();
+		float[] probabilityValues = probabilities.getRowByRowArray();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = values[i] < probabilityValues[i] ? 1f : 0f;
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(probabilities.getRows(), probabilities.getColumns(),
+				values);
+	}
+}
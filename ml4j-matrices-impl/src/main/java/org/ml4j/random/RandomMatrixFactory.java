@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.random;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * A MatrixFactory whose random matrices are generated by a ParallelRandom, which can be replaced to
+ * seed the factory, and which generates Bernoulli masks and samples in bulk.
+ * 
+ * @author Michael Lavelle
+ */
+public interface RandomMatrixFactory extends MatrixFactory {
+
+	/**
+	 * @return The generator of the random matrices of this factory.
+	 */
+	ParallelRandom getParallelRandom();
+
+	/**
+	 * @param parallelRandom The generator of the random matrices of this factory, for example a seeded
+	 *                       ParallelRandom for reproducible initialisation and sampling.
+	 */
+	void setParallelRandom(ParallelRandom parallelRandom);
+
+	/**
+	 * @param rows        The number of rows.
+	 * @param columns     The number of columns.
+	 * @param probability The probability of each value being 1.
+	 * @return A matrix of values that are 1 with the given probability and 0 otherwise.
+	 */
+	Matrix createBernoulliMask(int rows, int columns, float probability);
+
+	/**
+	 * @param probabilities The probability of each value being 1.
+	 * @return A matrix of the shape of probabilities, of values that are 1 with the corresponding
+	 *         probability and 0 otherwise.
+	 */
+	Matrix createBernoulliSample(Matrix probabilities);
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.sparse;
+
+import java.util.Arrays;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.base.RowMajorMatrixBase;
+import org.ml4j.base.RowMajorMatrixFactoryBase;
+
+/**
+ * SparseMatrix in compressed sparse row (CSR) format - the non-zero values in row-major order, with
+ * the column index of each, and the index of the first value of each row.
+ * 
+ * Values may be modified in place where they are already stored. Storing a non-zero value anywhere
+ * else first stores every position of this matrix, so in-place operations which fill the matrix,
+ * such as adding a scalar, leave it densely populated. Reshaping only renumbers the stored positions.
+ * Operations other than those overridden here produce dense matrices from the dense matrix factory of
+ * this matrix.
+ * 
+ * @author Michael Lavelle
+ */
+public class CsrMatrix extends RowMajorMatrixBase implements SparseMatrix {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private float[] values;
+	private int[] columnIndexes;
+	private int[] rowPointers;
+
+	/**
+	 * @param denseMatrixFactory The factory of the dense results of operations on this matrix.
+	 * @param rows               The number of rows.
+	 * @param columns            The number of columns.
+	 * @param values             The non-zero values in row-major order.
+	 * @param columnIndexes      The column index of each value, ascending within each row.
+	 * @param rowPointers        The index in values of the first value of each row, followed by the
+	 *                           number of values.
+	 */
+	public CsrMatrix(RowMajorMatrixFactoryBase denseMatrixFactory, int rows, int columns, float[] values,
+			int[] columnIndexes, int[] rowPointers) {
+		super(denseMatrixFactory, rows, columns, false);
+		if (rowPointers.length != rows + 1) {
+			throw new IllegalArgumentException("Row pointers must have an element for each row, plus one");
+		}
+		if (values.length != columnIndexes.length || rowPointers[rows] != values.length) {
+			throw new IllegalArgumentException("Values and column indexes do not match");
+		}
+		this.values = values;
+		this.columnIndexes = columnIndexes;
+		this.rowPointers = rowPointers;
+	}
+
+	public float[] getValues() {
+		return values;
+	}
+
+	public int[] getColumnIndexes() {
+		return columnIndexes;
+	}
+
+	public int[] getRowPointers() {
+		return rowPointers;
+	}
+
+	@Override
+	public int getNonZeroCount() {
+		return rowPointers[rows];
+	}
+
+	private int indexOf(int row, int column) {
+		if (rowPointers[row + 1] - rowPointers[row] == columns) {
+			// Every position of the row is stored
+			return rowPointers[row] + column;
+		}
+		int index = Arrays.binarySearch(columnIndexes, rowPointers[row], rowPointers[row + 1], column);
+		return index >= 0 ? index : -1;
+	}
+
+	@Override
+	protected float getValue(int index) {
+		int valueIndex = indexOf(index / columns, index % columns);
+		return valueIndex == -1 ? 0 : values[valueIndex];
+	}
+
+	@Override
+	protected void putValue(int index, float value) {
+		int valueIndex = indexOf(index / columns, index % columns);
+		if (valueIndex != -1) {
+			values[valueIndex] = value;
+		} else if (value != 0) {
+			storeAllPositions();
+			values[index] = value;
+		}
+	}
+
+	/**
+	 * Stores every position of this matrix, so that any value may be set in place.
+	 */
+	private void storeAllPositions() {
+		float[] allValues = new float[getLength()];
+		getValues(allValues, 0);
+		int[] allColumnIndexes = new int[allValues.length];
+		int[] allRowPointers = new int[rows + 1];
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				allColumnIndexes[row * columns + column] = column;
+			}
+			allRowPointers[row + 1] = (row + 1) * columns;
+		}
+		this.values = allValues;
+		this.columnIndexes = allColumnIndexes;
+		this.rowPointers = allRowPointers;
+	}
+
+	@Override
+	protected void getValues(float[] target, int targetIndex) {
+		Arrays.fill(target, targetIndex, targetIndex + getLength(), 0);
+		for (int row = 0; row < rows; row++) {
+			int rowStart = targetIndex + row * columns;
+			for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+				target[rowStart + columnIndexes[i]] = values[i];
+			}
+		}
+	}
+
+	@Override
+	protected long getStorageBytes() {
+		return getNonZeroCount() * (long) (Float.BYTES + Integer.BYTES) + rowPointers.length * (long) Integer.BYTES;
+	}
+
+	@Override
+	protected void releaseStorage() {
+		values = null;
+		columnIndexes = null;
+		rowPointers = null;
+	}
+
+	@Override
+	protected RowMajorMatrixBase createSoftDup() {
+		return new CsrMatrix(matrixFactory, rows, columns, values, columnIndexes, rowPointers);
+	}
+
+	@Override
+	public Matrix dup() {
+		ensureOpen();
+		return allocated(new CsrMatrix(matrixFactory, rows, columns, values.clone(), columnIndexes.clone(),
+				rowPointers.clone()));
+	}
+
+	@Override
+	public float sum() {
+		ensureOpen();
+		float sum = 0;
+		for (int i = 0; i < getNonZeroCount(); i++) {
+			sum += values[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public Matrix transpose() {
+		ensureOpen();
+		int nonZeroCount = getNonZeroCount();
+		int[] transposedRowPointers = new int[columns + 1];
+		for (int i = 0; i < nonZeroCount; i++) {
+			transposedRowPointers[columnIndexes[i] + 1]++;
+		}
+		for (int column = 0; column < columns; column++) {
+			transposedRowPointers[column + 1] += transposedRowPointers[column];
+		}
+		int[] nextIndexes = Arrays.copyOf(transposedRowPointers, columns);
+		float[] transposedValues = new float[nonZeroCount];
+		int[] transposedColumnIndexes = new int[nonZeroCount];
+		// Visiting rows in order keeps the column indexes of each transposed row ascending
+		for (int row = 0; row < rows; row++) {
+			for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+				int index = nextIndexes[columnIndexes[i]]++;
+				transposedValues[index] = values[i];
+				transposedColumnIndexes[index] = row;
+			}
+		}
+		return allocated(new CsrMatrix(matrixFactory, columns, rows, transposedValues, transposedColumnIndexes,
+				transposedRowPointers));
+	}
+
+	@Override
+	public Matrix getColumnRange(int start, int endExclusive) {
+		ensureOpen();
+		int[] rangeRowPointers = new int[rows + 1];
+		int[] rangeStarts = new int[rows];
+		for (int row = 0; row < rows; row++) {
+			rangeStarts[row] = lowerBound(row, start);
+			rangeRowPointers[row + 1] = rangeRowPointers[row] + lowerBound(row, endExclusive) - rangeStarts[row];
+		}
+		float[] rangeValues = new float[rangeRowPointers[rows]];
+		int[] rangeColumnIndexes = new int[rangeRowPointers[rows]];
+		for (int row = 0; row < rows; row++) {
+			for (int i = rangeRowPointers[row]; i < rangeRowPointers[row + 1]; i++) {
+				int index = rangeStarts[row] + i - rangeRowPointers[row];
+				rangeValues[i] = values[index];
+				rangeColumnIndexes[i] = columnIndexes[index] - start;
+			}
+		}
+		return allocated(new CsrMatrix(matrixFactory, rows, endExclusive - start, rangeValues, rangeColumnIndexes,
+				rangeRowPointers));
+	}
+
+	/**
+	 * @return The index of the first value of the row with a column index of at least column.
+	 */
+	private int lowerBound(int row, int column) {
+		int index = Arrays.binarySearch(columnIndexes, rowPointers[row], rowPointers[row + 1], column);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	@Override
+	public Matrix mmul(Matrix other) {
+		ensureOpen();
+		if (other.getRows() != columns) {
+			throw new IllegalArgumentException("Columns of this matrix do not match rows of other matrix");
+		}
+		int resultColumns = other.getColumns();
+		float[] otherValues = getRowByRowValues(other);
+		float[] result = new float[rows * resultColumns];
+		for (int row = 0; row < rows; row++) {
+			int resultOffset = row * resultColumns;
+			int rowStart = rowPointers[row];
+			int rowEnd = rowPointers[row + 1];
+			if (rowEnd - rowStart == 1 && values[rowStart] == 1) {
+				// A one-hot row selects a row of the other matrix
+				System.arraycopy(otherValues, columnIndexes[rowStart] * resultColumns, result, resultOffset,
+						resultColumns);
+				continue;
+			}
+			for (int i = rowStart; i < rowEnd; i++) {
+				float value = values[i];
+				int otherOffset = columnIndexes[i] * resultColumns;
+				for (int j = 0; j < resultColumns; j++) {
+					result[resultOffset + j] += value * otherValues[otherOffset + j];
+				}
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(rows, resultColumns, result);
+	}
+
+	@Override
+	public Matrix leftMmul(Matrix other, MatrixFactory matrixFactory) {
+		ensureOpen();
+		if (other.getColumns() != rows) {
+			throw new IllegalArgumentException("Columns of other matrix do not match rows of this matrix");
+		}
+		int otherRows = other.getRows();
+		float[] otherValues = getRowByRowValues(other);
+		float[] result = new float[otherRows * columns];
+		for (int otherRow = 0; otherRow < otherRows; otherRow++) {
+			int otherOffset = otherRow * rows;
+			int resultOffset = otherRow * columns;
+			for (int row = 0; row < rows; row++) {
+				float otherValue = otherValues[otherOffset + row];
+				if (otherValue != 0) {
+					// For one-hot columns, each value gathers a column of the other matrix
+					for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+						result[resultOffset + columnIndexes[i]] += otherValue * values[i];
+					}
+				}
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(otherRows, columns, result);
+	}
+
+	@Override
+	public Matrix transposeMmul(Matrix other, MatrixFactory matrixFactory) {
+		ensureOpen();
+		if (other.getRows() != rows) {
+			throw new IllegalArgumentException("Rows do not match");
+		}
+		int resultColumns = other.getColumns();
+		float[] otherValues = getRowByRowValues(other);
+		float[] result = new float[columns * resultColumns];
+		for (int row = 0; row < rows; row++) {
+			int otherOffset = row * resultColumns;
+			for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+				float value = values[i];
+				int resultOffset = columnIndexes[i] * resultColumns;
+				for (int j = 0; j < resultColumns; j++) {
+					result[resultOffset + j] += value * otherValues[otherOffset + j];
+				}
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(columns, resultColumns, result);
+	}
+
+	@Override
+	public Matrix leftMmulTranspose(Matrix other, MatrixFactory matrixFactory) {
+		ensureOpen();
+		if (other.getColumns() != columns) {
+			throw new IllegalArgumentException("Columns do not match");
+		}
+		int otherRows = other.getRows();
+		float[] otherValues = getRowByRowValues(other);
+		float[] result = new float[otherRows * rows];
+		for (int otherRow = 0; otherRow < otherRows; otherRow++) {
+			int otherOffset = otherRow * columns;
+			int resultOffset = otherRow * rows;
+			for (int row = 0; row < rows; row++) {
+				float sum = 0;
+				for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+					sum += otherValues[otherOffset + columnIndexes[i]] * values[i];
+				}
+				result[resultOffset + row] = sum;
+			}
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(otherRows, rows, result);
+	}
+
+	/**
+	 * Reshapes this matrix without copying its values - the row-major order of the stored positions
+	 * does not change, so only their row pointers and column indexes are recalculated.
+	 */
+	@Override
+	public void reshape(int newRows, int newColumns) {
+		ensureOpen();
+		if (newRows * newColumns != getLength()) {
+			throw new IllegalArgumentException("Number of elements must not change");
+		}
+		int nonZeroCount = getNonZeroCount();
+		int[] newColumnIndexes = new int[nonZeroCount];
+		int[] newRowPointers = new int[newRows + 1];
+		for (int row = 0; row < rows; row++) {
+			for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+				int index = row * columns + columnIndexes[i];
+				newColumnIndexes[i] = index % newColumns;
+				newRowPointers[index / newColumns + 1]++;
+			}
+		}
+		for (int row = 0; row < newRows; row++) {
+			newRowPointers[row + 1] += newRowPointers[row];
+		}
+		this.columnIndexes = newColumnIndexes;
+		this.rowPointers = newRowPointers;
+		super.reshape(newRows, newColumns);
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.sparse;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.ml4j.base.RowMajorMatrixFactoryBase;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Creates CsrMatrix instances from dense data, or directly from class indexes for one-hot data.
+ * 
+ * @author Michael Lavelle
+ */
+public class CsrMatrixFactory implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private RowMajorMatrixFactoryBase denseMatrixFactory;
+
+	/**
+	 * Creates a factory whose matrices produce pure-Java dense results.
+	 */
+	public CsrMatrixFactory() {
+		this(new PureJavaRowMajorMatrixFactory());
+	}
+
+	/**
+	 * @param denseMatrixFactory The factory of the dense results of operations on the sparse
+	 *                           matrices created.
+	 */
+	public CsrMatrixFactory(RowMajorMatrixFactoryBase denseMatrixFactory) {
+		this.denseMatrixFactory = denseMatrixFactory;
+	}
+
+	public RowMajorMatrixFactoryBase getDenseMatrixFactory() {
+		return denseMatrixFactory;
+	}
+
+	/**
+	 * @param rows    The number of rows.
+	 * @param columns The number of columns.
+	 * @param data    The values in row-major order.
+	 * @return A sparse matrix of the non-zero values.
+	 */
+	public CsrMatrix createCsrMatrixFromRowsByRowsArray(int rows, int columns, float[] data) {
+		if (data.length != rows * columns) {
+			throw new IllegalArgumentException("Passed data must match matrix dimensions.");
+		}
+		int[] rowPointers = new int[rows + 1];
+		for (int row = 0; row < rows; row++) {
+			int nonZeroCount = 0;
+			for (int i = row * columns; i < (row + 1) * columns; i++) {
+				if (data[i] != 0) {
+					nonZeroCount++;
+				}
+			}
+			rowPointers[row + 1] = rowPointers[row] + nonZeroCount;
+		}
+		float[] values = new float[rowPointers[rows]];
+		int[] columnIndexes = new int[rowPointers[rows]];
+		int index = 0;
+		for (int i = 0; i < data.length; i++) {
+			if (data[i] != 0) {
+				values[index] = data[i];
+				columnIndexes[index++] = i % columns;
+			}
+		}
+		return new CsrMatrix(denseMatrixFactory, rows, columns, values, columnIndexes, rowPointers);
+	}
+
+	/**
+	 * @param rows The rows of the matrix - a batch of examples in COLUMNS_SPAN_FEATURE_SET orientation.
+	 * @return A sparse matrix of the non-zero values.
+	 */
+	public CsrMatrix createCsrMatrixFromRows(float[][] rows) {
+		int columns = rows.length == 0 ? 0 : rows[0].length;
+		float[] data = new float[rows.length * columns];
+		for (int row = 0; row < rows.length; row++) {
+			if (rows[row].length != columns) {
+				throw new IllegalArgumentException("Columns do not match");
+			}
+			System.arraycopy(rows[row], 0, data, row * columns, columns);
+		}
+		return createCsrMatrixFromRowsByRowsArray(rows.length, columns, data);
+	}
+
+	/**
+	 * @param columns The columns of the matrix - a batch of examples in ROWS_SPAN_FEATURE_SET
+	 *                orientation.
+	 * @return A sparse matrix of the non-zero values.
+	 */
+	public CsrMatrix createCsrMatrixFromColumns(float[][] columns) {
+		int rows = columns.length == 0 ? 0 : columns[0].length;
+		float[] data = new float[rows * columns.length];
+		for (int column = 0; column < columns.length; column++) {
+			if (columns[column].length != rows) {
+				throw new IllegalArgumentException("Rows do not match");
+			}
+			for (int row = 0; row < rows; row++) {
+				data[row * columns.length + column] = columns[column][row];
+			}
+		}
+		return createCsrMatrixFromRowsByRowsArray(rows, columns.length, data);
+	}
+
+	/**
+	 * @param classIndexes The class index of each example.
+	 * @param classCount   The number of classes.
+	 * @return A classCount x examples matrix, with a one in each column at the row of the class index of
+	 *         the example.
+	 */
+	public CsrMatrix createOneHotColumns(int[] classIndexes, int classCount) {
+		int[] rowPointers = new int[classCount + 1];
+		for (int classIndex : classIndexes) {
+			if (classIndex < 0 || classIndex >= classCount) {
+				throw new IllegalArgumentException("Class index out of range:" + classIndex);
+			}
+			rowPointers[classIndex + 1]++;
+		}
+		for (int classIndex = 0; classIndex < classCount; classIndex++) {
+			rowPointers[classIndex + 1] += rowPointers[classIndex];
+		}
+		int[] nextIndexes = new int[classCount];
+		System.arraycopy(rowPointers, 0, nextIndexes, 0, classCount);
+		int[] columnIndexes = new int[classIndexes.length];
+		for (int example = 0; example < classIndexes.length; example++) {
+			columnIndexes[nextIndexes[classIndexes[example]]++] = example;
+		}
+		float[] values = new float[classIndexes.length];
+		Arrays.fill(values, 1f);
+		return new CsrMatrix(denseMatrixFactory, classCount, classIndexes.length, values, columnIndexes,
+				rowPointers);
+	}
+
+	/**
+	 * @param classIndexes The class index of each example.
+	 * @param classCount   The number of classes.
+	 * @return An examples x classCount matrix, with a one in each row at the column of the class index
+	 *         of the example.
+	 */
+	public CsrMatrix createOneHotRows(int[] classIndexes, int classCount) {
+		int[] rowPointers = new int[classIndexes.length + 1];
+		for (int example = 0; example < classIndexes.length; example++) {
+			if (classIndexes[example] < 0 || classIndexes[example] >= classCount) {
+				throw new IllegalArgumentException("Class index out of range:" + classIndexes[example]);
+			}
+			rowPointers[example + 1] = example + 1;
+		}
+		float[] values = new float[classIndexes.length];
+		Arrays.fill(values, 1f);
+		return new CsrMatrix(denseMatrixFactory, classIndexes.length, classCount, values, classIndexes.clone(),
+				rowPointers);
+	}
+}
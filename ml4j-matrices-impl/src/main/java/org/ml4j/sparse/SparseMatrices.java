@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.sparse;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Static utility methods for products involving matrices which may be sparse, using the sparse
+ * kernels where either operand is a SparseMatrix.
+ * 
+ * @author Michael Lavelle
+ */
+public final class SparseMatrices {
+
+	private SparseMatrices() {
+		// Static utility
+	}
+
+	/**
+	 * @param first         The first matrix.
+	 * @param second        The second matrix.
+	 * @param matrixFactory The factory of the result where the second matrix is sparse.
+	 * @return first.second
+	 */
+	public static Matrix mmul(Matrix first, Matrix second, MatrixFactory matrixFactory) {
+		if (second instanceof SparseMatrix && !(first instanceof SparseMatrix)) {
+			return ((SparseMatrix) second).leftMmul(first, matrixFactory);
+		}
+		return first.mmul(second);
+	}
+
+	/**
+	 * @param first         The first matrix.
+	 * @param second        The second matrix.
+	 * @param matrixFactory The factory of the result.
+	 * @return first^T.second - eg. the weight gradients of a layer with a sparse input in
+	 *         COLUMNS_SPAN_FEATURE_SET orientation.
+	 */
+	public static Matrix transposeMmul(Matrix first, Matrix second, MatrixFactory matrixFactory) {
+		if (first instanceof SparseMatrix) {
+			return ((SparseMatrix) first).transposeMmul(second, matrixFactory);
+		}
+		// Close the transpose, which may be a view holding the data of the first matrix
+		Matrix firstTranspose = first.transpose();
+		try {
+			return mmul(firstTranspose, second, matrixFactory);
+		} finally {
+			firstTranspose.close();
+		}
+	}
+
+	/**
+	 * @param first         The first matrix.
+	 * @param second        The second matrix.
+	 * @param matrixFactory The factory of the result.
+	 * @return first.second^T - eg. the weight gradients of a layer with a sparse input in
+	 *         ROWS_SPAN_FEATURE_SET orientation.
+	 */
+	public static Matrix mmulTranspose(Matrix first, Matrix second, MatrixFactory matrixFactory) {
+		if (second instanceof SparseMatrix && !(first instanceof SparseMatrix)) {
+			return ((SparseMatrix) second).leftMmulTranspose(first, matrixFactory);
+		}
+		Matrix secondTranspose = second.transpose();
+		try {
+			return first.mmul(secondTranspose);
+		} finally {
+			secondTranspose.close();
+		}
+	}
+
+	/**
+	 * @param values The values.
+	 * @return The proportion of the values which are non-zero.
+	 */
+	public static float getDensity(float[] values) {
+		int nonZeroCount = 0;
+		for (float value : values) {
+			if (value != 0) {
+				nonZeroCount++;
+			}
+		}
+		return values.length == 0 ? 0 : (float) nonZeroCount / values.length;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.sparse;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * A Matrix which stores only its non-zero values, and multiplies with dense matrices in time
+ * proportional to its number of non-zero values.
+ * 
+ * mmul(other) computes this.other. The products with this matrix on the right, or transposed, are
+ * provided here so that a dense matrix multiplied by a sparse matrix, and the weight gradients of a
+ * layer whose input is sparse, avoid densifying the sparse operand.
+ * 
+ * @author Michael Lavelle
+ */
+public interface SparseMatrix extends Matrix {
+
+	/**
+	 * @return The number of values stored.
+	 */
+	int getNonZeroCount();
+
+	/**
+	 * @param other         The dense matrix on the left.
+	 * @param matrixFactory The factory of the result.
+	 * @return other.this
+	 */
+	Matrix leftMmul(Matrix other, MatrixFactory matrixFactory);
+
+	/**
+	 * @param other         The dense matrix on the right.
+	 * @param matrixFactory The factory of the result.
+	 * @return this^T.other
+	 */
+	Matrix transposeMmul(Matrix other, MatrixFactory matrixFactory);
+
+	/**
+	 * @param other         The dense matrix on the left.
+	 * @param matrixFactory The factory of the result.
+	 * @return other.this^T
+	 */
+	Matrix leftMmulTranspose(Matrix other, MatrixFactory matrixFactory);
+}
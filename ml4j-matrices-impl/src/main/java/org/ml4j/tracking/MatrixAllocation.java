@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.tracking;
+
+import java.io.Serializable;
+
+/**
+ * A record of a matrix allocated through a TrackingMatrixFactory.
+ * 
+ * @author Michael Lavelle
+ */
+public class MatrixAllocation implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private final long sequence;
+	private final String threadName;
+	private final int rows;
+	private final int columns;
+	private final long bytes;
+	private final StackTraceElement[] callSite;
+	private final boolean collected;
+
+	/**
+	 * @param sequence   The allocation sequence number.
+	 * @param threadName The name of the allocating thread.
+	 * @param rows       The number of rows of the matrix.
+	 * @param columns    The number of columns of the matrix.
+	 * @param bytes      The number of bytes of storage held by the matrix.
+	 * @param callSite   The stack of the allocation, or null if not sampled.
+	 * @param collected  Whether the matrix was garbage collected without having been closed.
+	 */
+	public MatrixAllocation(long sequence, String threadName, int rows, int columns, long bytes,
+			StackTraceElement[] callSite, boolean collected) {
+		this.sequence = sequence;
+		this.threadName = threadName;
+		this.rows = rows;
+		this.columns = columns;
+		this.bytes = bytes;
+		this.callSite = callSite;
+		this.collected = collected;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getThreadName() {
+		return threadName;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return The stack of the allocation, starting at the caller of the matrix factory or matrix
+	 *         operation, or null if the allocation was not sampled.
+	 */
+	public StackTraceElement[] getCallSite() {
+		return callSite == null ? null : callSite.clone();
+	}
+
+	/**
+	 * @return A description of the frame which allocated the matrix.
+	 */
+	public String getCallSiteDescription() {
+		if (callSite == null) {
+			return "<call site not sampled>";
+		} else if (callSite.length == 0) {
+			return "<unknown call site>";
+		} else {
+			return callSite[0].toString();
+		}
+	}
+
+	/**
+	 * @return Whether the matrix was garbage collected without having been closed, rather than being
+	 *         still reachable.
+	 */
+	public boolean isCollected() {
+		return collected;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + sequence + " " + rows + "x" + columns + " (" + bytes + " bytes) on " + threadName
+				+ (collected ? ", collected without close" : ", live") + " at " + getCallSiteDescription();
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.tracking;
+
+import org.ml4j.Matrix;
+
+/**
+ * Listener notified by a TrackableMatrixFactory of each matrix it, or an operation on one of its
+ * matrices, allocates, and of each of those matrices being closed.
+ * 
+ * @author Michael Lavelle
+ */
+public interface MatrixAllocationListener {
+
+	/**
+	 * @param matrix The allocated matrix.
+	 * @param bytes  The number of bytes of storage held by the matrix.
+	 */
+	void onAllocation(Matrix matrix, long bytes);
+
+	/**
+	 * @param matrix The closed matrix.
+	 */
+	void onClose(Matrix matrix);
+}
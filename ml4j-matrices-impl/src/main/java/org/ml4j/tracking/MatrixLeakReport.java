@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.tracking;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The matrices allocated through a TrackingMatrixFactory since a mark which have not been closed,
+ * grouped by the call site which allocated them.
+ * 
+ * @author Michael Lavelle
+ */
+public class MatrixLeakReport implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of frames of each call site included in toString().
+	 */
+	private static final int REPORTED_FRAMES = 8;
+
+	private final long sinceMark;
+	private final List<MatrixAllocation> leaks;
+
+	/**
+	 * @param sinceMark The mark after which the leaked matrices were allocated.
+	 * @param leaks     The leaked matrices, in allocation order.
+	 */
+	public MatrixLeakReport(long sinceMark, List<MatrixAllocation> leaks) {
+		this.sinceMark = sinceMark;
+		this.leaks = Collections.unmodifiableList(new ArrayList<>(leaks));
+	}
+
+	public long getSinceMark() {
+		return sinceMark;
+	}
+
+	/**
+	 * @return The unclosed matrices, whether still reachable or garbage collected, in allocation
+	 *         order.
+	 */
+	public List<MatrixAllocation> getLeaks() {
+		return leaks;
+	}
+
+	public boolean isEmpty() {
+		return leaks.isEmpty();
+	}
+
+	public int getLeakCount() {
+		return leaks.size();
+	}
+
+	public long getLeakedBytes() {
+		long bytes = 0;
+		for (MatrixAllocation leak : leaks) {
+			bytes += leak.getBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return The leaked matrices grouped by allocating call site, largest total bytes first.
+	 */
+	public Map<String, List<MatrixAllocation>> getLeaksByCallSite() {
+		Map<String, List<MatrixAllocation>> leaksByCallSite = new LinkedHashMap<>();
+		for (MatrixAllocation leak : leaks) {
+			leaksByCallSite.computeIfAbsent(leak.getCallSiteDescription(), k -> new ArrayList<>()).add(leak);
+		}
+		List<Map.Entry<String, List<MatrixAllocation>>> entries = new ArrayList<>(leaksByCallSite.entrySet());
+		entries.sort((a, b) -> Long.compare(getBytes(b.getValue()), getBytes(a.getValue())));
+		Map<String, List<MatrixAllocation>> sorted = new LinkedHashMap<>();
+		for (Map.Entry<String, List<MatrixAllocation>> entry : entries) {
+			sorted.put(entry.getKey(), entry.getValue());
+		}
+		return sorted;
+	}
+
+	private static long getBytes(List<MatrixAllocation> allocations) {
+		long bytes = 0;
+		for (MatrixAllocation allocation : allocations) {
+			bytes += allocation.getBytes();
+		}
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(leaks.size()).append(" unclosed matrices (").append(getLeakedBytes())
+				.append(" bytes) allocated since mark ").append(sinceMark);
+		for (Map.Entry<String, List<MatrixAllocation>> entry : getLeaksByCallSite().entrySet()) {
+			List<MatrixAllocation> allocations = entry.getValue();
+			report.append(System.lineSeparator()).append("  ").append(allocations.size()).append(" x ")
+					.append(getBytes(allocations)).append(" bytes at ").append(entry.getKey());
+			StackTraceElement[] callSite = allocations.get(0).getCallSite();
+			if (callSite != null) {
+				for (int i = 1; i < Math.min(callSite.length, REPORTED_FRAMES); i++) {
+					report.append(System.lineSeparator()).append("      at ").append(callSite[i]);
+				}
+			}
+		}
+		return report.toString();
+	}
+}
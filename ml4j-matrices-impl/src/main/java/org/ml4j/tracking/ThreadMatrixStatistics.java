@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.tracking;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of the matrices allocated by one thread through a TrackingMatrixFactory.
+ * 
+ * @author Michael Lavelle
+ */
+public class ThreadMatrixStatistics implements Serializable {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private final String threadName;
+	private final long allocationCount;
+	private final long closedCount;
+	private final long collectedCount;
+	private final long liveBytes;
+	private final long peakBytes;
+
+	/**
+	 * @param threadName      The name of the thread.
+	 * @param allocationCount The number of matrices allocated by the thread.
+	 * @param closedCount     The number of those matrices which have been closed.
+	 * @param collectedCount  The number of those matrices garbage collected without being closed.
+	 * @param liveBytes       The bytes of storage held by the unclosed, reachable matrices.
+	 * @param peakBytes       The maximum of liveBytes since tracking began or the peak was reset.
+	 */
+	public ThreadMatrixStatistics(String threadName, long allocationCount, long closedCount,
+			long collectedCount, long liveBytes, long peakBytes) {
+		this.threadName = threadName;
+		this.allocationCount = allocationCount;
+		this.closedCount = closedCount;
+		this.collectedCount = collectedCount;
+		this.liveBytes = liveBytes;
+		this.peakBytes = peakBytes;
+	}
+
+	public String getThreadName() {
+		return threadName;
+	}
+
+	public long getAllocationCount() {
+		return allocationCount;
+	}
+
+	public long getClosedCount() {
+		return closedCount;
+	}
+
+	public long getCollectedCount() {
+		return collectedCount;
+	}
+
+	public long getLiveCount() {
+		return allocationCount - closedCount - collectedCount;
+	}
+
+	public long getLiveBytes() {
+		return liveBytes;
+	}
+
+	public long getPeakBytes() {
+		return peakBytes;
+	}
+
+	@Override
+	public String toString() {
+		return threadName + ": allocated=" + allocationCount + ", closed=" + closedCount + ", collected="
+				+ collectedCount + ", live=" + getLiveCount() + ", liveBytes=" + liveBytes + ", peakBytes="
+				+ peakBytes;
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.tracking;
+
+import org.ml4j.MatrixFactory;
+
+/**
+ * A MatrixFactory which can notify a MatrixAllocationListener of the matrices it allocates, including
+ * those allocated by operations on its matrices, and of those matrices being closed.
+ * 
+ * @author Michael Lavelle
+ */
+public interface TrackableMatrixFactory extends MatrixFactory {
+
+	/**
+	 * @param matrixAllocationListener The listener to notify, or null to stop notifying.
+	 */
+	void setMatrixAllocationListener(MatrixAllocationListener matrixAllocationListener);
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.tracking;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * An opt-in MatrixFactory decorator which records the matrices allocated through it, the bytes of
+ * storage they hold, the call sites which allocated them and whether they have been closed.
+ * 
+ * When the delegate is a TrackableMatrixFactory this factory installs itself as the delegate's
+ * allocation listener, so matrices allocated by operations on tracked matrices (mmul, add, dup...),
+ * and by the delegate directly, are tracked too. Otherwise only the matrices created through this
+ * factory are tracked, and their closing is observed by polling isClosed().
+ * 
+ * Live and peak bytes are kept per allocating thread. Matrices are held weakly, so a matrix garbage
+ * collected without having been closed is reported as a leak rather than being kept reachable.
+ * 
+ * Capturing the allocating call site dominates the cost of tracking, so in production it can be
+ * sampled: with a callSiteSamplingInterval of n the call site of every nth allocation is captured,
+ * while counts and bytes are still kept for every allocation.
+ * 
+ * Typical use, at the end of an epoch or forward pass:
+ * 
+ * <pre>
+ * long mark = trackingMatrixFactory.mark();
+ * // ... forward propagate, closing intermediate activations ...
+ * MatrixLeakReport report = trackingMatrixFactory.createLeakReport(mark);
+ * </pre>
+ * 
+ * @author Michael Lavelle
+ */
+public class TrackingMatrixFactory implements MatrixFactory, MatrixAllocationListener {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of allocations between sweeps of the tracked matrices for closed matrices which
+	 * did not notify this factory.
+	 */
+	private static final int SWEEP_INTERVAL = 1024;
+
+	/**
+	 * The maximum number of garbage collected leaks retained for reporting.
+	 */
+	private static final int MAX_RETAINED_COLLECTED_LEAKS = 10000;
+
+	/**
+	 * Frames from these packages are skipped when capturing the allocating call site.
+	 */
+	private static final String[] IMPLEMENTATION_PACKAGES = new String[] { "org.ml4j.tracking.",
+			"org.ml4j.base.", "org.ml4j.jblas.", "org.ml4j.purejava.", "org.ml4j.direct.",
+			"org.ml4j.halfprecision.", "org.ml4j.sparse.", "org.ml4j.nd4j.", "org.ml4j.views.",
+			"java.lang.Thread" };
+
+	private final MatrixFactory delegate;
+	private final boolean delegateTrackable;
+	private final int callSiteSamplingInterval;
+
+	private final transient Map<Object, AllocationRecord> records;
+	private final transient ReferenceQueue<Matrix> collectedMatrices;
+	private final transient Deque<MatrixAllocation> collectedLeaks;
+	private final transient Map<Long, ThreadStatistics> threadStatistics;
+	private final transient ThreadLocal<ThreadStatistics> currentThreadStatistics;
+	private final transient AtomicLong sequence;
+
+	/**
+	 * Tracks the matrices of the delegate, capturing the call site of every allocation.
+	 * 
+	 * @param delegate The MatrixFactory to track.
+	 */
+	public TrackingMatrixFactory(MatrixFactory delegate) {
+		this(delegate, 1);
+	}
+
+	/**
+	 * @param delegate                 The MatrixFactory to track.
+	 * @param callSiteSamplingInterval Capture the call site of every callSiteSamplingInterval'th
+	 *                                 allocation, or of none if zero.
+	 */
+	public TrackingMatrixFactory(MatrixFactory delegate, int callSiteSamplingInterval) {
+		if (callSiteSamplingInterval < 0) {
+			throw new IllegalArgumentException("Call site sampling interval must not be negative");
+		}
+		this.delegate = delegate;
+		this.callSiteSamplingInterval = callSiteSamplingInterval;
+		this.records = new ConcurrentHashMap<>();
+		this.collectedMatrices = new ReferenceQueue<>();
+		this.collectedLeaks = new ArrayDeque<>();
+		this.threadStatistics = new ConcurrentHashMap<>();
+		this.currentThreadStatistics = ThreadLocal.withInitial(this::createThreadStatistics);
+		this.sequence = new AtomicLong();
+		this.delegateTrackable = delegate instanceof TrackableMatrixFactory;
+		if (delegateTrackable) {
+			((TrackableMatrixFactory) delegate).setMatrixAllocationListener(this);
+		}
+	}
+
+	/**
+	 * Stops the delegate notifying this factory of its allocations.
+	 */
+	public void detach() {
+		if (delegateTrackable) {
+			((TrackableMatrixFactory) delegate).setMatrixAllocationListener(null);
+		}
+	}
+
+	public MatrixFactory getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public void onAllocation(Matrix matrix, long bytes) {
+		long allocationSequence = sequence.incrementAndGet();
+		ThreadStatistics statistics = currentThreadStatistics.get();
+		StackTraceElement[] callSite = null;
+		if (callSiteSamplingInterval > 0 && allocationSequence % callSiteSamplingInterval == 0) {
+			callSite = captureCallSite();
+		}
+		AllocationRecord record = new AllocationRecord(matrix, collectedMatrices, allocationSequence,
+				statistics, bytes, callSite);
+		statistics.allocated(bytes);
+		records.put(record, record);
+		if (allocationSequence % SWEEP_INTERVAL == 0) {
+			sweep();
+		} else {
+			expungeCollected();
+		}
+	}
+
+	@Override
+	public void onClose(Matrix matrix) {
+		AllocationRecord record = records.remove(new IdentityKey(matrix));
+		if (record != null) {
+			record.statistics.closed(record.bytes);
+		}
+	}
+
+	/**
+	 * @return A mark from which to report leaks, after all allocations so far.
+	 */
+	public long mark() {
+		return sequence.get();
+	}
+
+	/**
+	 * @return The matrices allocated since tracking began which have not been closed.
+	 */
+	public MatrixLeakReport createLeakReport() {
+		return createLeakReport(0);
+	}
+
+	/**
+	 * @param sinceMark A mark returned by mark().
+	 * @return The matrices allocated after the mark which have not been closed.
+	 */
+	public MatrixLeakReport createLeakReport(long sinceMark) {
+		sweep();
+		List<MatrixAllocation> leaks = new ArrayList<>();
+		synchronized (collectedLeaks) {
+			for (MatrixAllocation leak : collectedLeaks) {
+				if (leak.getSequence() > sinceMark) {
+					leaks.add(leak);
+				}
+			}
+		}
+		for (AllocationRecord record : records.values()) {
+			Matrix matrix = record.get();
+			if (matrix != null && record.sequence > sinceMark) {
+				leaks.add(record.toAllocation(false));
+			}
+		}
+		leaks.sort(Comparator.comparingLong(MatrixAllocation::getSequence));
+		return new MatrixLeakReport(sinceMark, leaks);
+	}
+
+	/**
+	 * @return The bytes held by unclosed matrices allocated by the current thread.
+	 */
+	public long getLiveBytes() {
+		sweepIfUntracked();
+		return currentThreadStatistics.get().liveBytes.get();
+	}
+
+	/**
+	 * @return The maximum bytes held by unclosed matrices allocated by the current thread since
+	 *         tracking began or resetPeakBytes() was called.
+	 */
+	public long getPeakBytes() {
+		return currentThreadStatistics.get().peakBytes.get();
+	}
+
+	/**
+	 * Resets the peak bytes of the current thread to its live bytes, eg. at the start of a forward
+	 * pass.
+	 */
+	public void resetPeakBytes() {
+		sweepIfUntracked();
+		ThreadStatistics statistics = currentThreadStatistics.get();
+		statistics.peakBytes.set(statistics.liveBytes.get());
+	}
+
+	/**
+	 * @return A snapshot of the statistics of each thread which has allocated through this factory.
+	 */
+	public List<ThreadMatrixStatistics> getThreadStatistics() {
+		sweep();
+		List<ThreadMatrixStatistics> snapshot = new ArrayList<>();
+		for (ThreadStatistics statistics : threadStatistics.values()) {
+			snapshot.add(statistics.toSnapshot());
+		}
+		return snapshot;
+	}
+
+	private ThreadStatistics createThreadStatistics() {
+		Thread thread = Thread.currentThread();
+		ThreadStatistics statistics = new ThreadStatistics(thread.getName());
+		threadStatistics.put(thread.getId(), statistics);
+		return statistics;
+	}
+
+	private StackTraceElement[] captureCallSite() {
+		StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+		int start = 0;
+		while (start < stackTrace.length && isImplementationFrame(stackTrace[start])) {
+			start++;
+		}
+		return Arrays.copyOfRange(stackTrace, start, stackTrace.length);
+	}
+
+	private static boolean isImplementationFrame(StackTraceElement frame) {
+		for (String implementationPackage : IMPLEMENTATION_PACKAGES) {
+			if (frame.getClassName().startsWith(implementationPackage)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Records the matrices which have been garbage collected without being closed as leaks.
+	 */
+	private void expungeCollected() {
+		Object collected;
+		while ((collected = collectedMatrices.poll()) != null) {
+			AllocationRecord record = records.remove(collected);
+			if (record != null) {
+				record.statistics.collected(record.bytes);
+				synchronized (collectedLeaks) {
+					if (collectedLeaks.size() == MAX_RETAINED_COLLECTED_LEAKS) {
+						collectedLeaks.removeFirst();
+					}
+					collectedLeaks.addLast(record.toAllocation(true));
+				}
+			}
+		}
+	}
+
+	private void sweepIfUntracked() {
+		if (!delegateTrackable) {
+			sweep();
+		} else {
+			expungeCollected();
+		}
+	}
+
+	/**
+	 * Releases the records of matrices which were closed without notifying this factory.
+	 */
+	private void sweep() {
+		expungeCollected();
+		for (AllocationRecord record : records.values()) {
+			Matrix matrix = record.get();
+			if (matrix != null && matrix.isClosed()) {
+				onClose(matrix);
+			}
+		}
+	}
+
+	private <M extends Matrix> M created(M matrix) {
+		if (!delegateTrackable) {
+			onAllocation(matrix, matrix.getLength() * (long) Float.BYTES);
+		}
+		return matrix;
+	}
+
+	@Override
+	public Matrix createOnes(int rows, int columns) {
+		return created(delegate.createOnes(rows, columns));
+	}
+
+	@Override
+	public Matrix createOnes(int length) {
+		return created(delegate.createOnes(length));
+	}
+
+	@Override
+	public Matrix createMatrixFromRows(float[][] data) {
+		return created(delegate.createMatrixFromRows(data));
+	}
+
+	@Override
+	public Matrix createMatrix() {
+		return created(delegate.createMatrix());
+	}
+
+	@Override
+	public Matrix createMatrix(float[] data) {
+		return created(delegate.createMatrix(data));
+	}
+
+	@Override
+	public Matrix createMatrixFromRowsByRowsArray(int rows, int columns, float[] data) {
+		return created(delegate.createMatrixFromRowsByRowsArray(rows, columns, data));
+	}
+
+	@Override
+	public Matrix createMatrixFromColumnsByColumnsArray(int rows, int columns, float[] data) {
+		return created(delegate.createMatrixFromColumnsByColumnsArray(rows, columns, data));
+	}
+
+	@Override
+	public Matrix createMatrix(int rows, int columns) {
+		return created(delegate.createMatrix(rows, columns));
+	}
+
+	@Override
+	public Matrix createZeros(int rows, int columns) {
+		return created(delegate.createZeros(rows, columns));
+	}
+
+	@Override
+	public Matrix createRandn(int rows, int columns) {
+		return created(delegate.createRandn(rows, columns));
+	}
+
+	@Override
+	public Matrix createRand(int rows, int columns) {
+		return created(delegate.createRand(rows, columns));
+	}
+
+	@Override
+	public Matrix createHorizontalConcatenation(Matrix first, Matrix second) {
+		return created(delegate.createHorizontalConcatenation(first, second));
+	}
+
+	@Override
+	public Matrix createVerticalConcatenation(Matrix first, Matrix second) {
+		return created(delegate.createVerticalConcatenation(first, second));
+	}
+
+	/**
+	 * Key to look up the record of a matrix by identity.
+	 */
+	private static class IdentityKey {
+
+		private final Matrix matrix;
+
+		IdentityKey(Matrix matrix) {
+			this.matrix = matrix;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(matrix);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof AllocationRecord && ((AllocationRecord) other).get() == matrix;
+		}
+	}
+
+	/**
+	 * The record of a tracked matrix, holding the matrix weakly.
+	 */
+	private static class AllocationRecord extends WeakReference<Matrix> {
+
+		private final int hashCode;
+		private final long sequence;
+		private final ThreadStatistics statistics;
+		private final long bytes;
+		private final int rows;
+		private final int columns;
+		private final StackTraceElement[] callSite;
+
+		AllocationRecord(Matrix matrix, ReferenceQueue<Matrix> queue, long sequence,
+				ThreadStatistics statistics, long bytes, StackTraceElement[] callSite) {
+			super(matrix, queue);
+			this.hashCode = System.identityHashCode(matrix);
+			this.sequence = sequence;
+			this.statistics = statistics;
+			this.bytes = bytes;
+			this.rows = matrix.getRows();
+			this.columns = matrix.getColumns();
+			this.callSite = callSite;
+		}
+
+		MatrixAllocation toAllocation(boolean collected) {
+			return new MatrixAllocation(sequence, statistics.threadName, rows, columns, bytes, callSite,
+					collected);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			Matrix matrix = get();
+			if (matrix == null) {
+				return false;
+			} else if (other instanceof IdentityKey) {
+				return ((IdentityKey) other).matrix == matrix;
+			} else {
+				return other instanceof AllocationRecord && ((AllocationRecord) other).get() == matrix;
+			}
+		}
+	}
+
+	/**
+	 * The counts and bytes of the matrices allocated by one thread. Matrices may be closed on other
+	 * threads, so the counters are atomic.
+	 */
+	private static class ThreadStatistics {
+
+		private final String threadName;
+		private final AtomicLong allocationCount = new AtomicLong();
+		private final AtomicLong closedCount = new AtomicLong();
+		private final AtomicLong collectedCount = new AtomicLong();
+		private final AtomicLong liveBytes = new AtomicLong();
+		private final AtomicLong peakBytes = new AtomicLong();
+
+		ThreadStatistics(String threadName) {
+			this.threadName = threadName;
+		}
+
+		void allocated(long bytes) {
+			allocationCount.incrementAndGet();
+			long live = liveBytes.addAndGet(bytes);
+			peakBytes.accumulateAndGet(live, Math::max);
+		}
+
+		void closed(long bytes) {
+			closedCount.incrementAndGet();
+			liveBytes.addAndGet(-bytes);
+		}
+
+		void collected(long bytes) {
+			collectedCount.incrementAndGet();
+			liveBytes.addAndGet(-bytes);
+		}
+
+		ThreadMatrixStatistics toSnapshot() {
+			return new ThreadMatrixStatistics(threadName, allocationCount.get(), closedCount.get(),
+					collectedCount.get(), liveBytes.get(), peakBytes.get());
+		}
+	}
+}
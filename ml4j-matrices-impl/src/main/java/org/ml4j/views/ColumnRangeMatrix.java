@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.views;
+
+import org.ml4j.Matrix;
+
+/**
+ * A Matrix which can provide a range of its columns without copying them where its storage allows.
+ * 
+ * @author Michael Lavelle
+ */
+public interface ColumnRangeMatrix extends Matrix {
+
+	/**
+	 * Returns the columns from start (inclusive) to endExclusive (exclusive) of this matrix. The
+	 * result may be a view sharing the data of this matrix, so this matrix must not be modified in
+	 * place while the result is in use. A view copies its values into storage of its own before it is
+	 * modified in place or reshaped, so changes to the result never reach this matrix. Closing the
+	 * result does not close this matrix.
+	 * 
+	 * @param start        The index of the first column.
+	 * @param endExclusive The index after the last column.
+	 * @return The columns.
+	 */
+	Matrix getColumnRange(int start, int endExclusive);
+}
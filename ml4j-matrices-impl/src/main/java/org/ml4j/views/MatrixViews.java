@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.views;
+
+import org.ml4j.Matrix;
+
+/**
+ * Provides views of any Matrix, using the views of the matrix implementation where available and
+ * otherwise copying.
+ * 
+ * @author Michael Lavelle
+ */
+public final class MatrixViews {
+
+	private MatrixViews() {
+	}
+
+	/**
+	 * Returns the columns from start (inclusive) to endExclusive (exclusive) of the matrix, as
+	 * described by ColumnRangeMatrix.getColumnRange.
+	 * 
+	 * @param matrix       The matrix.
+	 * @param start        The index of the first column.
+	 * @param endExclusive The index after the last column.
+	 * @return The columns.
+	 */
+	public static Matrix getColumnRange(Matrix matrix, int start, int endExclusive) {
+		if (start < 0 || endExclusive > matrix.getColumns() || start > endExclusive) {
+			throw new IllegalArgumentException(
+					"Invalid column range " + start + " to " + endExclusive + " for " + matrix.getColumns() + " columns");
+		}
+		if (matrix instanceof ColumnRangeMatrix) {
+			return ((ColumnRangeMatrix) matrix).getColumnRange(start, endExclusive);
+		}
+		int[] columnIndexes = new int[endExclusive - start];
+		for (int i = 0; i < columnIndexes.length; i++) {
+			columnIndexes[i] = start + i;
+		}
+		return matrix.getColumns(columnIndexes);
+	}
+}
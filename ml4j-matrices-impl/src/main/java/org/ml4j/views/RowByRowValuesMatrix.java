@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.views;
+
+import org.ml4j.Matrix;
+
+/**
+ * A Matrix which can copy a range of its row-major values without copying the rest of its values, or
+ * sharing its storage.
+ * 
+ * Unlike getRowByRowArray, which may return the storage of the matrix itself and so stop it being
+ * released for reuse when the matrix is closed, the storage of the matrix is unaffected.
+ * 
+ * @author Michael Lavelle
+ */
+public interface RowByRowValuesMatrix extends Matrix {
+
+	/**
+	 * Copies the values of this matrix, in row-major order, from start (inclusive) to end (exclusive)
+	 * into the target array.
+	 * 
+	 * @param start       The row-major index of the first value.
+	 * @param end         The row-major index after the last value.
+	 * @param target      The target array.
+	 * @param targetIndex The index in the target array of the first value.
+	 */
+	void getRowByRowValues(int start, int end, float[] target, int targetIndex);
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.activations;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks that the in-place activation gradients of MatrixActivations match the out-of-place
+ * gradients, and update the matrix itself.
+ *
+ * @author Michael Lavelle
+ */
+public class MatrixActivationsTest {
+
+	private static final float DELTA = 1e-6f;
+
+	private Random random;
+
+	@Before
+	public void setUp() {
+		random = new Random(1);
+	}
+
+	@Test
+	public void testInPlaceGradients() {
+		for (MatrixFactory matrixFactory : new MatrixFactory[] { new JBlasRowMajorMatrixFactory(),
+				new PureJavaRowMajorMatrixFactory() }) {
+			float[] data = randomData(6 * 5);
+
+			Matrix sigmoidOutputs = MatrixActivations.sigmoid(
+					matrixFactory.createMatrixFromRowsByRowsArray(6, 5, data.clone()), matrixFactory);
+			float[] expected = MatrixActivations.sigmoidGradient(sigmoidOutputs, matrixFactory).getRowByRowArray();
+			assertInPlace(expected, sigmoidOutputs, MatrixActivations.sigmoidGradienti(sigmoidOutputs));
+
+			Matrix tanhOutputs = MatrixActivations.tanh(
+					matrixFactory.createMatrixFromRowsByRowsArray(6, 5, data.clone()), matrixFactory);
+			expected = MatrixActivations.tanhGradient(tanhOutputs, matrixFactory).getRowByRowArray();
+			assertInPlace(expected, tanhOutputs, MatrixActivations.tanhGradienti(tanhOutputs));
+
+			Matrix reluOutputs = MatrixActivations.relu(
+					matrixFactory.createMatrixFromRowsByRowsArray(6, 5, data.clone()), matrixFactory);
+			expected = MatrixActivations.reluGradient(reluOutputs, matrixFactory).getRowByRowArray();
+			assertInPlace(expected, reluOutputs, MatrixActivations.reluGradienti(reluOutputs));
+		}
+	}
+
+	private void assertInPlace(float[] expected, Matrix matrix, Matrix result) {
+		Assert.assertArrayEquals(expected, result.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(expected, matrix.getRowByRowArray(), DELTA);
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.direct.DirectFloatBufferMatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+import org.ml4j.tracking.MatrixAllocationListener;
+import org.ml4j.views.MatrixViews;
+
+/**
+ * Checks the column-range views of the pure-Java and direct buffer backends against the columns
+ * copied by the JBlas reference backend, and that changes to a view never reach the matrix it views.
+ *
+ * @author Michael Lavelle
+ */
+public class RowMajorColumnRangeMatrixTest {
+
+	private static final float DELTA = 1e-6f;
+
+	private MatrixFactory referenceMatrixFactory;
+	private List<RowMajorMatrixFactoryBase> matrixFactories;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		matrixFactories = new ArrayList<>();
+		matrixFactories.add(new PureJavaRowMajorMatrixFactory());
+		matrixFactories.add(new DirectFloatBufferMatrixFactory());
+		random = new Random(1);
+	}
+
+	@Test
+	public void testColumnRangeValues() {
+		float[] data = randomData(6 * 10);
+		Matrix expected = MatrixViews.getColumnRange(referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 10, data),
+				3, 8);
+		for (MatrixFactory matrixFactory : matrixFactories) {
+			Matrix actual = MatrixViews.getColumnRange(matrixFactory.createMatrixFromRowsByRowsArray(6, 10, data.clone()),
+					3, 8);
+			Assert.assertEquals(6, actual.getRows());
+			Assert.assertEquals(5, actual.getColumns());
+			Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), DELTA);
+			Assert.assertArrayEquals(expected.mul(2f).getRowByRowArray(), actual.mul(2f).getRowByRowArray(), DELTA);
+		}
+	}
+
+	@Test
+	public void testInPlaceChangesDoNotReachParent() {
+		float[] data = randomData(4 * 9);
+		Matrix expected = MatrixViews.getColumnRange(referenceMatrixFactory.createMatrixFromRowsByRowsArray(4, 9, data),
+				2, 7);
+		expected.asEditableMatrix().addi(1f);
+		for (MatrixFactory matrixFactory : matrixFactories) {
+			Matrix parent = matrixFactory.createMatrixFromRowsByRowsArray(4, 9, data.clone());
+			Matrix view = MatrixViews.getColumnRange(parent, 2, 7);
+			view.asEditableMatrix().addi(1f);
+			view.asEditableMatrix().put(0, 0, 5f);
+
+			Assert.assertArrayEquals(data, parent.getRowByRowArray(), DELTA);
+			Assert.assertEquals(5f, view.get(0, 0), DELTA);
+			Assert.assertEquals(expected.get(3, 4), view.get(3, 4), DELTA);
+		}
+	}
+
+	@Test
+	public void testReshape() {
+		float[] data = randomData(4 * 6);
+		Matrix expected = MatrixViews.getColumnRange(referenceMatrixFactory.createMatrixFromRowsByRowsArray(4, 6, data),
+				1, 4);
+		for (MatrixFactory matrixFactory : matrixFactories) {
+			Matrix parent = matrixFactory.createMatrixFromRowsByRowsArray(4, 6, data.clone());
+			Matrix view = MatrixViews.getColumnRange(parent, 1, 4);
+			view.asEditableMatrix().reshape(2, 6);
+
+			Assert.assertEquals(2, view.getRows());
+			Assert.assertEquals(6, view.getColumns());
+			Assert.assertArrayEquals(expected.getRowByRowArray(), view.getRowByRowArray(), DELTA);
+			Assert.assertArrayEquals(data, parent.getRowByRowArray(), DELTA);
+		}
+	}
+
+	@Test
+	public void testAllocationsAndClosesAreSymmetric() {
+		for (RowMajorMatrixFactoryBase matrixFactory : matrixFactories) {
+			List<Matrix> allocated = new ArrayList<>();
+			List<Matrix> closed = new ArrayList<>();
+			matrixFactory.setMatrixAllocationListener(new MatrixAllocationListener() {
+
+				@Override
+				public void onAllocation(Matrix matrix, long bytes) {
+					allocated.add(matrix);
+				}
+
+				@Override
+				public void onClose(Matrix matrix) {
+					closed.add(matrix);
+				}
+			});
+			Matrix parent = matrixFactory.createMatrix(3, 8);
+			Matrix unchanged = MatrixViews.getColumnRange(parent, 0, 4);
+			Matrix changed = MatrixViews.getColumnRange(parent, 4, 8);
+			changed.asEditableMatrix().addi(1f);
+
+			unchanged.close();
+			changed.close();
+			parent.close();
+
+			// The parent, both views and the copy made by the changed view
+			Assert.assertEquals(4, allocated.size());
+			Assert.assertEquals(allocated.size(), closed.size());
+			Assert.assertTrue(closed.containsAll(allocated));
+		}
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
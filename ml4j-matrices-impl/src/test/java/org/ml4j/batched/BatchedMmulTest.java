@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.batched;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.floatarray.DefaultFloatArrayFactory;
+import org.ml4j.jblas.DefaultFloatMatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks the batched multiplications of BatchedMmul, through the batched pure-Java backend and the
+ * parallel fallback, against individual multiplications by the JBlas reference backend.
+ *
+ * @author Michael Lavelle
+ */
+public class BatchedMmulTest {
+
+	private static final float DELTA = 1e-4f;
+
+	/**
+	 * Shapes (rows, inner, columns) of differing sizes, so that the pairs of a batch are unbalanced.
+	 */
+	private static final int[][] SHAPES = { { 1, 1, 1 }, { 3, 5, 7 }, { 16, 16, 16 }, { 2, 40, 9 },
+			{ 33, 17, 1 } };
+
+	private MatrixFactory referenceMatrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testPureJavaBatchMatchesReference() {
+		ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+		try {
+			PureJavaRowMajorMatrixFactory matrixFactory = new PureJavaRowMajorMatrixFactory(forkJoinPool);
+			// Fewer pairs than threads parallelise each product, more compute each on one thread
+			for (int batchSize : new int[] { 1, 3, 4, 25 }) {
+				assertBatchMatchesReference(matrixFactory, batchSize);
+			}
+		} finally {
+			forkJoinPool.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelFallbackMatchesReference() {
+		MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+		Assert.assertFalse(matrixFactory instanceof BatchedMmulMatrixFactory);
+		for (int batchSize : new int[] { 1, 2, 25 }) {
+			assertBatchMatchesReference(matrixFactory, batchSize);
+		}
+	}
+
+	@Test
+	public void testFallbackRunsOnFactoryPool() {
+		ForkJoinPool forkJoinPool = new ForkJoinPool(3);
+		try {
+			MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory(new DefaultFloatMatrixFactory(),
+					new DefaultFloatArrayFactory(), new ParallelKernels(forkJoinPool, 0));
+			Assert.assertEquals(0, forkJoinPool.getPoolSize());
+			assertBatchMatchesReference(matrixFactory, 25);
+			// The pool starts its threads only when the batch is divided between them
+			Assert.assertTrue(forkJoinPool.getPoolSize() > 0);
+		} finally {
+			forkJoinPool.shutdown();
+		}
+	}
+
+	@Test
+	public void testExplicitPools() {
+		MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+		List<Matrix> lefts = new ArrayList<>();
+		List<Matrix> rights = new ArrayList<>();
+		List<Matrix> expected = createBatch(matrixFactory, 13, lefts, rights);
+		for (int parallelism : new int[] { 1, 3 }) {
+			ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+			try {
+				assertEquals(expected, BatchedMmul.mmul(lefts, rights, forkJoinPool, Matrix::mmul));
+			} finally {
+				forkJoinPool.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyBatch() {
+		List<Matrix> results = BatchedMmul.mmul(new PureJavaRowMajorMatrixFactory(), new ArrayList<>(),
+				new ArrayList<>());
+		Assert.assertTrue(results.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMismatchedBatchSizes() {
+		Matrix matrix = referenceMatrixFactory.createMatrix(2, 2);
+		BatchedMmul.mmul(referenceMatrixFactory, Arrays.asList(matrix, matrix), Arrays.asList(matrix));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMismatchedShapes() {
+		MatrixFactory matrixFactory = new PureJavaRowMajorMatrixFactory();
+		BatchedMmul.mmul(matrixFactory, Arrays.asList(matrixFactory.createMatrix(2, 3)),
+				Arrays.asList(matrixFactory.createMatrix(2, 3)));
+	}
+
+	private void assertBatchMatchesReference(MatrixFactory matrixFactory, int batchSize) {
+		List<Matrix> lefts = new ArrayList<>();
+		List<Matrix> rights = new ArrayList<>();
+		List<Matrix> expected = createBatch(matrixFactory, batchSize, lefts, rights);
+		assertEquals(expected, BatchedMmul.mmul(matrixFactory, lefts, rights));
+	}
+
+	/**
+	 * Fills the batch with pairs created by the matrix factory.
+	 *
+	 * @return The products of the pairs, multiplied individually by the reference backend.
+	 */
+	private List<Matrix> createBatch(MatrixFactory matrixFactory, int batchSize, List<Matrix> lefts,
+			List<Matrix> rights) {
+		List<Matrix> expected = new ArrayList<>();
+		for (int i = 0; i < batchSize; i++) {
+			int[] shape = SHAPES[i % SHAPES.length];
+			float[] left = randomData(shape[0] * shape[1]);
+			float[] right = randomData(shape[1] * shape[2]);
+			lefts.add(matrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], left.clone()));
+			rights.add(matrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], right.clone()));
+			expected.add(referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], left)
+					.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], right)));
+		}
+		return expected;
+	}
+
+	private void assertEquals(List<Matrix> expected, List<Matrix> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getRows(), actual.get(i).getRows());
+			Assert.assertEquals(expected.get(i).getColumns(), actual.get(i).getColumns());
+			Assert.assertArrayEquals(expected.get(i).getRowByRowArray(), actual.get(i).getRowByRowArray(), DELTA);
+		}
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
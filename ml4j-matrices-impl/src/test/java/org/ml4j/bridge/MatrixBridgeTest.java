@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.bridge;
+
+import java.util.Random;
+
+import org.jblas.FloatMatrix;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.direct.DirectFloatBufferMatrix;
+import org.ml4j.direct.DirectFloatBufferMatrixFactory;
+import org.ml4j.floatarray.FloatArrayPool;
+import org.ml4j.jblas.JBlasRowMajorMatrix;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrix;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks the conversions of MatrixBridge between the JBlas, pure-Java and direct buffer backends,
+ * and that storage shared with a pooled JBlas matrix is not reused by the pool.
+ *
+ * @author Michael Lavelle
+ */
+public class MatrixBridgeTest {
+
+	private static final float DELTA = 1e-6f;
+
+	private FloatArrayPool floatArrayPool;
+	private JBlasRowMajorMatrixFactory jblasMatrixFactory;
+	private PureJavaRowMajorMatrixFactory pureJavaMatrixFactory;
+	private DirectFloatBufferMatrixFactory directMatrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		floatArrayPool = new FloatArrayPool(1, 4);
+		jblasMatrixFactory = new JBlasRowMajorMatrixFactory(floatArrayPool);
+		pureJavaMatrixFactory = new PureJavaRowMajorMatrixFactory();
+		directMatrixFactory = new DirectFloatBufferMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testJBlasToPureJavaSharesData() {
+		float[] data = randomData(5 * 3);
+		Matrix jblasMatrix = createPooledJBlasMatrix(5, 3, data);
+		Matrix pureJavaMatrix = MatrixBridge.toPureJavaMatrix(jblasMatrix, pureJavaMatrixFactory);
+
+		Assert.assertTrue(pureJavaMatrix instanceof PureJavaRowMajorMatrix);
+		Assert.assertEquals(5, pureJavaMatrix.getRows());
+		Assert.assertEquals(3, pureJavaMatrix.getColumns());
+		Assert.assertArrayEquals(data, pureJavaMatrix.getRowByRowArray(), DELTA);
+
+		jblasMatrix.asEditableMatrix().muli(2f);
+		Assert.assertEquals(data[7] * 2f, pureJavaMatrix.get(7), DELTA);
+	}
+
+	@Test
+	public void testPureJavaToJBlasSharesData() {
+		float[] data = randomData(4 * 6);
+		float[] other = randomData(6 * 2);
+		Matrix pureJavaMatrix = pureJavaMatrixFactory.createMatrixFromRowsByRowsArray(4, 6, data);
+		Matrix jblasMatrix = MatrixBridge.toJBlasMatrix(pureJavaMatrix, jblasMatrixFactory);
+
+		Assert.assertTrue(jblasMatrix instanceof JBlasRowMajorMatrix);
+		Assert.assertArrayEquals(data, jblasMatrix.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(
+				pureJavaMatrix.mmul(pureJavaMatrixFactory.createMatrixFromRowsByRowsArray(6, 2, other))
+						.getRowByRowArray(),
+				jblasMatrix.mmul(jblasMatrixFactory.createMatrixFromRowsByRowsArray(6, 2, other)).getRowByRowArray(),
+				1e-5f);
+
+		pureJavaMatrix.asEditableMatrix().addi(1f);
+		Assert.assertEquals(data[0], jblasMatrix.get(0), DELTA);
+	}
+
+	@Test
+	public void testSharedJBlasDataIsNotReusedByPool() {
+		float[] data = randomData(8 * 8);
+		Matrix jblasMatrix = createPooledJBlasMatrix(8, 8, data);
+		Matrix pureJavaMatrix = MatrixBridge.toPureJavaMatrix(jblasMatrix, pureJavaMatrixFactory);
+		FloatMatrix floatMatrix = MatrixBridge.asFloatMatrix(createPooledJBlasMatrix(8, 8, data));
+
+		jblasMatrix.close();
+		// A pooled allocation of the same length must not be given the bridged array
+		Matrix next = jblasMatrixFactory.createMatrix(8, 8);
+		next.asEditableMatrix().addi(1f);
+
+		Assert.assertEquals(0, floatArrayPool.getReleases());
+		Assert.assertArrayEquals(data, pureJavaMatrix.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(data, floatMatrix.data, DELTA);
+	}
+
+	@Test
+	public void testToDirectMatrix() {
+		float[] data = randomData(3 * 7);
+		for (Matrix matrix : new Matrix[] { createPooledJBlasMatrix(3, 7, data),
+				pureJavaMatrixFactory.createMatrixFromRowsByRowsArray(3, 7, data.clone()) }) {
+			Matrix directMatrix = MatrixBridge.toDirectMatrix(matrix, directMatrixFactory);
+			Assert.assertTrue(directMatrix instanceof DirectFloatBufferMatrix);
+			Assert.assertEquals(3, directMatrix.getRows());
+			Assert.assertEquals(7, directMatrix.getColumns());
+			Assert.assertArrayEquals(data, directMatrix.getRowByRowArray(), DELTA);
+
+			// Between heap and native memory the values are copied
+			matrix.asEditableMatrix().addi(1f);
+			Assert.assertArrayEquals(data, directMatrix.getRowByRowArray(), DELTA);
+		}
+	}
+
+	@Test
+	public void testFromDirectMatrix() {
+		float[] data = randomData(6 * 2);
+		Matrix directMatrix = directMatrixFactory.createMatrixFromRowsByRowsArray(6, 2, data);
+
+		Matrix jblasMatrix = MatrixBridge.toJBlasMatrix(directMatrix, jblasMatrixFactory);
+		Matrix pureJavaMatrix = MatrixBridge.toPureJavaMatrix(directMatrix, pureJavaMatrixFactory);
+		Assert.assertArrayEquals(data, jblasMatrix.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(data, pureJavaMatrix.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(data, MatrixBridge.asFloatMatrix(directMatrix).data, DELTA);
+	}
+
+	/**
+	 * @return A JBlas matrix whose data is obtained from the pool, rather than wrapping the given array.
+	 */
+	private Matrix createPooledJBlasMatrix(int rows, int columns, float[] data) {
+		Matrix matrix = jblasMatrixFactory.createMatrix(rows, columns);
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				matrix.asEditableMatrix().put(row, column, data[row * columns + column]);
+			}
+		}
+		return matrix;
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
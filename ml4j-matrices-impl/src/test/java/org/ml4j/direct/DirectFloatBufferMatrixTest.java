@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.direct;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ml4j.EditableMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.io.MatrixFileOrientation;
+import org.ml4j.io.MatrixFiles;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+/**
+ * Checks the operations of the direct buffer backend, and the matrices it maps from matrix files,
+ * against the JBlas reference backend.
+ *
+ * @author Michael Lavelle
+ */
+public class DirectFloatBufferMatrixTest {
+
+	private static final float DELTA = 1e-5f;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private MatrixFactory referenceMatrixFactory;
+	private DirectFloatBufferMatrixFactory matrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		matrixFactory = new DirectFloatBufferMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testElementwiseAndInPlaceOperations() {
+		float[] first = randomData(7 * 5);
+		float[] second = randomData(7 * 5);
+		Matrix expectedFirst = referenceMatrixFactory.createMatrixFromRowsByRowsArray(7, 5, first);
+		Matrix expectedSecond = referenceMatrixFactory.createMatrixFromRowsByRowsArray(7, 5, second);
+		Matrix actualFirst = matrixFactory.createMatrixFromRowsByRowsArray(7, 5, first.clone());
+		Matrix actualSecond = matrixFactory.createMatrixFromRowsByRowsArray(7, 5, second.clone());
+
+		assertEquals(expectedFirst.add(expectedSecond), actualFirst.add(actualSecond));
+		assertEquals(expectedFirst.mul(expectedSecond), actualFirst.mul(actualSecond));
+		assertEquals(expectedFirst.sub(2f), actualFirst.sub(2f));
+		assertEquals(expectedFirst.sigmoid(), actualFirst.sigmoid());
+		assertEquals(expectedFirst.transpose(), actualFirst.transpose());
+		assertEquals(expectedFirst.rowSums(), actualFirst.rowSums());
+		assertEquals(expectedFirst.columnSums(), actualFirst.columnSums());
+
+		EditableMatrix expected = expectedFirst.dup().asEditableMatrix();
+		EditableMatrix actual = actualFirst.dup().asEditableMatrix();
+		expected.addi(expectedSecond).muli(2f);
+		actual.addi(actualSecond).muli(2f);
+		expected.put(3, 4, 7f);
+		actual.put(3, 4, 7f);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testMmul() {
+		for (int[] shape : new int[][] { { 1, 1, 1 }, { 3, 5, 7 }, { 65, 130, 33 } }) {
+			float[] left = randomData(shape[0] * shape[1]);
+			float[] right = randomData(shape[1] * shape[2]);
+			Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], left)
+					.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], right));
+			Matrix actual = matrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], left.clone())
+					.mmul(matrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], right.clone()));
+			assertEquals(expected, actual, 1e-4f * shape[1]);
+		}
+	}
+
+	@Test
+	public void testCreateMatrixFromFile() throws IOException {
+		float[] data = randomData(6 * 4);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 4, data);
+		for (MatrixFileOrientation orientation : MatrixFileOrientation.values()) {
+			Path path = temporaryFolder.newFile().toPath();
+			MatrixFiles.write(expected, path, orientation);
+
+			DirectFloatBufferMatrix actual = matrixFactory.createMatrixFromFile(path);
+			assertEquals(expected, actual);
+			assertEquals(expected.mul(2f), actual.mul(2f));
+			Assert.assertTrue(actual.isImmutable());
+		}
+	}
+
+	@Test
+	public void testMappedMatrixRejectsWrites() throws IOException {
+		Path path = temporaryFolder.newFile().toPath();
+		MatrixFiles.write(referenceMatrixFactory.createMatrixFromRowsByRowsArray(3, 3, randomData(3 * 3)), path);
+		DirectFloatBufferMatrix matrix = matrixFactory.createMatrixFromFile(path);
+
+		try {
+			matrix.setImmutable(false);
+			Assert.fail("Expected a read-only mapping to stay immutable");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(matrix.isImmutable());
+		}
+		try {
+			matrix.putValue(0, 1f);
+			Assert.fail("Expected the write to be rejected");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("Matrix is immutable", e.getMessage());
+		}
+		// A soft dup shares the read-only mapping
+		try {
+			matrix.softDup().asEditableMatrix();
+			Assert.fail("Expected the soft dup to be immutable");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("Matrix is immutable", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testEditableMatrixFromFileLeavesFileUnchanged() throws IOException {
+		float[] data = randomData(5 * 3);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(5, 3, data);
+		Path path = temporaryFolder.newFile().toPath();
+		MatrixFiles.write(expected, path);
+
+		DirectFloatBufferMatrix actual = matrixFactory.createMatrixFromFile(path, true);
+		Assert.assertFalse(actual.isImmutable());
+		actual.asEditableMatrix().muli(2f);
+		assertEquals(expected.mul(2f), actual);
+
+		assertEquals(expected, MatrixFiles.read(path, referenceMatrixFactory));
+		assertEquals(expected, matrixFactory.createMatrixFromFile(path));
+	}
+
+	private void assertEquals(Matrix expected, Matrix actual) {
+		assertEquals(expected, actual, DELTA);
+	}
+
+	private void assertEquals(Matrix expected, Matrix actual, float delta) {
+		Assert.assertEquals(expected.getRows(), actual.getRows());
+		Assert.assertEquals(expected.getColumns(), actual.getColumns());
+		Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), delta);
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.halfprecision;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.floatarray.FloatArrayPool;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.tracking.MatrixAllocationListener;
+
+/**
+ * Checks the compression of JBlas matrices to half precision and their expansion back to float.
+ *
+ * @author Michael Lavelle
+ */
+public class HalfPrecisionMatrixFactoryTest {
+
+	private MatrixFactory referenceMatrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testCompressAndExpand() {
+		float[] data = randomData(9 * 7);
+		Matrix matrix = referenceMatrixFactory.createMatrixFromRowsByRowsArray(9, 7, data);
+		for (HalfPrecisionFormat format : HalfPrecisionFormat.values()) {
+			HalfPrecisionMatrixFactory matrixFactory = new HalfPrecisionMatrixFactory(format);
+			HalfPrecisionMatrix compressed = matrixFactory.compress(matrix);
+			Matrix expanded = matrixFactory.expand(compressed, referenceMatrixFactory);
+
+			Assert.assertEquals(9, expanded.getRows());
+			Assert.assertEquals(7, expanded.getColumns());
+			// bfloat16 keeps 8 bits of significand, IEEE half 11
+			float relativeError = format == HalfPrecisionFormat.BFLOAT16 ? 1f / 256 : 1f / 2048;
+			for (int i = 0; i < data.length; i++) {
+				Assert.assertEquals(data[i], expanded.get(i), Math.abs(data[i]) * relativeError);
+			}
+		}
+	}
+
+	@Test
+	public void testCompressLeavesPooledMatrixReleasable() {
+		FloatArrayPool floatArrayPool = new FloatArrayPool(1, 4);
+		JBlasRowMajorMatrixFactory pooledMatrixFactory = new JBlasRowMajorMatrixFactory(floatArrayPool);
+		// Spanning several stripes, and a partial last stripe
+		Matrix activations = pooledMatrixFactory.createRandn(100, 123);
+		float[] expected = new float[activations.getLength()];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = activations.get(i);
+		}
+		HalfPrecisionMatrix compressed = new HalfPrecisionMatrixFactory().compress(activations);
+
+		long releases = floatArrayPool.getReleases();
+		activations.close();
+		Assert.assertEquals(releases + 1, floatArrayPool.getReleases());
+		float[] actual = compressed.getRowByRowArray();
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals(expected[i], actual[i], Math.abs(expected[i]) / 256);
+		}
+	}
+
+	@Test
+	public void testCompressNotifiesAllocationListener() {
+		HalfPrecisionMatrixFactory matrixFactory = new HalfPrecisionMatrixFactory();
+		List<Matrix> allocated = new ArrayList<>();
+		List<Matrix> closed = new ArrayList<>();
+		matrixFactory.setMatrixAllocationListener(new MatrixAllocationListener() {
+
+			@Override
+			public void onAllocation(Matrix matrix, long bytes) {
+				allocated.add(matrix);
+				Assert.assertEquals(matrix.getLength() * 2L, bytes);
+			}
+
+			@Override
+			public void onClose(Matrix matrix) {
+				closed.add(matrix);
+			}
+		});
+		HalfPrecisionMatrix compressed = matrixFactory
+				.compress(referenceMatrixFactory.createMatrixFromRowsByRowsArray(3, 4, randomData(12)));
+		compressed.close();
+
+		Assert.assertEquals(1, allocated.size());
+		Assert.assertSame(compressed, allocated.get(0));
+		Assert.assertEquals(allocated, closed);
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.images;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ConvolutionAlgorithm;
+import org.ml4j.kernels.ConvolutionGeometry;
+import org.ml4j.kernels.FftConvolution;
+import org.ml4j.kernels.ParallelGemm;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks the FFT convolution of images against multiplying the weights by their im2col matrix.
+ * 
+ * @author Michael Lavelle
+ */
+public class FftConvolutionTest {
+
+	private static final int EXAMPLES = 3;
+
+	/**
+	 * The tolerance of the differences in rounding of the transforms, relative to the magnitude of the
+	 * outputs.
+	 */
+	private static final float TOLERANCE = 1e-4f;
+
+	private ForkJoinPool forkJoinPool;
+	private MatrixFactory matrixFactory;
+	private AtomicInteger fallbackConvolutions;
+	private FftConvolution fftConvolution;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		forkJoinPool = new ForkJoinPool(4);
+		// A threshold of zero so that the transforms are divided between the threads of the pool
+		matrixFactory = new PureJavaRowMajorMatrixFactory(new ParallelGemm(forkJoinPool, 0),
+				new ParallelKernels(forkJoinPool, 0));
+		fallbackConvolutions = new AtomicInteger();
+		// A cost ratio of zero so that every convolution other than a pointwise one is computed by FFT
+		fftConvolution = new FftConvolution(countingFallback(), 0f);
+		random = new Random(1);
+	}
+
+	@After
+	public void tearDown() {
+		forkJoinPool.shutdown();
+	}
+
+	@Test
+	public void testPowerOfTwoTransform() {
+		// A padded size of 16
+		assertMatchesIm2col(3, 14, 14, 4, 5, 1, 1);
+	}
+
+	@Test
+	public void testSmoothTransform() {
+		// Padded sizes of 15 = 3 x 5, and 18 = 2 x 3 x 3
+		assertMatchesIm2col(2, 13, 13, 5, 5, 1, 1);
+		assertMatchesIm2col(2, 18, 18, 3, 3, 1, 0);
+	}
+
+	@Test
+	public void testNonSquareTransform() {
+		// Padded sizes of 11, extended to 12, by 9
+		assertMatchesIm2col(3, 9, 7, 4, 3, 1, 1);
+	}
+
+	@Test
+	public void testStrided() {
+		assertMatchesIm2col(3, 15, 15, 4, 5, 2, 2);
+		assertMatchesIm2col(2, 16, 16, 3, 4, 3, 0);
+	}
+
+	@Test
+	public void testPadding() {
+		assertMatchesIm2col(2, 11, 11, 4, 7, 1, 3);
+	}
+
+	@Test
+	public void testTransformedFiltersCachedUntilWeightsChange() {
+		MultiChannelImages images = new MultiChannelImages(randomData(4 * 10 * 10 * EXAMPLES), 4, 10, 10, 2, 2,
+				EXAMPLES);
+		Matrix weights = matrixFactory.createMatrixFromRowsByRowsArray(6, 4 * 25, randomData(6 * 4 * 25));
+
+		images.convolve(matrixFactory, weights, 5, 5, 1, 1, fftConvolution);
+		images.convolve(matrixFactory, weights, 5, 5, 1, 1, fftConvolution);
+		Assert.assertEquals(1, fftConvolution.getFilterTransforms());
+		Assert.assertEquals(1, fftConvolution.getCachedFilters());
+
+		// An update of the weights in place is transformed again
+		weights.asEditableMatrix().muli(2f);
+		Matrix expected = weights.mmul(images.im2colConvExport(matrixFactory, 5, 5, 1, 1));
+		Matrix actual = images.convolve(matrixFactory, weights, 5, 5, 1, 1, fftConvolution);
+		Assert.assertEquals(2, fftConvolution.getFilterTransforms());
+		assertClose(expected.getRowByRowArray(), actual.getRowByRowArray());
+
+		// As are the same weights for an input of another transform size
+		MultiChannelImages largerImages = new MultiChannelImages(randomData(4 * 14 * 14 * EXAMPLES), 4, 14, 14, 1,
+				1, EXAMPLES);
+		largerImages.convolve(matrixFactory, weights, 5, 5, 1, 1, fftConvolution);
+		Assert.assertEquals(3, fftConvolution.getFilterTransforms());
+		Assert.assertEquals(0, fallbackConvolutions.get());
+
+		fftConvolution.clear();
+		Assert.assertEquals(0, fftConvolution.getCachedFilters());
+	}
+
+	@Test
+	public void testFallbackBelowCutover() {
+		FftConvolution defaultRatioConvolution = new FftConvolution(countingFallback(),
+				FftConvolution.DEFAULT_COST_RATIO);
+		// A small 3x3 convolution is cheaper direct, a large 9x9 one over many channels by FFT
+		ConvolutionGeometry small = new ConvolutionGeometry(2, 8, 8, 3, 3, 1, 1, 1, 1);
+		ConvolutionGeometry large = new ConvolutionGeometry(32, 32, 32, 9, 9, 1, 1, 4, 4);
+		Assert.assertFalse(defaultRatioConvolution.isFftFaster(small, 4, EXAMPLES));
+		Assert.assertTrue(defaultRatioConvolution.isFftFaster(large, 32, EXAMPLES));
+
+		assertMatchesIm2col(defaultRatioConvolution, 2, 8, 8, 4, 3, 1, 1);
+		Assert.assertEquals(1, fallbackConvolutions.get());
+		Assert.assertEquals(0, defaultRatioConvolution.getFilterTransforms());
+
+		// Pointwise filters fall back whatever the cost ratio
+		assertMatchesIm2col(6, 8, 8, 5, 1, 1, 0);
+		Assert.assertEquals(2, fallbackConvolutions.get());
+		Assert.assertEquals(0, fftConvolution.getFilterTransforms());
+	}
+
+	private ConvolutionAlgorithm countingFallback() {
+		return (matrixFactory, weights, input, examples, geometry) -> {
+			fallbackConvolutions.incrementAndGet();
+			return ConvolutionAlgorithm.DIRECT.convolve(matrixFactory, weights, input, examples, geometry);
+		};
+	}
+
+	private void assertMatchesIm2col(int channels, int height, int width, int filters, int filterSize, int stride,
+			int padding) {
+		assertMatchesIm2col(fftConvolution, channels, height, width, filters, filterSize, stride, padding);
+	}
+
+	private void assertMatchesIm2col(ConvolutionAlgorithm algorithm, int channels, int height, int width,
+			int filters, int filterSize, int stride, int padding) {
+		MultiChannelImages images = new MultiChannelImages(randomData(channels * height * width * EXAMPLES),
+				channels, height, width, padding, padding, EXAMPLES);
+		Matrix weights = matrixFactory.createMatrixFromRowsByRowsArray(filters, channels * filterSize * filterSize,
+				randomData(filters * channels * filterSize * filterSize));
+		Matrix expected = weights
+				.mmul(images.im2colConvExport(matrixFactory, filterSize, filterSize, stride, stride));
+
+		Matrix actual = images.convolve(matrixFactory, weights, filterSize, filterSize, stride, stride, algorithm);
+
+		Assert.assertEquals(expected.getRows(), actual.getRows());
+		Assert.assertEquals(expected.getColumns(), actual.getColumns());
+		assertClose(expected.getRowByRowArray(), actual.getRowByRowArray());
+	}
+
+	private void assertClose(float[] expected, float[] actual) {
+		Assert.assertEquals(expected.length, actual.length);
+		float scale = 0f;
+		for (float value : expected) {
+			scale = Math.max(scale, Math.abs(value));
+		}
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals("Output " + i, expected[i], actual[i], TOLERANCE * scale);
+		}
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
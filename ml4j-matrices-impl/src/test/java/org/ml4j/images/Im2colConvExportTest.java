@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.images;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ConvolutionAlgorithm;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks the im2col matrices of images, and their direct convolution, against a convolution
+ * computed from the image values, for strides that do and do not divide the padded image.
+ *
+ * @author Michael Lavelle
+ */
+public class Im2colConvExportTest {
+
+	private static final int EXAMPLES = 2;
+
+	private static final float DELTA = 1e-5f;
+
+	private MatrixFactory matrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		matrixFactory = new PureJavaRowMajorMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testUnitStride() {
+		assertMatchesReference(3, 8, 10, 3, 1, 1);
+		// Padding of two reaches rows and columns beyond those of the first filter position
+		assertMatchesReference(2, 7, 9, 3, 1, 2);
+		assertMatchesReference(1, 6, 8, 4, 1, 1);
+	}
+
+	@Test
+	public void testStrideTwo() {
+		assertMatchesReference(2, 9, 12, 3, 2, 0);
+		assertMatchesReference(2, 10, 7, 3, 2, 1);
+	}
+
+	@Test
+	public void testStrideThree() {
+		// A padded span of 9 - 3 = 6 has positions 0, 3 and 6, so three outputs
+		assertMatchesReference(2, 9, 9, 3, 3, 0);
+		assertMatchesReference(3, 11, 8, 2, 3, 1);
+	}
+
+	@Test
+	public void testStrideLargerThanFilter() {
+		assertMatchesReference(1, 13, 10, 2, 4, 0);
+		assertMatchesReference(2, 12, 14, 3, 5, 2);
+	}
+
+	@Test
+	public void testChannelConcatStrideThree() {
+		float[] first = randomData(2 * 10 * 10 * EXAMPLES);
+		float[] second = randomData(10 * 10 * EXAMPLES);
+		List<Images> images = new ArrayList<>();
+		images.add(new MultiChannelImages(first, 2, 10, 10, 1, 1, EXAMPLES));
+		images.add(new SingleChannelImages(second, 0, 10, 10, 1, 1, EXAMPLES));
+		float[] data = new float[first.length + second.length];
+		System.arraycopy(first, 0, data, 0, first.length);
+		System.arraycopy(second, 0, data, first.length, second.length);
+
+		assertMatchesReference(new ChannelConcatImages(images, 10, 10, 1, 1, EXAMPLES), data, 3, 10, 10, 3, 3, 1);
+	}
+
+	@Test
+	public void testPoolExportShape() {
+		Images images = new MultiChannelImages(randomData(3 * 9 * 9 * EXAMPLES), 3, 9, 9, 0, 0, EXAMPLES);
+		Matrix columns = images.im2colPoolExport(matrixFactory, 3, 3, 3, 3);
+		Assert.assertEquals(3 * 3, columns.getRows());
+		Assert.assertEquals(3 * 3 * EXAMPLES * 3, columns.getColumns());
+	}
+
+	private void assertMatchesReference(int channels, int height, int width, int filterSize, int stride,
+			int padding) {
+		float[] data = randomData(channels * height * width * EXAMPLES);
+		Images images = channels == 1
+				? new SingleChannelImages(data.clone(), 0, height, width, padding, padding, EXAMPLES)
+				: new MultiChannelImages(data.clone(), channels, height, width, padding, padding, EXAMPLES);
+		assertMatchesReference(images, data, channels, height, width, filterSize, stride, padding);
+	}
+
+	private void assertMatchesReference(Images images, float[] data, int channels, int height, int width,
+			int filterSize, int stride, int padding) {
+		int filters = 4;
+		Matrix weights = matrixFactory.createMatrixFromRowsByRowsArray(filters, channels * filterSize * filterSize,
+				randomData(filters * channels * filterSize * filterSize));
+		int outputHeight = (height + 2 * padding - filterSize) / stride + 1;
+		int outputWidth = (width + 2 * padding - filterSize) / stride + 1;
+		float[] expected = convolve(data, weights.getRowByRowArray(), filters, channels, height, width, filterSize,
+				stride, padding, outputHeight, outputWidth);
+
+		Matrix columns = images.im2colConvExport(matrixFactory, filterSize, filterSize, stride, stride);
+		Assert.assertEquals(channels * filterSize * filterSize, columns.getRows());
+		Assert.assertEquals(outputHeight * outputWidth * EXAMPLES, columns.getColumns());
+		Assert.assertArrayEquals(expected, weights.mmul(columns).getRowByRowArray(), DELTA);
+
+		Matrix direct = ((ImageContainerBase<?>) images).convolve(matrixFactory, weights, filterSize, filterSize, stride, stride,
+				ConvolutionAlgorithm.DIRECT);
+		Assert.assertEquals(filters, direct.getRows());
+		Assert.assertEquals(outputHeight * outputWidth * EXAMPLES, direct.getColumns());
+		Assert.assertArrayEquals(expected, direct.getRowByRowArray(), DELTA);
+	}
+
+	/**
+	 * Convolves images laid out by (channel, row, column, example), giving outputs laid out by (filter,
+	 * output row, output column, example).
+	 */
+	private float[] convolve(float[] data, float[] weights, int filters, int channels, int height, int width,
+			int filterSize, int stride, int padding, int outputHeight, int outputWidth) {
+		float[] output = new float[filters * outputHeight * outputWidth * EXAMPLES];
+		for (int f = 0; f < filters; f++) {
+			for (int oy = 0; oy < outputHeight; oy++) {
+				for (int ox = 0; ox < outputWidth; ox++) {
+					for (int e = 0; e < EXAMPLES; e++) {
+						float sum = 0f;
+						for (int c = 0; c < channels; c++) {
+							for (int fy = 0; fy < filterSize; fy++) {
+								for (int fx = 0; fx < filterSize; fx++) {
+									int y = oy * stride + fy - padding;
+									int x = ox * stride + fx - padding;
+									if (y >= 0 && y < height && x >= 0 && x < width) {
+										sum += weights[(f * channels + c) * filterSize * filterSize + fy * filterSize
+												+ fx] * data[((c * height + y) * width + x) * EXAMPLES + e];
+									}
+								}
+							}
+						}
+						output[((f * outputHeight + oy) * outputWidth + ox) * EXAMPLES + e] = sum;
+					}
+				}
+			}
+		}
+		return output;
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
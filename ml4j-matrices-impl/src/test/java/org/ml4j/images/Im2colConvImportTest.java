@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.images;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ParallelGemm;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks that the parallel im2col import accumulates exactly the same values as the serial import.
+ * 
+ * @author Michael Lavelle
+ */
+public class Im2colConvImportTest {
+
+	private static final int EXAMPLES = 3;
+
+	private ForkJoinPool forkJoinPool;
+	private MatrixFactory serialMatrixFactory;
+	private MatrixFactory parallelMatrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		forkJoinPool = new ForkJoinPool(4);
+		serialMatrixFactory = new PureJavaRowMajorMatrixFactory(new ParallelGemm(),
+				new ParallelKernels(forkJoinPool, Integer.MAX_VALUE));
+		// A threshold of zero so that every import is divided between the threads of the pool
+		parallelMatrixFactory = new PureJavaRowMajorMatrixFactory(new ParallelGemm(),
+				new ParallelKernels(forkJoinPool, 0));
+		random = new Random(1);
+	}
+
+	@After
+	public void tearDown() {
+		forkJoinPool.shutdown();
+	}
+
+	@Test
+	public void testSingleChannelOverlappingWindows() {
+		assertParallelImportIdentical(1, 20, 3, 1, 1);
+	}
+
+	@Test
+	public void testMultiChannelOverlappingWindows() {
+		assertParallelImportIdentical(5, 19, 3, 1, 1);
+	}
+
+	@Test
+	public void testMultiChannelStrided() {
+		assertParallelImportIdentical(4, 16, 3, 2, 1);
+	}
+
+	@Test
+	public void testMultiChannelPointwise() {
+		assertParallelImportIdentical(6, 12, 1, 1, 0);
+	}
+
+	@Test
+	public void testChannelConcat() {
+		int size = 17;
+		float[] first = randomData(3 * size * size * EXAMPLES);
+		float[] second = randomData(size * size * EXAMPLES);
+		Matrix columns = randomColumns(new MultiChannelImages(new float[4 * size * size * EXAMPLES], 4, size, size,
+				1, 1, EXAMPLES), 3, 1);
+
+		Images serialImages = createChannelConcatImages(first.clone(), second.clone(), size);
+		serialImages.im2colConvImport(serialMatrixFactory, columns, 3, 3, 1, 1);
+
+		Images parallelImages = createChannelConcatImages(first.clone(), second.clone(), size);
+		parallelImages.im2colConvImport(parallelMatrixFactory, columns, 3, 3, 1, 1);
+
+		Assert.assertArrayEquals(serialImages.getData(), parallelImages.getData(), 0f);
+	}
+
+	private void assertParallelImportIdentical(int channels, int size, int filterSize, int stride, int padding) {
+		float[] data = randomData(channels * size * size * EXAMPLES);
+		Matrix columns = randomColumns(createImages(new float[data.length], channels, size, padding), filterSize,
+				stride);
+
+		Images serialImages = createImages(data.clone(), channels, size, padding);
+		serialImages.im2colConvImport(serialMatrixFactory, columns, filterSize, filterSize, stride, stride);
+
+		Images parallelImages = createImages(data.clone(), channels, size, padding);
+		parallelImages.im2colConvImport(parallelMatrixFactory, columns, filterSize, filterSize, stride, stride);
+
+		Assert.assertArrayEquals(serialImages.getData(), parallelImages.getData(), 0f);
+	}
+
+	private Images createImages(float[] data, int channels, int size, int padding) {
+		if (channels == 1) {
+			return new SingleChannelImages(data, 0, size, size, padding, padding, EXAMPLES);
+		}
+		return new MultiChannelImages(data, channels, size, size, padding, padding, EXAMPLES);
+	}
+
+	private Images createChannelConcatImages(float[] first, float[] second, int size) {
+		List<Images> images = new ArrayList<>();
+		images.add(new MultiChannelImages(first, 3, size, size, 1, 1, EXAMPLES));
+		images.add(new SingleChannelImages(second, 0, size, size, 1, 1, EXAMPLES));
+		return new ChannelConcatImages(images, size, size, 1, 1, EXAMPLES);
+	}
+
+	/**
+	 * @return A random matrix of the shape of the im2col matrix of the images.
+	 */
+	private Matrix randomColumns(Images images, int filterSize, int stride) {
+		Matrix columns = images.im2colConvExport(serialMatrixFactory, filterSize, filterSize, stride, stride);
+		return serialMatrixFactory.createMatrixFromRowsByRowsArray(columns.getRows(), columns.getColumns(),
+				randomData(columns.getLength()));
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.images;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.direct.DirectFloatBufferMatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks that Im2colWorkspace hands out zero-filled buffers released by the same layer, counts them,
+ * and exports im2col matrices into them only for factories whose matrices wrap the buffer.
+ * 
+ * @author Michael Lavelle
+ */
+public class Im2colWorkspaceTest {
+
+	private static final int EXAMPLES = 2;
+
+	private static final String LAYER = "conv1";
+
+	private static final String OTHER_LAYER = "conv2";
+
+	private Im2colWorkspace workspace;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		workspace = new Im2colWorkspace(2);
+		random = new Random(1);
+	}
+
+	@Test
+	public void testReleasedBuffersReusedZeroFilled() {
+		float[] buffer = workspace.acquire(LAYER, 100);
+		Arrays.fill(buffer, 1f);
+		workspace.release(LAYER, buffer);
+
+		float[] reused = workspace.acquire(LAYER, 100);
+		Assert.assertSame(buffer, reused);
+		Assert.assertArrayEquals(new float[100], reused, 0f);
+
+		// Buffers are reused only for the same layer and length
+		workspace.release(LAYER, reused);
+		Assert.assertNotSame(buffer, workspace.acquire(OTHER_LAYER, 100));
+		Assert.assertNotSame(buffer, workspace.acquire(LAYER, 50));
+		Assert.assertSame(buffer, workspace.acquire(LAYER, 100));
+	}
+
+	@Test
+	public void testStatistics() {
+		float[] first = workspace.acquire(LAYER, 100);
+		float[] second = workspace.acquire(LAYER, 100);
+		float[] third = workspace.acquire(LAYER, 100);
+		workspace.acquire(OTHER_LAYER, 10);
+		workspace.release(LAYER, first);
+		workspace.release(LAYER, second);
+		// Beyond the two buffers retained per layer and length
+		workspace.release(LAYER, third);
+		workspace.acquire(LAYER, 100);
+
+		Im2colWorkspaceStatistics statistics = workspace.getStatistics(LAYER);
+		Assert.assertEquals(4, statistics.getAcquisitions());
+		Assert.assertEquals(1, statistics.getReuses());
+		Assert.assertEquals(3, statistics.getAllocations());
+		Assert.assertEquals(0.25, statistics.getReuseRatio(), 0d);
+		Assert.assertEquals(2, statistics.getReleases());
+		Assert.assertEquals(1, statistics.getDiscards());
+		Assert.assertEquals(300 * Float.BYTES, statistics.getAllocatedBytes());
+		Assert.assertEquals(200 * Float.BYTES, statistics.getLiveBytes());
+		Assert.assertEquals(300 * Float.BYTES, statistics.getPeakBytes());
+
+		Im2colWorkspaceStatistics totalStatistics = workspace.getStatistics();
+		Assert.assertEquals(5, totalStatistics.getAcquisitions());
+		Assert.assertEquals(310 * Float.BYTES, totalStatistics.getAllocatedBytes());
+		Assert.assertEquals(210 * Float.BYTES, totalStatistics.getLiveBytes());
+
+		// The free buffer is discarded, the buffer handed out still live
+		workspace.clear();
+		Assert.assertEquals(100 * Float.BYTES, workspace.getStatistics(LAYER).getLiveBytes());
+		Assert.assertEquals(300 * Float.BYTES, workspace.getStatistics(LAYER).getPeakBytes());
+	}
+
+	@Test
+	public void testExportReusesBuffersOfArrayWrappingFactories() {
+		for (MatrixFactory matrixFactory : new MatrixFactory[] { new JBlasRowMajorMatrixFactory(),
+				new PureJavaRowMajorMatrixFactory() }) {
+			Assert.assertTrue(Im2colWorkspace.wrapsArrays(matrixFactory));
+			workspace = new Im2colWorkspace();
+			MultiChannelImages images = createImages();
+			float[] expected = images.im2colConvExport(matrixFactory, 3, 3, 2, 2).getRowByRowArray();
+
+			Matrix matrix = workspace.im2colConvExport(LAYER, images, matrixFactory, 3, 3, 2, 2);
+			Assert.assertArrayEquals(expected, matrix.getRowByRowArray(), 0f);
+			// Overwrite the padding, which must be zero when the buffer is handed out again
+			float[] buffer = matrix.getRowByRowArray();
+			Arrays.fill(buffer, 1f);
+			workspace.release(LAYER, matrix);
+
+			Matrix reused = workspace.im2colConvExport(LAYER, images, matrixFactory, 3, 3, 2, 2);
+			Assert.assertSame(buffer, reused.getRowByRowArray());
+			Assert.assertArrayEquals(expected, reused.getRowByRowArray(), 0f);
+			workspace.release(LAYER, reused);
+
+			Im2colWorkspaceStatistics statistics = workspace.getStatistics(LAYER);
+			Assert.assertEquals(2, statistics.getAcquisitions());
+			Assert.assertEquals(1, statistics.getReuses());
+			Assert.assertEquals(2, statistics.getReleases());
+		}
+	}
+
+	@Test
+	public void testPlainExportForOtherFactories() {
+		MatrixFactory matrixFactory = new DirectFloatBufferMatrixFactory();
+		Assert.assertFalse(Im2colWorkspace.wrapsArrays(matrixFactory));
+		MultiChannelImages images = createImages();
+		float[] expected = images.im2colConvExport(matrixFactory, 3, 3, 2, 2).getRowByRowArray();
+
+		for (int i = 0; i < 2; i++) {
+			Matrix matrix = workspace.im2colConvExport(LAYER, images, matrixFactory, 3, 3, 2, 2);
+			Assert.assertArrayEquals(expected, matrix.getRowByRowArray(), 0f);
+			workspace.release(LAYER, matrix);
+		}
+
+		// No buffers are handed out, nor the copies of the matrices reclaimed
+		Im2colWorkspaceStatistics statistics = workspace.getStatistics(LAYER);
+		Assert.assertEquals(0, statistics.getAcquisitions());
+		Assert.assertEquals(0, statistics.getReleases());
+		Assert.assertEquals(0, statistics.getLiveBytes());
+	}
+
+	private MultiChannelImages createImages() {
+		return new MultiChannelImages(randomData(3 * 9 * 8 * EXAMPLES), 3, 9, 8, 1, 1, EXAMPLES);
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.images;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.kernels.ParallelGemm;
+import org.ml4j.kernels.ParallelKernels;
+import org.ml4j.kernels.WinogradConvolution;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks the Winograd convolution of images against multiplying the weights by their im2col matrix.
+ * 
+ * @author Michael Lavelle
+ */
+public class WinogradConvolutionTest {
+
+	private static final int EXAMPLES = 3;
+
+	/**
+	 * The tolerance of the differences in rounding of the transforms, relative to the magnitude of the
+	 * outputs.
+	 */
+	private static final float TOLERANCE = 1e-4f;
+
+	private ForkJoinPool forkJoinPool;
+	private MatrixFactory matrixFactory;
+	private WinogradConvolution winogradConvolution;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		forkJoinPool = new ForkJoinPool(4);
+		// A threshold of zero so that the transforms are divided between the threads of the pool
+		matrixFactory = new PureJavaRowMajorMatrixFactory(new ParallelGemm(forkJoinPool, 0),
+				new ParallelKernels(forkJoinPool, 0));
+		winogradConvolution = new WinogradConvolution();
+		random = new Random(1);
+	}
+
+	@After
+	public void tearDown() {
+		forkJoinPool.shutdown();
+	}
+
+	@Test
+	public void testSamePaddingEvenOutput() {
+		assertMatchesIm2col(5, 16, 7, 3, 1, 1);
+	}
+
+	@Test
+	public void testSamePaddingOddOutput() {
+		assertMatchesIm2col(4, 13, 6, 3, 1, 1);
+	}
+
+	@Test
+	public void testNoPadding() {
+		assertMatchesIm2col(3, 12, 5, 3, 1, 0);
+	}
+
+	@Test
+	public void testNoPaddingOddOutput() {
+		assertMatchesIm2col(2, 9, 8, 3, 1, 0);
+	}
+
+	@Test
+	public void testSingleChannel() {
+		assertMatchesIm2col(1, 10, 4, 3, 1, 1);
+	}
+
+	@Test
+	public void testFallbackForStridedFilters() {
+		assertMatchesIm2col(3, 12, 4, 3, 2, 0);
+	}
+
+	@Test
+	public void testFallbackForPointwiseFilters() {
+		assertMatchesIm2col(6, 8, 5, 1, 1, 0);
+	}
+
+	@Test
+	public void testTransformedFiltersCachedUntilWeightsChange() {
+		MultiChannelImages images = new MultiChannelImages(randomData(4 * 10 * 10 * EXAMPLES), 4, 10, 10, 1, 1,
+				EXAMPLES);
+		Matrix weights = matrixFactory.createMatrixFromRowsByRowsArray(6, 4 * 9, randomData(6 * 4 * 9));
+
+		images.convolve(matrixFactory, weights, 3, 3, 1, 1, winogradConvolution);
+		images.convolve(matrixFactory, weights, 3, 3, 1, 1, winogradConvolution);
+		Assert.assertEquals(1, winogradConvolution.getFilterTransforms());
+		Assert.assertEquals(1, winogradConvolution.getCachedFilters());
+
+		// An update of the weights in place is transformed again
+		weights.asEditableMatrix().muli(2f);
+		Matrix expected = weights.mmul(images.im2colConvExport(matrixFactory, 3, 3, 1, 1));
+		Matrix actual = images.convolve(matrixFactory, weights, 3, 3, 1, 1, winogradConvolution);
+		Assert.assertEquals(2, winogradConvolution.getFilterTransforms());
+		assertClose(expected.getRowByRowArray(), actual.getRowByRowArray());
+
+		winogradConvolution.clear();
+		Assert.assertEquals(0, winogradConvolution.getCachedFilters());
+	}
+
+	private void assertMatchesIm2col(int channels, int size, int filters, int filterSize, int stride, int padding) {
+		MultiChannelImages images = new MultiChannelImages(randomData(channels * size * size * EXAMPLES), channels,
+				size, size, padding, padding, EXAMPLES);
+		Matrix weights = matrixFactory.createMatrixFromRowsByRowsArray(filters, channels * filterSize * filterSize,
+				randomData(filters * channels * filterSize * filterSize));
+		Matrix expected = weights
+				.mmul(images.im2colConvExport(matrixFactory, filterSize, filterSize, stride, stride));
+
+		Matrix actual = images.convolve(matrixFactory, weights, filterSize, filterSize, stride, stride,
+				winogradConvolution);
+
+		Assert.assertEquals(expected.getRows(), actual.getRows());
+		Assert.assertEquals(expected.getColumns(), actual.getColumns());
+		assertClose(expected.getRowByRowArray(), actual.getRowByRowArray());
+	}
+
+	private void assertClose(float[] expected, float[] actual) {
+		Assert.assertEquals(expected.length, actual.length);
+		float scale = 0f;
+		for (float value : expected) {
+			scale = Math.max(scale, Math.abs(value));
+		}
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals("Output " + i, expected[i], actual[i], TOLERANCE * scale);
+		}
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.jblas;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.floatarray.FloatArrayPool;
+
+/**
+ * Checks the transposed views returned by JBlasRowMajorMatrix.transpose() - their aliasing of the
+ * matrix they transpose, multiplication through the BLAS transpose flags, and the release of shared
+ * data to the pool.
+ *
+ * @author Michael Lavelle
+ */
+public class JBlasTransposedRowMajorMatrixTest {
+
+	private static final float DELTA = 1e-5f;
+
+	private FloatArrayPool floatArrayPool;
+	private JBlasRowMajorMatrixFactory matrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		floatArrayPool = new FloatArrayPool(1, 4);
+		matrixFactory = new JBlasRowMajorMatrixFactory(floatArrayPool);
+		random = new Random(1);
+	}
+
+	@Test
+	public void testTransposeValues() {
+		float[] data = randomData(5 * 3);
+		Matrix transposed = matrixFactory.createMatrixFromRowsByRowsArray(5, 3, data).transpose();
+
+		Assert.assertEquals(3, transposed.getRows());
+		Assert.assertEquals(5, transposed.getColumns());
+		Assert.assertArrayEquals(transpose(data, 5, 3), transposed.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(data, transposed.transpose().getRowByRowArray(), DELTA);
+	}
+
+	@Test
+	public void testMutateSourceAfterTranspose() {
+		float[] data = randomData(4 * 6);
+		Matrix matrix = matrixFactory.createMatrixFromRowsByRowsArray(4, 6, data.clone());
+		Matrix view = matrix.transpose();
+		Matrix snapshot = matrix.transpose().dup();
+
+		matrix.asEditableMatrix().muli(2f);
+
+		// The view aliases the source until copied, while a dup of the transpose does not
+		float[] doubled = new float[data.length];
+		for (int i = 0; i < data.length; i++) {
+			doubled[i] = data[i] * 2f;
+		}
+		Assert.assertArrayEquals(transpose(doubled, 4, 6), view.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(transpose(data, 4, 6), snapshot.getRowByRowArray(), DELTA);
+	}
+
+	@Test
+	public void testMutateViewAfterTranspose() {
+		float[] data = randomData(4 * 6);
+		Matrix matrix = matrixFactory.createMatrixFromRowsByRowsArray(4, 6, data.clone());
+		Matrix view = matrix.transpose();
+
+		view.asEditableMatrix().addi(1f);
+
+		float[] expected = transpose(data, 4, 6);
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] += 1f;
+		}
+		Assert.assertArrayEquals(expected, view.getRowByRowArray(), DELTA);
+		Assert.assertArrayEquals(data, matrix.getRowByRowArray(), DELTA);
+
+		// Once copied, the view no longer sees changes to the source
+		matrix.asEditableMatrix().muli(0f);
+		Assert.assertArrayEquals(expected, view.getRowByRowArray(), DELTA);
+	}
+
+	@Test
+	public void testMmulWithTransposeFlags() {
+		int[][] shapes = { { 1, 1, 1 }, { 3, 4, 5 }, { 7, 2, 9 }, { 16, 16, 16 }, { 1, 8, 3 } };
+		for (int[] shape : shapes) {
+			int m = shape[0];
+			int k = shape[1];
+			int n = shape[2];
+			float[] a = randomData(m * k);
+			float[] b = randomData(k * n);
+			float[] expected = mmul(a, b, m, k, n);
+
+			Matrix first = matrixFactory.createMatrixFromRowsByRowsArray(m, k, a);
+			Matrix second = matrixFactory.createMatrixFromRowsByRowsArray(k, n, b);
+			Matrix firstTransposed = matrixFactory.createMatrixFromRowsByRowsArray(k, m, transpose(a, m, k));
+			Matrix secondTransposed = matrixFactory.createMatrixFromRowsByRowsArray(n, k, transpose(b, k, n));
+
+			// ('T', 'N'), ('N', 'T') and ('T', 'T')
+			Assert.assertArrayEquals(expected, firstTransposed.transpose().mmul(second).getRowByRowArray(), DELTA);
+			Assert.assertArrayEquals(expected, first.mmul(secondTransposed.transpose()).getRowByRowArray(), DELTA);
+			Assert.assertArrayEquals(expected,
+					firstTransposed.transpose().mmul(secondTransposed.transpose()).getRowByRowArray(), DELTA);
+			Assert.assertArrayEquals(transpose(expected, m, n),
+					secondTransposed.mmul(firstTransposed).getRowByRowArray(), DELTA);
+		}
+	}
+
+	@Test
+	public void testSourceDataReleasedAfterLastView() {
+		Matrix matrix = matrixFactory.createMatrix(8, 4);
+		Matrix first = matrix.transpose();
+		Matrix second = matrix.transpose();
+
+		matrix.close();
+		Assert.assertEquals(0, floatArrayPool.getReleases());
+		first.close();
+		Assert.assertEquals(0, floatArrayPool.getReleases());
+		// Copying the view releases its hold on the source, and closing the copy releases the copy
+		second.asEditableMatrix().addi(1f);
+		Assert.assertEquals(1, floatArrayPool.getReleases());
+		second.close();
+		Assert.assertEquals(2, floatArrayPool.getReleases());
+	}
+
+	@Test
+	public void testSourceDataNotReleasedWhileDoubleTransposeShared() {
+		Matrix matrix = matrixFactory.createMatrix(8, 4);
+		Matrix view = matrix.transpose();
+		Matrix original = view.transpose();
+
+		view.close();
+		matrix.close();
+		Assert.assertEquals(0, floatArrayPool.getReleases());
+		Assert.assertEquals(8, original.getRows());
+		Assert.assertEquals(0f, original.get(7, 3), DELTA);
+	}
+
+	private float[] mmul(float[] a, float[] b, int m, int k, int n) {
+		float[] result = new float[m * n];
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				float sum = 0f;
+				for (int p = 0; p < k; p++) {
+					sum += a[i * k + p] * b[p * n + j];
+				}
+				result[i * n + j] = sum;
+			}
+		}
+		return result;
+	}
+
+	private float[] transpose(float[] data, int rows, int columns) {
+		float[] result = new float[data.length];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c++) {
+				result[c * rows + r] = data[r * columns + c];
+			}
+		}
+		return result;
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
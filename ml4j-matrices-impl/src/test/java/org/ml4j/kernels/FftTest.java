@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the forward and inverse transforms of Fft against the discrete Fourier transform, for powers
+ * of two, lengths with factors of 3 and 5, and lengths with larger prime factors.
+ *
+ * @author Michael Lavelle
+ */
+public class FftTest {
+
+	private static final int[] LENGTHS = { 1, 2, 4, 8, 64, 3, 5, 6, 12, 15, 30, 45, 60, 7, 14, 49 };
+
+	/**
+	 * The tolerance of the differences in rounding, relative to the length.
+	 */
+	private static final float TOLERANCE = 1e-5f;
+
+	private Random random;
+
+	@Before
+	public void setUp() {
+		random = new Random(1);
+	}
+
+	@Test
+	public void testForwardMatchesDft() {
+		for (int length : LENGTHS) {
+			assertMatchesDft(length, -1);
+		}
+	}
+
+	@Test
+	public void testInverseMatchesDft() {
+		for (int length : LENGTHS) {
+			assertMatchesDft(length, 1);
+		}
+	}
+
+	@Test
+	public void testInverseOfForwardIsScaledInput() {
+		for (int length : LENGTHS) {
+			float[] re = randomData(length);
+			float[] im = randomData(length);
+			float[] expectedRe = re.clone();
+			float[] expectedIm = im.clone();
+			Fft fft = new Fft(length);
+			fft.forward(re, im, new float[length], new float[length]);
+			fft.inverse(re, im, new float[length], new float[length]);
+			for (int i = 0; i < length; i++) {
+				Assert.assertEquals("Length " + length, expectedRe[i], re[i] / length, TOLERANCE * length);
+				Assert.assertEquals("Length " + length, expectedIm[i], im[i] / length, TOLERANCE * length);
+			}
+		}
+	}
+
+	@Test
+	public void testGoodLength() {
+		int[][] lengths = { { 0, 1 }, { 1, 1 }, { 7, 8 }, { 11, 12 }, { 13, 15 }, { 17, 18 }, { 31, 32 },
+				{ 49, 50 }, { 64, 64 } };
+		for (int[] length : lengths) {
+			Assert.assertEquals(length[1], Fft.getGoodLength(length[0]));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonPositiveLength() {
+		new Fft(0);
+	}
+
+	private void assertMatchesDft(int length, int sign) {
+		float[] re = randomData(length);
+		float[] im = randomData(length);
+		double[] expectedRe = new double[length];
+		double[] expectedIm = new double[length];
+		for (int k = 0; k < length; k++) {
+			for (int j = 0; j < length; j++) {
+				double angle = sign * 2 * Math.PI * ((long) j * k % length) / length;
+				expectedRe[k] += re[j] * Math.cos(angle) - im[j] * Math.sin(angle);
+				expectedIm[k] += re[j] * Math.sin(angle) + im[j] * Math.cos(angle);
+			}
+		}
+		Fft fft = new Fft(length);
+		if (sign < 0) {
+			fft.forward(re, im, new float[length], new float[length]);
+		} else {
+			fft.inverse(re, im, new float[length], new float[length]);
+		}
+		for (int k = 0; k < length; k++) {
+			Assert.assertEquals("Length " + length, expectedRe[k], re[k], TOLERANCE * length);
+			Assert.assertEquals("Length " + length, expectedIm[k], im[k], TOLERANCE * length);
+		}
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks the blocked and parallel GEMM kernels against the JBlas reference backend, and that the
+ * parallel kernel computes exactly the same values as the sequential one.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelGemmTest {
+
+	private static final int[][] SHAPES = new int[][] { { 1, 1, 1 }, { 5, 3, 9 }, { 64, 256, 256 },
+			{ 67, 301, 259 }, { 130, 17, 520 } };
+
+	private ForkJoinPool forkJoinPool;
+	private ParallelGemm parallelGemm;
+	private MatrixFactory referenceMatrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		forkJoinPool = new ForkJoinPool(4);
+		// A threshold of zero so that every multiplication is divided between the threads of the pool
+		parallelGemm = new ParallelGemm(forkJoinPool, 0);
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		random = new Random(1);
+	}
+
+	@After
+	public void tearDown() {
+		forkJoinPool.shutdown();
+	}
+
+	@Test
+	public void testGemmMatchesReference() {
+		for (int[] shape : SHAPES) {
+			int m = shape[0];
+			int k = shape[1];
+			int n = shape[2];
+			float[] a = randomData(m * k);
+			float[] b = randomData(k * n);
+			float[] c = new float[m * n];
+			GemmKernels.gemm(m, n, k, a, 0, k, b, 0, n, c, 0, n);
+			Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(m, k, a)
+					.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(k, n, b));
+			Assert.assertArrayEquals(expected.getRowByRowArray(), c, 1e-4f * k);
+		}
+	}
+
+	@Test
+	public void testParallelGemmIdenticalToSequential() {
+		for (int[] shape : SHAPES) {
+			int m = shape[0];
+			int k = shape[1];
+			int n = shape[2];
+			float[] a = randomData(m * k);
+			float[] b = randomData(k * n);
+			float[] sequential = new float[m * n];
+			float[] parallel = new float[m * n];
+			GemmKernels.gemm(m, n, k, a, 0, k, b, 0, n, sequential, 0, n);
+			parallelGemm.gemm(m, n, k, a, 0, k, b, 0, n, parallel, 0, n);
+			Assert.assertArrayEquals(sequential, parallel, 0f);
+		}
+	}
+
+	@Test
+	public void testGemmAccumulatesWithOffsetsAndLeadingDimensions() {
+		int m = 9;
+		int k = 11;
+		int n = 13;
+		// Each operand is a sub-matrix of a larger one, offset by a row and a column
+		float[] a = randomData((m + 1) * (k + 2));
+		float[] b = randomData((k + 1) * (n + 3));
+		float[] c = randomData((m + 1) * (n + 4));
+		float[] expected = c.clone();
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				float sum = 0f;
+				for (int p = 0; p < k; p++) {
+					sum += a[(i + 1) * (k + 2) + 1 + p] * b[(p + 1) * (n + 3) + 1 + j];
+				}
+				expected[(i + 1) * (n + 4) + 1 + j] += sum;
+			}
+		}
+		parallelGemm.gemm(m, n, k, a, k + 3, k + 2, b, n + 4, n + 3, c, n + 5, n + 4);
+		Assert.assertArrayEquals(expected, c, 1e-5f);
+	}
+
+	@Test
+	public void testEmptyGemm() {
+		// No rows, no columns, and an empty inner dimension which leaves C unchanged
+		int[][] shapes = { { 0, 5, 7 }, { 6, 5, 0 }, { 0, 0, 0 }, { 6, 0, 7 } };
+		for (int[] shape : shapes) {
+			int m = shape[0];
+			int k = shape[1];
+			int n = shape[2];
+			float[] c = randomData(m * n);
+			float[] expected = c.clone();
+			parallelGemm.gemm(m, n, k, new float[m * k], 0, Math.max(k, 1), new float[k * n], 0, Math.max(n, 1), c,
+					0, Math.max(n, 1));
+			Assert.assertArrayEquals(expected, c, 0f);
+		}
+	}
+
+	@Test
+	public void testPureJavaMmulWithParallelGemm() {
+		MatrixFactory matrixFactory = new PureJavaRowMajorMatrixFactory(parallelGemm);
+		float[] left = randomData(70 * 90);
+		float[] right = randomData(90 * 110);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(70, 90, left)
+				.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(90, 110, right));
+		Matrix actual = matrixFactory.createMatrixFromRowsByRowsArray(70, 90, left.clone())
+				.mmul(matrixFactory.createMatrixFromRowsByRowsArray(90, 110, right.clone()));
+		Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), 1e-3f);
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.kernels;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the striped reductions and activations of ParallelKernels, whose ranges run from a
+ * start (inclusive) to an end (exclusive), match the sequential kernels whatever the pool.
+ *
+ * @author Michael Lavelle
+ */
+public class ParallelKernelsTest {
+
+	/**
+	 * Lengths within one stripe, on a stripe boundary and spanning a partial last stripe.
+	 */
+	private static final int[] LENGTHS = { 1, 100, ParallelKernels.REDUCTION_STRIPE_LENGTH,
+			3 * ParallelKernels.REDUCTION_STRIPE_LENGTH + 17 };
+
+	private ForkJoinPool forkJoinPool;
+	private ParallelKernels sequentialKernels;
+	private ParallelKernels parallelKernels;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		forkJoinPool = new ForkJoinPool(4);
+		sequentialKernels = new ParallelKernels(new ForkJoinPool(1), 0);
+		// A threshold of zero so that every operation is divided between the threads of the pool
+		parallelKernels = new ParallelKernels(forkJoinPool, 0);
+		random = new Random(1);
+	}
+
+	@After
+	public void tearDown() {
+		forkJoinPool.shutdown();
+		sequentialKernels.getForkJoinPool().shutdown();
+	}
+
+	@Test
+	public void testRangeKernels() {
+		float[] values = randomData(40);
+		float expectedSum = 0f;
+		for (int i = 10; i < 25; i++) {
+			expectedSum += values[i];
+		}
+		Assert.assertEquals(expectedSum, FloatArrayKernels.sum(values, 10, 25), 0f);
+		Assert.assertEquals(FloatArrayKernels.sum(values, 0, 40), FloatArrayKernels.sum(values, 40), 0f);
+		Assert.assertEquals(0f, FloatArrayKernels.sum(values, 25, 25), 0f);
+
+		values[17] = 10f;
+		values[30] = 20f;
+		Assert.assertEquals(17, FloatArrayKernels.argmax(values, 10, 25));
+		Assert.assertEquals(-1, FloatArrayKernels.argmax(values, 25, 25));
+
+		float[] result = new float[40];
+		ActivationKernel.RELU.apply(values, result, 10, 25);
+		for (int i = 0; i < result.length; i++) {
+			Assert.assertEquals(i >= 10 && i < 25 ? Math.max(values[i], 0f) : 0f, result[i], 0f);
+		}
+	}
+
+	@Test
+	public void testSumIsIndependentOfPool() {
+		for (int length : LENGTHS) {
+			float[] values = randomData(length + 5);
+			float sum = sequentialKernels.sum(values, length);
+			Assert.assertEquals(sum, parallelKernels.sum(values, length), 0f);
+			Assert.assertEquals(FloatArrayKernels.sum(values, length), sum, 1e-3f);
+		}
+	}
+
+	@Test
+	public void testArgmaxIsIndependentOfPool() {
+		for (int length : LENGTHS) {
+			float[] values = randomData(length + 5);
+			// A maximum beyond the length is ignored
+			values[length] = 10f;
+			int argmax = FloatArrayKernels.argmax(values, length);
+			Assert.assertEquals(argmax, sequentialKernels.argmax(values, length));
+			Assert.assertEquals(argmax, parallelKernels.argmax(values, length));
+		}
+	}
+
+	@Test
+	public void testActivationIsIndependentOfPool() {
+		int length = 3 * ParallelKernels.REDUCTION_STRIPE_LENGTH + 17;
+		float[] values = randomData(length);
+		float[] expected = new float[length];
+		float[] actual = new float[length];
+		for (ActivationKernel kernel : ActivationKernel.values()) {
+			kernel.apply(values, expected, 0, length);
+			parallelKernels.activation(kernel, values, actual, length);
+			Assert.assertArrayEquals(expected, actual, 0f);
+		}
+	}
+
+	@Test
+	public void testArrayKernelsMatchScalarKernels() {
+		float[] values = { Float.NaN, Float.NEGATIVE_INFINITY, -2f, -0f, 0f, 0.5f, 3f, Float.POSITIVE_INFINITY };
+		float[] result = new float[values.length];
+		for (ActivationKernel kernel : ActivationKernel.values()) {
+			kernel.apply(values, result, 0, values.length);
+			for (int i = 0; i < values.length; i++) {
+				Assert.assertEquals(kernel + " of " + values[i], kernel.apply(values[i]), result[i], 0f);
+			}
+		}
+		// NaN is mapped to zero by RELU whichever path is taken
+		ActivationKernel.RELU.apply(values, result, 0, values.length);
+		Assert.assertEquals(0f, result[0], 0f);
+		Assert.assertEquals(0f, ActivationKernel.RELU.apply(Float.NaN), 0f);
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
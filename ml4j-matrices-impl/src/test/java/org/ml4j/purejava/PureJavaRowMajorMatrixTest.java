@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.purejava;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.EditableMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+/**
+ * Checks the operations of the pure-Java backend against the JBlas reference backend.
+ * 
+ * @author Michael Lavelle
+ */
+public class PureJavaRowMajorMatrixTest {
+
+	private static final float DELTA = 1e-5f;
+
+	private MatrixFactory referenceMatrixFactory;
+	private MatrixFactory matrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		matrixFactory = new PureJavaRowMajorMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testElementwiseOperations() {
+		float[] first = randomData(7 * 5);
+		float[] second = randomPositiveData(7 * 5);
+		Matrix expectedFirst = referenceMatrixFactory.createMatrixFromRowsByRowsArray(7, 5, first);
+		Matrix expectedSecond = referenceMatrixFactory.createMatrixFromRowsByRowsArray(7, 5, second);
+		Matrix actualFirst = matrixFactory.createMatrixFromRowsByRowsArray(7, 5, first.clone());
+		Matrix actualSecond = matrixFactory.createMatrixFromRowsByRowsArray(7, 5, second.clone());
+
+		assertEquals(expectedFirst.add(expectedSecond), actualFirst.add(actualSecond));
+		assertEquals(expectedFirst.sub(expectedSecond), actualFirst.sub(actualSecond));
+		assertEquals(expectedFirst.mul(expectedSecond), actualFirst.mul(actualSecond));
+		assertEquals(expectedFirst.div(expectedSecond), actualFirst.div(actualSecond));
+		assertEquals(expectedFirst.add(2f), actualFirst.add(2f));
+		assertEquals(expectedFirst.sub(2f), actualFirst.sub(2f));
+		assertEquals(expectedFirst.mul(3f), actualFirst.mul(3f));
+		assertEquals(expectedFirst.div(3f), actualFirst.div(3f));
+		assertEquals(expectedSecond.log(), actualSecond.log());
+		assertEquals(expectedFirst.sigmoid(), actualFirst.sigmoid());
+	}
+
+	@Test
+	public void testVectorBroadcasts() {
+		float[] data = randomData(6 * 4);
+		float[] column = randomPositiveData(6);
+		float[] row = randomPositiveData(4);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 4, data);
+		Matrix expectedColumn = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 1, column);
+		Matrix expectedRow = referenceMatrixFactory.createMatrixFromRowsByRowsArray(1, 4, row);
+		Matrix actual = matrixFactory.createMatrixFromRowsByRowsArray(6, 4, data.clone());
+		Matrix actualColumn = matrixFactory.createMatrixFromRowsByRowsArray(6, 1, column.clone());
+		Matrix actualRow = matrixFactory.createMatrixFromRowsByRowsArray(1, 4, row.clone());
+
+		assertEquals(expected.addColumnVector(expectedColumn), actual.addColumnVector(actualColumn));
+		assertEquals(expected.subColumnVector(expectedColumn), actual.subColumnVector(actualColumn));
+		assertEquals(expected.mulColumnVector(expectedColumn), actual.mulColumnVector(actualColumn));
+		assertEquals(expected.divColumnVector(expectedColumn), actual.divColumnVector(actualColumn));
+		assertEquals(expected.addRowVector(expectedRow), actual.addRowVector(actualRow));
+		assertEquals(expected.mulRowVector(expectedRow), actual.mulRowVector(actualRow));
+		assertEquals(expected.divRowVector(expectedRow), actual.divRowVector(actualRow));
+	}
+
+	@Test
+	public void testInPlaceOperations() {
+		float[] first = randomData(5 * 3);
+		float[] second = randomData(5 * 3);
+		EditableMatrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(5, 3, first)
+				.asEditableMatrix();
+		EditableMatrix actual = matrixFactory.createMatrixFromRowsByRowsArray(5, 3, first.clone())
+				.asEditableMatrix();
+		expected.addi(referenceMatrixFactory.createMatrixFromRowsByRowsArray(5, 3, second)).muli(2f).subi(1f);
+		actual.addi(matrixFactory.createMatrixFromRowsByRowsArray(5, 3, second.clone())).muli(2f).subi(1f);
+		assertEquals(expected, actual);
+
+		expected.put(2, 1, 7f);
+		actual.put(2, 1, 7f);
+		expected.reshape(3, 5);
+		actual.reshape(3, 5);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testMmul() {
+		for (int[] shape : new int[][] { { 1, 1, 1 }, { 3, 5, 7 }, { 65, 130, 33 }, { 70, 300, 260 } }) {
+			float[] left = randomData(shape[0] * shape[1]);
+			float[] right = randomData(shape[1] * shape[2]);
+			Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], left)
+					.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], right));
+			Matrix actual = matrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], left.clone())
+					.mmul(matrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], right.clone()));
+			assertEquals(expected, actual, 1e-4f * shape[1]);
+		}
+	}
+
+	@Test
+	public void testTransposeAndLayouts() {
+		float[] data = randomData(9 * 4);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(9, 4, data);
+		Matrix actual = matrixFactory.createMatrixFromRowsByRowsArray(9, 4, data.clone());
+
+		assertEquals(expected.transpose(), actual.transpose());
+		Assert.assertArrayEquals(expected.toColumnByColumnArray(), actual.toColumnByColumnArray(), 0f);
+		Matrix fromColumns = matrixFactory.createMatrixFromColumnsByColumnsArray(9, 4,
+				expected.getColumnByColumnArray());
+		assertEquals(expected, fromColumns);
+	}
+
+	@Test
+	public void testReductions() {
+		float[] data = randomData(8 * 6);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(8, 6, data);
+		Matrix actual = matrixFactory.createMatrixFromRowsByRowsArray(8, 6, data.clone());
+
+		assertEquals(expected.rowSums(), actual.rowSums());
+		assertEquals(expected.columnSums(), actual.columnSums());
+		Assert.assertArrayEquals(expected.columnArgmaxs(), actual.columnArgmaxs());
+		Assert.assertEquals(expected.argmax(), actual.argmax());
+		Assert.assertEquals(expected.sum(), actual.sum(), DELTA);
+	}
+
+	@Test
+	public void testSelectionsAndConcatenation() {
+		float[] data = randomData(6 * 5);
+		float[] other = randomData(6 * 2);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 5, data);
+		Matrix actual = matrixFactory.createMatrixFromRowsByRowsArray(6, 5, data.clone());
+		int[] rows = new int[] { 4, 0, 2 };
+		int[] columns = new int[] { 3, 1 };
+
+		assertEquals(expected.getRows(rows), actual.getRows(rows));
+		assertEquals(expected.getColumns(columns), actual.getColumns(columns));
+		assertEquals(expected.get(rows, columns), actual.get(rows, columns));
+		assertEquals(expected.getRow(5), actual.getRow(5));
+		assertEquals(expected.getColumn(4), actual.getColumn(4));
+		assertEquals(expected.appendHorizontally(referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 2, other)),
+				actual.appendHorizontally(matrixFactory.createMatrixFromRowsByRowsArray(6, 2, other.clone())));
+		assertEquals(expected.appendVertically(expected), actual.appendVertically(actual));
+	}
+
+	private void assertEquals(Matrix expected, Matrix actual) {
+		assertEquals(expected, actual, DELTA);
+	}
+
+	private void assertEquals(Matrix expected, Matrix actual, float delta) {
+		Assert.assertEquals(expected.getRows(), actual.getRows());
+		Assert.assertEquals(expected.getColumns(), actual.getColumns());
+		Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), delta);
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+
+	private float[] randomPositiveData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() + 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.random;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that seeded fills of ParallelRandom do not depend on the pool, and the distributions of the
+ * uniform, Gaussian and Bernoulli values.
+ *
+ * @author Michael Lavelle
+ */
+public class ParallelRandomTest {
+
+	private static final long SEED = 1;
+
+	/**
+	 * A length spanning many blocks and a partial last block.
+	 */
+	private static final int LENGTH = 25 * ParallelRandom.BLOCK_LENGTH + 123;
+
+	private ForkJoinPool[] forkJoinPools;
+
+	@Before
+	public void setUp() {
+		forkJoinPools = new ForkJoinPool[] { new ForkJoinPool(1), new ForkJoinPool(3), new ForkJoinPool(8) };
+	}
+
+	@After
+	public void tearDown() {
+		for (ForkJoinPool forkJoinPool : forkJoinPools) {
+			forkJoinPool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSeededFillsAreIndependentOfPool() {
+		float[][] expected = fill(new ParallelRandom(SEED, forkJoinPools[0], Integer.MAX_VALUE));
+		for (ForkJoinPool forkJoinPool : forkJoinPools) {
+			// A threshold of zero so that every fill is divided between the threads of the pool
+			float[][] actual = fill(new ParallelRandom(SEED, forkJoinPool, 0));
+			for (int i = 0; i < expected.length; i++) {
+				Assert.assertArrayEquals(expected[i], actual[i], 0f);
+			}
+		}
+	}
+
+	@Test
+	public void testSplitsAreSeededAndIndependent() {
+		ParallelRandom first = new ParallelRandom(SEED).split();
+		ParallelRandom second = new ParallelRandom(SEED).split();
+		float[] firstValues = new float[1000];
+		float[] secondValues = new float[1000];
+		first.uniform(firstValues, firstValues.length);
+		second.uniform(secondValues, secondValues.length);
+		Assert.assertArrayEquals(firstValues, secondValues, 0f);
+
+		ParallelRandom parent = new ParallelRandom(SEED);
+		ParallelRandom split = parent.split();
+		parent.uniform(firstValues, firstValues.length);
+		split.uniform(secondValues, secondValues.length);
+		Assert.assertFalse(Arrays.equals(firstValues, secondValues));
+
+		float[] unseeded = new float[1000];
+		new ParallelRandom().uniform(unseeded, unseeded.length);
+		Assert.assertFalse(Arrays.equals(firstValues, unseeded));
+	}
+
+	@Test
+	public void testUniform() {
+		float[] values = new float[LENGTH];
+		new ParallelRandom(SEED, forkJoinPools[1], 0).uniform(values, LENGTH);
+		double sum = 0;
+		for (float value : values) {
+			Assert.assertTrue(value >= 0f && value < 1f);
+			sum += value;
+		}
+		Assert.assertEquals(0.5, sum / LENGTH, 0.01);
+	}
+
+	@Test
+	public void testGaussian() {
+		float[] values = new float[LENGTH];
+		new ParallelRandom(SEED, forkJoinPools[1], 0).gaussian(values, LENGTH);
+		double sum = 0;
+		double sumOfSquares = 0;
+		for (float value : values) {
+			sum += value;
+			sumOfSquares += value * value;
+		}
+		double mean = sum / LENGTH;
+		Assert.assertEquals(0, mean, 0.02);
+		Assert.assertEquals(1, sumOfSquares / LENGTH - mean * mean, 0.02);
+	}
+
+	@Test
+	public void testBernoulliRates() {
+		ParallelRandom parallelRandom = new ParallelRandom(SEED, forkJoinPools[1], 0);
+		float[] values = new float[LENGTH];
+		for (float probability : new float[] { 0f, 0.1f, 0.5f, 0.8f, 1f }) {
+			parallelRandom.bernoulli(values, LENGTH, probability);
+			Assert.assertEquals(probability, ones(values, 0, LENGTH) / LENGTH, 0.01f);
+		}
+
+		// Per-value probabilities, half 0.2 and half 0.9, sampled in place
+		float[] probabilities = new float[LENGTH];
+		Arrays.fill(probabilities, 0, LENGTH / 2, 0.2f);
+		Arrays.fill(probabilities, LENGTH / 2, LENGTH, 0.9f);
+		parallelRandom.bernoulli(probabilities, probabilities, LENGTH);
+		Assert.assertEquals(0.2f, ones(probabilities, 0, LENGTH / 2) / (LENGTH / 2), 0.01f);
+		Assert.assertEquals(0.9f, ones(probabilities, LENGTH / 2, LENGTH) / (LENGTH - LENGTH / 2), 0.01f);
+	}
+
+	@Test
+	public void testFillsOnlyLength() {
+		float[] values = new float[100];
+		Arrays.fill(values, -1f);
+		new ParallelRandom(SEED).bernoulli(values, 60, 1f);
+		for (int i = 0; i < values.length; i++) {
+			Assert.assertEquals(i < 60 ? 1f : -1f, values[i], 0f);
+		}
+	}
+
+	/**
+	 * @return The values of a sequence of fills of each kind.
+	 */
+	private float[][] fill(ParallelRandom parallelRandom) {
+		float[][] values = new float[4][LENGTH];
+		parallelRandom.uniform(values[0], LENGTH);
+		parallelRandom.gaussian(values[1], LENGTH);
+		parallelRandom.bernoulli(values[2], LENGTH, 0.3f);
+		parallelRandom.bernoulli(values[0], values[3], LENGTH);
+		return values;
+	}
+
+	private float ones(float[] values, int start, int end) {
+		float ones = 0;
+		for (int i = start; i < end; i++) {
+			Assert.assertTrue(values[i] == 0f || values[i] == 1f);
+			ones += values[i];
+		}
+		return ones;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.random;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.floatarray.FloatArrayPool;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+import org.ml4j.tracking.TrackingMatrixFactory;
+
+/**
+ * Checks the random matrices of seeded JBlas and pure-Java factories, and that RandomMatrices
+ * generates the same masks and samples through the bulk methods of a RandomMatrixFactory as through
+ * its fallback for other factories.
+ *
+ * @author Michael Lavelle
+ */
+public class RandomMatricesTest {
+
+	private static final long SEED = 1;
+
+	private static final int ROWS = 300;
+
+	private static final int COLUMNS = 250;
+
+	private ForkJoinPool sequentialPool;
+	private ForkJoinPool parallelPool;
+
+	@Before
+	public void setUp() {
+		sequentialPool = new ForkJoinPool(1);
+		parallelPool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		sequentialPool.shutdown();
+		parallelPool.shutdown();
+	}
+
+	@Test
+	public void testSeededFactoriesAreIndependentOfPoolAndBackend() {
+		Matrix probabilities = new PureJavaRowMajorMatrixFactory().createRand(ROWS, COLUMNS);
+		RandomMatrixFactory expectedFactory = seeded(new JBlasRowMajorMatrixFactory(), sequentialPool);
+		Matrix[] expected = createRandomMatrices(expectedFactory, probabilities);
+		for (RandomMatrixFactory matrixFactory : new RandomMatrixFactory[] {
+				seeded(new JBlasRowMajorMatrixFactory(), parallelPool),
+				seeded(new PureJavaRowMajorMatrixFactory(), sequentialPool),
+				seeded(new PureJavaRowMajorMatrixFactory(), parallelPool) }) {
+			Matrix[] actual = createRandomMatrices(matrixFactory, probabilities);
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], actual[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testFallbackMatchesBulkGeneration() {
+		Matrix probabilities = new PureJavaRowMajorMatrixFactory().createRand(ROWS, COLUMNS);
+		RandomMatrixFactory bulkFactory = seeded(new JBlasRowMajorMatrixFactory(), parallelPool);
+		// TrackingMatrixFactory is not a RandomMatrixFactory, so RandomMatrices thresholds createRand
+		MatrixFactory fallbackFactory = new TrackingMatrixFactory(
+				seeded(new JBlasRowMajorMatrixFactory(), parallelPool));
+		Assert.assertFalse(fallbackFactory instanceof RandomMatrixFactory);
+
+		assertEquals(RandomMatrices.createBernoulliMask(bulkFactory, ROWS, COLUMNS, 0.3f),
+				RandomMatrices.createBernoulliMask(fallbackFactory, ROWS, COLUMNS, 0.3f));
+		assertEquals(RandomMatrices.createBernoulliSample(bulkFactory, probabilities),
+				RandomMatrices.createBernoulliSample(fallbackFactory, probabilities));
+	}
+
+	@Test
+	public void testBernoulliRates() {
+		for (MatrixFactory matrixFactory : new MatrixFactory[] {
+				seeded(new JBlasRowMajorMatrixFactory(), parallelPool),
+				new TrackingMatrixFactory(seeded(new PureJavaRowMajorMatrixFactory(), parallelPool)) }) {
+			for (float probability : new float[] { 0f, 0.25f, 0.5f, 1f }) {
+				Matrix mask = RandomMatrices.createBernoulliMask(matrixFactory, ROWS, COLUMNS, probability);
+				Assert.assertEquals(probability, mask.sum() / mask.getLength(), 0.01f);
+			}
+			// Rows of probability 0.1 above rows of probability 0.7
+			float[] probabilityValues = new float[ROWS * COLUMNS];
+			for (int i = 0; i < probabilityValues.length; i++) {
+				probabilityValues[i] = i < probabilityValues.length / 2 ? 0.1f : 0.7f;
+			}
+			Matrix sample = RandomMatrices.createBernoulliSample(matrixFactory,
+					matrixFactory.createMatrixFromRowsByRowsArray(ROWS, COLUMNS, probabilityValues));
+			float[] sampleValues = sample.getRowByRowArray();
+			float upper = 0f;
+			float lower = 0f;
+			for (int i = 0; i < sampleValues.length; i++) {
+				Assert.assertTrue(sampleValues[i] == 0f || sampleValues[i] == 1f);
+				if (i < sampleValues.length / 2) {
+					upper += sampleValues[i];
+				} else {
+					lower += sampleValues[i];
+				}
+			}
+			Assert.assertEquals(0.1f, upper / (sampleValues.length / 2), 0.01f);
+			Assert.assertEquals(0.7f, lower / (sampleValues.length / 2), 0.01f);
+		}
+	}
+
+	@Test
+	public void testBernoulliSampleLeavesProbabilitiesPooled() {
+		FloatArrayPool floatArrayPool = new FloatArrayPool(1, 4);
+		JBlasRowMajorMatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory(floatArrayPool);
+		Matrix probabilities = matrixFactory.createRand(ROWS, COLUMNS);
+		Matrix sample = matrixFactory.createBernoulliSample(probabilities);
+
+		long releases = floatArrayPool.getReleases();
+		probabilities.close();
+		sample.close();
+		Assert.assertEquals(releases + 2, floatArrayPool.getReleases());
+	}
+
+	/**
+	 * @return A random matrix of each kind, created in sequence by the factory.
+	 */
+	private Matrix[] createRandomMatrices(RandomMatrixFactory matrixFactory, Matrix probabilities) {
+		return new Matrix[] { matrixFactory.createRand(ROWS, COLUMNS), matrixFactory.createRandn(ROWS, COLUMNS),
+				matrixFactory.createBernoulliMask(ROWS, COLUMNS, 0.4f),
+				matrixFactory.createBernoulliSample(probabilities) };
+	}
+
+	private RandomMatrixFactory seeded(RandomMatrixFactory matrixFactory, ForkJoinPool forkJoinPool) {
+		// A threshold of zero so that every fill is divided between the threads of the pool
+		matrixFactory.setParallelRandom(new ParallelRandom(SEED, forkJoinPool, 0));
+		return matrixFactory;
+	}
+
+	private void assertEquals(Matrix expected, Matrix actual) {
+		Assert.assertEquals(expected.getRows(), actual.getRows());
+		Assert.assertEquals(expected.getColumns(), actual.getColumns());
+		Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), 0f);
+	}
+}
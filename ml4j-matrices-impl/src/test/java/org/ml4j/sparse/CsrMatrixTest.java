@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.sparse;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.EditableMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.floatarray.FloatArrayPool;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+/**
+ * Checks the kernels and in-place operations of CsrMatrix against dense matrices of the JBlas
+ * reference backend.
+ *
+ * @author Michael Lavelle
+ */
+public class CsrMatrixTest {
+
+	private static final float DELTA = 1e-5f;
+
+	private MatrixFactory referenceMatrixFactory;
+	private CsrMatrixFactory csrMatrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		csrMatrixFactory = new CsrMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testMmul() {
+		int[][] shapes = { { 1, 1, 1 }, { 5, 7, 3 }, { 12, 9, 16 }, { 3, 20, 1 } };
+		for (int[] shape : shapes) {
+			float[] sparseData = randomSparseData(shape[0] * shape[1]);
+			float[] denseData = randomData(shape[1] * shape[2]);
+			Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], sparseData)
+					.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], denseData));
+			Matrix actual = csrMatrixFactory.createCsrMatrixFromRowsByRowsArray(shape[0], shape[1], sparseData)
+					.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], denseData));
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void testLeftMmul() {
+		int[][] shapes = { { 1, 1, 1 }, { 5, 7, 3 }, { 12, 9, 16 }, { 3, 20, 1 } };
+		for (int[] shape : shapes) {
+			float[] denseData = randomData(shape[0] * shape[1]);
+			float[] sparseData = randomSparseData(shape[1] * shape[2]);
+			Matrix dense = referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[0], shape[1], denseData);
+			Matrix expected = dense
+					.mmul(referenceMatrixFactory.createMatrixFromRowsByRowsArray(shape[1], shape[2], sparseData));
+			CsrMatrix sparse = csrMatrixFactory.createCsrMatrixFromRowsByRowsArray(shape[1], shape[2], sparseData);
+
+			assertEquals(expected, sparse.leftMmul(dense, referenceMatrixFactory));
+			// Dense matrices pass sparse operands to leftMmul
+			assertEquals(expected, dense.mmul(sparse));
+			assertEquals(expected, SparseMatrices.mmul(dense, sparse, referenceMatrixFactory));
+		}
+	}
+
+	@Test
+	public void testTransposedProducts() {
+		float[] sparseData = randomSparseData(8 * 5);
+		float[] denseData = randomData(8 * 6);
+		float[] otherDenseData = randomData(4 * 5);
+		Matrix expectedSparse = referenceMatrixFactory.createMatrixFromRowsByRowsArray(8, 5, sparseData);
+		Matrix dense = referenceMatrixFactory.createMatrixFromRowsByRowsArray(8, 6, denseData);
+		Matrix otherDense = referenceMatrixFactory.createMatrixFromRowsByRowsArray(4, 5, otherDenseData);
+		CsrMatrix sparse = csrMatrixFactory.createCsrMatrixFromRowsByRowsArray(8, 5, sparseData);
+
+		assertEquals(expectedSparse.transpose().mmul(dense),
+				SparseMatrices.transposeMmul(sparse, dense, referenceMatrixFactory));
+		assertEquals(otherDense.mmul(expectedSparse.transpose()),
+				SparseMatrices.mmulTranspose(otherDense, sparse, referenceMatrixFactory));
+		assertEquals(expectedSparse.transpose(), sparse.transpose());
+	}
+
+	@Test
+	public void testDenseTransposedProductsLeaveBuffersPooled() {
+		FloatArrayPool floatArrayPool = new FloatArrayPool(1, 4);
+		JBlasRowMajorMatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory(floatArrayPool);
+		Matrix first = matrixFactory.createRand(8, 5);
+		Matrix second = matrixFactory.createRand(8, 6);
+		Matrix third = matrixFactory.createRand(4, 5);
+
+		Matrix transposeProduct = SparseMatrices.transposeMmul(first, second, matrixFactory);
+		Matrix productTranspose = SparseMatrices.mmulTranspose(first, third, matrixFactory);
+		Assert.assertEquals(5, transposeProduct.getRows());
+		Assert.assertEquals(6, transposeProduct.getColumns());
+		Assert.assertEquals(8, productTranspose.getRows());
+		Assert.assertEquals(4, productTranspose.getColumns());
+
+		// The temporary transposes no longer hold the buffers of the operands
+		long releases = floatArrayPool.getReleases();
+		first.close();
+		second.close();
+		third.close();
+		Assert.assertEquals(releases + 3, floatArrayPool.getReleases());
+	}
+
+	@Test
+	public void testOneHotFastPath() {
+		int[] classIndexes = { 3, 0, 2, 2, 1, 3 };
+		float[] denseData = randomData(4 * 5);
+		Matrix dense = referenceMatrixFactory.createMatrixFromRowsByRowsArray(4, 5, denseData);
+		CsrMatrix oneHotRows = csrMatrixFactory.createOneHotRows(classIndexes, 4);
+		CsrMatrix oneHotColumns = csrMatrixFactory.createOneHotColumns(classIndexes, 4);
+
+		// Each one-hot row selects the row of the dense matrix at its class index
+		Matrix selected = oneHotRows.mmul(dense);
+		for (int example = 0; example < classIndexes.length; example++) {
+			for (int column = 0; column < 5; column++) {
+				Assert.assertEquals(dense.get(classIndexes[example], column), selected.get(example, column), 0f);
+			}
+		}
+		assertEquals(dense(oneHotRows).mmul(dense), selected);
+		assertEquals(dense(oneHotRows).transpose(), oneHotColumns);
+		assertEquals(dense.transpose().mmul(dense(oneHotColumns)),
+				oneHotColumns.leftMmul(dense.transpose(), referenceMatrixFactory));
+	}
+
+	@Test
+	public void testInPlaceOperations() {
+		float[] sparseData = randomSparseData(6 * 4);
+		float[] denseData = randomData(6 * 4);
+		Matrix other = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 4, denseData);
+
+		EditableMatrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 4, sparseData.clone())
+				.asEditableMatrix();
+		EditableMatrix actual = csrMatrixFactory.createCsrMatrixFromRowsByRowsArray(6, 4, sparseData)
+				.asEditableMatrix();
+
+		expected.muli(3f);
+		actual.muli(3f);
+		assertEquals(expected, actual);
+		Assert.assertTrue(((CsrMatrix) actual).getNonZeroCount() < 6 * 4);
+
+		expected.addi(2f);
+		actual.addi(2f);
+		assertEquals(expected, actual);
+
+		expected.addi(other);
+		actual.addi(other);
+		assertEquals(expected, actual);
+
+		expected.put(5, 3, 7f);
+		actual.put(5, 3, 7f);
+		assertEquals(expected, actual);
+		assertEquals(expected.mmul(other.transpose()), actual.mmul(other.transpose()));
+	}
+
+	@Test
+	public void testReshape() {
+		float[] sparseData = randomSparseData(6 * 4);
+		Matrix expected = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 4, sparseData.clone());
+		CsrMatrix actual = csrMatrixFactory.createCsrMatrixFromRowsByRowsArray(6, 4, sparseData);
+		int nonZeroCount = actual.getNonZeroCount();
+
+		expected.asEditableMatrix().reshape(3, 8);
+		actual.asEditableMatrix().reshape(3, 8);
+		Assert.assertEquals(3, actual.getRows());
+		Assert.assertEquals(8, actual.getColumns());
+		Assert.assertEquals(nonZeroCount, actual.getNonZeroCount());
+		assertEquals(expected, actual);
+
+		float[] denseData = randomData(8 * 2);
+		Matrix dense = referenceMatrixFactory.createMatrixFromRowsByRowsArray(8, 2, denseData);
+		assertEquals(expected.mmul(dense), actual.mmul(dense));
+	}
+
+	@Test
+	public void testCreateFromRowsAndColumns() {
+		float[][] examples = new float[5][];
+		for (int example = 0; example < examples.length; example++) {
+			examples[example] = randomSparseData(7);
+		}
+		// As used by toSparseNeuronsActivation for each feature orientation
+		CsrMatrix fromRows = csrMatrixFactory.createCsrMatrixFromRows(examples);
+		CsrMatrix fromColumns = csrMatrixFactory.createCsrMatrixFromColumns(examples);
+		Assert.assertEquals(5, fromRows.getRows());
+		Assert.assertEquals(7, fromRows.getColumns());
+		Assert.assertEquals(7, fromColumns.getRows());
+		Assert.assertEquals(5, fromColumns.getColumns());
+		for (int example = 0; example < examples.length; example++) {
+			for (int feature = 0; feature < 7; feature++) {
+				Assert.assertEquals(examples[example][feature], fromRows.get(example, feature), 0f);
+				Assert.assertEquals(examples[example][feature], fromColumns.get(feature, example), 0f);
+			}
+		}
+		assertEquals(fromRows.transpose(), fromColumns);
+	}
+
+	private Matrix dense(Matrix matrix) {
+		return referenceMatrixFactory.createMatrixFromRowsByRowsArray(matrix.getRows(), matrix.getColumns(),
+				matrix.getRowByRowArray());
+	}
+
+	private void assertEquals(Matrix expected, Matrix actual) {
+		Assert.assertEquals(expected.getRows(), actual.getRows());
+		Assert.assertEquals(expected.getColumns(), actual.getColumns());
+		Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), DELTA);
+	}
+
+	private float[] randomSparseData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = random.nextFloat() < 0.3f ? random.nextFloat() - 0.5f : 0f;
+		}
+		return data;
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.tracking;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks that TrackingMatrixFactory leaves the results of its delegate unchanged, and records the
+ * allocations, closes and leaks of the matrices of the JBlas and pure-Java backends.
+ *
+ * @author Michael Lavelle
+ */
+public class TrackingMatrixFactoryTest {
+
+	private static final float DELTA = 1e-5f;
+
+	private MatrixFactory referenceMatrixFactory;
+	private List<MatrixFactory> delegates;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		delegates = Arrays.asList(new JBlasRowMajorMatrixFactory(), new PureJavaRowMajorMatrixFactory());
+		random = new Random(1);
+	}
+
+	@Test
+	public void testResultsMatchReference() {
+		float[] first = randomData(6 * 5);
+		float[] second = randomData(5 * 4);
+		Matrix expectedFirst = referenceMatrixFactory.createMatrixFromRowsByRowsArray(6, 5, first);
+		Matrix expectedSecond = referenceMatrixFactory.createMatrixFromRowsByRowsArray(5, 4, second);
+		for (MatrixFactory delegate : delegates) {
+			TrackingMatrixFactory matrixFactory = new TrackingMatrixFactory(delegate);
+			Matrix actualFirst = matrixFactory.createMatrixFromRowsByRowsArray(6, 5, first.clone());
+			Matrix actualSecond = matrixFactory.createMatrixFromRowsByRowsArray(5, 4, second.clone());
+
+			Assert.assertArrayEquals(expectedFirst.mmul(expectedSecond).getRowByRowArray(),
+					actualFirst.mmul(actualSecond).getRowByRowArray(), DELTA);
+			Assert.assertArrayEquals(expectedFirst.add(1f).getRowByRowArray(),
+					actualFirst.add(1f).getRowByRowArray(), DELTA);
+			matrixFactory.detach();
+		}
+	}
+
+	@Test
+	public void testOperationResultsAreTrackedUntilClosed() {
+		for (MatrixFactory delegate : delegates) {
+			TrackingMatrixFactory matrixFactory = new TrackingMatrixFactory(delegate);
+			Matrix first = matrixFactory.createMatrix(8, 4);
+			Matrix second = matrixFactory.createMatrix(4, 2);
+			Assert.assertEquals((8 * 4 + 4 * 2) * (long) Float.BYTES, matrixFactory.getLiveBytes());
+
+			// Allocated by an operation on a tracked matrix rather than by the factory
+			Matrix product = first.mmul(second);
+			Assert.assertEquals((8 * 4 + 4 * 2 + 8 * 2) * (long) Float.BYTES, matrixFactory.getLiveBytes());
+
+			product.close();
+			second.close();
+			Assert.assertEquals(8 * 4 * (long) Float.BYTES, matrixFactory.getLiveBytes());
+			Assert.assertEquals((8 * 4 + 4 * 2 + 8 * 2) * (long) Float.BYTES, matrixFactory.getPeakBytes());
+
+			matrixFactory.resetPeakBytes();
+			Assert.assertEquals(8 * 4 * (long) Float.BYTES, matrixFactory.getPeakBytes());
+			first.close();
+			Assert.assertEquals(0, matrixFactory.getLiveBytes());
+			Assert.assertTrue(matrixFactory.createLeakReport().isEmpty());
+			matrixFactory.detach();
+		}
+	}
+
+	@Test
+	public void testLeakReportSinceMark() {
+		for (MatrixFactory delegate : delegates) {
+			TrackingMatrixFactory matrixFactory = new TrackingMatrixFactory(delegate);
+			Matrix beforeMark = matrixFactory.createMatrix(2, 2);
+			long mark = matrixFactory.mark();
+			Matrix closed = matrixFactory.createMatrix(3, 3);
+			Matrix leaked = matrixFactory.createMatrix(5, 7);
+			closed.close();
+
+			MatrixLeakReport report = matrixFactory.createLeakReport(mark);
+			Assert.assertEquals(1, report.getLeakCount());
+			MatrixAllocation leak = report.getLeaks().get(0);
+			Assert.assertEquals(5, leak.getRows());
+			Assert.assertEquals(7, leak.getColumns());
+			Assert.assertEquals(5 * 7 * (long) Float.BYTES, report.getLeakedBytes());
+			Assert.assertFalse(leak.isCollected());
+			Assert.assertNotNull(leak.getCallSite());
+			Assert.assertEquals(2, matrixFactory.createLeakReport().getLeakCount());
+
+			beforeMark.close();
+			leaked.close();
+			Assert.assertTrue(matrixFactory.createLeakReport().isEmpty());
+			matrixFactory.detach();
+		}
+	}
+
+	@Test
+	public void testCallSiteSampling() {
+		TrackingMatrixFactory unsampled = new TrackingMatrixFactory(new PureJavaRowMajorMatrixFactory(), 0);
+		unsampled.createMatrix(2, 2);
+		Assert.assertNull(unsampled.createLeakReport().getLeaks().get(0).getCallSite());
+
+		TrackingMatrixFactory sampled = new TrackingMatrixFactory(new PureJavaRowMajorMatrixFactory(), 2);
+		for (int i = 0; i < 4; i++) {
+			sampled.createMatrix(2, 2);
+		}
+		List<MatrixAllocation> leaks = sampled.createLeakReport().getLeaks();
+		Assert.assertEquals(4, leaks.size());
+		for (MatrixAllocation leak : leaks) {
+			Assert.assertEquals(leak.getSequence() % 2 == 0, leak.getCallSite() != null);
+		}
+	}
+
+	@Test
+	public void testThreadStatistics() {
+		TrackingMatrixFactory matrixFactory = new TrackingMatrixFactory(new PureJavaRowMajorMatrixFactory());
+		Matrix first = matrixFactory.createMatrix(4, 4);
+		matrixFactory.createMatrix(2, 2);
+		first.close();
+
+		List<ThreadMatrixStatistics> statistics = matrixFactory.getThreadStatistics();
+		Assert.assertEquals(1, statistics.size());
+		ThreadMatrixStatistics threadStatistics = statistics.get(0);
+		Assert.assertEquals(Thread.currentThread().getName(), threadStatistics.getThreadName());
+		Assert.assertEquals(2, threadStatistics.getAllocationCount());
+		Assert.assertEquals(1, threadStatistics.getClosedCount());
+		Assert.assertEquals(1, threadStatistics.getLiveCount());
+		Assert.assertEquals(2 * 2 * (long) Float.BYTES, threadStatistics.getLiveBytes());
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.views;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.direct.DirectFloatBufferMatrixFactory;
+import org.ml4j.halfprecision.HalfPrecisionMatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.purejava.PureJavaRowMajorMatrixFactory;
+
+/**
+ * Checks the ranges of values copied by the RowByRowValuesMatrix implementations against their row
+ * by row arrays.
+ *
+ * @author Michael Lavelle
+ */
+public class RowByRowValuesMatrixTest {
+
+	private static final int ROWS = 7;
+
+	private static final int COLUMNS = 9;
+
+	private MatrixFactory referenceMatrixFactory;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		referenceMatrixFactory = new JBlasRowMajorMatrixFactory();
+		random = new Random(1);
+	}
+
+	@Test
+	public void testRangesMatchRowByRowArray() {
+		float[] data = randomData(ROWS * COLUMNS);
+		Matrix reference = referenceMatrixFactory.createMatrixFromRowsByRowsArray(ROWS, COLUMNS, data);
+		for (MatrixFactory matrixFactory : new MatrixFactory[] { new JBlasRowMajorMatrixFactory(),
+				new PureJavaRowMajorMatrixFactory(), new DirectFloatBufferMatrixFactory() }) {
+			assertRangesMatch(matrixFactory.createMatrixFromRowsByRowsArray(ROWS, COLUMNS, data.clone()));
+		}
+		assertRangesMatch(new HalfPrecisionMatrixFactory().compress(reference));
+		assertRangesMatch(new JBlasRowMajorMatrixFactory().createMatrixFromRowsByRowsArray(ROWS, COLUMNS, data.clone())
+				.transpose());
+		assertRangesMatch(MatrixViews.getColumnRange(
+				new PureJavaRowMajorMatrixFactory().createMatrixFromRowsByRowsArray(ROWS, COLUMNS, data.clone()), 2,
+				7));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRangeBeyondMatrix() {
+		RowByRowValuesMatrix matrix = (RowByRowValuesMatrix) new PureJavaRowMajorMatrixFactory().createZeros(ROWS,
+				COLUMNS);
+		matrix.getRowByRowValues(0, ROWS * COLUMNS + 1, new float[ROWS * COLUMNS + 1], 0);
+	}
+
+	private void assertRangesMatch(Matrix matrix) {
+		Assert.assertTrue(matrix instanceof RowByRowValuesMatrix);
+		int length = matrix.getLength();
+		int[][] ranges = { { 0, length }, { 0, 0 }, { 5, 17 }, { length - 3, length } };
+		for (int[] range : ranges) {
+			float[] target = new float[range[1] - range[0] + 2];
+			((RowByRowValuesMatrix) matrix).getRowByRowValues(range[0], range[1], target, 2);
+			// Element by element, leaving a transposed view a view
+			float[] expected = new float[range[1] - range[0]];
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] = matrix.get(range[0] + i);
+			}
+			Assert.assertArrayEquals(expected, Arrays.copyOfRange(target, 2, target.length), 0f);
+		}
+	}
+
+	private float[] randomData(int length) {
+		float[] data = new float[length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat() - 0.5f;
+		}
+		return data;
+	}
+}
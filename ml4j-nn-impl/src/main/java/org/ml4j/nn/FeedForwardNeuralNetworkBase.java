@@ -59,6 +59,7 @@ import org.ml4j.nn.neurons.NeuronsActivationImpl;
 import org.ml4j.nn.neurons.format.NeuronsActivationFormat;
 import org.ml4j.nn.optimisation.GradientDescentOptimisationStrategy;
 import org.ml4j.nn.optimisation.TrainingLearningRateAdjustmentStrategy;
+import org.ml4j.views.MatrixViews;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -175,14 +176,14 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 				int numberOfBatches = (numberOfTrainingElements - 1) / miniBatchSize + 1;
 				for (int batchIndex = 0; batchIndex < numberOfBatches; batchIndex++) {
 					int startColumnIndex = batchIndex * miniBatchSize;
-					int endColumnIndex = Math.min(startColumnIndex + miniBatchSize - 1, numberOfTrainingElements - 1);
-					int[] columnsIndexes = new int[endColumnIndex - startColumnIndex + 1];
-					for (int c = startColumnIndex; c <= endColumnIndex; c++) {
-						columnsIndexes[c - startColumnIndex] = c;
-					}
-					try (InterrimMatrix dataBatch = activations.getColumns(columnsIndexes).asInterrimMatrix();
-							InterrimMatrix labelBatch = trainingLabelActivations
-									.getActivations(trainingContext.getMatrixFactory()).getColumns(columnsIndexes)
+					int endColumnIndexExclusive = Math.min(startColumnIndex + miniBatchSize, numberOfTrainingElements);
+					try (InterrimMatrix dataBatch = MatrixViews
+							.getColumnRange(activations, startColumnIndex, endColumnIndexExclusive)
+							.asInterrimMatrix();
+							InterrimMatrix labelBatch = MatrixViews
+									.getColumnRange(
+											trainingLabelActivations.getActivations(trainingContext.getMatrixFactory()),
+											startColumnIndex, endColumnIndexExclusive)
 									.asInterrimMatrix()) {
 
 						NeuronsActivation batchDataActivations = new NeuronsActivationImpl(getInputNeurons(), dataBatch,
@@ -16,8 +16,8 @@
 
 package org.ml4j.nn.costfunctions;
 
-import org.ml4j.InterrimMatrix;
 import org.ml4j.Matrix;
+import org.ml4j.expressions.MatrixExpression;
 
 /**
  * Cross entropy cost function.
@@ -30,25 +30,12 @@ public class CrossEntropyCostFunction implements CostFunction {
 	@Override
 	public float getTotalCost(Matrix desiredOutputs, Matrix actualOutputs) {
 
-		try (InterrimMatrix logOfActualOutputs = actualOutputs.log().asInterrimMatrix()) {
-			try (InterrimMatrix negativeOfDesiredOutputs = desiredOutputs.mul(-1).asInterrimMatrix()) {
-				try (InterrimMatrix negativeOfActualOutputsAddOne = actualOutputs.mul(-1).asEditableMatrix().addi(1)
-						.asInterrimMatrix()) {
-					try (InterrimMatrix first = negativeOfDesiredOutputs.mul(logOfActualOutputs).asInterrimMatrix()) {
-						try (InterrimMatrix second = negativeOfActualOutputsAddOne.logi().asInterrimMatrix()) {
-							try (InterrimMatrix third = negativeOfDesiredOutputs.asEditableMatrix().addi(1).muli(second)
-									.asInterrimMatrix()) {
-								try (InterrimMatrix jpart = first.asEditableMatrix().subi(third).asInterrimMatrix()) {
-									try (InterrimMatrix jpartRowSums = jpart.rowSums().asInterrimMatrix()) {
-										return jpartRowSums.sum();
-									}
-								}
-							}
-						}
-					}
-				}
-			}
-		}
+		// -y * log(a) - (1 - y) * log(1 - a), summed in a single pass
+		MatrixExpression first = MatrixExpression.of(desiredOutputs).neg()
+				.mul(MatrixExpression.of(actualOutputs).log());
+		MatrixExpression second = MatrixExpression.scalar(1).sub(desiredOutputs)
+				.mul(MatrixExpression.scalar(1).sub(actualOutputs).log());
+		return first.sub(second).sum();
 	}
 
 	@Override
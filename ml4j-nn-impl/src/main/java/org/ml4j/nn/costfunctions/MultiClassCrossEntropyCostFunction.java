@@ -14,9 +14,8 @@
 
 package org.ml4j.nn.costfunctions;
 
-import org.ml4j.EditableMatrix;
-import org.ml4j.InterrimMatrix;
 import org.ml4j.Matrix;
+import org.ml4j.expressions.MatrixExpression;
 
 /**
  * Multi class cross entropy cost function.
@@ -26,6 +25,9 @@ import org.ml4j.Matrix;
  */
 public class MultiClassCrossEntropyCostFunction implements CostFunction {
 
+	private static final float LOWER_LIMIT = 0.00000000001f;
+	private static final float UPPER_LIMIT = 1 - 0.00000000001f;
+
 	@Override
 	public float getTotalCost(Matrix desiredOutputs, Matrix actualOutputs) {
 
@@ -36,33 +38,9 @@ public class MultiClassCrossEntropyCostFunction implements CostFunction {
 			throw new IllegalArgumentException("Mismatched row count between desired and actual outputs");
 		}
 
-		try (InterrimMatrix limitLog = limitLog(actualOutputs).asInterrimMatrix()) {
-			try (InterrimMatrix negativeOfDesiredOutputs = desiredOutputs.mul(-1).asInterrimMatrix()) {
-				try (InterrimMatrix jpart = (negativeOfDesiredOutputs.asEditableMatrix().muli(limitLog)).rowSums()
-						.asInterrimMatrix()) {
-					return jpart.sum();
-				}
-			}
-
-		}
-
-	}
-
-	private double limit(float value) {
-		// Removed 4 0's
-		value = Math.min(value, 1 - 0.00000000001f);
-		value = Math.max(value, 0.00000000001f);
-		return value;
-	}
-
-	private Matrix limitLog(Matrix matrix) {
-		EditableMatrix dupMatrix = matrix.dup().asEditableMatrix();
-		for (int r = 0; r < dupMatrix.getRows(); r++) {
-			for (int c = 0; c < dupMatrix.getColumns(); c++) {
-				dupMatrix.put(r, c, (float) Math.log(limit(dupMatrix.get(r, c))));
-			}
-		}
-		return dupMatrix;
+		// -y * log(a), with a limited away from 0 and 1, summed in a single pass
+		return MatrixExpression.of(desiredOutputs).neg()
+				.mul(MatrixExpression.of(actualOutputs).clamp(LOWER_LIMIT, UPPER_LIMIT).log()).sum();
 	}
 
 	@Override
@@ -15,6 +15,7 @@
 package org.ml4j.nn.costfunctions;
 
 import org.ml4j.Matrix;
+import org.ml4j.expressions.MatrixExpression;
 
 /**
  * Sum Squared Error cost function.
@@ -26,9 +27,7 @@ public class SumSquaredErrorCostFunction implements CostFunction {
 
 	@Override
 	public float getTotalCost(Matrix desiredOutputs, Matrix actualOutputs) {
-		Matrix e1 = desiredOutputs.sub(actualOutputs);
-		Matrix jpart = e1.asEditableMatrix().muli(e1);
-		return jpart.sum();
+		return MatrixExpression.of(desiredOutputs).sub(actualOutputs).square().sum();
 	}
 
 	@Override
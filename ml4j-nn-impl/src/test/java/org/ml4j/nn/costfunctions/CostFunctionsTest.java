@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.costfunctions;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.floatarray.FloatArrayPool;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+/**
+ * Checks the total costs of the cost functions against the costs summed value by value, and that
+ * computing them leaves pooled outputs to be returned to the pool when closed.
+ *
+ * @author Michael Lavelle
+ */
+public class CostFunctionsTest {
+
+	private static final int ROWS = 20;
+
+	private static final int COLUMNS = 30;
+
+	private static final float DELTA = 1e-3f;
+
+	private FloatArrayPool floatArrayPool;
+	private JBlasRowMajorMatrixFactory matrixFactory;
+
+	@Before
+	public void setUp() {
+		floatArrayPool = new FloatArrayPool(1, 4);
+		matrixFactory = new JBlasRowMajorMatrixFactory(floatArrayPool);
+	}
+
+	@Test
+	public void testSumSquaredError() {
+		assertTotalCost(new SumSquaredErrorCostFunction(), (desired, actual) -> (desired - actual) * (desired - actual));
+	}
+
+	@Test
+	public void testCrossEntropy() {
+		assertTotalCost(new CrossEntropyCostFunction(),
+				(desired, actual) -> -desired * (float) Math.log(actual)
+						- (1 - desired) * (float) Math.log(1 - actual));
+	}
+
+	@Test
+	public void testMultiClassCrossEntropy() {
+		assertTotalCost(new MultiClassCrossEntropyCostFunction(),
+				(desired, actual) -> -desired * (float) Math.log(actual));
+	}
+
+	private void assertTotalCost(CostFunction costFunction, ValueCost valueCost) {
+		// Outputs strictly between 0 and 1, of buffers from the pool
+		Matrix desiredOutputs = matrixFactory.createRand(ROWS, COLUMNS).asEditableMatrix().muli(0.98f).addi(0.01f);
+		Matrix actualOutputs = matrixFactory.createRand(ROWS, COLUMNS).asEditableMatrix().muli(0.98f).addi(0.01f);
+		float expected = 0f;
+		for (int row = 0; row < ROWS; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				expected += valueCost.getCost(desiredOutputs.get(row, column), actualOutputs.get(row, column));
+			}
+		}
+
+		Assert.assertEquals(expected, costFunction.getTotalCost(desiredOutputs, actualOutputs),
+				DELTA * Math.abs(expected));
+
+		// Reading the outputs does not stop their buffers being returned to the pool
+		long releases = floatArrayPool.getReleases();
+		desiredOutputs.close();
+		actualOutputs.close();
+		Assert.assertEquals(releases + 2, floatArrayPool.getReleases());
+	}
+
+	/**
+	 * The cost of a single desired and actual output value.
+	 */
+	private interface ValueCost {
+
+		float getCost(float desired, float actual);
+	}
+}